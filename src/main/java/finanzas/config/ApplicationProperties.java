@@ -1,6 +1,8 @@
 package finanzas.config;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Angularv 3.
@@ -13,12 +15,42 @@ public class ApplicationProperties {
 
     private final Liquibase liquibase = new Liquibase();
 
+    private final Whatsapp whatsapp = new Whatsapp();
+
+    private final Presupuesto presupuesto = new Presupuesto();
+
+    private final Analitica analitica = new Analitica();
+
+    private final Extractos extractos = new Extractos();
+
+    private final Recurrencias recurrencias = new Recurrencias();
+
     // jhipster-needle-application-properties-property
 
     public Liquibase getLiquibase() {
         return liquibase;
     }
 
+    public Whatsapp getWhatsapp() {
+        return whatsapp;
+    }
+
+    public Presupuesto getPresupuesto() {
+        return presupuesto;
+    }
+
+    public Analitica getAnalitica() {
+        return analitica;
+    }
+
+    public Extractos getExtractos() {
+        return extractos;
+    }
+
+    public Recurrencias getRecurrencias() {
+        return recurrencias;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
     public static class Liquibase {
@@ -33,5 +65,550 @@ public class ApplicationProperties {
             this.asyncStart = asyncStart;
         }
     }
+
+    public static class Whatsapp {
+
+        /**
+         * Si es {@code true}, {@code /api/webhook/whatsapp} solo guarda el mensaje y responde; el procesamiento y la
+         * respuesta del bot se hacen en segundo plano. Exige un {@code WhatsappSender} (ver {@link Envio}): sin él las
+         * respuestas no llegarían al remitente y la aplicación no arranca.
+         */
+        private boolean ackFast = false;
+
+        private final Envio envio = new Envio();
+
+        private final Ingest ingest = new Ingest();
+
+        private final RateLimit rateLimit = new RateLimit();
+
+        private final Retencion retencion = new Retencion();
+
+        public boolean isAckFast() {
+            return ackFast;
+        }
+
+        public void setAckFast(boolean ackFast) {
+            this.ackFast = ackFast;
+        }
+
+        public Envio getEnvio() {
+            return envio;
+        }
+
+        public Ingest getIngest() {
+            return ingest;
+        }
+
+        public RateLimit getRateLimit() {
+            return rateLimit;
+        }
+
+        public Retencion getRetencion() {
+            return retencion;
+        }
+
+        /**
+         * Envío de las respuestas del bot que se generan en segundo plano, con la Cloud API de WhatsApp
+         * ({@code WhatsappCloudApiSender}). Sin {@code url} no se envían, salvo que se declare otro {@code WhatsappSender}.
+         */
+        public static class Envio {
+
+            /** Endpoint de mensajes del número emisor, p. ej. {@code https://graph.facebook.com/v21.0/<id>/messages}. */
+            private String url;
+
+            /** Token de acceso, enviado como {@code Authorization: Bearer}. */
+            private String token;
+
+            /** Tiempo máximo para conectar y para recibir la respuesta del proveedor. */
+            private Duration timeout = Duration.ofSeconds(10);
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getToken() {
+                return token;
+            }
+
+            public void setToken(String token) {
+                this.token = token;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+        }
+
+        /**
+         * Particiones mensuales de {@code whatsapp_message}: cuántas se crean por adelantado y cuántas se conservan antes
+         * de archivarlas.
+         */
+        public static class Retencion {
+
+            /** Cuándo se crean y archivan particiones; {@code -} para no hacerlo automáticamente. */
+            private String cron = "0 15 4 * * ?";
+
+            /** Meses completos que se conservan en la base de datos, además del actual. */
+            private int meses = 12;
+
+            /**
+             * Meses que se conserva además una partición ya fuera de la retención porque tiene mensajes en un estado no
+             * terminal; pasados, se archiva igualmente.
+             */
+            private int mesesGracia = 3;
+
+            /** Meses siguientes al actual para los que ya debe existir partición. */
+            private int mesesAdelantados = 3;
+
+            /** Directorio de los archivos {@code .csv.gz} de las particiones archivadas. */
+            private String directorio = "archivo/whatsapp";
+
+            public String getCron() {
+                return cron;
+            }
+
+            public void setCron(String cron) {
+                this.cron = cron;
+            }
+
+            public int getMeses() {
+                return meses;
+            }
+
+            public void setMeses(int meses) {
+                this.meses = meses;
+            }
+
+            public int getMesesGracia() {
+                return mesesGracia;
+            }
+
+            public void setMesesGracia(int mesesGracia) {
+                this.mesesGracia = mesesGracia;
+            }
+
+            public int getMesesAdelantados() {
+                return mesesAdelantados;
+            }
+
+            public void setMesesAdelantados(int mesesAdelantados) {
+                this.mesesAdelantados = mesesAdelantados;
+            }
+
+            public String getDirectorio() {
+                return directorio;
+            }
+
+            public void setDirectorio(String directorio) {
+                this.directorio = directorio;
+            }
+        }
+
+        /**
+         * Límite de mensajes entrantes por los webhooks, por remitente y en total, con cubetas de tokens.
+         */
+        public static class RateLimit {
+
+            private boolean enabled = true;
+
+            /** Ráfaga y ritmo sostenido admitidos a un mismo número de teléfono. */
+            private final Cubeta remitente = new Cubeta(20, 30);
+
+            /** Ráfaga y ritmo sostenido admitidos entre todos los remitentes. */
+            private final Cubeta global = new Cubeta(500, 6000);
+
+            /** Franjas con cerrojo propio en que se reparten las cubetas de los remitentes. */
+            private int franjas = 64;
+
+            /** Remitentes con cubeta en memoria; por encima se olvidan los menos recientes. */
+            private int maxRemitentes = 100_000;
+
+            /** Si es {@code true}, las cubetas se guardan en Redis y el límite es común a todos los nodos. */
+            private boolean redis = false;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Cubeta getRemitente() {
+                return remitente;
+            }
+
+            public Cubeta getGlobal() {
+                return global;
+            }
+
+            public int getFranjas() {
+                return franjas;
+            }
+
+            public void setFranjas(int franjas) {
+                this.franjas = franjas;
+            }
+
+            public int getMaxRemitentes() {
+                return maxRemitentes;
+            }
+
+            public void setMaxRemitentes(int maxRemitentes) {
+                this.maxRemitentes = maxRemitentes;
+            }
+
+            public boolean isRedis() {
+                return redis;
+            }
+
+            public void setRedis(boolean redis) {
+                this.redis = redis;
+            }
+
+            public static class Cubeta {
+
+                /** Mensajes que se admiten de golpe con la cubeta llena. */
+                private int capacidad;
+
+                /** Tokens que se reponen por minuto. */
+                private int porMinuto;
+
+                public Cubeta() {}
+
+                Cubeta(int capacidad, int porMinuto) {
+                    this.capacidad = capacidad;
+                    this.porMinuto = porMinuto;
+                }
+
+                public int getCapacidad() {
+                    return capacidad;
+                }
+
+                public void setCapacidad(int capacidad) {
+                    this.capacidad = capacidad;
+                }
+
+                public int getPorMinuto() {
+                    return porMinuto;
+                }
+
+                public void setPorMinuto(int porMinuto) {
+                    this.porMinuto = porMinuto;
+                }
+            }
+        }
+
+        /**
+         * Cola de procesamiento asíncrono de mensajes entrantes.
+         */
+        public static class Ingest {
+
+            /** Hilos que procesan mensajes en paralelo. */
+            private int workers = 4;
+
+            /** Mensajes en espera admitidos; por encima se rechazan y los recoge el barrido. */
+            private int queueCapacity = 500;
+
+            /** Máximo de mensajes pendientes que reclama cada barrido. */
+            private int batchSize = 50;
+
+            /** Intervalo del barrido de respaldo que recoge mensajes no encolados. */
+            private Duration sweepDelay = Duration.ofSeconds(30);
+
+            /** Duración del arrendamiento de un mensaje reclamado; si el nodo cae, otro lo recupera al vencer. */
+            private Duration lease = Duration.ofMinutes(2);
+
+            /** Ids de proveedor recientes que se recuerdan en memoria para descartar reintentos sin ir a la base de datos. */
+            private int recentIdsCacheSize = 10_000;
+
+            /** Fallos inesperados tras los que un mensaje deja de reintentarse y queda {@code DESCARTADO}. */
+            private int maxIntentos = 5;
+
+            /** Espera antes del primer reintento; se duplica en cada fallo hasta {@code reintentoMaximo}. */
+            private Duration reintentoBase = Duration.ofSeconds(30);
+
+            /** Espera máxima entre reintentos. */
+            private Duration reintentoMaximo = Duration.ofHours(1);
+
+            /** Cada cuánto se encolan los reintentos ya vencidos de este nodo. */
+            private Duration reintentoPoll = Duration.ofSeconds(1);
+
+            public int getWorkers() {
+                return workers;
+            }
+
+            public void setWorkers(int workers) {
+                this.workers = workers;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public Duration getSweepDelay() {
+                return sweepDelay;
+            }
+
+            public void setSweepDelay(Duration sweepDelay) {
+                this.sweepDelay = sweepDelay;
+            }
+
+            public Duration getLease() {
+                return lease;
+            }
+
+            public void setLease(Duration lease) {
+                this.lease = lease;
+            }
+
+            public int getRecentIdsCacheSize() {
+                return recentIdsCacheSize;
+            }
+
+            public void setRecentIdsCacheSize(int recentIdsCacheSize) {
+                this.recentIdsCacheSize = recentIdsCacheSize;
+            }
+
+            public int getMaxIntentos() {
+                return maxIntentos;
+            }
+
+            public void setMaxIntentos(int maxIntentos) {
+                this.maxIntentos = maxIntentos;
+            }
+
+            public Duration getReintentoBase() {
+                return reintentoBase;
+            }
+
+            public void setReintentoBase(Duration reintentoBase) {
+                this.reintentoBase = reintentoBase;
+            }
+
+            public Duration getReintentoMaximo() {
+                return reintentoMaximo;
+            }
+
+            public void setReintentoMaximo(Duration reintentoMaximo) {
+                this.reintentoMaximo = reintentoMaximo;
+            }
+
+            public Duration getReintentoPoll() {
+                return reintentoPoll;
+            }
+
+            public void setReintentoPoll(Duration reintentoPoll) {
+                this.reintentoPoll = reintentoPoll;
+            }
+        }
+    }
+
+    public static class Presupuesto {
+
+        private final Alertas alertas = new Alertas();
+
+        public Alertas getAlertas() {
+            return alertas;
+        }
+
+        /**
+         * Avisos al alcanzar el 80 % y el 100 % de un presupuesto.
+         */
+        public static class Alertas {
+
+            /** Intervalo en el que se agrupan los movimientos de un usuario antes de evaluar sus presupuestos. */
+            private Duration coalesceDelay = Duration.ofSeconds(10);
+
+            public Duration getCoalesceDelay() {
+                return coalesceDelay;
+            }
+
+            public void setCoalesceDelay(Duration coalesceDelay) {
+                this.coalesceDelay = coalesceDelay;
+            }
+        }
+    }
+
+    /**
+     * Instantáneas en memoria de los movimientos de cada usuario para las consultas analíticas.
+     */
+    public static class Analitica {
+
+        /** Si es {@code false}, cada consulta se agrupa en PostgreSQL y no se guarda nada en memoria. */
+        private boolean enabled = true;
+
+        /** Memoria total para las instantáneas; al superarla se expulsan las menos usadas. */
+        private DataSize memoria = DataSize.ofMegabytes(64);
+
+        /**
+         * Cada cuánto se compara una instantánea con la versión de los movimientos en la base de datos, para ver los
+         * cambios hechos en otros nodos. {@code 0} la compara en cada consulta.
+         */
+        private Duration revalidacion = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getMemoria() {
+            return memoria;
+        }
+
+        public void setMemoria(DataSize memoria) {
+            this.memoria = memoria;
+        }
+
+        public Duration getRevalidacion() {
+            return revalidacion;
+        }
+
+        public void setRevalidacion(Duration revalidacion) {
+            this.revalidacion = revalidacion;
+        }
+    }
+
+    /**
+     * Generación de los extractos mensuales.
+     */
+    public static class Extractos {
+
+        /** Cuándo se generan los extractos del mes anterior; {@code -} para no generarlos automáticamente. */
+        private String cron = "0 0 3 1 * ?";
+
+        /** Hilos que generan bloques en paralelo; cada uno ocupa una conexión del pool mientras escribe. */
+        private int hilos = 4;
+
+        /** Usuarios por bloque: cada bloque es una transacción y un paso del punto de control. */
+        private int bloque = 100;
+
+        /** Tiempo sin avanzar tras el que otra ejecución puede retomar una generación en curso. */
+        private Duration arrendamiento = Duration.ofMinutes(10);
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public int getHilos() {
+            return hilos;
+        }
+
+        public void setHilos(int hilos) {
+            this.hilos = hilos;
+        }
+
+        public int getBloque() {
+            return bloque;
+        }
+
+        public void setBloque(int bloque) {
+            this.bloque = bloque;
+        }
+
+        public Duration getArrendamiento() {
+            return arrendamiento;
+        }
+
+        public void setArrendamiento(Duration arrendamiento) {
+            this.arrendamiento = arrendamiento;
+        }
+    }
+
+    public static class Recurrencias {
+
+        /** Cuándo se buscan movimientos recurrentes; {@code -} para no buscarlos automáticamente. */
+        private String cron = "0 30 2 * * ?";
+
+        /** Hilos que analizan bloques en paralelo; cada uno ocupa una conexión del pool mientras trabaja. */
+        private int hilos = 4;
+
+        /** Usuarios por bloque: cada bloque es una transacción. */
+        private int bloque = 100;
+
+        /** Meses de histórico analizados por clave; las series anuales necesitan más de dos años para repetirse tres veces. */
+        private int meses = 25;
+
+        /** Tiempo tras el que otro nodo puede retomar una detección que no avanza. */
+        private Duration arrendamiento = Duration.ofMinutes(10);
+
+        /** Cuánto antes de la marca de agua se vuelve a leer, para los movimientos de transacciones que confirmaron tarde. */
+        private Duration margen = Duration.ofHours(1);
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public int getHilos() {
+            return hilos;
+        }
+
+        public void setHilos(int hilos) {
+            this.hilos = hilos;
+        }
+
+        public int getBloque() {
+            return bloque;
+        }
+
+        public void setBloque(int bloque) {
+            this.bloque = bloque;
+        }
+
+        public int getMeses() {
+            return meses;
+        }
+
+        public void setMeses(int meses) {
+            this.meses = meses;
+        }
+
+        public Duration getArrendamiento() {
+            return arrendamiento;
+        }
+
+        public void setArrendamiento(Duration arrendamiento) {
+            this.arrendamiento = arrendamiento;
+        }
+
+        public Duration getMargen() {
+            return margen;
+        }
+
+        public void setMargen(Duration margen) {
+            this.margen = margen;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
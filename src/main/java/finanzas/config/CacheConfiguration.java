@@ -9,6 +9,7 @@ import javax.cache.expiry.Duration;
 
 import org.hibernate.cache.jcache.ConfigSettings;
 import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
 import org.redisson.config.Config;
 import org.redisson.config.SingleServerConfig;
 import org.redisson.jcache.configuration.RedissonConfiguration;
@@ -32,9 +33,11 @@ public class CacheConfiguration {
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
 
-    @Bean
-    public javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(JHipsterProperties jHipsterProperties) {
-        MutableConfiguration<Object, Object> jcacheConfig = new MutableConfiguration<>();
+    /**
+     * Cliente de Redis de la caché; también lo usa el límite de mensajes de WhatsApp cuando es común a todos los nodos.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public RedissonClient redissonClient(JHipsterProperties jHipsterProperties) {
         URI redisUri = URI.create(jHipsterProperties.getCache().getRedis().getServer()[0]);
 
         Config config = new Config();
@@ -51,12 +54,21 @@ public class CacheConfiguration {
             singleServerConfig.setPassword(redisUri.getUserInfo().substring(redisUri.getUserInfo().indexOf(':') + 1));
         }
 
+        return Redisson.create(config);
+    }
+
+    @Bean
+    public javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(
+        JHipsterProperties jHipsterProperties,
+        RedissonClient redissonClient
+    ) {
+        MutableConfiguration<Object, Object> jcacheConfig = new MutableConfiguration<>();
         jcacheConfig.setStatisticsEnabled(true);
         jcacheConfig.setExpiryPolicyFactory(
             CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.SECONDS, jHipsterProperties.getCache().getRedis().getExpiration()))
         );
 
-        return RedissonConfiguration.fromInstance(Redisson.create(config), jcacheConfig);
+        return RedissonConfiguration.fromInstance(redissonClient, jcacheConfig);
     }
 
     @Bean
@@ -69,6 +81,8 @@ public class CacheConfiguration {
         return cm -> {
             createCache(cm, finanzas.repository.UserRepository.USERS_BY_LOGIN_CACHE, jcacheConfiguration);
             createCache(cm, finanzas.repository.UserRepository.USERS_BY_EMAIL_CACHE, jcacheConfiguration);
+            createCache(cm, finanzas.repository.UserRepository.USERS_BY_PHONE_CACHE, jcacheConfiguration);
+            createCache(cm, finanzas.service.DiccionarioNombresService.DICCIONARIO_NOMBRES_CACHE, jcacheConfiguration);
             createCache(cm, finanzas.domain.User.class.getName(), jcacheConfiguration);
             createCache(cm, finanzas.domain.Authority.class.getName(), jcacheConfiguration);
             createCache(cm, finanzas.domain.User.class.getName() + ".authorities", jcacheConfiguration);
@@ -0,0 +1,130 @@
+package finanzas.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Saldo neto diario de una {@link Cuenta}.
+ * <p>
+ * Cada fila acumula {@code ingresos - gastos} de los movimientos de la cuenta cuyo
+ * {@code fecha_movimiento} cae en ese día (UTC). Se mantiene de forma incremental desde
+ * {@link finanzas.service.CuentaSaldoService} en la misma transacción que escribe el movimiento.
+ */
+@Entity
+@Table(name = "cuenta_saldo_diario")
+public class CuentaSaldoDiario implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @EmbeddedId
+    private CuentaSaldoDiarioId id;
+
+    @NotNull
+    @Column(name = "neto", precision = 21, scale = 2, nullable = false)
+    private BigDecimal neto;
+
+    public CuentaSaldoDiarioId getId() {
+        return this.id;
+    }
+
+    public void setId(CuentaSaldoDiarioId id) {
+        this.id = id;
+    }
+
+    public BigDecimal getNeto() {
+        return this.neto;
+    }
+
+    public void setNeto(BigDecimal neto) {
+        this.neto = neto;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CuentaSaldoDiario)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((CuentaSaldoDiario) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CuentaSaldoDiario{" +
+            "id=" + getId() +
+            ", neto=" + getNeto() +
+            "}";
+    }
+
+    /**
+     * Clave compuesta (cuenta, día).
+     */
+    @Embeddable
+    public static class CuentaSaldoDiarioId implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Column(name = "cuenta_id", nullable = false)
+        private Long cuentaId;
+
+        @Column(name = "fecha", nullable = false)
+        private LocalDate fecha;
+
+        public CuentaSaldoDiarioId() {}
+
+        public CuentaSaldoDiarioId(Long cuentaId, LocalDate fecha) {
+            this.cuentaId = cuentaId;
+            this.fecha = fecha;
+        }
+
+        public Long getCuentaId() {
+            return cuentaId;
+        }
+
+        public void setCuentaId(Long cuentaId) {
+            this.cuentaId = cuentaId;
+        }
+
+        public LocalDate getFecha() {
+            return fecha;
+        }
+
+        public void setFecha(LocalDate fecha) {
+            this.fecha = fecha;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CuentaSaldoDiarioId)) {
+                return false;
+            }
+            CuentaSaldoDiarioId other = (CuentaSaldoDiarioId) o;
+            return Objects.equals(cuentaId, other.cuentaId) && Objects.equals(fecha, other.fecha);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cuentaId, fecha);
+        }
+
+        @Override
+        public String toString() {
+            return "CuentaSaldoDiarioId{cuentaId=" + cuentaId + ", fecha=" + fecha + "}";
+        }
+    }
+}
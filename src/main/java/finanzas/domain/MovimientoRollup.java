@@ -0,0 +1,215 @@
+package finanzas.domain;
+
+import finanzas.domain.enumeration.DimensionRollup;
+import finanzas.domain.enumeration.PeriodoRollup;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Ingresos y gastos acumulados de un usuario en un periodo (día, semana o mes, en UTC), desglosados por categoría o
+ * por cuenta.
+ * <p>
+ * Se mantiene de forma incremental desde {@link finanzas.service.MovimientoRollupService} en la misma transacción que
+ * escribe el movimiento, de modo que las series temporales leen unas pocas filas por periodo en lugar de recorrer
+ * {@code movimiento}. {@code claveId = 0} agrupa los movimientos sin categoría o sin cuenta.
+ */
+@Entity
+@Table(name = "movimiento_rollup")
+public class MovimientoRollup implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @EmbeddedId
+    private MovimientoRollupId id;
+
+    @NotNull
+    @Column(name = "ingresos", precision = 21, scale = 2, nullable = false)
+    private BigDecimal ingresos;
+
+    @NotNull
+    @Column(name = "gastos", precision = 21, scale = 2, nullable = false)
+    private BigDecimal gastos;
+
+    @NotNull
+    @Column(name = "movimientos", nullable = false)
+    private Long movimientos;
+
+    public MovimientoRollupId getId() {
+        return this.id;
+    }
+
+    public void setId(MovimientoRollupId id) {
+        this.id = id;
+    }
+
+    public BigDecimal getIngresos() {
+        return this.ingresos;
+    }
+
+    public void setIngresos(BigDecimal ingresos) {
+        this.ingresos = ingresos;
+    }
+
+    public BigDecimal getGastos() {
+        return this.gastos;
+    }
+
+    public void setGastos(BigDecimal gastos) {
+        this.gastos = gastos;
+    }
+
+    public Long getMovimientos() {
+        return this.movimientos;
+    }
+
+    public void setMovimientos(Long movimientos) {
+        this.movimientos = movimientos;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MovimientoRollup)) {
+            return false;
+        }
+        return getId() != null && getId().equals(((MovimientoRollup) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "MovimientoRollup{" +
+            "id=" + getId() +
+            ", ingresos=" + getIngresos() +
+            ", gastos=" + getGastos() +
+            ", movimientos=" + getMovimientos() +
+            "}";
+    }
+
+    /**
+     * Clave compuesta (usuario, dimensión, periodo, inicio del periodo, categoría o cuenta).
+     */
+    @Embeddable
+    public static class MovimientoRollupId implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Column(name = "usuario_id", nullable = false)
+        private Long usuarioId;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "dimension", nullable = false)
+        private DimensionRollup dimension;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "periodo", nullable = false)
+        private PeriodoRollup periodo;
+
+        @Column(name = "inicio", nullable = false)
+        private LocalDate inicio;
+
+        @Column(name = "clave_id", nullable = false)
+        private Long claveId;
+
+        public MovimientoRollupId() {}
+
+        public MovimientoRollupId(Long usuarioId, DimensionRollup dimension, PeriodoRollup periodo, LocalDate inicio, Long claveId) {
+            this.usuarioId = usuarioId;
+            this.dimension = dimension;
+            this.periodo = periodo;
+            this.inicio = inicio;
+            this.claveId = claveId;
+        }
+
+        public Long getUsuarioId() {
+            return usuarioId;
+        }
+
+        public void setUsuarioId(Long usuarioId) {
+            this.usuarioId = usuarioId;
+        }
+
+        public DimensionRollup getDimension() {
+            return dimension;
+        }
+
+        public void setDimension(DimensionRollup dimension) {
+            this.dimension = dimension;
+        }
+
+        public PeriodoRollup getPeriodo() {
+            return periodo;
+        }
+
+        public void setPeriodo(PeriodoRollup periodo) {
+            this.periodo = periodo;
+        }
+
+        public LocalDate getInicio() {
+            return inicio;
+        }
+
+        public void setInicio(LocalDate inicio) {
+            this.inicio = inicio;
+        }
+
+        public Long getClaveId() {
+            return claveId;
+        }
+
+        public void setClaveId(Long claveId) {
+            this.claveId = claveId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MovimientoRollupId)) {
+                return false;
+            }
+            MovimientoRollupId other = (MovimientoRollupId) o;
+            return (
+                Objects.equals(usuarioId, other.usuarioId) &&
+                dimension == other.dimension &&
+                periodo == other.periodo &&
+                Objects.equals(inicio, other.inicio) &&
+                Objects.equals(claveId, other.claveId)
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(usuarioId, dimension, periodo, inicio, claveId);
+        }
+
+        @Override
+        public String toString() {
+            return (
+                "MovimientoRollupId{usuarioId=" +
+                usuarioId +
+                ", dimension=" +
+                dimension +
+                ", periodo=" +
+                periodo +
+                ", inicio=" +
+                inicio +
+                ", claveId=" +
+                claveId +
+                "}"
+            );
+        }
+    }
+}
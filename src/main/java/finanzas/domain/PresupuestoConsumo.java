@@ -0,0 +1,98 @@
+package finanzas.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Gasto acumulado de un {@link Presupuesto}: la suma de los movimientos de tipo {@code GASTO} del dueño del presupuesto,
+ * de su categoría (o de todas si el presupuesto no tiene categoría), cuya fecha (UTC) cae entre
+ * {@code fechaInicio} y {@code fechaFin}.
+ * <p>
+ * Se mantiene de forma incremental desde {@link finanzas.service.PresupuestoConsumoService} en la misma transacción que
+ * escribe el movimiento o el presupuesto. Va en una tabla aparte para no invalidar la caché de segundo nivel de
+ * {@link Presupuesto} con cada movimiento.
+ */
+@Entity
+@Table(name = "presupuesto_consumo")
+public class PresupuestoConsumo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "presupuesto_id")
+    private Long presupuestoId;
+
+    @NotNull
+    @Column(name = "gastado", precision = 21, scale = 2, nullable = false)
+    private BigDecimal gastado;
+
+    @NotNull
+    @Column(name = "movimientos", nullable = false)
+    private Long movimientos;
+
+    /** Último umbral avisado al usuario (0, 80 o 100), para no repetir el aviso. */
+    @NotNull
+    @Column(name = "umbral_notificado", nullable = false)
+    private Integer umbralNotificado;
+
+    public Long getPresupuestoId() {
+        return this.presupuestoId;
+    }
+
+    public void setPresupuestoId(Long presupuestoId) {
+        this.presupuestoId = presupuestoId;
+    }
+
+    public BigDecimal getGastado() {
+        return this.gastado;
+    }
+
+    public void setGastado(BigDecimal gastado) {
+        this.gastado = gastado;
+    }
+
+    public Long getMovimientos() {
+        return this.movimientos;
+    }
+
+    public void setMovimientos(Long movimientos) {
+        this.movimientos = movimientos;
+    }
+
+    public Integer getUmbralNotificado() {
+        return this.umbralNotificado;
+    }
+
+    public void setUmbralNotificado(Integer umbralNotificado) {
+        this.umbralNotificado = umbralNotificado;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PresupuestoConsumo)) {
+            return false;
+        }
+        return getPresupuestoId() != null && getPresupuestoId().equals(((PresupuestoConsumo) o).getPresupuestoId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PresupuestoConsumo{" +
+            "presupuestoId=" + getPresupuestoId() +
+            ", gastado=" + getGastado() +
+            ", movimientos=" + getMovimientos() +
+            ", umbralNotificado=" + getUmbralNotificado() +
+            "}";
+    }
+}
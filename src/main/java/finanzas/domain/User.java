@@ -86,6 +86,11 @@ public class User extends AbstractAuditingEntity<Long> implements Serializable {
     @Column(name = "phone_number", length = 20, unique = true)
     private String phoneNumber;
 
+    /** Solo los dígitos de {@link #phoneNumber}; es la clave de búsqueda de los mensajes de WhatsApp entrantes. */
+    @JsonIgnore
+    @Column(name = "phone_number_normalized", length = 20)
+    private String phoneNumberNormalized;
+
     @Size(max = 20)
     @Column(name = "activation_key", length = 20)
     @JsonIgnore
@@ -213,6 +218,31 @@ public class User extends AbstractAuditingEntity<Long> implements Serializable {
 
     public void setPhoneNumber(String phoneNumber) {
         this.phoneNumber = phoneNumber;
+        this.phoneNumberNormalized = normalizePhoneNumber(phoneNumber);
+    }
+
+    public String getPhoneNumberNormalized() {
+        return phoneNumberNormalized;
+    }
+
+    /**
+     * Deja solo los dígitos de un número de teléfono, p. ej. {@code "whatsapp:+34 600-111-222"} → {@code "34600111222"}.
+     *
+     * @param phoneNumber the raw phone number, may be {@code null}.
+     * @return the digits, or {@code null} if there are none.
+     */
+    public static String normalizePhoneNumber(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.isEmpty() ? null : digits.toString();
     }
 
     public Set<Authority> getAuthorities() {
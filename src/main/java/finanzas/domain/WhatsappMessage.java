@@ -2,11 +2,10 @@ package finanzas.domain;
 
 import java.io.Serializable;
 import java.time.ZonedDateTime;
-
-import org.hibernate.annotations.Cache;
-import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.time.temporal.ChronoUnit;
 
 import finanzas.domain.enumeration.EstadoProcesamiento;
+import finanzas.domain.enumeration.OrigenMensaje;
 import finanzas.domain.enumeration.TipoMovimiento;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -22,13 +21,19 @@ import jakarta.persistence.Table;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.PartitionKey;
 
 /**
  * Entidad para almacenar mensajes recibidos a través de WhatsApp.
+ * <p>
+ * La tabla está particionada por mes de {@code fechaRecepcion} (ver {@code WhatsappMessageRetentionJob}), que es parte
+ * de la clave primaria. Se marca con {@link PartitionKey} para que Hibernate la añada al {@code where} de cada
+ * {@code update} y {@code delete} de la entidad, que así solo tocan la partición del mensaje. No usa la
+ * caché de segundo nivel: cada mensaje se escribe varias veces mientras se procesa y casi nunca se vuelve a leer, así
+ * que cachearlo solo llenaría Redis con el histórico.
  */
 @Entity
 @Table(name = "whatsapp_message")
-@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class WhatsappMessage implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -43,14 +48,13 @@ public class WhatsappMessage implements Serializable {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String mensajeOriginal;
 
-    @NotNull
+    // tipo y monto se conocen al procesar el mensaje, no al recibirlo
     @Enumerated(EnumType.STRING)
-    @Column(name = "tipo_movimiento", nullable = false)
+    @Column(name = "tipo_movimiento")
     private TipoMovimiento tipoMovimiento;
 
-    @NotNull
     @DecimalMin("0.01")
-    @Column(name = "monto", nullable = false, precision = 21, scale = 2)
+    @Column(name = "monto", precision = 21, scale = 2)
     private java.math.BigDecimal monto;
 
     @Size(max = 255)
@@ -75,6 +79,7 @@ public class WhatsappMessage implements Serializable {
     private String numeroTelefonico;
 
     @NotNull
+    @PartitionKey
     @Column(name = "fecha_recepcion", nullable = false)
     private ZonedDateTime fechaRecepcion;
 
@@ -89,14 +94,46 @@ public class WhatsappMessage implements Serializable {
     @Column(name = "error_mensaje")
     private String errorMensaje;
 
-    @ManyToOne(optional = false)
-    @JoinColumn(name = "user_id", nullable = false)
+    // se resuelve al procesar los mensajes que entran por el webhook de respuesta rápida
+    @ManyToOne
+    @JoinColumn(name = "user_id")
     private User usuario;
 
     @ManyToOne
     @JoinColumn(name = "movimiento_id")
     private Movimiento movimientoAsociado;
 
+    /** Endpoint por el que entró el mensaje; {@code null} equivale a {@link OrigenMensaje#WEBHOOK}. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "origen", length = 20)
+    private OrigenMensaje origen;
+
+    /**
+     * Identificador del mensaje en el proveedor (p. ej. {@code wamid...}); único para descartar reintentos. La tabla
+     * {@code whatsapp_message_entrega} garantiza la unicidad entre todas las particiones.
+     */
+    @Size(max = 128)
+    @Column(name = "provider_message_id", length = 128)
+    private String providerMessageId;
+
+    /** Nodo que tiene reclamado el mensaje mientras está {@code PROCESANDO}. */
+    @Size(max = 100)
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    /** Fin del arrendamiento; pasado este instante otro nodo puede volver a reclamar el mensaje. */
+    @Column(name = "lease_expira")
+    private ZonedDateTime leaseExpira;
+
+    /** Procesamientos fallidos por un error inesperado; al llegar al máximo el mensaje queda {@code DESCARTADO}. */
+    @NotNull
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos = 0;
+
+    /** Cuándo se reintenta un mensaje en estado {@code REINTENTO}. */
+    @Column(name = "proximo_intento")
+    private ZonedDateTime proximoIntento;
+
     public Long getId() {
         return id;
     }
@@ -173,8 +210,12 @@ public class WhatsappMessage implements Serializable {
         return fechaRecepcion;
     }
 
+    /**
+     * Se trunca a microsegundos, la precisión de PostgreSQL: el valor en memoria tiene que ser igual al guardado para
+     * que las actualizaciones por {@code (id, fecha_recepcion)} encuentren la fila.
+     */
     public void setFechaRecepcion(ZonedDateTime fechaRecepcion) {
-        this.fechaRecepcion = fechaRecepcion;
+        this.fechaRecepcion = fechaRecepcion != null ? fechaRecepcion.truncatedTo(ChronoUnit.MICROS) : null;
     }
 
     public ZonedDateTime getFechaProcesamiento() {
@@ -217,6 +258,54 @@ public class WhatsappMessage implements Serializable {
         this.movimientoAsociado = movimientoAsociado;
     }
 
+    public OrigenMensaje getOrigen() {
+        return origen;
+    }
+
+    public void setOrigen(OrigenMensaje origen) {
+        this.origen = origen;
+    }
+
+    public String getProviderMessageId() {
+        return providerMessageId;
+    }
+
+    public void setProviderMessageId(String providerMessageId) {
+        this.providerMessageId = providerMessageId;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public ZonedDateTime getLeaseExpira() {
+        return leaseExpira;
+    }
+
+    public void setLeaseExpira(ZonedDateTime leaseExpira) {
+        this.leaseExpira = leaseExpira;
+    }
+
+    public Integer getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(Integer intentos) {
+        this.intentos = intentos;
+    }
+
+    public ZonedDateTime getProximoIntento() {
+        return proximoIntento;
+    }
+
+    public void setProximoIntento(ZonedDateTime proximoIntento) {
+        this.proximoIntento = proximoIntento;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,16 @@
+package finanzas.domain.enumeration;
+
+/**
+ * The AgrupacionAnalitica enumeration: criterio de agrupación de las consultas analíticas. Las fechas se cuentan en
+ * UTC; las semanas empiezan en lunes.
+ */
+public enum AgrupacionAnalitica {
+    TOTAL,
+    DIA,
+    SEMANA,
+    MES,
+    ANIO,
+    DIA_SEMANA,
+    CATEGORIA,
+    CUENTA,
+}
@@ -0,0 +1,10 @@
+package finanzas.domain.enumeration;
+
+/**
+ * The DimensionRollup enumeration: relación del movimiento por la que se desglosa un acumulado de
+ * {@code movimiento_rollup}.
+ */
+public enum DimensionRollup {
+    CATEGORIA,
+    CUENTA,
+}
@@ -2,6 +2,10 @@ package finanzas.domain.enumeration;
 
 /**
  * The EstadoProcesamiento enumeration.
+ * <p>
+ * {@code ERROR} es un error del mensaje (formato, nombres desconocidos...) y no se reintenta. Un fallo inesperado al
+ * procesarlo deja el mensaje en {@code REINTENTO} hasta su {@code proximoIntento}, y en {@code DESCARTADO} cuando se
+ * agotan los intentos; los descartados solo se vuelven a procesar a petición de un administrador.
  */
 public enum EstadoProcesamiento {
     RECIBIDO,
@@ -9,4 +13,6 @@ public enum EstadoProcesamiento {
     COMPLETADO,
     ERROR,
     REQUIERE_INTERVENCION,
+    REINTENTO,
+    DESCARTADO,
 }
@@ -0,0 +1,15 @@
+package finanzas.domain.enumeration;
+
+/**
+ * The OrigenMensaje enumeration: endpoint por el que entró un mensaje de WhatsApp.
+ * <ul>
+ *     <li>{@code WEBHOOK}: {@code /api/whatsapp-webhook}, formato {@code gasto <monto> <categoria> [en <cuenta>]}.</li>
+ *     <li>{@code API}: {@code /api/webhook/whatsapp}, formato {@code GASTO <monto> <categoria> <cuenta>} o
+ *     {@code GASTO <monto> <categoria> en <cuenta>}.</li>
+ * </ul>
+ * Los dos formatos los analiza {@code WhatsappComandoParser}.
+ */
+public enum OrigenMensaje {
+    WEBHOOK,
+    API,
+}
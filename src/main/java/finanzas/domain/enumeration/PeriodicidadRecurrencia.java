@@ -0,0 +1,12 @@
+package finanzas.domain.enumeration;
+
+/**
+ * The PeriodicidadRecurrencia enumeration: cada cuánto se repite una serie de movimientos recurrentes.
+ */
+public enum PeriodicidadRecurrencia {
+    SEMANAL,
+    QUINCENAL,
+    MENSUAL,
+    TRIMESTRAL,
+    ANUAL,
+}
@@ -0,0 +1,11 @@
+package finanzas.domain.enumeration;
+
+/**
+ * The PeriodoRollup enumeration: granularidad de los acumulados de {@code movimiento_rollup}. Los periodos se cuentan
+ * en UTC; las semanas empiezan en lunes.
+ */
+public enum PeriodoRollup {
+    DIA,
+    SEMANA,
+    MES,
+}
@@ -0,0 +1,11 @@
+package finanzas.domain.enumeration;
+
+/**
+ * The SeccionExtracto enumeration: apartado de una línea del extracto mensual.
+ */
+public enum SeccionExtracto {
+    TOTAL,
+    CUENTA,
+    CATEGORIA,
+    PRESUPUESTO,
+}
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import finanzas.domain.User;
+import finanzas.repository.projection.NombreId;
 
 /**
  * Spring Data JPA repository for the Categoria entity.
@@ -21,6 +22,15 @@ public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
 
     Optional<Categoria> findByUsuarioAndNombreIgnoreCase(User user, String nombre);
 
+    @Query(
+        "select new finanzas.repository.projection.NombreId(categoria.id, categoria.nombre) from Categoria categoria " +
+        "where categoria.usuario.id = :usuarioId order by categoria.id"
+    )
+    List<NombreId> findNombresByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("select categoria.usuario.id from Categoria categoria where categoria.id = :id")
+    Optional<Long> findUsuarioIdById(@Param("id") Long id);
+
     default Optional<Categoria> findOneWithEagerRelationships(Long id) {
         return this.findOneWithToOneRelationships(id);
     }
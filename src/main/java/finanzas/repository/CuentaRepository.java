@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import finanzas.domain.User;
+import finanzas.repository.projection.NombreId;
 
 /**
  * Spring Data JPA repository for the Cuenta entity.
@@ -25,6 +26,15 @@ public interface CuentaRepository extends JpaRepository<Cuenta, Long> {
 
     List<Cuenta> findByUsuario(User user);
 
+    @Query(
+        "select new finanzas.repository.projection.NombreId(cuenta.id, cuenta.nombre) from Cuenta cuenta " +
+        "where cuenta.usuario.id = :usuarioId order by cuenta.id"
+    )
+    List<NombreId> findNombresByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query("select cuenta.usuario.id from Cuenta cuenta where cuenta.id = :id")
+    Optional<Long> findUsuarioIdById(@Param("id") Long id);
+
     default Optional<Cuenta> findOneWithEagerRelationships(Long id) {
         return this.findOneWithToOneRelationships(id);
     }
@@ -0,0 +1,64 @@
+package finanzas.repository;
+
+import finanzas.domain.CuentaSaldoDiario;
+import finanzas.domain.CuentaSaldoDiario.CuentaSaldoDiarioId;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the CuentaSaldoDiario entity.
+ */
+@Repository
+public interface CuentaSaldoDiarioRepository extends JpaRepository<CuentaSaldoDiario, CuentaSaldoDiarioId> {
+    /**
+     * Suma {@code delta} al saldo del día, creando la fila si no existía. El upsert bloquea solo la fila afectada,
+     * por lo que escrituras concurrentes sobre la misma cuenta y día se serializan sin perder actualizaciones.
+     */
+    @Modifying
+    @Query(
+        value = "insert into cuenta_saldo_diario (cuenta_id, fecha, neto) values (:cuentaId, :fecha, :delta) " +
+        "on conflict (cuenta_id, fecha) do update set neto = cuenta_saldo_diario.neto + excluded.neto",
+        nativeQuery = true
+    )
+    void acumular(@Param("cuentaId") Long cuentaId, @Param("fecha") LocalDate fecha, @Param("delta") BigDecimal delta);
+
+    @Query("select sum(s.neto) from CuentaSaldoDiario s where s.id.cuentaId = :cuentaId")
+    Optional<BigDecimal> sumNetoByCuentaId(@Param("cuentaId") Long cuentaId);
+
+    @Query("select sum(s.neto) from CuentaSaldoDiario s where s.id.cuentaId = :cuentaId and s.id.fecha between :desde and :hasta")
+    Optional<BigDecimal> sumNetoByCuentaIdAndFechaBetween(
+        @Param("cuentaId") Long cuentaId,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    /**
+     * Bloquea la tabla frente a escrituras concurrentes hasta el fin de la transacción (usado durante la reconstrucción).
+     */
+    @Modifying
+    @Query(value = "lock table cuenta_saldo_diario in exclusive mode", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "delete from cuenta_saldo_diario", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Recalcula todos los saldos diarios a partir de la tabla {@code movimiento}.
+     */
+    @Modifying
+    @Query(
+        value = "insert into cuenta_saldo_diario (cuenta_id, fecha, neto) " +
+        "select m.cuenta_id, cast(m.fecha_movimiento as date), " +
+        "sum(case when m.tipo = 'INGRESO' then m.monto when m.tipo = 'GASTO' then -m.monto else 0 end) " +
+        "from movimiento m where m.cuenta_id is not null group by m.cuenta_id, cast(m.fecha_movimiento as date)",
+        nativeQuery = true
+    )
+    int rebuildFromMovimientos();
+}
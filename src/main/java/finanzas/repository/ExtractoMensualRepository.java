@@ -0,0 +1,253 @@
+package finanzas.repository;
+
+import finanzas.domain.enumeration.SeccionExtracto;
+import finanzas.repository.projection.LineaExtracto;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Acceso JDBC a los extractos mensuales ({@code extracto_mensual_linea}) y a su punto de control
+ * ({@code extracto_mensual_ejecucion}).
+ * <p>
+ * Va por JDBC y no por JPA porque el generador escribe millones de filas sin identidad propia: se insertan en lotes
+ * JDBC sin pasar por el contexto de persistencia ni por la caché de segundo nivel.
+ */
+@Repository
+public class ExtractoMensualRepository {
+
+    /**
+     * Mes de un usuario en una sola consulta: el total, los movimientos por categoría, cada cuenta con su saldo al
+     * cierre y los presupuestos que se solapan con el mes con lo gastado en ellos hasta el cierre: desde su inicio hasta
+     * el final del mes o de su periodo, lo que llegue antes. No se lee {@code presupuesto_consumo}, que es el consumo
+     * de hoy y no el del mes del extracto.
+     */
+    private static final String LEER_MES =
+        """
+        with mov as (
+            select m.cuenta_id, m.categoria_id, m.tipo, m.monto from movimiento m
+            where m.usuario_id = :usuarioId and m.fecha_movimiento >= :desde and m.fecha_movimiento < :hasta
+        )
+        select 'TOTAL' as seccion, cast(0 as bigint) as clave_id,
+               coalesce(sum(case when tipo = 'INGRESO' then monto end), 0) as ingresos,
+               coalesce(sum(case when tipo = 'GASTO' then monto end), 0) as gastos,
+               count(*) as movimientos, cast(null as numeric) as saldo, cast(null as numeric) as limite
+        from mov
+        union all
+        select 'CATEGORIA', coalesce(categoria_id, 0),
+               coalesce(sum(case when tipo = 'INGRESO' then monto end), 0),
+               coalesce(sum(case when tipo = 'GASTO' then monto end), 0),
+               count(*), null, null
+        from mov group by categoria_id
+        union all
+        select 'CUENTA', c.id,
+               coalesce(sum(case when mov.tipo = 'INGRESO' then mov.monto end), 0),
+               coalesce(sum(case when mov.tipo = 'GASTO' then mov.monto end), 0),
+               count(mov.cuenta_id),
+               coalesce(c.saldo_inicial, 0)
+                   + coalesce((select sum(s.neto) from cuenta_saldo_diario s where s.cuenta_id = c.id and s.fecha < :siguiente), 0),
+               null
+        from cuenta c left join mov on mov.cuenta_id = c.id
+        where c.usuario_id = :usuarioId
+        group by c.id, c.saldo_inicial
+        union all
+        select 'PRESUPUESTO', p.id, 0, coalesce(sum(m.monto), 0), count(m.id), p.monto - coalesce(sum(m.monto), 0), p.monto
+        from presupuesto p
+        left join movimiento m on m.usuario_id = p.usuario_id and m.tipo = 'GASTO'
+            and (p.categoria_id is null or m.categoria_id = p.categoria_id)
+            and m.fecha_movimiento >= p.fecha_inicio and m.fecha_movimiento < least(p.fecha_fin + 1, :siguiente)
+        where p.usuario_id = :usuarioId and p.fecha_inicio < :siguiente and p.fecha_fin >= :primero
+        group by p.id, p.monto
+        """;
+
+    private static final String INSERTAR_LINEA =
+        "insert into extracto_mensual_linea (usuario_id, mes, seccion, clave_id, ingresos, gastos, movimientos, saldo, limite) " +
+        "values (:usuarioId, :mes, :seccion, :claveId, :ingresos, :gastos, :movimientos, :saldo, :limite)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public ExtractoMensualRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Generación de un mes reclamada por una ejecución.
+     *
+     * @param propietario identifica la ejecución que tiene el arrendamiento; {@link #avanzar} y {@link #terminar} solo
+     * escriben con él.
+     * @param desde último usuario ya escrito, desde el que se reanuda.
+     */
+    public record Reclamo(String propietario, long desde) {}
+
+    /**
+     * Ids de los usuarios activados posteriores a {@code desdeId}, en orden ascendente.
+     */
+    public List<Long> findUsuariosActivosDesde(long desdeId) {
+        return jdbc.queryForList(
+            "select id from jhi_user where activated = true and id > :desdeId order by id",
+            Map.of("desdeId", desdeId),
+            Long.class
+        );
+    }
+
+    /**
+     * Calcula las líneas del extracto de un usuario a partir de los movimientos, cuentas y presupuestos actuales.
+     */
+    public List<LineaExtracto> leerMes(Long usuarioId, YearMonth mes) {
+        LocalDate primero = mes.atDay(1);
+        LocalDate siguiente = mes.plusMonths(1).atDay(1);
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+            .addValue("usuarioId", usuarioId)
+            .addValue("desde", primero.atStartOfDay())
+            .addValue("hasta", siguiente.atStartOfDay())
+            .addValue("primero", primero)
+            .addValue("siguiente", siguiente);
+        return jdbc.query(LEER_MES, parametros, ExtractoMensualRepository::linea);
+    }
+
+    /**
+     * Sustituye los extractos del mes de los usuarios indicados: un borrado y un lote JDBC de inserciones.
+     *
+     * @return number of lines written.
+     */
+    public int reemplazar(YearMonth mes, Map<Long, List<LineaExtracto>> porUsuario) {
+        if (porUsuario.isEmpty()) {
+            return 0;
+        }
+        LocalDate inicio = mes.atDay(1);
+        jdbc.update(
+            "delete from extracto_mensual_linea where mes = :mes and usuario_id in (:usuarios)",
+            new MapSqlParameterSource().addValue("mes", inicio).addValue("usuarios", porUsuario.keySet())
+        );
+        List<SqlParameterSource> filas = new ArrayList<>();
+        porUsuario.forEach((usuarioId, lineas) -> {
+            for (LineaExtracto linea : lineas) {
+                filas.add(
+                    new MapSqlParameterSource()
+                        .addValue("usuarioId", usuarioId)
+                        .addValue("mes", inicio)
+                        .addValue("seccion", linea.seccion().name())
+                        .addValue("claveId", linea.claveId())
+                        .addValue("ingresos", linea.ingresos())
+                        .addValue("gastos", linea.gastos())
+                        .addValue("movimientos", linea.movimientos())
+                        .addValue("saldo", linea.saldo())
+                        .addValue("limite", linea.limite())
+                );
+            }
+        });
+        jdbc.batchUpdate(INSERTAR_LINEA, filas.toArray(SqlParameterSource[]::new));
+        return filas.size();
+    }
+
+    /**
+     * Extracto ya generado de un usuario, en el orden total, cuentas, categorías y presupuestos.
+     */
+    public List<LineaExtracto> findByUsuarioIdAndMes(Long usuarioId, YearMonth mes) {
+        return jdbc.query(
+            "select seccion, clave_id, ingresos, gastos, movimientos, saldo, limite from extracto_mensual_linea " +
+            "where usuario_id = :usuarioId and mes = :mes " +
+            "order by case seccion when 'TOTAL' then 0 when 'CUENTA' then 1 when 'CATEGORIA' then 2 else 3 end, clave_id",
+            new MapSqlParameterSource().addValue("usuarioId", usuarioId).addValue("mes", mes.atDay(1)),
+            ExtractoMensualRepository::linea
+        );
+    }
+
+    /**
+     * Reclama la generación del mes para una nueva ejecución. Se puede reclamar si no existe, si falló, si está en curso
+     * pero lleva más de {@code arrendamiento} sin avanzar o, con {@code reiniciar}, si ya terminó. Al reclamarla cambia
+     * su propietario, así que la ejecución que la tenía ya no puede avanzarla ni terminarla.
+     *
+     * @return the claim, or empty if the month cannot be claimed.
+     */
+    public Optional<Reclamo> reclamar(YearMonth mes, Duration arrendamiento, boolean reiniciar) {
+        String propietario = UUID.randomUUID().toString();
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+            .addValue("mes", mes.atDay(1))
+            .addValue("propietario", propietario)
+            .addValue("arrendamiento", arrendamiento.toSeconds())
+            .addValue("reiniciar", reiniciar);
+        List<Long> desde = jdbc.queryForList(
+            """
+            insert into extracto_mensual_ejecucion as e
+                (mes, estado, propietario, ultimo_usuario_id, usuarios, lineas, iniciado_en, actualizado_en)
+            values (:mes, 'EN_CURSO', :propietario, 0, 0, 0, now(), now())
+            on conflict (mes) do update set
+                estado = 'EN_CURSO',
+                propietario = :propietario,
+                actualizado_en = now(),
+                terminado_en = null,
+                iniciado_en = case when e.estado = 'COMPLETADO' then now() else e.iniciado_en end,
+                ultimo_usuario_id = case when e.estado = 'COMPLETADO' then 0 else e.ultimo_usuario_id end,
+                usuarios = case when e.estado = 'COMPLETADO' then 0 else e.usuarios end,
+                lineas = case when e.estado = 'COMPLETADO' then 0 else e.lineas end
+            where e.estado = 'FALLIDO'
+                or (e.estado = 'EN_CURSO' and e.actualizado_en < now() - make_interval(secs => :arrendamiento))
+                or (e.estado = 'COMPLETADO' and :reiniciar)
+            returning ultimo_usuario_id
+            """,
+            parametros,
+            Long.class
+        );
+        return desde.stream().findFirst().map(ultimo -> new Reclamo(propietario, ultimo));
+    }
+
+    /**
+     * Avanza el punto de control: todos los usuarios hasta {@code ultimoUsuarioId} tienen su extracto escrito.
+     *
+     * @return {@code false} if {@code propietario} no longer holds the month, and nothing was written.
+     */
+    public boolean avanzar(YearMonth mes, String propietario, long ultimoUsuarioId, long usuarios, long lineas) {
+        int filas = jdbc.update(
+            "update extracto_mensual_ejecucion set ultimo_usuario_id = :ultimoUsuarioId, usuarios = usuarios + :usuarios, " +
+            "lineas = lineas + :lineas, actualizado_en = now() where mes = :mes and propietario = :propietario and estado = 'EN_CURSO'",
+            new MapSqlParameterSource()
+                .addValue("mes", mes.atDay(1))
+                .addValue("propietario", propietario)
+                .addValue("ultimoUsuarioId", ultimoUsuarioId)
+                .addValue("usuarios", usuarios)
+                .addValue("lineas", lineas)
+        );
+        return filas == 1;
+    }
+
+    /**
+     * Cierra la ejecución del mes como {@code COMPLETADO} o {@code FALLIDO}.
+     *
+     * @return {@code false} if {@code propietario} no longer holds the month, and nothing was written.
+     */
+    public boolean terminar(YearMonth mes, String propietario, boolean completado) {
+        int filas = jdbc.update(
+            "update extracto_mensual_ejecucion set estado = :estado, actualizado_en = now(), terminado_en = now() " +
+            "where mes = :mes and propietario = :propietario and estado = 'EN_CURSO'",
+            new MapSqlParameterSource()
+                .addValue("mes", mes.atDay(1))
+                .addValue("propietario", propietario)
+                .addValue("estado", completado ? "COMPLETADO" : "FALLIDO")
+        );
+        return filas == 1;
+    }
+
+    private static LineaExtracto linea(ResultSet rs, int fila) throws SQLException {
+        return new LineaExtracto(
+            SeccionExtracto.valueOf(rs.getString("seccion")),
+            rs.getLong("clave_id"),
+            rs.getBigDecimal("ingresos"),
+            rs.getBigDecimal("gastos"),
+            rs.getLong("movimientos"),
+            rs.getBigDecimal("saldo"),
+            rs.getBigDecimal("limite")
+        );
+    }
+}
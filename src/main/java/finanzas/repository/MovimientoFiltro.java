@@ -0,0 +1,27 @@
+package finanzas.repository;
+
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.time.ZonedDateTime;
+
+/**
+ * Filtros opcionales para consultar los movimientos de un usuario. Los componentes {@code null} no filtran.
+ *
+ * @param usuarioId propietario de los movimientos (obligatorio).
+ * @param desde fecha de movimiento mínima (inclusive).
+ * @param hasta fecha de movimiento máxima (inclusive).
+ * @param cuentaId cuenta del movimiento.
+ * @param categoriaId categoría del movimiento.
+ * @param tipo tipo de movimiento.
+ */
+public record MovimientoFiltro(
+    Long usuarioId,
+    ZonedDateTime desde,
+    ZonedDateTime hasta,
+    Long cuentaId,
+    Long categoriaId,
+    TipoMovimiento tipo
+) {
+    public static MovimientoFiltro ofUsuario(Long usuarioId) {
+        return new MovimientoFiltro(usuarioId, null, null, null, null, null);
+    }
+}
@@ -2,6 +2,10 @@ package finanzas.repository;
 
 import finanzas.domain.Movimiento;
 import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.repository.projection.TotalesAgrupados;
+import finanzas.repository.projection.TotalesMovimiento;
+import finanzas.repository.projection.TotalesPeriodo;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.List;
@@ -17,7 +21,11 @@ import org.springframework.stereotype.Repository;
  * Spring Data JPA repository for the Movimiento entity.
  */
 @Repository
-public interface MovimientoRepository extends JpaRepository<Movimiento, Long> {
+public interface MovimientoRepository extends MovimientoRepositoryWithFilters, JpaRepository<Movimiento, Long> {
+    String SUM_INGRESOS = "sum(case when m.tipo = finanzas.domain.enumeration.TipoMovimiento.INGRESO then m.monto end)";
+
+    String SUM_GASTOS = "sum(case when m.tipo = finanzas.domain.enumeration.TipoMovimiento.GASTO then m.monto end)";
+
     @Query("select movimiento from Movimiento movimiento where movimiento.usuario.login = ?#{authentication.name}")
     List<Movimiento> findByUsuarioIsCurrentUser();
 
@@ -55,4 +63,103 @@ public interface MovimientoRepository extends JpaRepository<Movimiento, Long> {
 
     @Query("select sum(m.monto) from Movimiento m where m.tipo = :tipo")
     Optional<BigDecimal> sumByTipo(@Param("tipo") TipoMovimiento tipo);
+
+    @Query(
+        "select new finanzas.repository.projection.MovimientoSnapshot(m.id, u.id, cu.id, c.id, m.tipo, m.monto, m.fechaMovimiento) " +
+        "from Movimiento m left join m.usuario u left join m.cuenta cu left join m.categoria c where m.id = :id"
+    )
+    Optional<MovimientoSnapshot> findSnapshotById(@Param("id") Long id);
+
+    /**
+     * Versión de los movimientos de un usuario: cuántos tiene y la suma de sus {@code modificado_en} en microsegundos.
+     * Cambia con cada alta, baja o modificación, la haga el nodo que la haga, y se lee solo del índice
+     * {@code idx_movimiento__usuario_id_modificado_en}.
+     */
+    @Query(
+        value = "select count(*) || ':' || coalesce(sum(cast(extract(epoch from modificado_en) * 1000000 as bigint)), 0) " +
+        "from movimiento where usuario_id = :usuarioId",
+        nativeQuery = true
+    )
+    String findVersionByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    @Query(
+        "select sum(case when m.tipo = finanzas.domain.enumeration.TipoMovimiento.INGRESO then m.monto else -m.monto end) " +
+        "from Movimiento m where m.cuenta.id = :cuentaId and m.fechaMovimiento between :desde and :hasta"
+    )
+    Optional<BigDecimal> sumNetoByCuentaIdAndFechaMovimientoBetween(
+        @Param("cuentaId") Long cuentaId,
+        @Param("desde") ZonedDateTime desde,
+        @Param("hasta") ZonedDateTime hasta
+    );
+
+    @Query(
+        "select sum(case when m.tipo = finanzas.domain.enumeration.TipoMovimiento.INGRESO then m.monto else -m.monto end) " +
+        "from Movimiento m where m.cuenta.id = :cuentaId and m.fechaMovimiento >= :desde and m.fechaMovimiento < :hasta"
+    )
+    Optional<BigDecimal> sumNetoByCuentaIdAndFechaMovimientoFromUntil(
+        @Param("cuentaId") Long cuentaId,
+        @Param("desde") ZonedDateTime desde,
+        @Param("hasta") ZonedDateTime hasta
+    );
+
+    @Query(
+        "select sum(case when m.tipo = finanzas.domain.enumeration.TipoMovimiento.INGRESO then m.monto else -m.monto end) " +
+        "from Movimiento m where m.categoria.id = :categoriaId"
+    )
+    Optional<BigDecimal> sumNetoByCategoriaId(@Param("categoriaId") Long categoriaId);
+
+    @Query(
+        "select sum(case when m.tipo = finanzas.domain.enumeration.TipoMovimiento.INGRESO then m.monto else -m.monto end) " +
+        "from Movimiento m where m.categoria.id = :categoriaId and m.fechaMovimiento between :desde and :hasta"
+    )
+    Optional<BigDecimal> sumNetoByCategoriaIdAndFechaMovimientoBetween(
+        @Param("categoriaId") Long categoriaId,
+        @Param("desde") ZonedDateTime desde,
+        @Param("hasta") ZonedDateTime hasta
+    );
+
+    @Query(
+        "select new finanzas.repository.projection.TotalesMovimiento(" + SUM_INGRESOS + ", " + SUM_GASTOS + ") " +
+        "from Movimiento m where m.usuario.login = :login"
+    )
+    TotalesMovimiento sumTotalesByUsuarioLogin(@Param("login") String login);
+
+    @Query(
+        "select new finanzas.repository.projection.TotalesAgrupados(m.categoria.id, " + SUM_INGRESOS + ", " + SUM_GASTOS + ") " +
+        "from Movimiento m where m.usuario.login = :login and m.fechaMovimiento between :desde and :hasta group by m.categoria.id"
+    )
+    List<TotalesAgrupados> sumTotalesPorCategoria(
+        @Param("login") String login,
+        @Param("desde") ZonedDateTime desde,
+        @Param("hasta") ZonedDateTime hasta
+    );
+
+    @Query(
+        "select new finanzas.repository.projection.TotalesAgrupados(m.cuenta.id, " + SUM_INGRESOS + ", " + SUM_GASTOS + ") " +
+        "from Movimiento m where m.usuario.login = :login and m.fechaMovimiento between :desde and :hasta group by m.cuenta.id"
+    )
+    List<TotalesAgrupados> sumTotalesPorCuenta(
+        @Param("login") String login,
+        @Param("desde") ZonedDateTime desde,
+        @Param("hasta") ZonedDateTime hasta
+    );
+
+    @Query(
+        "select new finanzas.repository.projection.TotalesAgrupados(m.usuario.id, " + SUM_INGRESOS + ", " + SUM_GASTOS + ") " +
+        "from Movimiento m where m.fechaMovimiento between :desde and :hasta group by m.usuario.id"
+    )
+    List<TotalesAgrupados> sumTotalesPorUsuario(@Param("desde") ZonedDateTime desde, @Param("hasta") ZonedDateTime hasta);
+
+    @Query(
+        "select new finanzas.repository.projection.TotalesPeriodo(year(m.fechaMovimiento), month(m.fechaMovimiento), " +
+        SUM_INGRESOS + ", " + SUM_GASTOS + ") " +
+        "from Movimiento m where m.usuario.login = :login and m.fechaMovimiento between :desde and :hasta " +
+        "group by year(m.fechaMovimiento), month(m.fechaMovimiento) " +
+        "order by year(m.fechaMovimiento), month(m.fechaMovimiento)"
+    )
+    List<TotalesPeriodo> sumTotalesPorMes(
+        @Param("login") String login,
+        @Param("desde") ZonedDateTime desde,
+        @Param("hasta") ZonedDateTime hasta
+    );
 }
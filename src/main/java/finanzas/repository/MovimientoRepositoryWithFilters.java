@@ -0,0 +1,89 @@
+package finanzas.repository;
+
+import finanzas.domain.Movimiento;
+import finanzas.domain.enumeration.AgrupacionAnalitica;
+import finanzas.repository.projection.MovimientoExportFila;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.repository.projection.TotalesAnaliticos;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Consultas de movimientos con filtros dinámicos, paginación por cursor y recorrido en streaming.
+ * Todas las consultas ordenan por {@code (fechaMovimiento desc, id desc)}, orden respaldado por el índice
+ * {@code idx_movimiento__usuario_id_fecha_movimiento}.
+ */
+public interface MovimientoRepositoryWithFilters {
+    /**
+     * Devuelve como mucho {@code limit} movimientos posteriores (en el orden descendente) al cursor indicado.
+     *
+     * @param filtro filtros a aplicar.
+     * @param cursorFecha fecha del último movimiento de la página anterior, o {@code null} para la primera página.
+     * @param cursorId id del último movimiento de la página anterior, o {@code null} para la primera página.
+     * @param limit número máximo de filas.
+     * @return the page content, with {@code usuario} fetched.
+     */
+    List<Movimiento> findPageByFiltro(MovimientoFiltro filtro, ZonedDateTime cursorFecha, Long cursorId, int limit);
+
+    /**
+     * Como {@link #findPageByFiltro}, pero solo con los movimientos cuya descripción coincide con {@code texto}: por
+     * texto completo (lexemas en español o en inglés, con la sintaxis de {@code websearch_to_tsquery}), por parecido
+     * de palabras con trigramas o como subcadena. Las tres condiciones se resuelven con los índices GIN
+     * {@code idx_movimiento__usuario_id_descripcion_tsv} e {@code idx_movimiento__usuario_id_descripcion_trgm}.
+     *
+     * @param filtro filtros a aplicar.
+     * @param texto texto a buscar, no vacío.
+     * @param cursorFecha fecha del último movimiento de la página anterior, o {@code null} para la primera página.
+     * @param cursorId id del último movimiento de la página anterior, o {@code null} para la primera página.
+     * @param limit número máximo de filas.
+     * @return the page content, with {@code usuario} fetched.
+     */
+    List<Movimiento> searchPageByFiltro(MovimientoFiltro filtro, String texto, ZonedDateTime cursorFecha, Long cursorId, int limit);
+
+    /**
+     * Recorre todos los movimientos que cumplen el filtro con un cursor JDBC de solo avance. El contexto de persistencia
+     * se vacía periódicamente, así que la memoria usada no depende del número de filas; {@code action} no debe
+     * conservar referencias a las entidades recibidas.
+     * <p>
+     * Debe invocarse dentro de una transacción (de solo lectura) para que PostgreSQL respete el fetch size.
+     *
+     * @param filtro filtros a aplicar.
+     * @param action acción a ejecutar por cada movimiento, con {@code usuario} ya cargado.
+     */
+    void forEachByFiltro(MovimientoFiltro filtro, Consumer<Movimiento> action);
+
+    /**
+     * Como {@link #forEachByFiltro}, pero proyecta cada fila a {@link MovimientoExportFila} con los nombres de categoría
+     * y cuenta en la misma consulta. No se cargan entidades, así que el contexto de persistencia no crece.
+     * <p>
+     * Debe invocarse dentro de una transacción (de solo lectura) para que PostgreSQL respete el fetch size.
+     *
+     * @param filtro filtros a aplicar.
+     * @param action acción a ejecutar por cada fila.
+     */
+    void forEachExportByFiltro(MovimientoFiltro filtro, Consumer<MovimientoExportFila> action);
+
+    /**
+     * Recorre los movimientos que cumplen el filtro como {@link MovimientoSnapshot}, por id ascendente, con el mismo
+     * cursor de solo avance que {@link #forEachByFiltro}. Usado para cargar estructuras en memoria sin crear entidades.
+     * <p>
+     * Debe invocarse dentro de una transacción (de solo lectura) para que PostgreSQL respete el fetch size.
+     *
+     * @param filtro filtros a aplicar.
+     * @param action acción a ejecutar por cada movimiento.
+     */
+    void forEachSnapshotByFiltro(MovimientoFiltro filtro, Consumer<MovimientoSnapshot> action);
+
+    /**
+     * Agrupa en PostgreSQL los movimientos que cumplen el filtro, con las mismas claves y el mismo orden que las
+     * consultas analíticas en memoria: fechas en UTC ({@code yyyy-MM-dd}, el lunes de la semana, {@code yyyy-MM}, el año
+     * o el día ISO de la semana, 1 para el lunes) e ids de categoría o cuenta, estos ordenados por gasto descendente.
+     *
+     * @param filtro filtros a aplicar.
+     * @param agrupacion criterio de agrupación.
+     * @param limite número máximo de grupos; {@code null} o 0 para todos.
+     * @return the groups; empty if no movimiento matches.
+     */
+    List<TotalesAnaliticos> sumTotalesAgrupadosByFiltro(MovimientoFiltro filtro, AgrupacionAnalitica agrupacion, Integer limite);
+}
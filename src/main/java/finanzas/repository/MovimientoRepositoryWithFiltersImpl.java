@@ -0,0 +1,317 @@
+package finanzas.repository;
+
+import finanzas.domain.Movimiento;
+import finanzas.domain.enumeration.AgrupacionAnalitica;
+import finanzas.repository.projection.MovimientoExportFila;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.repository.projection.TotalesAnaliticos;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * Implementación de {@link MovimientoRepositoryWithFilters} con Criteria API, salvo la búsqueda por texto, que es SQL
+ * nativo.
+ */
+public class MovimientoRepositoryWithFiltersImpl implements MovimientoRepositoryWithFilters {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Movimiento> findPageByFiltro(MovimientoFiltro filtro, ZonedDateTime cursorFecha, Long cursorId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Movimiento> query = cb.createQuery(Movimiento.class);
+        Root<Movimiento> root = query.from(Movimiento.class);
+        root.fetch("usuario", JoinType.LEFT);
+
+        List<Predicate> predicates = predicates(cb, root, filtro);
+        if (cursorFecha != null && cursorId != null) {
+            Path<ZonedDateTime> fecha = root.get("fechaMovimiento");
+            Path<Long> id = root.get("id");
+            predicates.add(cb.or(cb.lessThan(fecha, cursorFecha), cb.and(cb.equal(fecha, cursorFecha), cb.lessThan(id, cursorId))));
+        }
+        query
+            .select(root)
+            .where(predicates.toArray(new Predicate[0]))
+            .orderBy(cb.desc(root.get("fechaMovimiento")), cb.desc(root.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<Movimiento> searchPageByFiltro(MovimientoFiltro filtro, String texto, ZonedDateTime cursorFecha, Long cursorId, int limit) {
+        // Native: the full-text and trigram operators have no Criteria equivalent. Timestamps are bound as UTC text
+        // because fecha_movimiento stores UTC wall-clock time, whatever the JVM time zone.
+        StringBuilder sql = new StringBuilder(
+            "select m.id from movimiento m where m.usuario_id = :usuarioId" +
+            " and (m.descripcion_tsv @@ (websearch_to_tsquery('spanish', :texto) || websearch_to_tsquery('english', :texto))" +
+            " or m.descripcion %> :texto or m.descripcion ilike :patron escape '\\')"
+        );
+        Map<String, Object> parametros = new HashMap<>();
+        parametros.put("usuarioId", filtro.usuarioId());
+        parametros.put("texto", texto);
+        parametros.put("patron", "%" + texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+        if (filtro.desde() != null) {
+            sql.append(" and m.fecha_movimiento >= cast(:desde as timestamp)");
+            parametros.put("desde", utc(filtro.desde()));
+        }
+        if (filtro.hasta() != null) {
+            sql.append(" and m.fecha_movimiento <= cast(:hasta as timestamp)");
+            parametros.put("hasta", utc(filtro.hasta()));
+        }
+        if (filtro.cuentaId() != null) {
+            sql.append(" and m.cuenta_id = :cuentaId");
+            parametros.put("cuentaId", filtro.cuentaId());
+        }
+        if (filtro.categoriaId() != null) {
+            sql.append(" and m.categoria_id = :categoriaId");
+            parametros.put("categoriaId", filtro.categoriaId());
+        }
+        if (filtro.tipo() != null) {
+            sql.append(" and m.tipo = :tipo");
+            parametros.put("tipo", filtro.tipo().name());
+        }
+        if (cursorFecha != null && cursorId != null) {
+            sql.append(" and (m.fecha_movimiento, m.id) < (cast(:cursorFecha as timestamp), :cursorId)");
+            parametros.put("cursorFecha", utc(cursorFecha));
+            parametros.put("cursorId", cursorId);
+        }
+        sql.append(" order by m.fecha_movimiento desc, m.id desc limit :limit");
+        parametros.put("limit", limit);
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Long.class);
+        parametros.forEach(query::setParameter);
+        @SuppressWarnings("unchecked")
+        List<Long> ids = query.getResultList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Movimiento> porId = new HashMap<>();
+        entityManager
+            .createQuery("select m from Movimiento m left join fetch m.usuario where m.id in :ids", Movimiento.class)
+            .setParameter("ids", ids)
+            .getResultList()
+            .forEach(movimiento -> porId.put(movimiento.getId(), movimiento));
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public List<TotalesAnaliticos> sumTotalesAgrupadosByFiltro(MovimientoFiltro filtro, AgrupacionAnalitica agrupacion, Integer limite) {
+        // Native: the date keys are formatted by PostgreSQL so that they match the in-memory ones. fecha_movimiento
+        // stores UTC wall-clock time, so no time zone conversion is needed.
+        String grupo = grupo(agrupacion);
+        StringBuilder sql = new StringBuilder("select ")
+            .append(grupo != null ? "cast(" + grupo + " as varchar)" : "cast(null as varchar)")
+            .append(" as clave,")
+            .append(" coalesce(sum(case when m.tipo = 'INGRESO' then m.monto end), 0) as ingresos,")
+            .append(" coalesce(sum(case when m.tipo = 'GASTO' then m.monto end), 0) as gastos,")
+            .append(" count(*) as movimientos,")
+            .append(" round(avg(case when m.tipo = 'GASTO' then m.monto end), 2) as gasto_medio")
+            .append(" from movimiento m where m.usuario_id = :usuarioId");
+        Map<String, Object> parametros = new HashMap<>();
+        parametros.put("usuarioId", filtro.usuarioId());
+        if (filtro.desde() != null) {
+            sql.append(" and m.fecha_movimiento >= cast(:desde as timestamp)");
+            parametros.put("desde", utc(filtro.desde()));
+        }
+        if (filtro.hasta() != null) {
+            sql.append(" and m.fecha_movimiento <= cast(:hasta as timestamp)");
+            parametros.put("hasta", utc(filtro.hasta()));
+        }
+        if (filtro.cuentaId() != null) {
+            sql.append(" and m.cuenta_id = :cuentaId");
+            parametros.put("cuentaId", filtro.cuentaId());
+        }
+        if (filtro.categoriaId() != null) {
+            sql.append(" and m.categoria_id = :categoriaId");
+            parametros.put("categoriaId", filtro.categoriaId());
+        }
+        if (filtro.tipo() != null) {
+            sql.append(" and m.tipo = :tipo");
+            parametros.put("tipo", filtro.tipo().name());
+        }
+        if (grupo == null) {
+            // sin group by la agregación siempre devuelve una fila; en memoria no hay grupo si nada coincide
+            sql.append(" having count(*) > 0");
+        } else if (agrupacion == AgrupacionAnalitica.CATEGORIA || agrupacion == AgrupacionAnalitica.CUENTA) {
+            sql.append(" group by ").append(grupo).append(" order by gastos desc, coalesce(").append(grupo).append(", 0)");
+        } else {
+            sql.append(" group by ").append(grupo).append(" order by ").append(grupo);
+        }
+        if (limite != null && limite > 0) {
+            sql.append(" limit :limite");
+            parametros.put("limite", limite);
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Tuple.class);
+        parametros.forEach(query::setParameter);
+        @SuppressWarnings("unchecked")
+        List<Tuple> filas = query.getResultList();
+        return filas
+            .stream()
+            .map(fila ->
+                new TotalesAnaliticos(
+                    fila.get("clave", String.class),
+                    fila.get("ingresos", BigDecimal.class),
+                    fila.get("gastos", BigDecimal.class),
+                    fila.get("movimientos", Number.class).longValue(),
+                    fila.get("gasto_medio", BigDecimal.class)
+                )
+            )
+            .toList();
+    }
+
+    /**
+     * Expresión SQL de la clave de cada agrupación; {@code null} para el total.
+     */
+    private static String grupo(AgrupacionAnalitica agrupacion) {
+        return switch (agrupacion) {
+            case TOTAL -> null;
+            case DIA -> "to_char(m.fecha_movimiento, 'YYYY-MM-DD')";
+            case SEMANA -> "to_char(date_trunc('week', m.fecha_movimiento), 'YYYY-MM-DD')";
+            case MES -> "to_char(m.fecha_movimiento, 'YYYY-MM')";
+            case ANIO -> "to_char(m.fecha_movimiento, 'FMYYYY')";
+            case DIA_SEMANA -> "to_char(m.fecha_movimiento, 'ID')";
+            case CATEGORIA -> "m.categoria_id";
+            case CUENTA -> "m.cuenta_id";
+        };
+    }
+
+    private static String utc(ZonedDateTime fecha) {
+        return fecha.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime().toString();
+    }
+
+    @Override
+    public void forEachByFiltro(MovimientoFiltro filtro, Consumer<Movimiento> action) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Movimiento> query = cb.createQuery(Movimiento.class);
+        Root<Movimiento> root = query.from(Movimiento.class);
+        root.fetch("usuario", JoinType.LEFT);
+        query
+            .select(root)
+            .where(predicates(cb, root, filtro).toArray(new Predicate[0]))
+            .orderBy(cb.desc(root.get("fechaMovimiento")), cb.desc(root.get("id")));
+
+        try (Stream<Movimiento> stream = streamQuery(query).getResultStream()) {
+            Iterator<Movimiento> iterator = stream.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                if (++count % STREAM_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void forEachExportByFiltro(MovimientoFiltro filtro, Consumer<MovimientoExportFila> action) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MovimientoExportFila> query = cb.createQuery(MovimientoExportFila.class);
+        Root<Movimiento> root = query.from(Movimiento.class);
+        Join<Movimiento, ?> categoria = root.join("categoria", JoinType.LEFT);
+        Join<Movimiento, ?> cuenta = root.join("cuenta", JoinType.LEFT);
+        query
+            .select(
+                cb.construct(
+                    MovimientoExportFila.class,
+                    root.get("id"),
+                    root.get("fechaMovimiento"),
+                    root.get("tipo"),
+                    root.get("monto"),
+                    root.get("descripcion"),
+                    categoria.get("nombre"),
+                    cuenta.get("nombre")
+                )
+            )
+            .where(predicates(cb, root, filtro).toArray(new Predicate[0]))
+            .orderBy(cb.desc(root.get("fechaMovimiento")), cb.desc(root.get("id")));
+
+        try (Stream<MovimientoExportFila> stream = streamQuery(query).getResultStream()) {
+            stream.forEach(action);
+        }
+    }
+
+    @Override
+    public void forEachSnapshotByFiltro(MovimientoFiltro filtro, Consumer<MovimientoSnapshot> action) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MovimientoSnapshot> query = cb.createQuery(MovimientoSnapshot.class);
+        Root<Movimiento> root = query.from(Movimiento.class);
+        Join<Movimiento, ?> usuario = root.join("usuario", JoinType.LEFT);
+        Join<Movimiento, ?> cuenta = root.join("cuenta", JoinType.LEFT);
+        Join<Movimiento, ?> categoria = root.join("categoria", JoinType.LEFT);
+        query
+            .select(
+                cb.construct(
+                    MovimientoSnapshot.class,
+                    root.get("id"),
+                    usuario.get("id"),
+                    cuenta.get("id"),
+                    categoria.get("id"),
+                    root.get("tipo"),
+                    root.get("monto"),
+                    root.get("fechaMovimiento")
+                )
+            )
+            .where(predicates(cb, root, filtro).toArray(new Predicate[0]))
+            .orderBy(cb.asc(root.get("id")));
+
+        try (Stream<MovimientoSnapshot> stream = streamQuery(query).getResultStream()) {
+            stream.forEach(action);
+        }
+    }
+
+    private <T> TypedQuery<T> streamQuery(CriteriaQuery<T> query) {
+        return entityManager
+            .createQuery(query)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .setHint(HibernateHints.HINT_CACHEABLE, false);
+    }
+
+    private static List<Predicate> predicates(CriteriaBuilder cb, Root<Movimiento> root, MovimientoFiltro filtro) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(root.get("usuario").get("id"), filtro.usuarioId()));
+        if (filtro.desde() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<ZonedDateTime>get("fechaMovimiento"), filtro.desde()));
+        }
+        if (filtro.hasta() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<ZonedDateTime>get("fechaMovimiento"), filtro.hasta()));
+        }
+        if (filtro.cuentaId() != null) {
+            predicates.add(cb.equal(root.get("cuenta").get("id"), filtro.cuentaId()));
+        }
+        if (filtro.categoriaId() != null) {
+            predicates.add(cb.equal(root.get("categoria").get("id"), filtro.categoriaId()));
+        }
+        if (filtro.tipo() != null) {
+            predicates.add(cb.equal(root.get("tipo"), filtro.tipo()));
+        }
+        return predicates;
+    }
+}
@@ -0,0 +1,109 @@
+package finanzas.repository;
+
+import finanzas.domain.MovimientoRollup;
+import finanzas.domain.MovimientoRollup.MovimientoRollupId;
+import finanzas.domain.enumeration.DimensionRollup;
+import finanzas.domain.enumeration.PeriodoRollup;
+import finanzas.repository.projection.PuntoSerie;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the MovimientoRollup entity.
+ */
+@Repository
+public interface MovimientoRollupRepository extends JpaRepository<MovimientoRollup, MovimientoRollupId> {
+    /**
+     * Suma los deltas al acumulado, creando la fila si no existía. Como en {@link CuentaSaldoDiarioRepository#acumular},
+     * el upsert solo bloquea la fila afectada.
+     */
+    @Modifying
+    @Query(
+        value = "insert into movimiento_rollup (usuario_id, dimension, periodo, inicio, clave_id, ingresos, gastos, movimientos) " +
+        "values (:usuarioId, :dimension, :periodo, :inicio, :claveId, :ingresos, :gastos, :movimientos) " +
+        "on conflict (usuario_id, dimension, periodo, inicio, clave_id) do update set " +
+        "ingresos = movimiento_rollup.ingresos + excluded.ingresos, " +
+        "gastos = movimiento_rollup.gastos + excluded.gastos, " +
+        "movimientos = movimiento_rollup.movimientos + excluded.movimientos",
+        nativeQuery = true
+    )
+    void acumular(
+        @Param("usuarioId") Long usuarioId,
+        @Param("dimension") String dimension,
+        @Param("periodo") String periodo,
+        @Param("inicio") LocalDate inicio,
+        @Param("claveId") Long claveId,
+        @Param("ingresos") BigDecimal ingresos,
+        @Param("gastos") BigDecimal gastos,
+        @Param("movimientos") long movimientos
+    );
+
+    /**
+     * Serie de un usuario desglosada por categoría o cuenta, ordenada por periodo.
+     */
+    @Query(
+        "select new finanzas.repository.projection.PuntoSerie(r.id.inicio, r.id.claveId, r.ingresos, r.gastos, r.movimientos) " +
+        "from MovimientoRollup r where r.id.usuarioId = :usuarioId and r.id.dimension = :dimension " +
+        "and r.id.periodo = :periodo and r.id.inicio between :desde and :hasta and r.movimientos > 0 " +
+        "order by r.id.inicio, r.id.claveId"
+    )
+    List<PuntoSerie> findSerie(
+        @Param("usuarioId") Long usuarioId,
+        @Param("dimension") DimensionRollup dimension,
+        @Param("periodo") PeriodoRollup periodo,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    /**
+     * Serie de un usuario sin desglose: suma las filas de una de las dimensiones, que ya cuenta cada movimiento una vez.
+     */
+    @Query(
+        "select new finanzas.repository.projection.PuntoSerie(r.id.inicio, cast(null as Long), sum(r.ingresos), sum(r.gastos), " +
+        "sum(r.movimientos)) from MovimientoRollup r where r.id.usuarioId = :usuarioId " +
+        "and r.id.dimension = finanzas.domain.enumeration.DimensionRollup.CUENTA " +
+        "and r.id.periodo = :periodo and r.id.inicio between :desde and :hasta " +
+        "group by r.id.inicio having sum(r.movimientos) > 0 order by r.id.inicio"
+    )
+    List<PuntoSerie> findSerieTotal(
+        @Param("usuarioId") Long usuarioId,
+        @Param("periodo") PeriodoRollup periodo,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    /**
+     * Bloquea la tabla frente a escrituras concurrentes hasta el fin de la transacción (usado durante la reconstrucción).
+     */
+    @Modifying
+    @Query(value = "lock table movimiento_rollup in exclusive mode", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "delete from movimiento_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Recalcula todos los acumulados a partir de la tabla {@code movimiento}.
+     */
+    @Modifying
+    @Query(
+        value = "insert into movimiento_rollup (usuario_id, dimension, periodo, inicio, clave_id, ingresos, gastos, movimientos) " +
+        "select m.usuario_id, d.dimension, p.periodo, cast(date_trunc(p.unidad, m.fecha_movimiento) as date), " +
+        "case when d.dimension = 'CATEGORIA' then coalesce(m.categoria_id, 0) else coalesce(m.cuenta_id, 0) end, " +
+        "sum(case when m.tipo = 'INGRESO' then m.monto else 0 end), " +
+        "sum(case when m.tipo = 'GASTO' then m.monto else 0 end), count(*) " +
+        "from movimiento m " +
+        "cross join (values ('DIA', 'day'), ('SEMANA', 'week'), ('MES', 'month')) as p (periodo, unidad) " +
+        "cross join (values ('CATEGORIA'), ('CUENTA')) as d (dimension) " +
+        "where m.usuario_id is not null group by 1, 2, 3, 4, 5",
+        nativeQuery = true
+    )
+    int rebuildFromMovimientos();
+}
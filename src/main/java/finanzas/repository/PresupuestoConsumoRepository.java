@@ -0,0 +1,134 @@
+package finanzas.repository;
+
+import finanzas.domain.PresupuestoConsumo;
+import finanzas.repository.projection.ConsumoPresupuesto;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the PresupuestoConsumo entity.
+ */
+@Repository
+public interface PresupuestoConsumoRepository extends JpaRepository<PresupuestoConsumo, Long> {
+    /**
+     * Suma un delta de gasto a todos los presupuestos del usuario que cubren la categoría y la fecha. Es una
+     * actualización JPQL y no nativa para que Hibernate solo invalide esta tabla y no toda la caché de segundo nivel.
+     */
+    @Modifying
+    @Query(
+        "update PresupuestoConsumo c set c.gastado = c.gastado + :gastado, c.movimientos = c.movimientos + :movimientos " +
+        "where c.presupuestoId in (select p.id from Presupuesto p where p.usuario.id = :usuarioId " +
+        "and p.fechaInicio <= :fecha and p.fechaFin >= :fecha and (p.categoria is null or p.categoria.id = :categoriaId))"
+    )
+    int acumular(
+        @Param("usuarioId") Long usuarioId,
+        @Param("categoriaId") Long categoriaId,
+        @Param("fecha") LocalDate fecha,
+        @Param("gastado") BigDecimal gastado,
+        @Param("movimientos") long movimientos
+    );
+
+    /**
+     * Recalcula el consumo de un presupuesto desde {@code movimiento}, creando la fila si no existía.
+     */
+    @Modifying
+    @Query(
+        value = "insert into presupuesto_consumo (presupuesto_id, gastado, movimientos) " +
+        "select p.id, coalesce(sum(m.monto), 0), count(m.id) from presupuesto p " +
+        "left join movimiento m on m.usuario_id = p.usuario_id and m.tipo = 'GASTO' " +
+        "and (p.categoria_id is null or m.categoria_id = p.categoria_id) " +
+        "and m.fecha_movimiento >= p.fecha_inicio and m.fecha_movimiento < p.fecha_fin + 1 " +
+        "where p.id = :presupuestoId group by p.id " +
+        "on conflict (presupuesto_id) do update set gastado = excluded.gastado, movimientos = excluded.movimientos",
+        nativeQuery = true
+    )
+    int recalcular(@Param("presupuestoId") Long presupuestoId);
+
+    @Query(
+        "select new finanzas.repository.projection.ConsumoPresupuesto(p.id, cat.id, p.fechaInicio, p.fechaFin, p.monto, " +
+        "c.gastado, c.movimientos) from Presupuesto p left join p.categoria cat " +
+        "left join PresupuestoConsumo c on c.presupuestoId = p.id " +
+        "where p.id = :presupuestoId and p.usuario.login = ?#{authentication.name}"
+    )
+    Optional<ConsumoPresupuesto> findByPresupuestoIdForCurrentUser(@Param("presupuestoId") Long presupuestoId);
+
+    @Query(
+        "select new finanzas.repository.projection.ConsumoPresupuesto(p.id, cat.id, p.fechaInicio, p.fechaFin, p.monto, " +
+        "c.gastado, c.movimientos) from Presupuesto p left join p.categoria cat " +
+        "left join PresupuestoConsumo c on c.presupuestoId = p.id " +
+        "where p.usuario.login = ?#{authentication.name} and p.fechaInicio <= :fecha and p.fechaFin >= :fecha " +
+        "order by p.fechaFin, p.id"
+    )
+    List<ConsumoPresupuesto> findActivosForCurrentUser(@Param("fecha") LocalDate fecha);
+
+    /**
+     * Consumo de los presupuestos de un usuario que cubren la categoría y se solapan con el intervalo de fechas.
+     */
+    @Query(
+        "select new finanzas.repository.projection.ConsumoPresupuesto(p.id, cat.id, p.fechaInicio, p.fechaFin, p.monto, " +
+        "c.gastado, c.movimientos) from Presupuesto p left join p.categoria cat " +
+        "join PresupuestoConsumo c on c.presupuestoId = p.id " +
+        "where p.usuario.id = :usuarioId and p.fechaInicio <= :hasta and p.fechaFin >= :desde " +
+        "and (cat is null or cat.id = :categoriaId)"
+    )
+    List<ConsumoPresupuesto> findAfectados(
+        @Param("usuarioId") Long usuarioId,
+        @Param("categoriaId") Long categoriaId,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+
+    /**
+     * Sube el umbral avisado si aún no había llegado a {@code umbral}. Devuelve 1 solo a quien lo sube, así que el
+     * aviso se envía una vez aunque varios nodos evalúen el mismo presupuesto.
+     */
+    @Modifying
+    @Query(
+        "update PresupuestoConsumo c set c.umbralNotificado = :umbral " +
+        "where c.presupuestoId = :presupuestoId and c.umbralNotificado < :umbral"
+    )
+    int marcarUmbral(@Param("presupuestoId") Long presupuestoId, @Param("umbral") int umbral);
+
+    /**
+     * Baja el umbral avisado cuando el gasto vuelve a estar por debajo, para avisar de nuevo si se vuelve a cruzar.
+     */
+    @Modifying
+    @Query(
+        "update PresupuestoConsumo c set c.umbralNotificado = :umbral " +
+        "where c.presupuestoId = :presupuestoId and c.umbralNotificado > :umbral"
+    )
+    int rebajarUmbral(@Param("presupuestoId") Long presupuestoId, @Param("umbral") int umbral);
+
+    /**
+     * Bloquea la tabla frente a escrituras concurrentes hasta el fin de la transacción (usado durante la reconstrucción).
+     */
+    @Modifying
+    @Query(value = "lock table presupuesto_consumo in exclusive mode", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "delete from presupuesto_consumo", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Recalcula el consumo de todos los presupuestos a partir de la tabla {@code movimiento}.
+     */
+    @Modifying
+    @Query(
+        value = "insert into presupuesto_consumo (presupuesto_id, gastado, movimientos) " +
+        "select p.id, coalesce(sum(m.monto), 0), count(m.id) from presupuesto p " +
+        "left join movimiento m on m.usuario_id = p.usuario_id and m.tipo = 'GASTO' " +
+        "and (p.categoria_id is null or m.categoria_id = p.categoria_id) " +
+        "and m.fecha_movimiento >= p.fecha_inicio and m.fecha_movimiento < p.fecha_fin + 1 " +
+        "group by p.id",
+        nativeQuery = true
+    )
+    int rebuildFromMovimientos();
+}
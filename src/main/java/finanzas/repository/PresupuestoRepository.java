@@ -45,13 +45,25 @@ public interface PresupuestoRepository extends JpaRepository<Presupuesto, Long>
     @Query("select presupuesto from Presupuesto presupuesto left join fetch presupuesto.usuario where presupuesto.id =:id")
     Optional<Presupuesto> findOneWithToOneRelationships(@Param("id") Long id);
 
+    /** Valor de {@code excluirId} para presupuestos nuevos, que aún no tienen id. */
+    long SIN_ID = -1L;
+
+    /**
+     * Indica si el usuario ya tiene otro presupuesto de la categoría cuyas fechas se solapan (ambos extremos incluidos).
+     * Es una sola consulta al índice de la restricción de exclusión {@code ex_presupuesto__usuario_categoria_fechas}.
+     *
+     * @param excluirId id del propio presupuesto al actualizarlo, o {@link #SIN_ID}.
+     */
     @Query(
-        "select p from Presupuesto p where p.categoria.id = :categoriaId and p.usuario.login = ?#{authentication.name} and p.fechaInicio <= :fechaFin and p.fechaFin >= :fechaInicio and (:id is null or p.id <> :id)"
+        value = "select exists (select 1 from presupuesto p where p.usuario_id = :usuarioId and p.categoria_id = :categoriaId " +
+        "and daterange(p.fecha_inicio, p.fecha_fin, '[]') && daterange(:fechaInicio, :fechaFin, '[]') and p.id <> :excluirId)",
+        nativeQuery = true
     )
-    List<Presupuesto> findOverlappingForCurrentUser(
+    boolean existsOverlapping(
+        @Param("usuarioId") Long usuarioId,
         @Param("categoriaId") Long categoriaId,
         @Param("fechaInicio") LocalDate fechaInicio,
         @Param("fechaFin") LocalDate fechaFin,
-        @Param("id") Long id
+        @Param("excluirId") long excluirId
     );
 }
@@ -0,0 +1,273 @@
+package finanzas.repository;
+
+import finanzas.domain.enumeration.PeriodicidadRecurrencia;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.projection.OcurrenciaRecurrente;
+import finanzas.repository.projection.SerieRecurrente;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Acceso JDBC a las series de movimientos recurrentes ({@code serie_recurrente}) y a la marca de agua de su detección
+ * ({@code serie_recurrente_ejecucion}).
+ * <p>
+ * Todas las lecturas de {@code movimiento} van por índice: las claves modificadas de cada usuario por
+ * {@code idx_movimiento__usuario_id_modificado_en} (más las que los movimientos han dejado de tener, de
+ * {@code movimiento_clave_modificada}) y el histórico de una clave por
+ * {@code idx_movimiento__usuario_id_clave_recurrencia}. Las marcas de tiempo son UTC, como las escribe la base de datos.
+ */
+@Repository
+public class SerieRecurrenteRepository {
+
+    private static final String INSERTAR_SERIE =
+        "insert into serie_recurrente (usuario_id, clave, tipo, periodicidad, descripcion, cuenta_id, categoria_id, " +
+        "monto_medio, monto_minimo, monto_maximo, ocurrencias, primera_fecha, ultima_fecha, proxima_fecha, actualizado_en) " +
+        "values (:usuarioId, :clave, :tipo, :periodicidad, :descripcion, :cuentaId, :categoriaId, :montoMedio, :montoMinimo, " +
+        ":montoMaximo, :ocurrencias, :primeraFecha, :ultimaFecha, :proximaFecha, now() at time zone 'utc')";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public SerieRecurrenteRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Marca de agua reclamada por una ejecución.
+     *
+     * @param propietario identifica la ejecución que tiene el arrendamiento; {@link #renovar} y {@link #terminar} solo
+     * escriben con él.
+     * @param marca inicio de la última ejecución completada, o {@code null} si nunca se ha completado ninguna.
+     * @param inicio inicio de esta ejecución: la marca que quedará si termina bien.
+     */
+    public record Marca(String propietario, LocalDateTime marca, LocalDateTime inicio) {}
+
+    /**
+     * Clave de recurrencia y tipo de movimiento: lo que identifica el histórico en el que se buscan series.
+     */
+    public record Clave(String clave, TipoMovimiento tipo) {}
+
+    /**
+     * Reclama la detección para una nueva ejecución si nadie la tiene o si el arrendamiento de quien la tenía ha
+     * caducado. Al reclamarla cambia su propietario, así que la ejecución que la tenía ya no puede renovarla ni
+     * terminarla.
+     *
+     * @return the current watermark, or empty if another execution holds the lease.
+     */
+    public Optional<Marca> reclamar(Duration arrendamiento) {
+        String propietario = UUID.randomUUID().toString();
+        return jdbc
+            .query(
+                """
+                update serie_recurrente_ejecucion
+                set propietario = :propietario,
+                    en_curso_hasta = now() at time zone 'utc' + make_interval(secs => :arrendamiento),
+                    actualizado_en = now() at time zone 'utc'
+                where id = 1 and (en_curso_hasta is null or en_curso_hasta < now() at time zone 'utc')
+                returning marca, now() at time zone 'utc' as inicio
+                """,
+                Map.of("propietario", propietario, "arrendamiento", arrendamiento.toSeconds()),
+                (rs, fila) ->
+                    new Marca(propietario, rs.getObject("marca", LocalDateTime.class), rs.getObject("inicio", LocalDateTime.class))
+            )
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Prolonga el arrendamiento de la ejecución en curso.
+     *
+     * @return {@code false} if {@code propietario} no longer holds the lease, and nothing was written.
+     */
+    public boolean renovar(String propietario, Duration arrendamiento) {
+        int filas = jdbc.update(
+            "update serie_recurrente_ejecucion set en_curso_hasta = now() at time zone 'utc' + make_interval(secs => :arrendamiento), " +
+            "actualizado_en = now() at time zone 'utc' where id = 1 and propietario = :propietario and en_curso_hasta is not null",
+            Map.of("propietario", propietario, "arrendamiento", arrendamiento.toSeconds())
+        );
+        return filas == 1;
+    }
+
+    /**
+     * Libera el arrendamiento y, si {@code marca} no es {@code null}, avanza la marca de agua hasta ella.
+     *
+     * @return {@code false} if {@code propietario} no longer holds the lease, and nothing was written.
+     */
+    public boolean terminar(String propietario, LocalDateTime marca) {
+        int filas = jdbc.update(
+            "update serie_recurrente_ejecucion set marca = coalesce(:marca, marca), en_curso_hasta = null, " +
+            "actualizado_en = now() at time zone 'utc' where id = 1 and propietario = :propietario and en_curso_hasta is not null",
+            new MapSqlParameterSource().addValue("propietario", propietario).addValue("marca", marca, Types.TIMESTAMP)
+        );
+        return filas == 1;
+    }
+
+    /**
+     * Ids de los usuarios activados, en orden ascendente.
+     */
+    public List<Long> findUsuariosActivos() {
+        return jdbc.queryForList("select id from jhi_user where activated = true order by id", Map.of(), Long.class);
+    }
+
+    /**
+     * Claves de recurrencia de los usuarios indicados con movimientos escritos después de {@code desde} (todas, si es
+     * {@code null}), agrupadas por usuario. Incluye las que algún movimiento ha dejado de tener desde entonces, al
+     * cambiar su descripción o al borrarse, aunque ya no les quede ninguno.
+     */
+    public Map<Long, List<Clave>> findClavesModificadas(List<Long> usuarioIds, LocalDateTime desde) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource().addValue("usuarios", usuarioIds).addValue("desde", desde);
+        Map<Long, List<Clave>> porUsuario = new LinkedHashMap<>();
+        String modificadas = desde != null ? " and modificado_en > :desde" : "";
+        jdbc.query(
+            "select usuario_id, clave_recurrencia, tipo from movimiento where usuario_id in (:usuarios) and clave_recurrencia <> ''" +
+            modificadas +
+            " union select usuario_id, clave, tipo from movimiento_clave_modificada where usuario_id in (:usuarios)" +
+            modificadas +
+            " order by usuario_id",
+            parametros,
+            rs -> {
+                porUsuario
+                    .computeIfAbsent(rs.getLong("usuario_id"), id -> new ArrayList<>())
+                    .add(new Clave(rs.getString("clave_recurrencia"), TipoMovimiento.valueOf(rs.getString("tipo"))));
+            }
+        );
+        return porUsuario;
+    }
+
+    /**
+     * Movimientos de una clave desde {@code desde} (UTC), por fecha ascendente.
+     */
+    public List<OcurrenciaRecurrente> findOcurrencias(Long usuarioId, Clave clave, LocalDate desde) {
+        return jdbc.query(
+            "select cast(fecha_movimiento as date) as fecha, monto, cuenta_id, categoria_id, descripcion from movimiento " +
+            "where usuario_id = :usuarioId and clave_recurrencia = :clave and tipo = :tipo and fecha_movimiento >= :desde " +
+            "order by fecha_movimiento, id",
+            new MapSqlParameterSource()
+                .addValue("usuarioId", usuarioId)
+                .addValue("clave", clave.clave())
+                .addValue("tipo", clave.tipo().name())
+                .addValue("desde", desde.atStartOfDay()),
+            (rs, fila) ->
+                new OcurrenciaRecurrente(
+                    rs.getObject("fecha", LocalDate.class),
+                    rs.getBigDecimal("monto"),
+                    rs.getObject("cuenta_id", Long.class),
+                    rs.getObject("categoria_id", Long.class),
+                    rs.getString("descripcion")
+                )
+        );
+    }
+
+    /**
+     * Sustituye las series de las claves indicadas de un usuario: un lote de borrados y un lote de inserciones.
+     *
+     * @param series las series detectadas, todas de alguna de las {@code claves}.
+     */
+    public void reemplazar(Long usuarioId, List<Clave> claves, List<SerieRecurrente> series) {
+        jdbc.batchUpdate(
+            "delete from serie_recurrente where usuario_id = :usuarioId and clave = :clave and tipo = :tipo",
+            claves
+                .stream()
+                .map(clave ->
+                    new MapSqlParameterSource()
+                        .addValue("usuarioId", usuarioId)
+                        .addValue("clave", clave.clave())
+                        .addValue("tipo", clave.tipo().name())
+                )
+                .toArray(SqlParameterSource[]::new)
+        );
+        jdbc.batchUpdate(
+            INSERTAR_SERIE,
+            series
+                .stream()
+                .map(serie ->
+                    new MapSqlParameterSource()
+                        .addValue("usuarioId", usuarioId)
+                        .addValue("clave", serie.clave())
+                        .addValue("tipo", serie.tipo().name())
+                        .addValue("periodicidad", serie.periodicidad().name())
+                        .addValue("descripcion", serie.descripcion())
+                        .addValue("cuentaId", serie.cuentaId())
+                        .addValue("categoriaId", serie.categoriaId())
+                        .addValue("montoMedio", serie.montoMedio())
+                        .addValue("montoMinimo", serie.montoMinimo())
+                        .addValue("montoMaximo", serie.montoMaximo())
+                        .addValue("ocurrencias", serie.ocurrencias())
+                        .addValue("primeraFecha", serie.primeraFecha())
+                        .addValue("ultimaFecha", serie.ultimaFecha())
+                        .addValue("proximaFecha", serie.proximaFecha())
+                )
+                .toArray(SqlParameterSource[]::new)
+        );
+    }
+
+    /**
+     * Olvida las claves abandonadas antes de {@code hasta}, que ninguna ejecución posterior volverá a leer.
+     *
+     * @return number of keys deleted.
+     */
+    public int deleteClavesModificadas(LocalDateTime hasta) {
+        return jdbc.update("delete from movimiento_clave_modificada where modificado_en < :hasta", Map.of("hasta", hasta));
+    }
+
+    /**
+     * Borra las series cuya próxima ocurrencia es anterior a {@code limite}: hace tiempo que dejaron de repetirse.
+     *
+     * @return number of series deleted.
+     */
+    public int deleteCaducadas(LocalDate limite) {
+        return jdbc.update("delete from serie_recurrente where proxima_fecha < :limite", Map.of("limite", limite));
+    }
+
+    /**
+     * Series de un usuario con la próxima ocurrencia entre {@code desde} y {@code hasta}, ambos incluidos.
+     *
+     * @param tipo tipo de movimiento, o {@code null} para todos.
+     */
+    public List<SerieRecurrente> findByUsuarioIdAndProximaFecha(Long usuarioId, TipoMovimiento tipo, LocalDate desde, LocalDate hasta) {
+        return jdbc.query(
+            "select clave, tipo, periodicidad, descripcion, cuenta_id, categoria_id, monto_medio, monto_minimo, monto_maximo, " +
+            "ocurrencias, primera_fecha, ultima_fecha, proxima_fecha from serie_recurrente " +
+            "where usuario_id = :usuarioId and proxima_fecha between :desde and :hasta" +
+            (tipo != null ? " and tipo = :tipo" : "") +
+            " order by proxima_fecha, clave",
+            new MapSqlParameterSource()
+                .addValue("usuarioId", usuarioId)
+                .addValue("desde", desde)
+                .addValue("hasta", hasta)
+                .addValue("tipo", tipo != null ? tipo.name() : null),
+            SerieRecurrenteRepository::serie
+        );
+    }
+
+    private static SerieRecurrente serie(ResultSet rs, int fila) throws SQLException {
+        return new SerieRecurrente(
+            rs.getString("clave"),
+            TipoMovimiento.valueOf(rs.getString("tipo")),
+            PeriodicidadRecurrencia.valueOf(rs.getString("periodicidad")),
+            rs.getString("descripcion"),
+            rs.getObject("cuenta_id", Long.class),
+            rs.getObject("categoria_id", Long.class),
+            rs.getBigDecimal("monto_medio"),
+            rs.getBigDecimal("monto_minimo"),
+            rs.getBigDecimal("monto_maximo"),
+            rs.getInt("ocurrencias"),
+            rs.getObject("primera_fecha", LocalDate.class),
+            rs.getObject("ultima_fecha", LocalDate.class),
+            rs.getObject("proxima_fecha", LocalDate.class)
+        );
+    }
+}
@@ -1,19 +1,305 @@
 package finanzas.repository;
 
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import finanzas.domain.WhatsappMessage;
 import finanzas.domain.enumeration.EstadoProcesamiento;
+import finanzas.repository.projection.ClaveMensaje;
 
 /**
  * Spring Data JPA repository for the WhatsappMessage entity.
+ * <p>
+ * {@code whatsapp_message} está particionada por mes de {@code fecha_recepcion} y su clave primaria es
+ * {@code (id, fecha_recepcion)}, pero JPA la mapea solo por {@code id}. Una consulta por {@code id} sin más recorre una
+ * partición por mes conservado, así que las del procesamiento de la cola reciben la {@link ClaveMensaje} completa y
+ * filtran también por {@code fecha_recepcion}: PostgreSQL solo lee la partición del mes del mensaje. Las
+ * actualizaciones de la entidad hacen lo mismo con {@code @PartitionKey}. {@code findById} sigue sirviendo para lo que
+ * no es el camino caliente (administración, reintentos de entrega del proveedor).
  */
 @Repository
 public interface WhatsappMessageRepository extends JpaRepository<WhatsappMessage, Long> {
-    List<WhatsappMessage> findByEstado(EstadoProcesamiento estado);
-    
+    /** Condición SQL de un mensaje que se puede reclamar: pendiente o en proceso con el arrendamiento vencido. */
+    String RECLAMABLE =
+        "(w.estado = 'RECIBIDO' or (w.estado = 'PROCESANDO' and (w.lease_expira is null or w.lease_expira < :ahora)))";
+
+    /**
+     * Condición SQL de los estados no terminales, la del índice parcial {@code idx_whatsapp_message__pendientes}. Repetida
+     * como literal en una consulta permite usar el índice aunque el estado llegue como parámetro.
+     */
+    String NO_TERMINAL = "w.estado in ('RECIBIDO', 'PROCESANDO', 'REINTENTO', 'DESCARTADO')";
+
+    /** Condición SQL de un mensaje en espera de reintento cuyo {@code proximo_intento} ya llegó. */
+    String REINTENTABLE = "(w.estado = 'REINTENTO' and w.proximo_intento <= :ahora)";
+
+    /** Columnas de una {@link ClaveMensaje}: el id y {@code fecha_recepcion} en microsegundos desde la época, en UTC. */
+    String CLAVE = "w.id, cast(extract(epoch from w.fecha_recepcion) * 1000000 as bigint)";
+
+    /** Condición SQL de un mensaje por su clave completa, que solo lee la partición de su mes. */
+    String POR_CLAVE = "w.id = :id and w.fecha_recepcion = cast(:fecha as timestamp)";
+
+    /**
+     * Mensajes en un estado no terminal, por id, leídos del índice parcial {@code idx_whatsapp_message__pendientes}.
+     *
+     * @throws IllegalArgumentException if {@code estado} is terminal ({@code COMPLETADO}, {@code ERROR}): those grow with
+     * the history and are not in the index.
+     */
+    default List<WhatsappMessage> findPendientesByEstado(EstadoProcesamiento estado) {
+        if (estado == EstadoProcesamiento.COMPLETADO || estado == EstadoProcesamiento.ERROR) {
+            throw new IllegalArgumentException("Terminal estado " + estado + " is not indexed");
+        }
+        return findNoTerminalesByEstado(estado.name());
+    }
+
+    @Query(
+        value = "select w.* from whatsapp_message w where w.estado = :estado and " + NO_TERMINAL + " order by w.id",
+        nativeQuery = true
+    )
+    List<WhatsappMessage> findNoTerminalesByEstado(@Param("estado") String estado);
+
     List<WhatsappMessage> findByUsuarioIdOrderByFechaRecepcionDesc(Long usuarioId);
-}
\ No newline at end of file
+
+    /**
+     * Los {@code limite} mensajes más recientes, de la partición más nueva hacia atrás.
+     */
+    @Query(
+        value = "select w.* from whatsapp_message w order by w.fecha_recepcion desc, w.id desc limit :limite",
+        nativeQuery = true
+    )
+    List<WhatsappMessage> findUltimos(@Param("limite") int limite);
+
+    /**
+     * Los {@code limite} mensajes anteriores a la posición {@code (fecha, id)}, para paginar por clave. La condición
+     * sobre {@code fecha_recepcion} sola descarta las particiones posteriores.
+     */
+    @Query(
+        value = "select w.* from whatsapp_message w where w.fecha_recepcion <= :fecha and (w.fecha_recepcion, w.id) < (:fecha, :id) " +
+        "order by w.fecha_recepcion desc, w.id desc limit :limite",
+        nativeQuery = true
+    )
+    List<WhatsappMessage> findAnteriores(@Param("fecha") ZonedDateTime fecha, @Param("id") Long id, @Param("limite") int limite);
+
+    /**
+     * Id del mensaje con el id de proveedor indicado, por la clave primaria de {@code whatsapp_message_entrega} en lugar
+     * de buscarlo en cada partición.
+     */
+    @Query(
+        value = "select e.whatsapp_message_id from whatsapp_message_entrega e where e.provider_message_id = :providerMessageId",
+        nativeQuery = true
+    )
+    Optional<Long> findIdByProviderMessageId(@Param("providerMessageId") String providerMessageId);
+
+    /**
+     * Bloquea hasta {@code limite} mensajes reclamables (pendientes o con el arrendamiento vencido), los más antiguos
+     * primero. Las filas ya bloqueadas por otra transacción se saltan, así que varios nodos pueden reclamar a la vez
+     * sin esperarse ni repetir mensajes.
+     */
+    default List<ClaveMensaje> lockReclamables(ZonedDateTime ahora, int limite) {
+        return claves(lockReclamablesFilas(ahora, limite));
+    }
+
+    @Query(
+        value = "select " + CLAVE + " from whatsapp_message w where " + RECLAMABLE + " order by w.id limit :limite for update skip locked",
+        nativeQuery = true
+    )
+    List<Object[]> lockReclamablesFilas(@Param("ahora") ZonedDateTime ahora, @Param("limite") int limite);
+
+    /**
+     * Bloquea hasta {@code limite} mensajes cuyo reintento ya venció, los que más esperan primero. Recorre solo el
+     * índice parcial {@code idx_whatsapp_message__proximo_intento}, que contiene únicamente los mensajes en
+     * {@code REINTENTO}.
+     */
+    default List<ClaveMensaje> lockReintentables(ZonedDateTime ahora, int limite) {
+        return claves(lockReintentablesFilas(ahora, limite));
+    }
+
+    @Query(
+        value = "select " +
+        CLAVE +
+        " from whatsapp_message w where " +
+        REINTENTABLE +
+        " order by w.proximo_intento limit :limite for update skip locked",
+        nativeQuery = true
+    )
+    List<Object[]> lockReintentablesFilas(@Param("ahora") ZonedDateTime ahora, @Param("limite") int limite);
+
+    /**
+     * Como {@link #lockReclamables} pero para un único mensaje, también si es un reintento vencido; vacío si no es
+     * reclamable o lo tiene otro.
+     */
+    default List<Long> lockReclamable(ClaveMensaje clave, ZonedDateTime ahora) {
+        return lockReclamable(clave.id(), utc(clave.fechaRecepcion()), ahora);
+    }
+
+    @Query(
+        value = "select w.id from whatsapp_message w where " +
+        POR_CLAVE +
+        " and (" +
+        RECLAMABLE +
+        " or " +
+        REINTENTABLE +
+        ") for update skip locked",
+        nativeQuery = true
+    )
+    List<Long> lockReclamable(@Param("id") Long id, @Param("fecha") String fecha, @Param("ahora") ZonedDateTime ahora);
+
+    /**
+     * Bloquea un mensaje cuyo procesamiento acaba de fallar en este nodo, para anotar el fallo. Tras el rollback el
+     * mensaje sigue pendiente, en reintento o arrendado a {@code owner}; vacío si mientras tanto otro nodo lo reclamó o
+     * lo terminó.
+     */
+    default List<Long> lockFallido(ClaveMensaje clave, String owner, ZonedDateTime ahora) {
+        return lockFallido(clave.id(), utc(clave.fechaRecepcion()), owner, ahora);
+    }
+
+    @Query(
+        value = "select w.id from whatsapp_message w where " +
+        POR_CLAVE +
+        " and (w.estado in ('RECIBIDO', 'REINTENTO') or " +
+        "(w.estado = 'PROCESANDO' and (w.lease_owner = :owner or w.lease_expira is null or w.lease_expira < :ahora))) " +
+        "for update skip locked",
+        nativeQuery = true
+    )
+    List<Long> lockFallido(
+        @Param("id") Long id,
+        @Param("fecha") String fecha,
+        @Param("owner") String owner,
+        @Param("ahora") ZonedDateTime ahora
+    );
+
+    /**
+     * Bloquea hasta {@code limite} mensajes descartados, los más antiguos primero, con el índice
+     * {@code idx_whatsapp_message__pendientes}.
+     */
+    default List<ClaveMensaje> lockDescartados(int limite) {
+        return claves(lockDescartadosFilas(limite));
+    }
+
+    @Query(
+        value = "select " +
+        CLAVE +
+        " from whatsapp_message w where w.estado = 'DESCARTADO' order by w.id limit :limite for update skip locked",
+        nativeQuery = true
+    )
+    List<Object[]> lockDescartadosFilas(@Param("limite") int limite);
+
+    /**
+     * El mensaje con la clave indicada, leído solo de la partición de su mes.
+     */
+    default Optional<WhatsappMessage> findByClave(ClaveMensaje clave) {
+        return findByIdAndFechaRecepcion(clave.id(), clave.fechaRecepcion());
+    }
+
+    Optional<WhatsappMessage> findByIdAndFechaRecepcion(Long id, ZonedDateTime fechaRecepcion);
+
+    /**
+     * Devuelve a {@code RECIBIDO}, con los intentos a cero, los mensajes descartados de {@code claves}; el resto se
+     * ignora.
+     */
+    default int reactivar(Collection<ClaveMensaje> claves) {
+        return reactivar(ids(claves), desde(claves));
+    }
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+        "update WhatsappMessage w set w.estado = finanzas.domain.enumeration.EstadoProcesamiento.RECIBIDO, w.intentos = 0, " +
+        "w.proximoIntento = null, w.errorMensaje = null, w.leaseOwner = null, w.leaseExpira = null " +
+        "where w.id in :ids and w.fechaRecepcion >= :desde " +
+        "and w.estado = finanzas.domain.enumeration.EstadoProcesamiento.DESCARTADO"
+    )
+    int reactivar(@Param("ids") Collection<Long> ids, @Param("desde") ZonedDateTime desde);
+
+    /**
+     * Marca como {@code PROCESANDO} los mensajes ya bloqueados, arrendados a {@code owner} hasta {@code expira}.
+     */
+    default int arrendar(Collection<ClaveMensaje> claves, String owner, ZonedDateTime expira) {
+        return arrendar(ids(claves), desde(claves), owner, expira);
+    }
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+        "update WhatsappMessage w set w.estado = finanzas.domain.enumeration.EstadoProcesamiento.PROCESANDO, " +
+        "w.leaseOwner = :owner, w.leaseExpira = :expira where w.id in :ids and w.fechaRecepcion >= :desde"
+    )
+    int arrendar(
+        @Param("ids") Collection<Long> ids,
+        @Param("desde") ZonedDateTime desde,
+        @Param("owner") String owner,
+        @Param("expira") ZonedDateTime expira
+    );
+
+    /**
+     * Prolonga el arrendamiento de los mensajes que {@code owner} sigue teniendo. Los que están bloqueados por su
+     * transacción de procesamiento se saltan: no hace falta renovarlos mientras dure el bloqueo.
+     */
+    default int renovarArrendamientos(Collection<ClaveMensaje> claves, String owner, ZonedDateTime expira) {
+        return renovarArrendamientos(ids(claves), utc(desde(claves)), owner, expira);
+    }
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+        value = "update whatsapp_message set lease_expira = :expira where fecha_recepcion >= cast(:desde as timestamp) and id in (" +
+        "select w.id from whatsapp_message w where w.id in (:ids) and w.fecha_recepcion >= cast(:desde as timestamp) " +
+        "and w.lease_owner = :owner and w.estado = 'PROCESANDO' for update skip locked)",
+        nativeQuery = true
+    )
+    int renovarArrendamientos(
+        @Param("ids") Collection<Long> ids,
+        @Param("desde") String desde,
+        @Param("owner") String owner,
+        @Param("expira") ZonedDateTime expira
+    );
+
+    /**
+     * Renueva el arrendamiento de un mensaje y bloquea su fila hasta el fin de la transacción. Devuelve {@code 0} si
+     * el mensaje ya no pertenece a {@code owner}.
+     */
+    default int confirmarArrendamiento(ClaveMensaje clave, String owner, ZonedDateTime expira) {
+        return confirmarArrendamiento(clave.id(), clave.fechaRecepcion(), owner, expira);
+    }
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(
+        "update WhatsappMessage w set w.leaseExpira = :expira where w.id = :id and w.fechaRecepcion = :fecha " +
+        "and w.leaseOwner = :owner and w.estado = finanzas.domain.enumeration.EstadoProcesamiento.PROCESANDO"
+    )
+    int confirmarArrendamiento(
+        @Param("id") Long id,
+        @Param("fecha") ZonedDateTime fecha,
+        @Param("owner") String owner,
+        @Param("expira") ZonedDateTime expira
+    );
+
+    private static List<ClaveMensaje> claves(List<Object[]> filas) {
+        return filas.stream().map(ClaveMensaje::of).toList();
+    }
+
+    private static List<Long> ids(Collection<ClaveMensaje> claves) {
+        return claves.stream().map(ClaveMensaje::id).toList();
+    }
+
+    /**
+     * La {@code fecha_recepcion} más antigua de {@code claves}: filtrar por ella descarta las particiones anteriores.
+     */
+    private static ZonedDateTime desde(Collection<ClaveMensaje> claves) {
+        return claves.stream().map(ClaveMensaje::fechaRecepcion).min(Comparator.naturalOrder()).orElseThrow();
+    }
+
+    /**
+     * {@code fecha_recepcion} guarda la hora UTC sin zona: en las consultas nativas se pasa como texto UTC, sea cual sea
+     * la zona de la JVM.
+     */
+    private static String utc(ZonedDateTime fecha) {
+        return fecha.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime().toString();
+    }
+}
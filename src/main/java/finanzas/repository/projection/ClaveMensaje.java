@@ -0,0 +1,27 @@
+package finanzas.repository.projection;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Clave primaria de un {@link finanzas.domain.WhatsappMessage}: su id y su {@code fechaRecepcion}, la columna por la que
+ * se particiona {@code whatsapp_message}. Con ella una consulta de un mensaje lee solo la partición de su mes.
+ * <p>
+ * La fecha se guarda en UTC, así que dos claves del mismo mensaje son iguales aunque vengan de zonas distintas.
+ */
+public record ClaveMensaje(Long id, ZonedDateTime fechaRecepcion) {
+    public ClaveMensaje {
+        fechaRecepcion = fechaRecepcion.withZoneSameInstant(ZoneOffset.UTC);
+    }
+
+    /**
+     * Lee una fila {@code (id, microsegundos desde la época)} de una consulta nativa; ver
+     * {@code WhatsappMessageRepository.CLAVE}.
+     */
+    public static ClaveMensaje of(Object[] fila) {
+        long micros = ((Number) fila[1]).longValue();
+        return new ClaveMensaje(((Number) fila[0]).longValue(), Instant.EPOCH.plus(micros, ChronoUnit.MICROS).atZone(ZoneOffset.UTC));
+    }
+}
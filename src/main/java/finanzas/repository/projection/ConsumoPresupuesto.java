@@ -0,0 +1,50 @@
+package finanzas.repository.projection;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Consumo de un presupuesto: importe presupuestado, gasto acumulado y lo que queda.
+ *
+ * @param categoriaId categoría del presupuesto; {@code null} si cubre todos los gastos.
+ * @param movimientos número de gastos que cuentan para el presupuesto.
+ * @param restante {@code monto - gastado}; negativo si el presupuesto se ha superado.
+ * @param porcentaje gasto sobre el importe presupuestado, en tanto por cien con dos decimales; {@code null} si el
+ * importe es cero.
+ */
+public record ConsumoPresupuesto(
+    Long presupuestoId,
+    Long categoriaId,
+    LocalDate fechaInicio,
+    LocalDate fechaFin,
+    BigDecimal monto,
+    BigDecimal gastado,
+    Long movimientos,
+    BigDecimal restante,
+    BigDecimal porcentaje
+) {
+    private static final BigDecimal CIEN = BigDecimal.valueOf(100);
+
+    public ConsumoPresupuesto {
+        gastado = gastado != null ? gastado : BigDecimal.ZERO;
+        movimientos = movimientos != null ? movimientos : 0L;
+        restante = monto != null ? monto.subtract(gastado) : null;
+        porcentaje = monto != null && monto.signum() != 0 ? gastado.multiply(CIEN).divide(monto, 2, RoundingMode.HALF_UP) : null;
+    }
+
+    /**
+     * Constructor para las consultas JPQL; {@code restante} y {@code porcentaje} se calculan.
+     */
+    public ConsumoPresupuesto(
+        Long presupuestoId,
+        Long categoriaId,
+        LocalDate fechaInicio,
+        LocalDate fechaFin,
+        BigDecimal monto,
+        BigDecimal gastado,
+        Long movimientos
+    ) {
+        this(presupuestoId, categoriaId, fechaInicio, fechaFin, monto, gastado, movimientos, null, null);
+    }
+}
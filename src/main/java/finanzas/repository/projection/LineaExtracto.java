@@ -0,0 +1,23 @@
+package finanzas.repository.projection;
+
+import finanzas.domain.enumeration.SeccionExtracto;
+import java.math.BigDecimal;
+
+/**
+ * Línea de un extracto mensual.
+ *
+ * @param claveId cuenta, categoría o presupuesto de la línea; {@code 0} para el total y para los movimientos sin
+ * categoría.
+ * @param gastos en las líneas de presupuesto, lo gastado en todo el periodo del presupuesto.
+ * @param saldo saldo de la cuenta al cierre del mes, o lo que queda del presupuesto; {@code null} en el resto.
+ * @param limite importe del presupuesto; {@code null} en el resto.
+ */
+public record LineaExtracto(
+    SeccionExtracto seccion,
+    long claveId,
+    BigDecimal ingresos,
+    BigDecimal gastos,
+    long movimientos,
+    BigDecimal saldo,
+    BigDecimal limite
+) {}
@@ -0,0 +1,19 @@
+package finanzas.repository.projection;
+
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+/**
+ * Movimiento tal como se exporta: con los nombres de la categoría y la cuenta en lugar de sus ids, que es también lo
+ * que admite la importación.
+ */
+public record MovimientoExportFila(
+    Long id,
+    ZonedDateTime fecha,
+    TipoMovimiento tipo,
+    BigDecimal monto,
+    String descripcion,
+    String categoria,
+    String cuenta
+) {}
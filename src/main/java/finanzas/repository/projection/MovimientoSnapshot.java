@@ -0,0 +1,51 @@
+package finanzas.repository.projection;
+
+import finanzas.domain.Movimiento;
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Estado de un {@link Movimiento} reducido a los campos que alimentan los acumulados (saldos, resúmenes...).
+ * Solo guarda identificadores de las relaciones, por lo que construirlo nunca inicializa proxies lazy.
+ */
+public record MovimientoSnapshot(
+    Long id,
+    Long usuarioId,
+    Long cuentaId,
+    Long categoriaId,
+    TipoMovimiento tipo,
+    BigDecimal monto,
+    ZonedDateTime fechaMovimiento
+) {
+    public static MovimientoSnapshot of(Movimiento movimiento) {
+        return new MovimientoSnapshot(
+            movimiento.getId(),
+            movimiento.getUsuario() != null ? movimiento.getUsuario().getId() : null,
+            movimiento.getCuenta() != null ? movimiento.getCuenta().getId() : null,
+            movimiento.getCategoria() != null ? movimiento.getCategoria().getId() : null,
+            movimiento.getTipo(),
+            movimiento.getMonto(),
+            movimiento.getFechaMovimiento()
+        );
+    }
+
+    /**
+     * Importe con signo: positivo para ingresos, negativo para gastos.
+     */
+    public BigDecimal neto() {
+        if (tipo == null || monto == null) {
+            return BigDecimal.ZERO;
+        }
+        return tipo == TipoMovimiento.INGRESO ? monto : monto.negate();
+    }
+
+    /**
+     * Día (UTC) en el que se contabiliza el movimiento.
+     */
+    public LocalDate fechaUtc() {
+        return fechaMovimiento != null ? fechaMovimiento.withZoneSameInstant(ZoneOffset.UTC).toLocalDate() : null;
+    }
+}
@@ -0,0 +1,8 @@
+package finanzas.repository.projection;
+
+import java.io.Serializable;
+
+/**
+ * Identificador y nombre de una entidad con nombre (categoría, cuenta...).
+ */
+public record NombreId(Long id, String nombre) implements Serializable {}
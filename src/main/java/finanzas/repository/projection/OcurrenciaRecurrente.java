@@ -0,0 +1,11 @@
+package finanzas.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Un movimiento del histórico de una clave de recurrencia, con lo que necesita la detección de series.
+ *
+ * @param fecha fecha del movimiento en UTC.
+ */
+public record OcurrenciaRecurrente(LocalDate fecha, BigDecimal monto, Long cuentaId, Long categoriaId, String descripcion) {}
@@ -0,0 +1,25 @@
+package finanzas.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ingresos y gastos de un periodo de una serie temporal.
+ *
+ * @param inicio primer día (UTC) del periodo.
+ * @param claveId categoría o cuenta del desglose; {@code null} en las series sin desglose o para los movimientos sin
+ * esa relación.
+ * @param movimientos número de movimientos del periodo.
+ */
+public record PuntoSerie(LocalDate inicio, Long claveId, BigDecimal ingresos, BigDecimal gastos, Long movimientos) {
+    public PuntoSerie {
+        claveId = claveId != null && claveId != 0L ? claveId : null;
+        ingresos = ingresos != null ? ingresos : BigDecimal.ZERO;
+        gastos = gastos != null ? gastos : BigDecimal.ZERO;
+        movimientos = movimientos != null ? movimientos : 0L;
+    }
+
+    public BigDecimal neto() {
+        return ingresos.subtract(gastos);
+    }
+}
@@ -0,0 +1,32 @@
+package finanzas.repository.projection;
+
+import finanzas.domain.enumeration.PeriodicidadRecurrencia;
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Serie de movimientos recurrentes de un usuario: misma descripción normalizada, importes parecidos y fechas
+ * separadas por un periodo regular.
+ *
+ * @param clave descripción normalizada ({@code movimiento.clave_recurrencia}).
+ * @param descripcion descripción del último movimiento de la serie.
+ * @param cuentaId cuenta del último movimiento de la serie.
+ * @param categoriaId categoría del último movimiento de la serie.
+ * @param proximaFecha siguiente ocurrencia esperada (UTC).
+ */
+public record SerieRecurrente(
+    String clave,
+    TipoMovimiento tipo,
+    PeriodicidadRecurrencia periodicidad,
+    String descripcion,
+    Long cuentaId,
+    Long categoriaId,
+    BigDecimal montoMedio,
+    BigDecimal montoMinimo,
+    BigDecimal montoMaximo,
+    int ocurrencias,
+    LocalDate primeraFecha,
+    LocalDate ultimaFecha,
+    LocalDate proximaFecha
+) {}
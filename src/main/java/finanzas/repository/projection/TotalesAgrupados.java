@@ -0,0 +1,19 @@
+package finanzas.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales de ingresos y gastos agrupados por una clave (categoría, cuenta o usuario).
+ *
+ * @param id identificador del grupo; {@code null} agrupa los movimientos sin esa relación.
+ */
+public record TotalesAgrupados(Long id, BigDecimal ingresos, BigDecimal gastos) {
+    public TotalesAgrupados {
+        ingresos = ingresos != null ? ingresos : BigDecimal.ZERO;
+        gastos = gastos != null ? gastos : BigDecimal.ZERO;
+    }
+
+    public BigDecimal neto() {
+        return ingresos.subtract(gastos);
+    }
+}
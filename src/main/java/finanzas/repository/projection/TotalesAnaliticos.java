@@ -0,0 +1,17 @@
+package finanzas.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales de un grupo de una consulta analítica calculados en PostgreSQL.
+ *
+ * @param clave valor del grupo como texto; {@code null} para el total y para los movimientos sin categoría o cuenta.
+ * @param movimientos número de movimientos del grupo.
+ * @param gastoMedio importe medio de los gastos, redondeado a céntimos; {@code null} si no tiene gastos.
+ */
+public record TotalesAnaliticos(String clave, BigDecimal ingresos, BigDecimal gastos, long movimientos, BigDecimal gastoMedio) {
+    public TotalesAnaliticos {
+        ingresos = ingresos != null ? ingresos : BigDecimal.ZERO;
+        gastos = gastos != null ? gastos : BigDecimal.ZERO;
+    }
+}
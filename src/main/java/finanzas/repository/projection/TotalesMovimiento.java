@@ -0,0 +1,18 @@
+package finanzas.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales de ingresos y gastos calculados en base de datos.
+ * Los componentes pueden llegar {@code null} cuando no hay movimientos de ese tipo; los accesores los normalizan a cero.
+ */
+public record TotalesMovimiento(BigDecimal ingresos, BigDecimal gastos) {
+    public TotalesMovimiento {
+        ingresos = ingresos != null ? ingresos : BigDecimal.ZERO;
+        gastos = gastos != null ? gastos : BigDecimal.ZERO;
+    }
+
+    public BigDecimal neto() {
+        return ingresos.subtract(gastos);
+    }
+}
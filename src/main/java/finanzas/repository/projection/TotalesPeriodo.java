@@ -0,0 +1,17 @@
+package finanzas.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales de ingresos y gastos de un mes (UTC).
+ */
+public record TotalesPeriodo(Integer anio, Integer mes, BigDecimal ingresos, BigDecimal gastos) {
+    public TotalesPeriodo {
+        ingresos = ingresos != null ? ingresos : BigDecimal.ZERO;
+        gastos = gastos != null ? gastos : BigDecimal.ZERO;
+    }
+
+    public BigDecimal neto() {
+        return ingresos.subtract(gastos);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Lightweight read projections returned by the repositories.
+ */
+package finanzas.repository.projection;
@@ -0,0 +1,305 @@
+package finanzas.service;
+
+import finanzas.config.ApplicationProperties;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.AgrupacionAnalitica;
+import finanzas.repository.MovimientoFiltro;
+import finanzas.repository.MovimientoRepository;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.repository.projection.TotalesAnaliticos;
+import finanzas.security.SecurityUtils;
+import finanzas.service.dto.ConsultaAnalitica;
+import finanzas.service.dto.GrupoAnalitico;
+import finanzas.service.event.MovimientoChangedEvent;
+import finanzas.service.event.MovimientosCreadosEvent;
+import java.time.DayOfWeek;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Consultas analíticas (agrupar y filtrar movimientos por periodo, día de la semana, categoría o cuenta) servidas desde
+ * memoria.
+ * <p>
+ * La primera consulta de un usuario carga sus movimientos una vez en un {@link MovimientosColumnares}; las siguientes
+ * se resuelven recorriendo esas columnas, sin ir a PostgreSQL. Tras el commit de cada escritura de movimientos de este
+ * nodo se parchean las instantáneas cargadas. Las escrituras de otros nodos no llegan como evento: cada
+ * {@code application.analitica.revalidacion} la instantánea se compara con la versión de los movimientos del usuario
+ * en la base de datos ({@link MovimientoRepository#findVersionByUsuarioId}, una lectura de índice) y se recarga si ha
+ * cambiado, también cuando el cambio fue de este nodo y ya estaba parcheado. Las instantáneas se expulsan por LRU
+ * cuando su tamaño total supera {@code application.analitica.memoria}; un usuario expulsado vuelve a cargarse en su
+ * siguiente consulta.
+ * <p>
+ * Para no guardar una instantánea a la que le falte un cambio confirmado mientras se cargaba, cada usuario tiene un
+ * contador de versión (por franjas) que se incrementa con cada cambio; la carga solo se guarda si el contador no ha
+ * cambiado desde que empezó.
+ * <p>
+ * Con {@code application.analitica.enabled=false} no se guarda nada en memoria y cada consulta se agrupa en PostgreSQL
+ * con {@link MovimientoRepository#sumTotalesAgrupadosByFiltro}.
+ */
+@Service
+public class AnaliticaService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnaliticaService.class);
+
+    private static final int FRANJAS = 64;
+
+    private final MovimientoService movimientoService;
+
+    private final MovimientoRepository movimientoRepository;
+
+    private final UserRepository userRepository;
+
+    private final boolean enabled;
+
+    private final long memoria;
+
+    private final long revalidacion;
+
+    /** Instantáneas por usuario en orden de acceso; protegido por su propio monitor. */
+    private final LinkedHashMap<Long, Instantanea> instantaneas = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLongArray versiones = new AtomicLongArray(FRANJAS);
+
+    public AnaliticaService(
+        MovimientoService movimientoService,
+        MovimientoRepository movimientoRepository,
+        UserRepository userRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.movimientoService = movimientoService;
+        this.movimientoRepository = movimientoRepository;
+        this.userRepository = userRepository;
+        this.enabled = applicationProperties.getAnalitica().isEnabled();
+        this.memoria = applicationProperties.getAnalitica().getMemoria().toBytes();
+        this.revalidacion = applicationProperties.getAnalitica().getRevalidacion().toNanos();
+    }
+
+    /**
+     * Ejecuta la consulta sobre los movimientos del usuario actual.
+     *
+     * @return the groups, empty if there is no authenticated user.
+     */
+    public List<GrupoAnalitico> consultar(ConsultaAnalitica consulta) {
+        Optional<Long> usuarioId = SecurityUtils.getCurrentUserLogin()
+            .flatMap(userRepository::findOneWithAuthoritiesByLogin)
+            .map(User::getId);
+        return usuarioId.map(id -> consultar(id, consulta)).orElse(List.of());
+    }
+
+    /**
+     * Ejecuta la consulta sobre los movimientos de un usuario.
+     */
+    public List<GrupoAnalitico> consultar(Long usuarioId, ConsultaAnalitica consulta) {
+        if (!enabled) {
+            return agrupar(usuarioId, consulta);
+        }
+        return instantanea(usuarioId).consultar(consulta);
+    }
+
+    /**
+     * Resuelve la consulta en PostgreSQL, sin instantánea.
+     */
+    private List<GrupoAnalitico> agrupar(Long usuarioId, ConsultaAnalitica consulta) {
+        MovimientoFiltro filtro = new MovimientoFiltro(
+            usuarioId,
+            consulta.desde() != null ? consulta.desde().atStartOfDay(ZoneOffset.UTC) : null,
+            consulta.hasta() != null ? finDelDia(consulta.hasta().atStartOfDay(ZoneOffset.UTC)) : null,
+            consulta.cuentaId(),
+            consulta.categoriaId(),
+            consulta.tipo()
+        );
+        return movimientoRepository
+            .sumTotalesAgrupadosByFiltro(filtro, consulta.agrupacion(), consulta.limite())
+            .stream()
+            .map(totales -> grupo(consulta.agrupacion(), totales))
+            .toList();
+    }
+
+    private static ZonedDateTime finDelDia(ZonedDateTime dia) {
+        return dia.plusDays(1).minus(1, ChronoUnit.MICROS);
+    }
+
+    private static GrupoAnalitico grupo(AgrupacionAnalitica agrupacion, TotalesAnaliticos totales) {
+        String clave = agrupacion == AgrupacionAnalitica.DIA_SEMANA
+            ? DayOfWeek.of(Integer.parseInt(totales.clave())).name()
+            : totales.clave();
+        return new GrupoAnalitico(clave, totales.ingresos(), totales.gastos(), totales.movimientos(), totales.gastoMedio());
+    }
+
+    private MovimientosColumnares instantanea(Long usuarioId) {
+        Instantanea cargada;
+        synchronized (instantaneas) {
+            cargada = instantaneas.get(usuarioId);
+        }
+        if (cargada != null) {
+            if (vigente(usuarioId, cargada)) {
+                return cargada.datos;
+            }
+            synchronized (instantaneas) {
+                instantaneas.remove(usuarioId, cargada);
+            }
+            LOG.debug("Movimientos of user {} changed in the database, reloading the analytics snapshot", usuarioId);
+        }
+        long version = versiones.get(franja(usuarioId));
+        // leída antes de cargar: un cambio confirmado durante la carga hace que la siguiente revalidación recargue
+        String versionEnBaseDeDatos = movimientoRepository.findVersionByUsuarioId(usuarioId);
+        MovimientosColumnares nueva = new MovimientosColumnares(0);
+        movimientoService.forEachSnapshot(usuarioId, nueva::guardar);
+        synchronized (instantaneas) {
+            Instantanea otra = instantaneas.get(usuarioId);
+            if (otra != null) {
+                // otra consulta del mismo usuario la cargó a la vez
+                return otra.datos;
+            }
+            if (versiones.get(franja(usuarioId)) != version) {
+                LOG.debug("Movimientos of user {} changed while loading, analytics snapshot not cached", usuarioId);
+                return nueva;
+            }
+            if (nueva.bytes() > memoria) {
+                LOG.debug("Analytics snapshot of user {} ({} bytes) exceeds the memory budget", usuarioId, nueva.bytes());
+                return nueva;
+            }
+            instantaneas.put(usuarioId, new Instantanea(nueva, versionEnBaseDeDatos, System.nanoTime()));
+            expulsar();
+        }
+        LOG.debug("Loaded analytics snapshot of user {}: {} movimientos", usuarioId, nueva.size());
+        return nueva;
+    }
+
+    /**
+     * Indica si la instantánea sigue al día con la base de datos. Solo consulta la versión si ha pasado el intervalo de
+     * revalidación desde la última comprobación.
+     */
+    private boolean vigente(Long usuarioId, Instantanea instantanea) {
+        long ahora = System.nanoTime();
+        if (ahora - instantanea.validadaEn < revalidacion) {
+            return true;
+        }
+        if (!instantanea.version.equals(movimientoRepository.findVersionByUsuarioId(usuarioId))) {
+            return false;
+        }
+        instantanea.validadaEn = ahora;
+        return true;
+    }
+
+    /**
+     * Expulsa las instantáneas menos usadas hasta que el total cabe en el presupuesto de memoria. El tamaño se mide
+     * aquí y no en cada parche, así que las que crecen con parches se contabilizan en la siguiente carga.
+     */
+    private void expulsar() {
+        long total = 0;
+        for (Instantanea instantanea : instantaneas.values()) {
+            total += instantanea.datos.bytes();
+        }
+        Iterator<Map.Entry<Long, Instantanea>> it = instantaneas.entrySet().iterator();
+        while (total > memoria && it.hasNext()) {
+            Map.Entry<Long, Instantanea> menosUsada = it.next();
+            total -= menosUsada.getValue().datos.bytes();
+            it.remove();
+            LOG.debug("Evicted analytics snapshot of user {}", menosUsada.getKey());
+        }
+    }
+
+    /**
+     * Descarta todas las instantáneas, por ejemplo tras modificar movimientos sin pasar por {@link MovimientoService}.
+     *
+     * @return number of snapshots discarded.
+     */
+    public int vaciar() {
+        synchronized (instantaneas) {
+            for (int i = 0; i < FRANJAS; i++) {
+                versiones.incrementAndGet(i);
+            }
+            int descartadas = instantaneas.size();
+            instantaneas.clear();
+            return descartadas;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovimientoChanged(MovimientoChangedEvent event) {
+        MovimientoSnapshot anterior = event.anterior();
+        MovimientoSnapshot actual = event.actual();
+        if (anterior != null && (actual == null || !Objects.equals(anterior.usuarioId(), actual.usuarioId()))) {
+            MovimientosColumnares instantanea = aParchear(anterior.usuarioId());
+            if (instantanea != null) {
+                instantanea.quitar(anterior.id());
+            }
+        }
+        if (actual != null) {
+            MovimientosColumnares instantanea = aParchear(actual.usuarioId());
+            if (instantanea != null) {
+                instantanea.guardar(actual);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovimientosCreados(MovimientosCreadosEvent event) {
+        Long usuarioId = null;
+        MovimientosColumnares instantanea = null;
+        for (MovimientoSnapshot creado : event.creados()) {
+            if (creado.usuarioId() == null) {
+                continue;
+            }
+            if (!creado.usuarioId().equals(usuarioId)) {
+                usuarioId = creado.usuarioId();
+                instantanea = aParchear(usuarioId);
+            }
+            if (instantanea != null) {
+                instantanea.guardar(creado);
+            }
+        }
+    }
+
+    /**
+     * Marca el cambio en la versión del usuario y devuelve su instantánea si está cargada. Ambas cosas van bajo el
+     * mismo monitor que guarda las cargas, de modo que una carga concurrente o ve el cambio o no se guarda.
+     */
+    private MovimientosColumnares aParchear(Long usuarioId) {
+        if (usuarioId == null) {
+            return null;
+        }
+        synchronized (instantaneas) {
+            versiones.incrementAndGet(franja(usuarioId));
+            Instantanea instantanea = instantaneas.get(usuarioId);
+            return instantanea != null ? instantanea.datos : null;
+        }
+    }
+
+    private static int franja(Long usuarioId) {
+        return (int) Math.floorMod(usuarioId, (long) FRANJAS);
+    }
+
+    /**
+     * Instantánea cargada de un usuario, con la versión de sus movimientos en la base de datos al cargarla.
+     */
+    private static final class Instantanea {
+
+        private final MovimientosColumnares datos;
+
+        private final String version;
+
+        /** {@link System#nanoTime()} de la última comprobación de {@link #version}. */
+        private volatile long validadaEn;
+
+        private Instantanea(MovimientosColumnares datos, String version, long validadaEn) {
+            this.datos = datos;
+            this.version = version;
+            this.validadaEn = validadaEn;
+        }
+    }
+}
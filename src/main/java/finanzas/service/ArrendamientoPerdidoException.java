@@ -0,0 +1,13 @@
+package finanzas.service;
+
+/**
+ * El arrendamiento de un trabajo por bloques ha pasado a otra ejecución: la que lo tenía deja de escribir.
+ */
+public class ArrendamientoPerdidoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ArrendamientoPerdidoException(String message) {
+        super(message);
+    }
+}
@@ -28,9 +28,16 @@ public class CategoriaService {
 
     private final CategoriaMapper categoriaMapper;
 
-    public CategoriaService(CategoriaRepository categoriaRepository, CategoriaMapper categoriaMapper) {
+    private final DiccionarioNombresService diccionarioNombresService;
+
+    public CategoriaService(
+        CategoriaRepository categoriaRepository,
+        CategoriaMapper categoriaMapper,
+        DiccionarioNombresService diccionarioNombresService
+    ) {
         this.categoriaRepository = categoriaRepository;
         this.categoriaMapper = categoriaMapper;
+        this.diccionarioNombresService = diccionarioNombresService;
     }
 
     /**
@@ -43,6 +50,7 @@ public class CategoriaService {
         LOG.debug("Request to save Categoria : {}", categoriaDTO);
         Categoria categoria = categoriaMapper.toEntity(categoriaDTO);
         categoria = categoriaRepository.save(categoria);
+        invalidarDiccionario(categoria);
         return categoriaMapper.toDto(categoria);
     }
 
@@ -54,8 +62,10 @@ public class CategoriaService {
      */
     public CategoriaDTO update(CategoriaDTO categoriaDTO) {
         LOG.debug("Request to update Categoria : {}", categoriaDTO);
+        categoriaRepository.findUsuarioIdById(categoriaDTO.getId()).ifPresent(diccionarioNombresService::invalidar);
         Categoria categoria = categoriaMapper.toEntity(categoriaDTO);
         categoria = categoriaRepository.save(categoria);
+        invalidarDiccionario(categoria);
         return categoriaMapper.toDto(categoria);
     }
 
@@ -71,12 +81,16 @@ public class CategoriaService {
         return categoriaRepository
             .findById(categoriaDTO.getId())
             .map(existingCategoria -> {
+                invalidarDiccionario(existingCategoria);
                 categoriaMapper.partialUpdate(existingCategoria, categoriaDTO);
 
                 return existingCategoria;
             })
             .map(categoriaRepository::save)
-            .map(categoriaMapper::toDto);
+            .map(saved -> {
+                invalidarDiccionario(saved);
+                return categoriaMapper.toDto(saved);
+            });
     }
 
     /**
@@ -118,6 +132,13 @@ public class CategoriaService {
      */
     public void delete(Long id) {
         LOG.debug("Request to delete Categoria : {}", id);
+        categoriaRepository.findUsuarioIdById(id).ifPresent(diccionarioNombresService::invalidar);
         categoriaRepository.deleteById(id);
     }
+
+    private void invalidarDiccionario(Categoria categoria) {
+        if (categoria.getUsuario() != null) {
+            diccionarioNombresService.invalidar(categoria.getUsuario().getId());
+        }
+    }
 }
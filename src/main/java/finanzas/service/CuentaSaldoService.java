@@ -0,0 +1,155 @@
+package finanzas.service;
+
+import finanzas.repository.CuentaSaldoDiarioRepository;
+import finanzas.repository.MovimientoRepository;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.service.event.MovimientoChangedEvent;
+import finanzas.service.event.MovimientosCreadosEvent;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Mantiene el libro de saldos diarios por cuenta ({@code cuenta_saldo_diario}) y resuelve consultas de saldo sobre él.
+ * <p>
+ * Los saldos se actualizan de forma incremental al recibir {@link MovimientoChangedEvent} (o
+ * {@link MovimientosCreadosEvent} en las importaciones), dentro de la misma transacción que escribe el movimiento, así
+ * que un saldo leído nunca contradice a la tabla {@code movimiento}.
+ */
+@Service
+@Transactional
+public class CuentaSaldoService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CuentaSaldoService.class);
+
+    private final CuentaSaldoDiarioRepository cuentaSaldoDiarioRepository;
+
+    private final MovimientoRepository movimientoRepository;
+
+    public CuentaSaldoService(CuentaSaldoDiarioRepository cuentaSaldoDiarioRepository, MovimientoRepository movimientoRepository) {
+        this.cuentaSaldoDiarioRepository = cuentaSaldoDiarioRepository;
+        this.movimientoRepository = movimientoRepository;
+    }
+
+    @EventListener
+    public void onMovimientoChanged(MovimientoChangedEvent event) {
+        MovimientoSnapshot anterior = event.anterior();
+        MovimientoSnapshot actual = event.actual();
+        if (anterior != null && actual != null && mismaClave(anterior, actual)) {
+            // mismo día y misma cuenta: basta con un único upsert con la diferencia
+            acumular(actual.cuentaId(), actual.fechaUtc(), actual.neto().subtract(anterior.neto()));
+            return;
+        }
+        if (anterior != null) {
+            acumular(anterior.cuentaId(), anterior.fechaUtc(), anterior.neto().negate());
+        }
+        if (actual != null) {
+            acumular(actual.cuentaId(), actual.fechaUtc(), actual.neto());
+        }
+    }
+
+    @EventListener
+    public void onMovimientosCreados(MovimientosCreadosEvent event) {
+        Map<Long, Map<LocalDate, SumaMonetaria>> deltas = new HashMap<>();
+        for (MovimientoSnapshot creado : event.creados()) {
+            if (creado.cuentaId() != null && creado.fechaUtc() != null) {
+                deltas
+                    .computeIfAbsent(creado.cuentaId(), id -> new HashMap<>())
+                    .computeIfAbsent(creado.fechaUtc(), fecha -> new SumaMonetaria())
+                    .sumar(creado.neto());
+            }
+        }
+        deltas.forEach((cuentaId, porDia) -> porDia.forEach((fecha, delta) -> acumular(cuentaId, fecha, delta.valor())));
+    }
+
+    private static boolean mismaClave(MovimientoSnapshot a, MovimientoSnapshot b) {
+        return Objects.equals(a.cuentaId(), b.cuentaId()) && Objects.equals(a.fechaUtc(), b.fechaUtc());
+    }
+
+    private void acumular(Long cuentaId, LocalDate fecha, BigDecimal delta) {
+        if (cuentaId == null || fecha == null || delta.signum() == 0) {
+            return;
+        }
+        cuentaSaldoDiarioRepository.acumular(cuentaId, fecha, delta);
+    }
+
+    /**
+     * Neto (ingresos - gastos) de todos los movimientos de la cuenta.
+     *
+     * @param cuentaId the id of the cuenta.
+     * @return the net amount, {@code 0} if the cuenta has no movements.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getNeto(Long cuentaId) {
+        return cuentaSaldoDiarioRepository.sumNetoByCuentaId(cuentaId).orElse(BigDecimal.ZERO);
+    }
+
+    /**
+     * Neto (ingresos - gastos) de los movimientos de la cuenta con {@code fechaMovimiento} entre {@code from} y {@code to}
+     * (ambos inclusive).
+     * <p>
+     * Los días completos del rango se leen del libro diario; solo los días parciales de los extremos se suman sobre
+     * {@code movimiento}, de modo que el coste depende de los días del rango y no del histórico de la cuenta.
+     *
+     * @param cuentaId the id of the cuenta.
+     * @param from start of the range.
+     * @param to end of the range.
+     * @return the net amount.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getNeto(Long cuentaId, ZonedDateTime from, ZonedDateTime to) {
+        if (from.isAfter(to)) {
+            return BigDecimal.ZERO;
+        }
+        ZonedDateTime fromUtc = from.withZoneSameInstant(ZoneOffset.UTC);
+        ZonedDateTime toUtc = to.withZoneSameInstant(ZoneOffset.UTC);
+
+        LocalDate primerDiaCompleto = fromUtc.toLocalTime().equals(LocalTime.MIDNIGHT)
+            ? fromUtc.toLocalDate()
+            : fromUtc.toLocalDate().plusDays(1);
+        LocalDate ultimoDiaCompleto = toUtc.toLocalDate().minusDays(1);
+
+        if (primerDiaCompleto.isAfter(ultimoDiaCompleto)) {
+            return movimientoRepository.sumNetoByCuentaIdAndFechaMovimientoBetween(cuentaId, from, to).orElse(BigDecimal.ZERO);
+        }
+
+        ZonedDateTime inicioDiasCompletos = primerDiaCompleto.atStartOfDay(ZoneOffset.UTC);
+        ZonedDateTime finDiasCompletos = ultimoDiaCompleto.plusDays(1).atStartOfDay(ZoneOffset.UTC);
+
+        BigDecimal cabeza = movimientoRepository
+            .sumNetoByCuentaIdAndFechaMovimientoFromUntil(cuentaId, fromUtc, inicioDiasCompletos)
+            .orElse(BigDecimal.ZERO);
+        BigDecimal cuerpo = cuentaSaldoDiarioRepository
+            .sumNetoByCuentaIdAndFechaBetween(cuentaId, primerDiaCompleto, ultimoDiaCompleto)
+            .orElse(BigDecimal.ZERO);
+        BigDecimal cola = movimientoRepository
+            .sumNetoByCuentaIdAndFechaMovimientoBetween(cuentaId, finDiasCompletos, toUtc)
+            .orElse(BigDecimal.ZERO);
+        return cabeza.add(cuerpo).add(cola);
+    }
+
+    /**
+     * Recalcula el libro de saldos completo a partir de {@code movimiento}. Pensado para la carga inicial de datos
+     * existentes o para reparar el libro; las escrituras concurrentes de movimientos esperan a que termine.
+     *
+     * @return number of daily rows rebuilt.
+     */
+    public int reconstruir() {
+        LOG.info("Rebuilding cuenta_saldo_diario from movimiento");
+        cuentaSaldoDiarioRepository.lockForRebuild();
+        cuentaSaldoDiarioRepository.deleteAllRows();
+        int filas = cuentaSaldoDiarioRepository.rebuildFromMovimientos();
+        LOG.info("Rebuilt {} daily balance rows", filas);
+        return filas;
+    }
+}
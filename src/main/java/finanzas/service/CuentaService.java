@@ -28,9 +28,16 @@ public class CuentaService {
 
     private final CuentaMapper cuentaMapper;
 
-    public CuentaService(CuentaRepository cuentaRepository, CuentaMapper cuentaMapper) {
+    private final DiccionarioNombresService diccionarioNombresService;
+
+    public CuentaService(
+        CuentaRepository cuentaRepository,
+        CuentaMapper cuentaMapper,
+        DiccionarioNombresService diccionarioNombresService
+    ) {
         this.cuentaRepository = cuentaRepository;
         this.cuentaMapper = cuentaMapper;
+        this.diccionarioNombresService = diccionarioNombresService;
     }
 
     /**
@@ -43,6 +50,7 @@ public class CuentaService {
         LOG.debug("Request to save Cuenta : {}", cuentaDTO);
         Cuenta cuenta = cuentaMapper.toEntity(cuentaDTO);
         cuenta = cuentaRepository.save(cuenta);
+        invalidarDiccionario(cuenta);
         return cuentaMapper.toDto(cuenta);
     }
 
@@ -54,8 +62,10 @@ public class CuentaService {
      */
     public CuentaDTO update(CuentaDTO cuentaDTO) {
         LOG.debug("Request to update Cuenta : {}", cuentaDTO);
+        cuentaRepository.findUsuarioIdById(cuentaDTO.getId()).ifPresent(diccionarioNombresService::invalidar);
         Cuenta cuenta = cuentaMapper.toEntity(cuentaDTO);
         cuenta = cuentaRepository.save(cuenta);
+        invalidarDiccionario(cuenta);
         return cuentaMapper.toDto(cuenta);
     }
 
@@ -71,12 +81,16 @@ public class CuentaService {
         return cuentaRepository
             .findById(cuentaDTO.getId())
             .map(existingCuenta -> {
+                invalidarDiccionario(existingCuenta);
                 cuentaMapper.partialUpdate(existingCuenta, cuentaDTO);
 
                 return existingCuenta;
             })
             .map(cuentaRepository::save)
-            .map(cuentaMapper::toDto);
+            .map(saved -> {
+                invalidarDiccionario(saved);
+                return cuentaMapper.toDto(saved);
+            });
     }
 
     /**
@@ -118,6 +132,13 @@ public class CuentaService {
      */
     public void delete(Long id) {
         LOG.debug("Request to delete Cuenta : {}", id);
+        cuentaRepository.findUsuarioIdById(id).ifPresent(diccionarioNombresService::invalidar);
         cuentaRepository.deleteById(id);
     }
+
+    private void invalidarDiccionario(Cuenta cuenta) {
+        if (cuenta.getUsuario() != null) {
+            diccionarioNombresService.invalidar(cuenta.getUsuario().getId());
+        }
+    }
 }
@@ -0,0 +1,184 @@
+package finanzas.service;
+
+import finanzas.domain.enumeration.PeriodicidadRecurrencia;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.projection.OcurrenciaRecurrente;
+import finanzas.repository.projection.SerieRecurrente;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Busca series recurrentes en el histórico de una clave (descripción normalizada y tipo de movimiento).
+ * <p>
+ * Primero agrupa los movimientos por importe: ordenados de menor a mayor, cada grupo admite hasta un
+ * {@value #TOLERANCIA_RELATIVA_PORCIENTO} % (y al menos {@link #TOLERANCIA_ABSOLUTA}) sobre su importe más bajo, de modo
+ * que una suscripción que sube de precio sigue siendo la misma serie y dos planes distintos con la misma descripción
+ * no se mezclan. Después, en cada grupo con al menos {@value #MIN_OCURRENCIAS} fechas distintas, toma la mediana de los
+ * intervalos entre fechas: si se parece a una {@link PeriodicidadRecurrencia} y al menos tres de cada cuatro intervalos
+ * caen dentro de su tolerancia, el grupo es una serie. Las series que ya deberían haberse repetido y no lo han hecho
+ * se descartan.
+ * <p>
+ * Es código puro, sin acceso a datos, y no depende del orden de entrada.
+ */
+final class DetectorRecurrencias {
+
+    static final int MIN_OCURRENCIAS = 3;
+
+    static final int TOLERANCIA_RELATIVA_PORCIENTO = 10;
+
+    static final BigDecimal TOLERANCIA_ABSOLUTA = BigDecimal.ONE;
+
+    private DetectorRecurrencias() {}
+
+    /**
+     * @param ocurrencias movimientos de la clave, en cualquier orden.
+     * @param hoy fecha de referencia (UTC) para descartar las series que han dejado de repetirse.
+     * @return at most one series per periodicidad: the one with most occurrences.
+     */
+    static List<SerieRecurrente> detectar(String clave, TipoMovimiento tipo, List<OcurrenciaRecurrente> ocurrencias, LocalDate hoy) {
+        if (ocurrencias.size() < MIN_OCURRENCIAS) {
+            return List.of();
+        }
+        Map<PeriodicidadRecurrencia, SerieRecurrente> mejores = new EnumMap<>(PeriodicidadRecurrencia.class);
+        for (List<OcurrenciaRecurrente> grupo : agruparPorImporte(ocurrencias)) {
+            SerieRecurrente serie = serie(clave, tipo, grupo, hoy);
+            if (serie != null) {
+                mejores.merge(serie.periodicidad(), serie, (a, b) -> b.ocurrencias() > a.ocurrencias() ? b : a);
+            }
+        }
+        return List.copyOf(mejores.values());
+    }
+
+    private static List<List<OcurrenciaRecurrente>> agruparPorImporte(List<OcurrenciaRecurrente> ocurrencias) {
+        List<OcurrenciaRecurrente> porImporte = new ArrayList<>(ocurrencias);
+        porImporte.sort(Comparator.comparing(OcurrenciaRecurrente::monto));
+        List<List<OcurrenciaRecurrente>> grupos = new ArrayList<>();
+        List<OcurrenciaRecurrente> grupo = null;
+        BigDecimal tope = null;
+        for (OcurrenciaRecurrente ocurrencia : porImporte) {
+            if (grupo == null || ocurrencia.monto().compareTo(tope) > 0) {
+                grupo = new ArrayList<>();
+                grupos.add(grupo);
+                BigDecimal base = ocurrencia.monto();
+                BigDecimal margen = base.multiply(BigDecimal.valueOf(TOLERANCIA_RELATIVA_PORCIENTO)).movePointLeft(2);
+                tope = base.add(margen.max(TOLERANCIA_ABSOLUTA));
+            }
+            grupo.add(ocurrencia);
+        }
+        return grupos;
+    }
+
+    private static SerieRecurrente serie(String clave, TipoMovimiento tipo, List<OcurrenciaRecurrente> grupo, LocalDate hoy) {
+        grupo.sort(Comparator.comparing(OcurrenciaRecurrente::fecha));
+        LocalDate[] fechas = grupo.stream().map(OcurrenciaRecurrente::fecha).distinct().toArray(LocalDate[]::new);
+        if (fechas.length < MIN_OCURRENCIAS) {
+            return null;
+        }
+        long[] intervalos = new long[fechas.length - 1];
+        for (int i = 1; i < fechas.length; i++) {
+            intervalos[i - 1] = ChronoUnit.DAYS.between(fechas[i - 1], fechas[i]);
+        }
+        long[] ordenados = intervalos.clone();
+        Arrays.sort(ordenados);
+        PeriodicidadRecurrencia periodicidad = periodicidad(ordenados[ordenados.length / 2]);
+        if (periodicidad == null) {
+            return null;
+        }
+        int regulares = 0;
+        for (long intervalo : intervalos) {
+            if (Math.abs(intervalo - dias(periodicidad)) <= tolerancia(periodicidad)) {
+                regulares++;
+            }
+        }
+        if (regulares * 4 < intervalos.length * 3) {
+            return null;
+        }
+        LocalDate ultima = fechas[fechas.length - 1];
+        LocalDate proxima = ocurrencia(periodicidad, ultima, 1);
+        if (proxima.isBefore(hoy.minusDays(tolerancia(periodicidad)))) {
+            return null;
+        }
+
+        SumaMonetaria suma = new SumaMonetaria();
+        BigDecimal minimo = grupo.get(0).monto();
+        BigDecimal maximo = minimo;
+        for (OcurrenciaRecurrente ocurrencia : grupo) {
+            suma.sumar(ocurrencia.monto());
+            minimo = minimo.min(ocurrencia.monto());
+            maximo = maximo.max(ocurrencia.monto());
+        }
+        OcurrenciaRecurrente ultimo = grupo.get(grupo.size() - 1);
+        return new SerieRecurrente(
+            clave,
+            tipo,
+            periodicidad,
+            ultimo.descripcion(),
+            ultimo.cuentaId(),
+            ultimo.categoriaId(),
+            suma.media(grupo.size()),
+            minimo,
+            maximo,
+            grupo.size(),
+            fechas[0],
+            ultima,
+            proxima
+        );
+    }
+
+    private static PeriodicidadRecurrencia periodicidad(long intervalo) {
+        for (PeriodicidadRecurrencia periodicidad : PeriodicidadRecurrencia.values()) {
+            if (Math.abs(intervalo - dias(periodicidad)) <= tolerancia(periodicidad)) {
+                return periodicidad;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Duración nominal del periodo en días.
+     */
+    static int dias(PeriodicidadRecurrencia periodicidad) {
+        return switch (periodicidad) {
+            case SEMANAL -> 7;
+            case QUINCENAL -> 14;
+            case MENSUAL -> 30;
+            case TRIMESTRAL -> 91;
+            case ANUAL -> 365;
+        };
+    }
+
+    /**
+     * Días de adelanto o retraso admitidos sobre {@link #dias}: cubre meses de 28 a 31 días y cargos que se mueven al
+     * siguiente día hábil.
+     */
+    static int tolerancia(PeriodicidadRecurrencia periodicidad) {
+        return switch (periodicidad) {
+            case SEMANAL -> 1;
+            case QUINCENAL -> 2;
+            case MENSUAL -> 4;
+            case TRIMESTRAL -> 10;
+            case ANUAL -> 15;
+        };
+    }
+
+    /**
+     * Fecha de la {@code n}-ésima ocurrencia después de {@code base}. Los periodos de meses conservan el día del mes
+     * de {@code base} (o el último del mes si es más corto), sin desplazarse de un mes al siguiente.
+     */
+    static LocalDate ocurrencia(PeriodicidadRecurrencia periodicidad, LocalDate base, int n) {
+        return switch (periodicidad) {
+            case SEMANAL -> base.plusWeeks(n);
+            case QUINCENAL -> base.plusWeeks(2L * n);
+            case MENSUAL -> base.plusMonths(n);
+            case TRIMESTRAL -> base.plusMonths(3L * n);
+            case ANUAL -> base.plusYears(n);
+        };
+    }
+}
@@ -0,0 +1,134 @@
+package finanzas.service;
+
+import finanzas.repository.CategoriaRepository;
+import finanzas.repository.CuentaRepository;
+import finanzas.repository.projection.NombreId;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Diccionario por usuario de nombres de {@link finanzas.domain.Categoria} y {@link finanzas.domain.Cuenta} a sus ids,
+ * sin distinguir mayúsculas, para resolver los nombres de los mensajes sin consultar la base de datos.
+ * <p>
+ * Se carga con dos consultas la primera vez que se pide y se invalida desde los servicios que escriben categorías o
+ * cuentas. La invalidación se repite tras el commit para que una lectura concurrente no deje en caché el estado previo.
+ */
+@Service
+public class DiccionarioNombresService {
+
+    public static final String DICCIONARIO_NOMBRES_CACHE = "diccionarioNombres";
+
+    private final CategoriaRepository categoriaRepository;
+
+    private final CuentaRepository cuentaRepository;
+
+    private final CacheManager cacheManager;
+
+    public DiccionarioNombresService(
+        CategoriaRepository categoriaRepository,
+        CuentaRepository cuentaRepository,
+        CacheManager cacheManager
+    ) {
+        this.categoriaRepository = categoriaRepository;
+        this.cuentaRepository = cuentaRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Diccionario de nombres del usuario, cargándolo si no está en caché.
+     *
+     * @param usuarioId the id of the user.
+     * @return the dictionary of the user.
+     */
+    @Transactional(readOnly = true)
+    public DiccionarioNombres obtener(Long usuarioId) {
+        Cache cache = cacheManager.getCache(DICCIONARIO_NOMBRES_CACHE);
+        if (cache == null) {
+            return cargar(usuarioId);
+        }
+        return cache.get(usuarioId, () -> cargar(usuarioId));
+    }
+
+    /**
+     * Invalida el diccionario de un usuario ahora y, si hay transacción, otra vez tras el commit.
+     *
+     * @param usuarioId the id of the user, ignored if {@code null}.
+     */
+    public void invalidar(Long usuarioId) {
+        if (usuarioId == null) {
+            return;
+        }
+        invalidarAhora(usuarioId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        invalidarAhora(usuarioId);
+                    }
+                }
+            );
+        }
+    }
+
+    private void invalidarAhora(Long usuarioId) {
+        Cache cache = cacheManager.getCache(DICCIONARIO_NOMBRES_CACHE);
+        if (cache != null) {
+            cache.evict(usuarioId);
+        }
+    }
+
+    private DiccionarioNombres cargar(Long usuarioId) {
+        List<NombreId> cuentas = cuentaRepository.findNombresByUsuarioId(usuarioId);
+        return new DiccionarioNombres(
+            indexar(categoriaRepository.findNombresByUsuarioId(usuarioId)),
+            indexar(cuentas),
+            cuentas.isEmpty() ? null : cuentas.get(0)
+        );
+    }
+
+    private static HashMap<String, NombreId> indexar(List<NombreId> nombres) {
+        HashMap<String, NombreId> porNombre = new HashMap<>();
+        // las consultas vienen ordenadas por id: ante nombres repetidos gana el más antiguo
+        nombres.forEach(nombreId -> porNombre.putIfAbsent(clave(nombreId.nombre()), nombreId));
+        return porNombre;
+    }
+
+    private static String clave(String nombre) {
+        return nombre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Nombres de categorías y cuentas de un usuario.
+     *
+     * @param categorias categorías por nombre en minúsculas.
+     * @param cuentas cuentas por nombre en minúsculas.
+     * @param primeraCuenta la cuenta más antigua del usuario, {@code null} si no tiene ninguna.
+     */
+    public record DiccionarioNombres(HashMap<String, NombreId> categorias, HashMap<String, NombreId> cuentas, NombreId primeraCuenta)
+        implements Serializable {
+        public Optional<NombreId> categoria(String nombre) {
+            return Optional.ofNullable(nombre).map(n -> categorias.get(clave(n)));
+        }
+
+        public Optional<NombreId> cuenta(String nombre) {
+            return Optional.ofNullable(nombre).map(n -> cuentas.get(clave(n)));
+        }
+
+        /**
+         * Cuenta usada cuando el mensaje no indica ninguna.
+         */
+        public Optional<NombreId> cuentaPorDefecto() {
+            return Optional.ofNullable(primeraCuenta);
+        }
+    }
+}
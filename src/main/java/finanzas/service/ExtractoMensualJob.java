@@ -0,0 +1,186 @@
+package finanzas.service;
+
+import finanzas.config.ApplicationProperties;
+import finanzas.repository.ExtractoMensualRepository.Reclamo;
+import finanzas.service.dto.ResultadoExtractos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Genera los extractos mensuales de todos los usuarios activados.
+ * <p>
+ * Los usuarios pendientes se reparten por id ascendente en bloques de {@code bloque} usuarios que procesa en paralelo
+ * un {@link ProcesoPorBloques} de {@code hilos} hilos, cada bloque en su propia transacción (ver
+ * {@link ExtractoMensualService#generarBloque}). El punto de control avanza en orden: solo cuando un bloque y todos
+ * los anteriores están escritos, así que tras una caída o un fallo se reanuda desde el primer bloque sin confirmar y
+ * como mucho se repiten los bloques que ya se habían adelantado, que se sustituyen sin duplicar nada. Tras un fallo
+ * no empieza ningún bloque más y la ejecución solo se marca {@code FALLIDO} cuando han terminado los que estaban en
+ * curso, así que ninguno escribe a la vez que la siguiente.
+ * <p>
+ * Cada ejecución reclama el mes con su propio propietario. Si su arrendamiento caduca y otra lo reclama, su siguiente
+ * avance ya no escribe nada y {@link ProcesoPorBloques} la detiene sin tocar el punto de control ni el estado, que son
+ * de la nueva.
+ * <p>
+ * El progreso se publica en Micrometer: {@code extractos.usuarios} y {@code extractos.lineas} (su tasa es el
+ * rendimiento), {@code extractos.bloque} (duración de cada bloque), {@code extractos.pendientes} y
+ * {@code extractos.ejecucion} (duración de cada generación por resultado).
+ */
+@Service
+public class ExtractoMensualJob {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExtractoMensualJob.class);
+
+    private final ExtractoMensualService extractoMensualService;
+
+    private final Duration arrendamiento;
+
+    private final ProcesoPorBloques proceso;
+
+    private final AtomicLong pendientes = new AtomicLong();
+
+    private final Counter usuariosCounter;
+
+    private final Counter lineasCounter;
+
+    public ExtractoMensualJob(
+        ExtractoMensualService extractoMensualService,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.extractoMensualService = extractoMensualService;
+        ApplicationProperties.Extractos extractos = applicationProperties.getExtractos();
+        this.arrendamiento = extractos.getArrendamiento();
+        this.proceso = new ProcesoPorBloques(
+            "extractos",
+            "extracto-mensual",
+            extractos.getHilos(),
+            extractos.getBloque(),
+            "Time to read and write one block of statements",
+            meterRegistry
+        );
+        this.usuariosCounter = Counter.builder("extractos.usuarios")
+            .baseUnit("users")
+            .description("Users whose monthly statement has been written")
+            .register(meterRegistry);
+        this.lineasCounter = Counter.builder("extractos.lineas")
+            .baseUnit("rows")
+            .description("Monthly statement lines written")
+            .register(meterRegistry);
+        Gauge.builder("extractos.pendientes", pendientes, AtomicLong::get)
+            .baseUnit("users")
+            .description("Users left in the running statement generation")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Genera los extractos del mes anterior (UTC).
+     */
+    @Scheduled(cron = "${application.extractos.cron:0 0 3 1 * ?}")
+    public void generarMesAnterior() {
+        generar(YearMonth.now(ZoneOffset.UTC).minusMonths(1), false);
+    }
+
+    /**
+     * Lanza la generación en segundo plano.
+     */
+    @Async
+    public void lanzar(YearMonth mes, boolean reiniciar) {
+        generar(mes, reiniciar);
+    }
+
+    /**
+     * Genera o reanuda los extractos del mes.
+     *
+     * @param reiniciar regenerate every statement if the month was already complete.
+     * @return the result, or empty if the month was complete or is being generated elsewhere.
+     */
+    public Optional<ResultadoExtractos> generar(YearMonth mes, boolean reiniciar) {
+        if (!proceso.empezar()) {
+            LOG.info("A statement generation is already running on this node, {} skipped", mes);
+            return Optional.empty();
+        }
+        try {
+            Optional<Reclamo> reclamo = extractoMensualService.reclamar(mes, arrendamiento, reiniciar);
+            if (reclamo.isEmpty()) {
+                LOG.info("Statements of {} are complete or being generated by another node", mes);
+                return Optional.empty();
+            }
+            return Optional.of(generarDesde(mes, reclamo.orElseThrow()));
+        } finally {
+            pendientes.set(0);
+            proceso.acabar();
+        }
+    }
+
+    private ResultadoExtractos generarDesde(YearMonth mes, Reclamo reclamo) {
+        long desde = reclamo.desde();
+        List<Long> usuarios = extractoMensualService.usuariosPendientes(desde);
+        LOG.info("Generating statements of {} for {} users after user {}", mes, usuarios.size(), desde);
+        pendientes.set(usuarios.size());
+        Timer.Sample muestra = proceso.medir();
+
+        AtomicLong hechos = new AtomicLong();
+        AtomicLong lineas = new AtomicLong();
+        boolean completado = false;
+        try {
+            proceso.procesar(
+                usuarios,
+                ids -> procesarBloque(mes, ids),
+                (ids, escritas) -> {
+                    // en orden: el punto de control solo cubre bloques con todos los anteriores escritos
+                    if (!extractoMensualService.avanzar(mes, reclamo, ids.get(ids.size() - 1), ids.size(), escritas)) {
+                        return false;
+                    }
+                    hechos.addAndGet(ids.size());
+                    lineas.addAndGet(escritas);
+                    return true;
+                }
+            );
+            completado = true;
+        } catch (ArrendamientoPerdidoException e) {
+            LOG.warn("Statement generation of {} stopped after {} users: {}", mes, hechos.get(), e.getMessage());
+        } catch (RuntimeException e) {
+            LOG.error("Statement generation of {} failed after {} users, it will resume from there", mes, hechos.get(), e);
+        } finally {
+            if (!extractoMensualService.terminar(mes, reclamo, completado)) {
+                LOG.warn("Statements of {} have been claimed by another run, not marked as {}", mes, completado ? "complete" : "failed");
+            }
+            proceso.medido(muestra, completado);
+        }
+        LOG.info(
+            "Statement generation of {} {}: {} users, {} lines",
+            mes,
+            completado ? "completed" : "failed",
+            hechos.get(),
+            lineas.get()
+        );
+        return new ResultadoExtractos(mes, hechos.get(), lineas.get(), completado);
+    }
+
+    private int procesarBloque(YearMonth mes, List<Long> ids) {
+        int escritas = extractoMensualService.generarBloque(mes, ids);
+        usuariosCounter.increment(ids.size());
+        lineasCounter.increment(escritas);
+        pendientes.addAndGet(-ids.size());
+        return escritas;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        proceso.cerrar();
+    }
+}
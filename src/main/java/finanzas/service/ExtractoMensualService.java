@@ -0,0 +1,106 @@
+package finanzas.service;
+
+import finanzas.domain.User;
+import finanzas.repository.ExtractoMensualRepository;
+import finanzas.repository.ExtractoMensualRepository.Reclamo;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.LineaExtracto;
+import finanzas.security.SecurityUtils;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Extractos mensuales: cálculo y escritura por bloques de usuarios, y punto de control de cada generación.
+ * <p>
+ * Cada método es una transacción corta; {@link ExtractoMensualJob} los combina para generar todos los extractos de un
+ * mes en paralelo y poder reanudar tras un fallo.
+ */
+@Service
+@Transactional
+public class ExtractoMensualService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExtractoMensualService.class);
+
+    private final ExtractoMensualRepository extractoMensualRepository;
+
+    private final UserRepository userRepository;
+
+    public ExtractoMensualService(ExtractoMensualRepository extractoMensualRepository, UserRepository userRepository) {
+        this.extractoMensualRepository = extractoMensualRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Reclama la generación del mes; ver {@link ExtractoMensualRepository#reclamar}.
+     *
+     * @return the claim, with the last user id already written, or empty if the month is complete or another node is
+     * generating it.
+     */
+    public Optional<Reclamo> reclamar(YearMonth mes, Duration arrendamiento, boolean reiniciar) {
+        return extractoMensualRepository.reclamar(mes, arrendamiento, reiniciar);
+    }
+
+    /**
+     * Usuarios activados con id mayor que {@code desdeId}, en orden ascendente.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> usuariosPendientes(long desdeId) {
+        return extractoMensualRepository.findUsuariosActivosDesde(desdeId);
+    }
+
+    /**
+     * Calcula y guarda el extracto del mes de un bloque de usuarios: una consulta agregada por usuario y una única
+     * escritura por lotes para todo el bloque. Regenerar un bloque sustituye sus extractos.
+     *
+     * @return number of lines written.
+     */
+    public int generarBloque(YearMonth mes, List<Long> usuarioIds) {
+        Map<Long, List<LineaExtracto>> porUsuario = new LinkedHashMap<>();
+        for (Long usuarioId : usuarioIds) {
+            porUsuario.put(usuarioId, extractoMensualRepository.leerMes(usuarioId, mes));
+        }
+        int lineas = extractoMensualRepository.reemplazar(mes, porUsuario);
+        LOG.debug("Wrote {} statement lines of {} for {} users", lineas, mes, usuarioIds.size());
+        return lineas;
+    }
+
+    /**
+     * Avanza el punto de control del mes hasta {@code ultimoUsuarioId}.
+     *
+     * @return {@code false} if another run has claimed the month since {@code reclamo}, which then stays as it is.
+     */
+    public boolean avanzar(YearMonth mes, Reclamo reclamo, long ultimoUsuarioId, long usuarios, long lineas) {
+        return extractoMensualRepository.avanzar(mes, reclamo.propietario(), ultimoUsuarioId, usuarios, lineas);
+    }
+
+    /**
+     * Cierra la ejecución del mes.
+     *
+     * @return {@code false} if another run has claimed the month since {@code reclamo}, which then stays as it is.
+     */
+    public boolean terminar(YearMonth mes, Reclamo reclamo, boolean completado) {
+        return extractoMensualRepository.terminar(mes, reclamo.propietario(), completado);
+    }
+
+    /**
+     * Extracto del mes del usuario actual.
+     *
+     * @return the lines, empty if it has not been generated or there is no authenticated user.
+     */
+    @Transactional(readOnly = true)
+    public List<LineaExtracto> findForCurrentUser(YearMonth mes) {
+        return SecurityUtils.getCurrentUserLogin()
+            .flatMap(userRepository::findOneWithAuthoritiesByLogin)
+            .map(User::getId)
+            .map(usuarioId -> extractoMensualRepository.findByUsuarioIdAndMes(usuarioId, mes))
+            .orElse(List.of());
+    }
+}
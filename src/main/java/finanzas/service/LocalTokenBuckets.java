@@ -0,0 +1,95 @@
+package finanzas.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Cubetas de tokens en memoria, repartidas por el hash de su clave en franjas con cerrojo propio: dos remitentes solo
+ * compiten por un cerrojo si caen en la misma franja, y cada operación es una búsqueda en un mapa pequeño.
+ * <p>
+ * Cada franja es un LRU acotado. Olvidar una cubeta equivale a rellenarla, así que el límite de claves debe quedar muy
+ * por encima de los remitentes activos en el tiempo de llenado de una cubeta.
+ */
+final class LocalTokenBuckets implements TokenBuckets {
+
+    private final Franja[] franjas;
+
+    private final int mascara;
+
+    private final LongSupplier reloj;
+
+    /**
+     * @param franjas number of lock stripes, rounded up to a power of two.
+     * @param maxClaves number of buckets kept in memory.
+     * @param reloj monotonic clock in milliseconds.
+     */
+    LocalTokenBuckets(int franjas, int maxClaves, LongSupplier reloj) {
+        int n = franjas <= 1 ? 1 : Integer.highestOneBit(franjas - 1) << 1;
+        this.franjas = new Franja[n];
+        for (int i = 0; i < n; i++) {
+            this.franjas[i] = new Franja(Math.max(1, maxClaves / n));
+        }
+        this.mascara = n - 1;
+        this.reloj = reloj;
+    }
+
+    @Override
+    public long consumir(String clave, Tasa tasa) {
+        Franja franja = franja(clave);
+        long ahora = reloj.getAsLong();
+        synchronized (franja) {
+            TokenBucket cubeta = franja.get(clave);
+            if (cubeta == null) {
+                cubeta = new TokenBucket(tasa, ahora);
+                franja.put(clave, cubeta);
+            }
+            return cubeta.consumir(tasa, ahora);
+        }
+    }
+
+    @Override
+    public void devolver(String clave, Tasa tasa) {
+        Franja franja = franja(clave);
+        long ahora = reloj.getAsLong();
+        synchronized (franja) {
+            TokenBucket cubeta = franja.get(clave);
+            if (cubeta != null) {
+                cubeta.devolver(tasa, ahora);
+            }
+        }
+    }
+
+    /**
+     * @return the number of buckets held in memory.
+     */
+    int size() {
+        int total = 0;
+        for (Franja franja : franjas) {
+            synchronized (franja) {
+                total += franja.size();
+            }
+        }
+        return total;
+    }
+
+    private Franja franja(String clave) {
+        int h = clave.hashCode();
+        return franjas[(h ^ (h >>> 16)) & mascara];
+    }
+
+    private static final class Franja extends LinkedHashMap<String, TokenBucket> {
+
+        private final int capacidad;
+
+        Franja(int capacidad) {
+            super(16, 0.75f, true);
+            this.capacidad = capacidad;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > capacidad;
+        }
+    }
+}
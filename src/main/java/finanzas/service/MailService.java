@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
@@ -56,6 +57,18 @@ public class MailService {
         sendEmailSync(to, subject, content, isMultipart, isHtml);
     }
 
+    /**
+     * Sends a plain text email and waits for the mail server to accept it, unlike {@link #sendEmail}, which sends it in
+     * the background and only logs a failure.
+     *
+     * @throws MailException if the mail server did not accept the message.
+     */
+    public void sendEmailConfirmed(String to, String subject, String content) {
+        LOG.debug("Send confirmed email to '{}' with subject '{}' and content={}", to, subject, content);
+        javaMailSender.send(createMessage(to, subject, content, false, false));
+        LOG.debug("Sent email to User '{}'", to);
+    }
+
     private void sendEmailSync(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
         LOG.debug(
             "Send email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
@@ -66,6 +79,15 @@ public class MailService {
             content
         );
 
+        try {
+            javaMailSender.send(createMessage(to, subject, content, isMultipart, isHtml));
+            LOG.debug("Sent email to User '{}'", to);
+        } catch (MailException e) {
+            LOG.warn("Email could not be sent to user '{}'", to, e);
+        }
+    }
+
+    private MimeMessage createMessage(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
         // Prepare message using a Spring helper
         MimeMessage mimeMessage = javaMailSender.createMimeMessage();
         try {
@@ -74,10 +96,9 @@ public class MailService {
             message.setFrom(jHipsterProperties.getMail().getFrom());
             message.setSubject(subject);
             message.setText(content, isHtml);
-            javaMailSender.send(mimeMessage);
-            LOG.debug("Sent email to User '{}'", to);
-        } catch (MailException | MessagingException e) {
-            LOG.warn("Email could not be sent to user '{}'", to, e);
+            return mimeMessage;
+        } catch (MessagingException e) {
+            throw new MailPreparationException(e);
         }
     }
 
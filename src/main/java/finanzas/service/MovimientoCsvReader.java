@@ -0,0 +1,158 @@
+package finanzas.service;
+
+import finanzas.service.dto.MovimientoImportFila;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Lector en streaming de movimientos en CSV: lee registro a registro, sin cargar el fichero en memoria.
+ * <p>
+ * La primera línea es la cabecera y decide el orden de las columnas ({@code fecha}, {@code tipo}, {@code monto},
+ * {@code descripcion}, {@code categoria}, {@code cuenta}); las columnas desconocidas se ignoran. El separador es
+ * {@code ,} o, si la cabecera no tiene comas, {@code ;}. Los campos pueden ir entre comillas dobles, con {@code ""}
+ * para una comilla literal y saltos de línea dentro. En los campos de texto se quita el {@code '} con el que
+ * {@link MovimientoExportService} protege los valores que una hoja de cálculo tomaría como fórmula.
+ */
+class MovimientoCsvReader implements Iterator<MovimientoImportFila> {
+
+    private static final List<String> COLUMNAS = List.of("fecha", "tipo", "monto", "descripcion", "categoria", "cuenta");
+
+    private final Reader reader;
+
+    private final int[] indices = new int[COLUMNAS.size()];
+
+    private char separador = ',';
+
+    private int siguiente;
+
+    private List<String> registro;
+
+    MovimientoCsvReader(Reader reader) {
+        this.reader = reader;
+        this.siguiente = leer();
+        if (siguiente == '\uFEFF') {
+            // BOM de los CSV exportados por hojas de cálculo
+            siguiente = leer();
+        }
+        List<String> cabecera = leerRegistro();
+        if (cabecera == null) {
+            throw new IllegalArgumentException("El CSV está vacío");
+        }
+        if (cabecera.size() == 1 && cabecera.get(0).indexOf(';') >= 0) {
+            cabecera = List.of(cabecera.get(0).split(";", -1));
+            separador = ';';
+        }
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = indexOf(cabecera, COLUMNAS.get(i));
+        }
+        if (indices[0] < 0 || indices[1] < 0 || indices[2] < 0) {
+            throw new IllegalArgumentException("La cabecera del CSV debe incluir las columnas fecha, tipo y monto");
+        }
+        this.registro = leerRegistro();
+    }
+
+    private static int indexOf(List<String> cabecera, String columna) {
+        for (int i = 0; i < cabecera.size(); i++) {
+            if (cabecera.get(i).trim().toLowerCase(Locale.ROOT).equals(columna)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return registro != null;
+    }
+
+    @Override
+    public MovimientoImportFila next() {
+        if (registro == null) {
+            throw new NoSuchElementException();
+        }
+        List<String> campos = registro;
+        registro = leerRegistro();
+        return new MovimientoImportFila(
+            campo(campos, 0),
+            campo(campos, 1),
+            campo(campos, 2),
+            texto(campos, 3),
+            texto(campos, 4),
+            texto(campos, 5)
+        );
+    }
+
+    private String campo(List<String> campos, int columna) {
+        int indice = indices[columna];
+        if (indice < 0 || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private String texto(List<String> campos, int columna) {
+        String valor = campo(campos, columna);
+        if (valor != null && valor.length() > 1 && valor.charAt(0) == '\'' && MovimientoExportService.esInicioDeFormula(valor.charAt(1))) {
+            valor = valor.substring(1).trim();
+            return valor.isEmpty() ? null : valor;
+        }
+        return valor;
+    }
+
+    /**
+     * Lee el siguiente registro, saltando las líneas en blanco.
+     *
+     * @return the fields of the record, or {@code null} at the end of the input.
+     */
+    private List<String> leerRegistro() {
+        while (siguiente == '\r' || siguiente == '\n') {
+            siguiente = leer();
+        }
+        if (siguiente < 0) {
+            return null;
+        }
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        while (siguiente >= 0) {
+            char c = (char) siguiente;
+            siguiente = leer();
+            if (entreComillas) {
+                if (c != '"') {
+                    campo.append(c);
+                } else if (siguiente == '"') {
+                    campo.append('"');
+                    siguiente = leer();
+                } else {
+                    entreComillas = false;
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                break;
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    private int leer() {
+        try {
+            return reader.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package finanzas.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import finanzas.repository.MovimientoFiltro;
+import finanzas.repository.MovimientoRepository;
+import finanzas.repository.projection.MovimientoExportFila;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Exportación de movimientos en CSV o NDJSON.
+ * <p>
+ * Las filas se leen con el cursor de solo avance de {@link MovimientoRepository#forEachExportByFiltro} y se escriben
+ * según llegan, sin acumularlas: la memoria usada es la misma para un mes que para el histórico completo. El CSV usa
+ * las mismas columnas que {@link MovimientoImportService}, así que un fichero exportado se puede volver a importar.
+ */
+@Service
+@Transactional(readOnly = true)
+public class MovimientoExportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MovimientoExportService.class);
+
+    private static final String CSV_CABECERA = "id,fecha,tipo,monto,descripcion,categoria,cuenta";
+
+    private final MovimientoRepository movimientoRepository;
+
+    private final ObjectMapper objectMapper;
+
+    public MovimientoExportService(MovimientoRepository movimientoRepository, ObjectMapper objectMapper) {
+        this.movimientoRepository = movimientoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Formatos de exportación.
+     */
+    public enum Formato {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+
+        private final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @param valor the format name, case-insensitive.
+         * @return the format.
+         * @throws IllegalArgumentException if the format is not supported.
+         */
+        public static Formato parse(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Formato de exportación no soportado: '" + valor + "'");
+            }
+        }
+    }
+
+    /**
+     * Escribe en {@code out} los movimientos que cumplen el filtro, del más reciente al más antiguo. No cierra
+     * {@code out}.
+     *
+     * @param filtro the filter to apply.
+     * @param formato the output format.
+     * @param out the destination.
+     * @return number of exported movimientos.
+     * @throws IOException if writing fails.
+     */
+    public long exportar(MovimientoFiltro filtro, Formato formato, OutputStream out) throws IOException {
+        LOG.debug("Request to export Movimientos as {} : {}", formato, filtro);
+        try {
+            return formato == Formato.CSV ? exportarCsv(filtro, out) : exportarNdjson(filtro, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long exportarCsv(MovimientoFiltro filtro, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_CABECERA);
+        writer.write('\n');
+        long[] filas = { 0 };
+        movimientoRepository.forEachExportByFiltro(filtro, fila -> {
+            try {
+                writer.write(String.valueOf(fila.id()));
+                writer.write(',');
+                writer.write(fila.fecha() != null ? DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(fila.fecha()) : "");
+                writer.write(',');
+                writer.write(fila.tipo() != null ? fila.tipo().name() : "");
+                writer.write(',');
+                writer.write(fila.monto() != null ? fila.monto().toPlainString() : "");
+                writer.write(',');
+                writeCsvCampo(writer, fila.descripcion());
+                writer.write(',');
+                writeCsvCampo(writer, fila.categoria());
+                writer.write(',');
+                writeCsvCampo(writer, fila.cuenta());
+                writer.write('\n');
+                filas[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        return filas[0];
+    }
+
+    /**
+     * Escribe un campo de texto entre comillas si contiene separadores, comillas o saltos de línea.
+     * <p>
+     * Un valor que empieza por {@code =}, {@code +}, {@code -}, {@code @}, tabulador o retorno de carro se escribe con un
+     * {@code '} delante: una hoja de cálculo lo tomaría como fórmula y lo ejecutaría al abrir el fichero. La importación
+     * quita ese {@code '} (ver {@link MovimientoCsvReader}).
+     */
+    static void writeCsvCampo(Writer writer, String valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        if (!valor.isEmpty() && esInicioDeFormula(valor.charAt(0))) {
+            valor = "'" + valor;
+        }
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == ';' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            writer.write(valor);
+            return;
+        }
+        writer.write('"');
+        writer.write(valor.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * @return whether a spreadsheet would read a cell starting with {@code c} as a formula.
+     */
+    static boolean esInicioDeFormula(char c) {
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+
+    private long exportarNdjson(MovimientoFiltro filtro, OutputStream out) throws IOException {
+        long[] filas = { 0 };
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            movimientoRepository.forEachExportByFiltro(filtro, fila -> {
+                try {
+                    generator.writeObject(fila);
+                    generator.writeRaw('\n');
+                    filas[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return filas[0];
+    }
+}
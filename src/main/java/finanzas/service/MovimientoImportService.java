@@ -0,0 +1,285 @@
+package finanzas.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import finanzas.domain.Movimiento;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.CategoriaRepository;
+import finanzas.repository.CuentaRepository;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.NombreId;
+import finanzas.security.SecurityUtils;
+import finanzas.service.dto.ImportacionResultado;
+import finanzas.service.dto.MovimientoImportFila;
+import jakarta.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Importación masiva de movimientos (extractos bancarios) desde JSON o CSV.
+ * <p>
+ * Las filas se leen en streaming y se validan de una en una contra el diccionario de nombres del usuario, sin
+ * consultas. Las válidas se insertan en bloques de {@value #CHUNK_SIZE}: cada bloque se envía a la base de datos en
+ * lotes JDBC con un único flush, los ids salen del {@code sequence_generator} de 50 en 50, y tras cada bloque se vacía
+ * el contexto de persistencia para que la memoria no crezca con el tamaño del fichero. Las filas inválidas no se
+ * importan y se informan con su número de fila.
+ * <p>
+ * Toda la importación va en una transacción: si falla la escritura no queda ningún movimiento a medias.
+ */
+@Service
+@Transactional
+public class MovimientoImportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MovimientoImportService.class);
+
+    static final int CHUNK_SIZE = 1000;
+
+    private static final int JDBC_BATCH_SIZE = 250;
+
+    private static final int MAX_ERRORES = 1000;
+
+    private static final int MAX_DESCRIPCION = 255;
+
+    private final MovimientoService movimientoService;
+
+    private final DiccionarioNombresService diccionarioNombresService;
+
+    private final UserRepository userRepository;
+
+    private final CuentaRepository cuentaRepository;
+
+    private final CategoriaRepository categoriaRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    public MovimientoImportService(
+        MovimientoService movimientoService,
+        DiccionarioNombresService diccionarioNombresService,
+        UserRepository userRepository,
+        CuentaRepository cuentaRepository,
+        CategoriaRepository categoriaRepository,
+        ObjectMapper objectMapper,
+        EntityManager entityManager
+    ) {
+        this.movimientoService = movimientoService;
+        this.diccionarioNombresService = diccionarioNombresService;
+        this.userRepository = userRepository;
+        this.cuentaRepository = cuentaRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Id del usuario autenticado, dueño de los movimientos importados.
+     *
+     * @return the id of the current user, empty if there is none.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> getCurrentUserId() {
+        return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneWithAuthoritiesByLogin).map(User::getId);
+    }
+
+    /**
+     * Importa un array JSON de {@link MovimientoImportFila}.
+     *
+     * @param usuarioId the owner of the imported movimientos.
+     * @param json the request body.
+     * @return the import result.
+     * @throws IOException if the body cannot be read or is not a JSON array.
+     */
+    public ImportacionResultado importarJson(Long usuarioId, InputStream json) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Se esperaba un array JSON de movimientos");
+            }
+            JsonToken primero = parser.nextToken();
+            Iterator<MovimientoImportFila> filas = new Iterator<>() {
+                private JsonToken token = primero;
+
+                @Override
+                public boolean hasNext() {
+                    return token != null && token != JsonToken.END_ARRAY;
+                }
+
+                @Override
+                public MovimientoImportFila next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    try {
+                        MovimientoImportFila fila = parser.readValueAs(MovimientoImportFila.class);
+                        token = parser.nextToken();
+                        return fila;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+            return importar(usuarioId, filas);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Importa un CSV con cabecera; ver {@link MovimientoCsvReader} para el formato.
+     *
+     * @param usuarioId the owner of the imported movimientos.
+     * @param csv the request body, UTF-8 encoded.
+     * @return the import result.
+     * @throws IOException if the body cannot be read.
+     */
+    public ImportacionResultado importarCsv(Long usuarioId, InputStream csv) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            return importar(usuarioId, new MovimientoCsvReader(reader));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private ImportacionResultado importar(Long usuarioId, Iterator<MovimientoImportFila> filas) {
+        DiccionarioNombresService.DiccionarioNombres diccionario = diccionarioNombresService.obtener(usuarioId);
+        Session session = entityManager.unwrap(Session.class);
+        Integer batchSizeAnterior = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(JDBC_BATCH_SIZE);
+        try {
+            List<ImportacionResultado.ErrorFila> errores = new ArrayList<>();
+            List<Movimiento> bloque = new ArrayList<>(CHUNK_SIZE);
+            long numeroFila = 0;
+            long importados = 0;
+            long rechazados = 0;
+            ZonedDateTime ahora = ZonedDateTime.now(ZoneOffset.UTC);
+            while (filas.hasNext()) {
+                MovimientoImportFila fila = filas.next();
+                numeroFila++;
+                try {
+                    bloque.add(toMovimiento(fila, usuarioId, diccionario, ahora));
+                } catch (IllegalArgumentException e) {
+                    rechazados++;
+                    if (errores.size() < MAX_ERRORES) {
+                        errores.add(new ImportacionResultado.ErrorFila(numeroFila, e.getMessage()));
+                    }
+                }
+                if (bloque.size() == CHUNK_SIZE) {
+                    importados += guardar(bloque);
+                }
+            }
+            importados += guardar(bloque);
+            LOG.debug("Imported {} movimientos for user {}, {} rows rejected", importados, usuarioId, rechazados);
+            return new ImportacionResultado(numeroFila, importados, rechazados, errores);
+        } finally {
+            session.setJdbcBatchSize(batchSizeAnterior);
+        }
+    }
+
+    private int guardar(List<Movimiento> bloque) {
+        int guardados = movimientoService.saveAllEntities(bloque).size();
+        bloque.clear();
+        entityManager.clear();
+        return guardados;
+    }
+
+    private Movimiento toMovimiento(
+        MovimientoImportFila fila,
+        Long usuarioId,
+        DiccionarioNombresService.DiccionarioNombres diccionario,
+        ZonedDateTime ahora
+    ) {
+        Movimiento movimiento = new Movimiento();
+        movimiento.setTipo(parseTipo(fila.tipo()));
+        movimiento.setMonto(parseMonto(fila.monto()));
+        movimiento.setFechaMovimiento(parseFecha(fila.fecha(), ahora));
+        movimiento.setFechaRegistro(ahora);
+        if (fila.descripcion() != null && fila.descripcion().length() > MAX_DESCRIPCION) {
+            throw new IllegalArgumentException("La descripción supera los " + MAX_DESCRIPCION + " caracteres");
+        }
+        movimiento.setDescripcion(fila.descripcion());
+        movimiento.setUsuario(userRepository.getReferenceById(usuarioId));
+
+        if (fila.categoria() != null) {
+            NombreId categoria = diccionario
+                .categoria(fila.categoria())
+                .orElseThrow(() -> new IllegalArgumentException("La categoría '" + fila.categoria() + "' no existe"));
+            movimiento.setCategoria(categoriaRepository.getReferenceById(categoria.id()));
+        }
+        Optional<NombreId> cuenta = fila.cuenta() != null ? diccionario.cuenta(fila.cuenta()) : diccionario.cuentaPorDefecto();
+        if (fila.cuenta() != null && cuenta.isEmpty()) {
+            throw new IllegalArgumentException("La cuenta '" + fila.cuenta() + "' no existe");
+        }
+        cuenta.ifPresent(c -> movimiento.setCuenta(cuentaRepository.getReferenceById(c.id())));
+        return movimiento;
+    }
+
+    private static TipoMovimiento parseTipo(String tipo) {
+        if (tipo == null) {
+            throw new IllegalArgumentException("El tipo es obligatorio");
+        }
+        try {
+            return TipoMovimiento.valueOf(tipo.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo no válido: '" + tipo + "'");
+        }
+    }
+
+    private static BigDecimal parseMonto(String monto) {
+        if (monto == null) {
+            throw new IllegalArgumentException("El monto es obligatorio");
+        }
+        BigDecimal valor;
+        try {
+            valor = new BigDecimal(monto.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Monto no válido: '" + monto + "'");
+        }
+        if (valor.signum() <= 0) {
+            throw new IllegalArgumentException("El monto debe ser mayor que 0");
+        }
+        if (valor.scale() > 2 || valor.precision() - valor.scale() > 19) {
+            throw new IllegalArgumentException("Monto fuera de rango: '" + monto + "'");
+        }
+        return valor;
+    }
+
+    private static ZonedDateTime parseFecha(String fecha, ZonedDateTime ahora) {
+        if (fecha == null) {
+            throw new IllegalArgumentException("La fecha es obligatoria");
+        }
+        ZonedDateTime valor;
+        try {
+            valor = fecha.length() <= 10
+                ? LocalDate.parse(fecha).atStartOfDay(ZoneOffset.UTC)
+                : ZonedDateTime.parse(fecha);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha no válida: '" + fecha + "'");
+        }
+        if (valor.isAfter(ahora)) {
+            throw new IllegalArgumentException("La fecha no puede ser futura");
+        }
+        return valor;
+    }
+}
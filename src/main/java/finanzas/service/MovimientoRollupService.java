@@ -0,0 +1,143 @@
+package finanzas.service;
+
+import finanzas.domain.enumeration.DimensionRollup;
+import finanzas.domain.enumeration.PeriodoRollup;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.MovimientoRollupRepository;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.service.event.MovimientoChangedEvent;
+import finanzas.service.event.MovimientosCreadosEvent;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Mantiene {@code movimiento_rollup}: ingresos y gastos por usuario, periodo (día, semana y mes) y categoría o cuenta.
+ * <p>
+ * Igual que {@link CuentaSaldoService}, se actualiza de forma incremental al recibir {@link MovimientoChangedEvent} o
+ * {@link MovimientosCreadosEvent} dentro de la transacción que escribe los movimientos. Los cambios de un evento se
+ * agrupan por fila antes de escribir, así que modificar el importe de un movimiento sin moverlo de periodo ni de
+ * categoría es un único upsert por fila afectada, y una importación escribe una vez por fila y no por movimiento.
+ */
+@Service
+@Transactional
+public class MovimientoRollupService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MovimientoRollupService.class);
+
+    /** Clave usada en {@code clave_id} para los movimientos sin categoría o sin cuenta. */
+    static final long SIN_CLAVE = 0L;
+
+    private final MovimientoRollupRepository movimientoRollupRepository;
+
+    public MovimientoRollupService(MovimientoRollupRepository movimientoRollupRepository) {
+        this.movimientoRollupRepository = movimientoRollupRepository;
+    }
+
+    @EventListener
+    public void onMovimientoChanged(MovimientoChangedEvent event) {
+        Map<Fila, Delta> deltas = new LinkedHashMap<>();
+        acumular(deltas, event.anterior(), -1);
+        acumular(deltas, event.actual(), 1);
+        escribir(deltas);
+    }
+
+    @EventListener
+    public void onMovimientosCreados(MovimientosCreadosEvent event) {
+        Map<Fila, Delta> deltas = new LinkedHashMap<>();
+        event.creados().forEach(creado -> acumular(deltas, creado, 1));
+        escribir(deltas);
+    }
+
+    private static void acumular(Map<Fila, Delta> deltas, MovimientoSnapshot movimiento, int signo) {
+        if (movimiento == null || movimiento.usuarioId() == null || movimiento.fechaUtc() == null || movimiento.monto() == null) {
+            return;
+        }
+        LocalDate fecha = movimiento.fechaUtc();
+        for (PeriodoRollup periodo : PeriodoRollup.values()) {
+            LocalDate inicio = inicioDePeriodo(periodo, fecha);
+            for (DimensionRollup dimension : DimensionRollup.values()) {
+                Long claveId = dimension == DimensionRollup.CATEGORIA ? movimiento.categoriaId() : movimiento.cuentaId();
+                Fila fila = new Fila(movimiento.usuarioId(), dimension, periodo, inicio, claveId != null ? claveId : SIN_CLAVE);
+                deltas.computeIfAbsent(fila, f -> new Delta()).sumar(movimiento.tipo(), movimiento.monto(), signo);
+            }
+        }
+    }
+
+    /**
+     * Primer día del periodo que contiene {@code fecha}; las semanas empiezan en lunes, como {@code date_trunc('week')}.
+     */
+    static LocalDate inicioDePeriodo(PeriodoRollup periodo, LocalDate fecha) {
+        return switch (periodo) {
+            case DIA -> fecha;
+            case SEMANA -> fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MES -> fecha.withDayOfMonth(1);
+        };
+    }
+
+    private void escribir(Map<Fila, Delta> deltas) {
+        deltas.forEach((fila, delta) -> {
+            if (delta.vacio()) {
+                return;
+            }
+            movimientoRollupRepository.acumular(
+                fila.usuarioId(),
+                fila.dimension().name(),
+                fila.periodo().name(),
+                fila.inicio(),
+                fila.claveId(),
+                delta.ingresos.valor(),
+                delta.gastos.valor(),
+                delta.movimientos
+            );
+        });
+    }
+
+    /**
+     * Recalcula todos los acumulados a partir de {@code movimiento}. Pensado para cargar el histórico o reparar la
+     * tabla; las escrituras concurrentes de movimientos esperan a que termine.
+     *
+     * @return number of rollup rows rebuilt.
+     */
+    public int reconstruir() {
+        LOG.info("Rebuilding movimiento_rollup from movimiento");
+        movimientoRollupRepository.lockForRebuild();
+        movimientoRollupRepository.deleteAllRows();
+        int filas = movimientoRollupRepository.rebuildFromMovimientos();
+        LOG.info("Rebuilt {} rollup rows", filas);
+        return filas;
+    }
+
+    private record Fila(Long usuarioId, DimensionRollup dimension, PeriodoRollup periodo, LocalDate inicio, Long claveId) {}
+
+    private static final class Delta {
+
+        private final SumaMonetaria ingresos = new SumaMonetaria();
+        private final SumaMonetaria gastos = new SumaMonetaria();
+        private long movimientos;
+
+        void sumar(TipoMovimiento tipo, BigDecimal monto, int signo) {
+            SumaMonetaria suma = tipo == TipoMovimiento.INGRESO ? ingresos : tipo == TipoMovimiento.GASTO ? gastos : null;
+            if (suma != null) {
+                if (signo < 0) {
+                    suma.restar(monto);
+                } else {
+                    suma.sumar(monto);
+                }
+            }
+            movimientos += signo;
+        }
+
+        boolean vacio() {
+            return ingresos.signum() == 0 && gastos.signum() == 0 && movimientos == 0;
+        }
+    }
+}
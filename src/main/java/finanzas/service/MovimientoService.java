@@ -1,17 +1,24 @@
 package finanzas.service;
 
 import finanzas.domain.Movimiento;
+import finanzas.repository.MovimientoFiltro;
 import finanzas.repository.MovimientoRepository;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.repository.projection.TotalesMovimiento;
+import finanzas.service.dto.MovimientoCursor;
 import finanzas.service.dto.MovimientoDTO;
+import finanzas.service.dto.MovimientoSlice;
+import finanzas.service.event.MovimientoChangedEvent;
+import finanzas.service.event.MovimientosCreadosEvent;
 import finanzas.service.mapper.MovimientoMapper;
-import java.util.LinkedList;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,22 +31,34 @@ public class MovimientoService {
 
     private static final Logger LOG = LoggerFactory.getLogger(MovimientoService.class);
 
+    static final int MAX_TEXTO_BUSQUEDA = 100;
+
     private final MovimientoRepository movimientoRepository;
 
     private final MovimientoMapper movimientoMapper;
     private final finanzas.repository.CategoriaRepository categoriaRepository;
     private final finanzas.repository.UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DiccionarioNombresService diccionarioNombresService;
+
+    private final int tamanoLote;
 
     public MovimientoService(
         MovimientoRepository movimientoRepository,
         MovimientoMapper movimientoMapper,
         finanzas.repository.CategoriaRepository categoriaRepository,
-        finanzas.repository.UserRepository userRepository
+        finanzas.repository.UserRepository userRepository,
+        ApplicationEventPublisher eventPublisher,
+        DiccionarioNombresService diccionarioNombresService,
+        @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}") int tamanoLote
     ) {
         this.movimientoRepository = movimientoRepository;
         this.movimientoMapper = movimientoMapper;
         this.categoriaRepository = categoriaRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.diccionarioNombresService = diccionarioNombresService;
+        this.tamanoLote = tamanoLote;
     }
 
     /**
@@ -51,7 +70,7 @@ public class MovimientoService {
     public MovimientoDTO save(MovimientoDTO movimientoDTO) {
         LOG.debug("Request to save Movimiento : {}", movimientoDTO);
         Movimiento movimiento = movimientoMapper.toEntity(movimientoDTO);
-        movimiento = movimientoRepository.save(movimiento);
+        movimiento = saveEntity(movimiento);
         return movimientoMapper.toDto(movimiento);
     }
 
@@ -63,8 +82,10 @@ public class MovimientoService {
      */
     public MovimientoDTO update(MovimientoDTO movimientoDTO) {
         LOG.debug("Request to update Movimiento : {}", movimientoDTO);
+        MovimientoSnapshot anterior = movimientoRepository.findSnapshotById(movimientoDTO.getId()).orElse(null);
         Movimiento movimiento = movimientoMapper.toEntity(movimientoDTO);
         movimiento = movimientoRepository.save(movimiento);
+        publishChange(anterior, MovimientoSnapshot.of(movimiento));
         return movimientoMapper.toDto(movimiento);
     }
 
@@ -80,32 +101,119 @@ public class MovimientoService {
         return movimientoRepository
             .findById(movimientoDTO.getId())
             .map(existingMovimiento -> {
+                MovimientoSnapshot anterior = MovimientoSnapshot.of(existingMovimiento);
                 movimientoMapper.partialUpdate(existingMovimiento, movimientoDTO);
 
-                return existingMovimiento;
+                Movimiento saved = movimientoRepository.save(existingMovimiento);
+                publishChange(anterior, MovimientoSnapshot.of(saved));
+                return saved;
             })
-            .map(movimientoRepository::save)
             .map(movimientoMapper::toDto);
     }
 
     /**
-     * Get all the movimientos.
+     * Build a filter over the current user's movimientos.
+     *
+     * @return the filter, or empty if there is no authenticated user.
+     */
+    @Transactional(readOnly = true)
+    public Optional<MovimientoFiltro> filtroForCurrentUser(
+        ZonedDateTime desde,
+        ZonedDateTime hasta,
+        Long cuentaId,
+        Long categoriaId,
+        finanzas.domain.enumeration.TipoMovimiento tipo
+    ) {
+        return finanzas.security.SecurityUtils.getCurrentUserLogin()
+            .flatMap(userRepository::findOneWithAuthoritiesByLogin)
+            .map(user -> new MovimientoFiltro(user.getId(), desde, hasta, cuentaId, categoriaId, tipo));
+    }
+
+    /**
+     * Get one page of movimientos matching the filter, newest first, using keyset pagination on
+     * {@code (fechaMovimiento, id)}: the cost of a page does not depend on how deep it is.
+     *
+     * @param filtro the filter to apply.
+     * @param cursor the position after which to read, or {@code null} for the first page.
+     * @param size the maximum number of movimientos to return.
+     * @return the page and the cursor of the next one.
+     */
+    @Transactional(readOnly = true)
+    public MovimientoSlice findSlice(MovimientoFiltro filtro, MovimientoCursor cursor, int size) {
+        LOG.debug("Request to get a slice of Movimientos : {} after {}", filtro, cursor);
+        List<Movimiento> rows = movimientoRepository.findPageByFiltro(
+            filtro,
+            cursor != null ? cursor.fechaMovimiento() : null,
+            cursor != null ? cursor.id() : null,
+            size + 1
+        );
+        return toSlice(rows, size);
+    }
+
+    /**
+     * Search the movimientos matching the filter whose descripcion matches {@code texto}, newest first, with the same
+     * keyset pagination as {@link #findSlice}. Words are matched by full text in Spanish and English (so "cafés"
+     * finds "café"), misspelt words by trigram similarity, and fragments as substrings.
+     *
+     * @param filtro the filter to apply.
+     * @param texto the text to search for.
+     * @param cursor the position after which to read, or {@code null} for the first page.
+     * @param size the maximum number of movimientos to return.
+     * @return the page and the cursor of the next one.
+     * @throws IllegalArgumentException if {@code texto} is blank or longer than {@value #MAX_TEXTO_BUSQUEDA} characters.
+     */
+    @Transactional(readOnly = true)
+    public MovimientoSlice searchSlice(MovimientoFiltro filtro, String texto, MovimientoCursor cursor, int size) {
+        LOG.debug("Request to search Movimientos : {} matching '{}' after {}", filtro, texto, cursor);
+        String busqueda = texto != null ? texto.strip() : "";
+        if (busqueda.isEmpty()) {
+            throw new IllegalArgumentException("El texto a buscar es obligatorio");
+        }
+        if (busqueda.length() > MAX_TEXTO_BUSQUEDA) {
+            throw new IllegalArgumentException("El texto a buscar supera los " + MAX_TEXTO_BUSQUEDA + " caracteres");
+        }
+        List<Movimiento> rows = movimientoRepository.searchPageByFiltro(
+            filtro,
+            busqueda,
+            cursor != null ? cursor.fechaMovimiento() : null,
+            cursor != null ? cursor.id() : null,
+            size + 1
+        );
+        return toSlice(rows, size);
+    }
+
+    private MovimientoSlice toSlice(List<Movimiento> rows, int size) {
+        MovimientoCursor next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Movimiento last = rows.get(size - 1);
+            next = new MovimientoCursor(last.getFechaMovimiento(), last.getId());
+        }
+        return new MovimientoSlice(rows.stream().map(movimientoMapper::toDto).toList(), next);
+    }
+
+    /**
+     * Stream every movimiento matching the filter, newest first, in bounded memory.
      *
-     * @return the list of entities.
+     * @param filtro the filter to apply.
+     * @param action the action invoked for each movimiento.
      */
     @Transactional(readOnly = true)
-    public List<MovimientoDTO> findAll() {
-        LOG.debug("Request to get all Movimientos");
-        return movimientoRepository.findAll().stream().map(movimientoMapper::toDto).collect(Collectors.toCollection(LinkedList::new));
+    public void forEach(MovimientoFiltro filtro, Consumer<MovimientoDTO> action) {
+        LOG.debug("Request to stream Movimientos : {}", filtro);
+        movimientoRepository.forEachByFiltro(filtro, movimiento -> action.accept(movimientoMapper.toDto(movimiento)));
     }
 
     /**
-     * Get all the movimientos with eager load of many-to-many relationships.
+     * Stream every movimiento of a user as a {@link MovimientoSnapshot}, by ascending id, without loading entities.
      *
-     * @return the list of entities.
+     * @param usuarioId the owner of the movimientos.
+     * @param action the action invoked for each movimiento.
      */
-    public Page<MovimientoDTO> findAllWithEagerRelationships(Pageable pageable) {
-        return movimientoRepository.findAllWithEagerRelationships(pageable).map(movimientoMapper::toDto);
+    @Transactional(readOnly = true)
+    public void forEachSnapshot(Long usuarioId, Consumer<MovimientoSnapshot> action) {
+        LOG.debug("Request to stream Movimiento snapshots of user : {}", usuarioId);
+        movimientoRepository.forEachSnapshotByFiltro(MovimientoFiltro.ofUsuario(usuarioId), action);
     }
 
     /**
@@ -127,7 +235,53 @@ public class MovimientoService {
      */
     public void delete(Long id) {
         LOG.debug("Request to delete Movimiento : {}", id);
-        movimientoRepository.deleteById(id);
+        movimientoRepository
+            .findSnapshotById(id)
+            .ifPresent(anterior -> {
+                movimientoRepository.deleteById(id);
+                publishChange(anterior, null);
+            });
+    }
+
+    /**
+     * Persist a new movimiento entity and notify the listeners that keep derived data (balances, summaries) up to date.
+     * Every code path creating movimientos must go through here instead of calling the repository directly.
+     *
+     * @param movimiento the entity to persist.
+     * @return the persisted entity.
+     */
+    public Movimiento saveEntity(Movimiento movimiento) {
+        Movimiento saved = movimientoRepository.save(movimiento);
+        publishChange(null, MovimientoSnapshot.of(saved));
+        return saved;
+    }
+
+    /**
+     * Persist a batch of new movimiento entities with a single flush, so Hibernate sends them as JDBC batches, and
+     * publish one {@link MovimientosCreadosEvent} for the whole batch instead of one event per movimiento.
+     *
+     * @param movimientos the entities to persist.
+     * @return the persisted entities.
+     */
+    public List<Movimiento> saveAllEntities(List<Movimiento> movimientos) {
+        if (movimientos.isEmpty()) {
+            return movimientos;
+        }
+        List<Movimiento> saved = movimientoRepository.saveAll(movimientos);
+        movimientoRepository.flush();
+        eventPublisher.publishEvent(new MovimientosCreadosEvent(saved.stream().map(MovimientoSnapshot::of).toList()));
+        return saved;
+    }
+
+    /**
+     * @return the movimientos that {@link #saveAllEntities} sends in one JDBC batch ({@code hibernate.jdbc.batch_size}).
+     */
+    public int getTamanoLote() {
+        return tamanoLote;
+    }
+
+    private void publishChange(MovimientoSnapshot anterior, MovimientoSnapshot actual) {
+        eventPublisher.publishEvent(new MovimientoChangedEvent(anterior, actual));
     }
 
     /**
@@ -157,7 +311,11 @@ public class MovimientoService {
                 // prefer orElse / orElseGet to avoid Optional.get()
                 finanzas.domain.User user = userRepository.findOneByLogin(login).orElse(null);
                 if (user != null) {
-                    cat = categoriaRepository.findByUsuarioAndNombreIgnoreCase(user, request.getCategoria()).orElse(null);
+                    cat = diccionarioNombresService
+                        .obtener(user.getId())
+                        .categoria(request.getCategoria())
+                        .map(categoria -> categoriaRepository.getReferenceById(categoria.id()))
+                        .orElse(null);
                     if (cat == null) {
                         cat = new finanzas.domain.Categoria();
                         cat.setNombre(request.getCategoria());
@@ -169,13 +327,14 @@ public class MovimientoService {
                         );
                         cat.setUsuario(user);
                         cat = categoriaRepository.save(cat);
+                        diccionarioNombresService.invalidar(user.getId());
                     }
                 }
             }
             mov.setCategoria(cat);
         }
 
-        Movimiento saved = movimientoRepository.save(mov);
+        Movimiento saved = saveEntity(mov);
 
         // map to response
         finanzas.service.dto.MovimientoResponseDTO dto = new finanzas.service.dto.MovimientoResponseDTO();
@@ -188,19 +347,18 @@ public class MovimientoService {
         return dto;
     }
 
+    /**
+     * Resumen financiero del usuario actual, agregado en base de datos en una única consulta.
+     */
     @Transactional(readOnly = true)
     public finanzas.service.dto.ResumenFinancieroDTO obtenerResumen() {
-        java.math.BigDecimal ingresos = movimientoRepository
-            .sumByTipo(finanzas.domain.enumeration.TipoMovimiento.INGRESO)
-            .orElse(java.math.BigDecimal.ZERO);
-        java.math.BigDecimal gastos = movimientoRepository
-            .sumByTipo(finanzas.domain.enumeration.TipoMovimiento.GASTO)
-            .orElse(java.math.BigDecimal.ZERO);
+        String login = finanzas.security.SecurityUtils.getCurrentUserLogin().orElse("");
+        TotalesMovimiento totales = movimientoRepository.sumTotalesByUsuarioLogin(login);
 
         finanzas.service.dto.ResumenFinancieroDTO dto = new finanzas.service.dto.ResumenFinancieroDTO();
-        dto.setTotalIngresos(ingresos.doubleValue());
-        dto.setTotalGastos(gastos.doubleValue());
-        dto.setBalance(ingresos.subtract(gastos).doubleValue());
+        dto.setTotalIngresos(totales.ingresos());
+        dto.setTotalGastos(totales.gastos());
+        dto.setBalance(totales.neto());
         return dto;
     }
 }
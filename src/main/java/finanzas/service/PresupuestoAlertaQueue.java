@@ -0,0 +1,109 @@
+package finanzas.service;
+
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.service.PresupuestoAlertaService.GastoAfectado;
+import finanzas.service.event.MovimientoChangedEvent;
+import finanzas.service.event.MovimientosCreadosEvent;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Agrupa los gastos confirmados de cada usuario para evaluar sus presupuestos una vez por intervalo.
+ * <p>
+ * Tras el commit de cada escritura de movimientos se anotan, por usuario, la categoría y el día de los gastos
+ * afectados, sin consultas. Cada {@code coalesce-delay} se vacían los pendientes y se lanza una evaluación asíncrona
+ * por usuario en {@link PresupuestoAlertaService}: una ráfaga de movimientos produce un solo aviso y ningún
+ * presupuesto se revisa por sondeo. Si el correo de una evaluación no se puede enviar, sus gastos vuelven a quedar
+ * pendientes y se reintentan en el siguiente intervalo. Lo pendiente vive en memoria; si el nodo cae antes de
+ * evaluarlo, el siguiente movimiento del usuario vuelve a evaluar sus presupuestos.
+ */
+@Service
+public class PresupuestoAlertaQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PresupuestoAlertaQueue.class);
+
+    private final PresupuestoAlertaService presupuestoAlertaService;
+
+    /** Gastos pendientes de evaluar por usuario; los conjuntos solo se modifican dentro de {@code compute}. */
+    private final ConcurrentHashMap<Long, Set<GastoAfectado>> pendientes = new ConcurrentHashMap<>();
+
+    public PresupuestoAlertaQueue(PresupuestoAlertaService presupuestoAlertaService) {
+        this.presupuestoAlertaService = presupuestoAlertaService;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovimientoChanged(MovimientoChangedEvent event) {
+        Stream.of(event.anterior(), event.actual()).forEach(this::anotar);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovimientosCreados(MovimientosCreadosEvent event) {
+        event.creados().forEach(this::anotar);
+    }
+
+    private void anotar(MovimientoSnapshot movimiento) {
+        if (
+            movimiento == null ||
+            movimiento.tipo() != TipoMovimiento.GASTO ||
+            movimiento.usuarioId() == null ||
+            movimiento.fechaUtc() == null
+        ) {
+            return;
+        }
+        anotar(movimiento.usuarioId(), List.of(new GastoAfectado(movimiento.categoriaId(), movimiento.fechaUtc())));
+    }
+
+    private void anotar(Long usuarioId, Collection<GastoAfectado> afectados) {
+        pendientes.compute(usuarioId, (id, gastos) -> {
+            Set<GastoAfectado> conjunto = gastos != null ? gastos : new HashSet<>();
+            conjunto.addAll(afectados);
+            return conjunto;
+        });
+    }
+
+    /**
+     * Lanza la evaluación de los usuarios con gastos pendientes.
+     */
+    @Scheduled(fixedDelayString = "${application.presupuesto.alertas.coalesce-delay:PT10S}")
+    public void drain() {
+        for (Long usuarioId : List.copyOf(pendientes.keySet())) {
+            Set<GastoAfectado> afectados = pendientes.remove(usuarioId);
+            if (afectados == null) {
+                continue;
+            }
+            LOG.debug("Evaluating budget alerts of user {} for {} changed gastos", usuarioId, afectados.size());
+            try {
+                presupuestoAlertaService
+                    .evaluarYNotificar(usuarioId, afectados)
+                    .whenComplete((resultado, error) -> {
+                        if (error != null) {
+                            fallida(usuarioId, afectados, error instanceof CompletionException ? error.getCause() : error);
+                        }
+                    });
+            } catch (RuntimeException e) {
+                LOG.error("Could not evaluate budget alerts of user {}", usuarioId, e);
+            }
+        }
+    }
+
+    private void fallida(Long usuarioId, Set<GastoAfectado> afectados, Throwable error) {
+        if (error instanceof MailException) {
+            LOG.warn("Could not send the budget alerts of user {}, retrying on the next drain: {}", usuarioId, error.getMessage());
+            anotar(usuarioId, afectados);
+        } else {
+            LOG.error("Could not evaluate budget alerts of user {}", usuarioId, error);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package finanzas.service;
+
+import finanzas.domain.Categoria;
+import finanzas.domain.User;
+import finanzas.repository.CategoriaRepository;
+import finanzas.repository.PresupuestoConsumoRepository;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.ConsumoPresupuesto;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Avisa al usuario cuando su gasto alcanza el {@value #UMBRAL_AVISO} % o el {@value #UMBRAL_AGOTADO} % de un
+ * presupuesto.
+ * <p>
+ * Solo se evalúan los presupuestos que cubren las categorías y fechas de los gastos que han cambiado, leyendo los
+ * contadores de {@link PresupuestoConsumoService}. El último umbral avisado se guarda en {@code presupuesto_consumo} y
+ * se sube con una actualización condicional, de modo que cada cruce se avisa una sola vez aunque lleguen varias
+ * evaluaciones a la vez. Si el gasto vuelve a bajar, el umbral también baja y un nuevo cruce se vuelve a avisar.
+ * <p>
+ * Los avisos van por correo, en un único mensaje por evaluación. Se envían de forma síncrona dentro de la transacción
+ * que marca los umbrales: si el servidor de correo no acepta el mensaje la transacción se deshace, los umbrales quedan
+ * sin marcar y {@link PresupuestoAlertaQueue} vuelve a encolar los gastos para reintentarlo. Mientras tanto otra
+ * evaluación del mismo presupuesto espera al bloqueo de su fila y no duplica el aviso. A un usuario sin correo no se le
+ * puede avisar: se registra y sus umbrales se marcan igualmente.
+ */
+@Service
+@Transactional
+public class PresupuestoAlertaService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PresupuestoAlertaService.class);
+
+    static final int UMBRAL_AVISO = 80;
+
+    static final int UMBRAL_AGOTADO = 100;
+
+    private final PresupuestoConsumoRepository presupuestoConsumoRepository;
+
+    private final CategoriaRepository categoriaRepository;
+
+    private final UserRepository userRepository;
+
+    private final MailService mailService;
+
+    public PresupuestoAlertaService(
+        PresupuestoConsumoRepository presupuestoConsumoRepository,
+        CategoriaRepository categoriaRepository,
+        UserRepository userRepository,
+        MailService mailService
+    ) {
+        this.presupuestoConsumoRepository = presupuestoConsumoRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.userRepository = userRepository;
+        this.mailService = mailService;
+    }
+
+    /**
+     * Gasto cambiado: basta la categoría y el día para saber qué presupuestos pueden haber cruzado un umbral.
+     */
+    public record GastoAfectado(Long categoriaId, LocalDate fecha) {}
+
+    /**
+     * Umbral cruzado por un presupuesto.
+     *
+     * @param categoria nombre de la categoría del presupuesto; {@code null} si cubre todos los gastos.
+     */
+    public record Alerta(ConsumoPresupuesto consumo, String categoria, int umbral) {}
+
+    /**
+     * Evalúa los presupuestos afectados y envía los avisos pendientes, en el executor asíncrono. Los umbrales solo quedan
+     * marcados si el correo se ha enviado.
+     *
+     * @param usuarioId the owner of the gastos.
+     * @param afectados the changed gastos.
+     * @return completed once the alerts are sent, or exceptionally with a {@link org.springframework.mail.MailException}
+     * if they could not be, in which case no threshold is marked.
+     */
+    @Async
+    public CompletableFuture<Void> evaluarYNotificar(Long usuarioId, Collection<GastoAfectado> afectados) {
+        List<Alerta> alertas = evaluar(usuarioId, afectados);
+        if (!alertas.isEmpty()) {
+            notificar(usuarioId, alertas);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Marca los umbrales cruzados por los presupuestos que cubren los gastos indicados.
+     *
+     * @param usuarioId the owner of the gastos.
+     * @param afectados the changed gastos.
+     * @return the thresholds crossed since the last evaluation.
+     */
+    public List<Alerta> evaluar(Long usuarioId, Collection<GastoAfectado> afectados) {
+        // una consulta por categoría, con el intervalo que abarca todos sus gastos
+        Map<Long, LocalDate[]> rangos = new HashMap<>();
+        for (GastoAfectado afectado : afectados) {
+            LocalDate[] rango = rangos.computeIfAbsent(afectado.categoriaId(), c -> new LocalDate[] { afectado.fecha(), afectado.fecha() });
+            rango[0] = afectado.fecha().isBefore(rango[0]) ? afectado.fecha() : rango[0];
+            rango[1] = afectado.fecha().isAfter(rango[1]) ? afectado.fecha() : rango[1];
+        }
+        Map<Long, ConsumoPresupuesto> presupuestos = new LinkedHashMap<>();
+        rangos.forEach((categoriaId, rango) ->
+            presupuestoConsumoRepository
+                .findAfectados(usuarioId, categoriaId, rango[0], rango[1])
+                .forEach(consumo -> presupuestos.putIfAbsent(consumo.presupuestoId(), consumo))
+        );
+
+        List<Alerta> alertas = new ArrayList<>();
+        for (ConsumoPresupuesto consumo : presupuestos.values()) {
+            int umbral = umbral(consumo);
+            if (umbral > 0 && presupuestoConsumoRepository.marcarUmbral(consumo.presupuestoId(), umbral) == 1) {
+                alertas.add(new Alerta(consumo, nombreCategoria(consumo.categoriaId()), umbral));
+            } else if (umbral < UMBRAL_AGOTADO) {
+                presupuestoConsumoRepository.rebajarUmbral(consumo.presupuestoId(), umbral);
+            }
+        }
+        return alertas;
+    }
+
+    private static int umbral(ConsumoPresupuesto consumo) {
+        BigDecimal porcentaje = consumo.porcentaje();
+        if (porcentaje == null) {
+            return 0;
+        }
+        if (porcentaje.compareTo(BigDecimal.valueOf(UMBRAL_AGOTADO)) >= 0) {
+            return UMBRAL_AGOTADO;
+        }
+        return porcentaje.compareTo(BigDecimal.valueOf(UMBRAL_AVISO)) >= 0 ? UMBRAL_AVISO : 0;
+    }
+
+    private String nombreCategoria(Long categoriaId) {
+        return categoriaId == null ? null : categoriaRepository.findById(categoriaId).map(Categoria::getNombre).orElse(null);
+    }
+
+    /**
+     * Envía las alertas por correo y espera a que el servidor lo acepte.
+     *
+     * @throws org.springframework.mail.MailException if the mail server did not accept the message.
+     */
+    void notificar(Long usuarioId, List<Alerta> alertas) {
+        User user = userRepository.findById(usuarioId).orElse(null);
+        if (user == null) {
+            return;
+        }
+        if (user.getEmail() == null) {
+            LOG.warn("User {} has no email, {} budget alerts not sent", usuarioId, alertas.size());
+            return;
+        }
+        String texto = alertas.stream().map(PresupuestoAlertaService::texto).collect(Collectors.joining("\n"));
+        mailService.sendEmailConfirmed(user.getEmail(), "Aviso de presupuesto", texto);
+    }
+
+    static String texto(Alerta alerta) {
+        ConsumoPresupuesto consumo = alerta.consumo();
+        String presupuesto = alerta.categoria() != null ? "tu presupuesto de " + alerta.categoria() : "tu presupuesto general";
+        String importes = consumo.gastado().toPlainString() + " de " + consumo.monto().toPlainString();
+        if (alerta.umbral() >= UMBRAL_AGOTADO) {
+            return "⚠️ Has agotado " + presupuesto + ": llevas " + importes + ".";
+        }
+        return "⚠️ Has gastado el " + consumo.porcentaje().toPlainString() + "% de " + presupuesto + " (" + importes + ").";
+    }
+}
@@ -0,0 +1,146 @@
+package finanzas.service;
+
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.PresupuestoConsumoRepository;
+import finanzas.repository.projection.ConsumoPresupuesto;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.service.event.MovimientoChangedEvent;
+import finanzas.service.event.MovimientosCreadosEvent;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Mantiene {@code presupuesto_consumo}: lo gastado hasta ahora en cada presupuesto.
+ * <p>
+ * Igual que {@link MovimientoRollupService}, escucha {@link MovimientoChangedEvent} y {@link MovimientosCreadosEvent}
+ * dentro de la transacción que escribe los movimientos. Solo cuentan los gastos; los cambios de un evento se agrupan por
+ * (usuario, categoría, día) y cada grupo es una única sentencia que actualiza todos los presupuestos que lo cubren. Al
+ * crear un presupuesto o cambiar su ventana o categoría, {@link PresupuestoService} llama a {@link #recalcular(Long)}.
+ * Las lecturas son por clave primaria, sin sumar movimientos.
+ */
+@Service
+@Transactional
+public class PresupuestoConsumoService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PresupuestoConsumoService.class);
+
+    private final PresupuestoConsumoRepository presupuestoConsumoRepository;
+
+    public PresupuestoConsumoService(PresupuestoConsumoRepository presupuestoConsumoRepository) {
+        this.presupuestoConsumoRepository = presupuestoConsumoRepository;
+    }
+
+    @EventListener
+    public void onMovimientoChanged(MovimientoChangedEvent event) {
+        Map<Clave, Delta> deltas = new LinkedHashMap<>();
+        acumular(deltas, event.anterior(), -1);
+        acumular(deltas, event.actual(), 1);
+        escribir(deltas);
+    }
+
+    @EventListener
+    public void onMovimientosCreados(MovimientosCreadosEvent event) {
+        Map<Clave, Delta> deltas = new LinkedHashMap<>();
+        event.creados().forEach(creado -> acumular(deltas, creado, 1));
+        escribir(deltas);
+    }
+
+    private static void acumular(Map<Clave, Delta> deltas, MovimientoSnapshot movimiento, int signo) {
+        if (
+            movimiento == null ||
+            movimiento.tipo() != TipoMovimiento.GASTO ||
+            movimiento.usuarioId() == null ||
+            movimiento.fechaUtc() == null ||
+            movimiento.monto() == null
+        ) {
+            return;
+        }
+        Clave clave = new Clave(movimiento.usuarioId(), movimiento.categoriaId(), movimiento.fechaUtc());
+        Delta delta = deltas.computeIfAbsent(clave, c -> new Delta());
+        if (signo < 0) {
+            delta.gastado.restar(movimiento.monto());
+        } else {
+            delta.gastado.sumar(movimiento.monto());
+        }
+        delta.movimientos += signo;
+    }
+
+    private void escribir(Map<Clave, Delta> deltas) {
+        deltas.forEach((clave, delta) -> {
+            if (delta.gastado.signum() == 0 && delta.movimientos == 0) {
+                return;
+            }
+            presupuestoConsumoRepository.acumular(
+                clave.usuarioId(),
+                clave.categoriaId(),
+                clave.fecha(),
+                delta.gastado.valor(),
+                delta.movimientos
+            );
+        });
+    }
+
+    /**
+     * Recalcula el consumo de un presupuesto desde sus movimientos. Se usa al crearlo y cuando cambian su usuario,
+     * categoría o fechas; el presupuesto debe estar ya escrito en la base de datos.
+     *
+     * @param presupuestoId the id of the presupuesto.
+     */
+    public void recalcular(Long presupuestoId) {
+        LOG.debug("Recomputing consumption of Presupuesto : {}", presupuestoId);
+        presupuestoConsumoRepository.recalcular(presupuestoId);
+    }
+
+    /**
+     * Consumo de un presupuesto del usuario actual.
+     *
+     * @param presupuestoId the id of the presupuesto.
+     * @return the consumption, empty if the presupuesto does not exist or belongs to another user.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ConsumoPresupuesto> findOne(Long presupuestoId) {
+        return presupuestoConsumoRepository.findByPresupuestoIdForCurrentUser(presupuestoId);
+    }
+
+    /**
+     * Consumo de los presupuestos del usuario actual vigentes hoy (UTC), ordenados por fecha de fin.
+     *
+     * @return the consumption of the active presupuestos.
+     */
+    @Transactional(readOnly = true)
+    public List<ConsumoPresupuesto> findActivos() {
+        return presupuestoConsumoRepository.findActivosForCurrentUser(LocalDate.now(ZoneOffset.UTC));
+    }
+
+    /**
+     * Recalcula el consumo de todos los presupuestos a partir de {@code movimiento}. Pensado para reparar la tabla;
+     * las escrituras concurrentes de movimientos esperan a que termine.
+     *
+     * @return number of presupuestos rebuilt.
+     */
+    public int reconstruir() {
+        LOG.info("Rebuilding presupuesto_consumo from movimiento");
+        presupuestoConsumoRepository.lockForRebuild();
+        presupuestoConsumoRepository.deleteAllRows();
+        int filas = presupuestoConsumoRepository.rebuildFromMovimientos();
+        LOG.info("Rebuilt consumption of {} presupuestos", filas);
+        return filas;
+    }
+
+    private record Clave(Long usuarioId, Long categoriaId, LocalDate fecha) {}
+
+    private static final class Delta {
+
+        private final SumaMonetaria gastado = new SumaMonetaria();
+        private long movimientos;
+    }
+}
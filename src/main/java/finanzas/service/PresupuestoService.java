@@ -7,6 +7,7 @@ import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -27,13 +28,22 @@ public class PresupuestoService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PresupuestoService.class);
 
+    private static final String OVERLAP_CONSTRAINT = "ex_presupuesto__usuario_categoria_fechas";
+
     private final PresupuestoRepository presupuestoRepository;
 
     private final PresupuestoMapper presupuestoMapper;
 
-    public PresupuestoService(PresupuestoRepository presupuestoRepository, PresupuestoMapper presupuestoMapper) {
+    private final PresupuestoConsumoService presupuestoConsumoService;
+
+    public PresupuestoService(
+        PresupuestoRepository presupuestoRepository,
+        PresupuestoMapper presupuestoMapper,
+        PresupuestoConsumoService presupuestoConsumoService
+    ) {
         this.presupuestoRepository = presupuestoRepository;
         this.presupuestoMapper = presupuestoMapper;
+        this.presupuestoConsumoService = presupuestoConsumoService;
     }
 
     /**
@@ -46,7 +56,7 @@ public class PresupuestoService {
         LOG.debug("Request to save Presupuesto : {}", presupuestoDTO);
         Presupuesto presupuesto = presupuestoMapper.toEntity(presupuestoDTO);
         validatePresupuesto(presupuesto);
-        presupuesto = presupuestoRepository.save(presupuesto);
+        presupuesto = guardar(presupuesto);
         return presupuestoMapper.toDto(presupuesto);
     }
 
@@ -60,7 +70,7 @@ public class PresupuestoService {
         LOG.debug("Request to update Presupuesto : {}", presupuestoDTO);
         Presupuesto presupuesto = presupuestoMapper.toEntity(presupuestoDTO);
         validatePresupuesto(presupuesto);
-        presupuesto = presupuestoRepository.save(presupuesto);
+        presupuesto = guardar(presupuesto);
         return presupuestoMapper.toDto(presupuesto);
     }
 
@@ -81,10 +91,32 @@ public class PresupuestoService {
 
                 return existingPresupuesto;
             })
-            .map(presupuestoRepository::save)
+            .map(this::guardar)
             .map(presupuestoMapper::toDto);
     }
 
+    /**
+     * Guarda el presupuesto y recalcula su consumo, que depende de su usuario, categoría y fechas.
+     * <p>
+     * {@link #validatePresupuesto} da el error habitual sin llegar a escribir, pero dos altas concurrentes pueden pasar
+     * ambas la comprobación: la restricción de exclusión {@code ex_presupuesto__usuario_categoria_fechas} rechaza la
+     * segunda al hacer flush y aquí se traduce al mismo error.
+     */
+    private Presupuesto guardar(Presupuesto presupuesto) {
+        Presupuesto guardado;
+        try {
+            guardado = presupuestoRepository.saveAndFlush(presupuesto);
+        } catch (DataIntegrityViolationException e) {
+            String causa = e.getMostSpecificCause().getMessage();
+            if (causa != null && causa.contains(OVERLAP_CONSTRAINT)) {
+                throw overlapException();
+            }
+            throw e;
+        }
+        presupuestoConsumoService.recalcular(guardado.getId());
+        return guardado;
+    }
+
     private void validatePresupuesto(Presupuesto presupuesto) {
         if (presupuesto.getFechaInicio() == null || presupuesto.getFechaFin() == null) {
             throw new BadRequestAlertException("Fechas de presupuesto incompletas", "presupuesto", "fecha.incomplete");
@@ -93,14 +125,25 @@ public class PresupuestoService {
             throw new BadRequestAlertException("Fecha inicio posterior a fecha fin", "presupuesto", "fecha.invalid");
         }
 
-        Long categoriaId = presupuesto.getCategoria() != null ? presupuesto.getCategoria().getId() : null;
-        Long id = presupuesto.getId();
-        List<Presupuesto> overlapping = presupuestoRepository.findOverlappingForCurrentUser(categoriaId, presupuesto.getFechaInicio(), presupuesto.getFechaFin(), id);
-        if (overlapping != null && !overlapping.isEmpty()) {
-            throw new BadRequestAlertException("Presupuesto se solapa con otro existente", "presupuesto", "presupuesto.overlap");
+        if (presupuesto.getUsuario() == null || presupuesto.getCategoria() == null) {
+            return;
+        }
+        boolean solapado = presupuestoRepository.existsOverlapping(
+            presupuesto.getUsuario().getId(),
+            presupuesto.getCategoria().getId(),
+            presupuesto.getFechaInicio(),
+            presupuesto.getFechaFin(),
+            presupuesto.getId() != null ? presupuesto.getId() : PresupuestoRepository.SIN_ID
+        );
+        if (solapado) {
+            throw overlapException();
         }
     }
 
+    private static BadRequestAlertException overlapException() {
+        return new BadRequestAlertException("Presupuesto se solapa con otro existente", "presupuesto", "presupuesto.overlap");
+    }
+
     /**
      * Get all the presupuestos.
      *
@@ -0,0 +1,142 @@
+package finanzas.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Lo que comparten los trabajos nocturnos que recorren a todos los usuarios ({@link ExtractoMensualJob},
+ * {@link SerieRecurrenteJob}): un {@link ForkJoinPool} propio que procesa los usuarios en bloques en paralelo, la marca
+ * de ejecución en curso en este nodo y las métricas {@code <nombre>.bloque} (duración de cada bloque) y
+ * {@code <nombre>.ejecucion} (duración de cada ejecución por resultado).
+ * <p>
+ * Entre nodos, cada trabajo se protege con un arrendamiento en base de datos que reclama con un propietario propio de
+ * la ejecución. Cada escritura del arrendamiento (renovarlo, avanzar el punto de control, terminar) lleva ese
+ * propietario y dice si lo sigue teniendo: la función que recibe cada bloque terminado lo devuelve, y en cuanto es
+ * {@code false} la ejecución se detiene con {@link ArrendamientoPerdidoException}, como ante cualquier otro fallo.
+ */
+final class ProcesoPorBloques {
+
+    private final String nombre;
+
+    private final int bloque;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ForkJoinPool pool;
+
+    private final Timer bloqueTimer;
+
+    /** Una sola ejecución a la vez en este nodo; entre nodos decide el arrendamiento de cada trabajo. */
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    /**
+     * @param nombre prefijo de las métricas.
+     * @param hilo prefijo del nombre de los hilos.
+     * @param descripcionBloque descripción de la métrica {@code <nombre>.bloque}.
+     */
+    ProcesoPorBloques(String nombre, String hilo, int hilos, int bloque, String descripcionBloque, MeterRegistry meterRegistry) {
+        this.nombre = nombre;
+        this.bloque = bloque;
+        this.meterRegistry = meterRegistry;
+        this.pool = new ForkJoinPool(
+            hilos,
+            p -> {
+                ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                worker.setName(hilo + "-" + worker.getPoolIndex());
+                return worker;
+            },
+            null,
+            false
+        );
+        this.bloqueTimer = Timer.builder(nombre + ".bloque").description(descripcionBloque).register(meterRegistry);
+    }
+
+    /**
+     * @return {@code false} if an execution is already running on this node.
+     */
+    boolean empezar() {
+        return enCurso.compareAndSet(false, true);
+    }
+
+    void acabar() {
+        enCurso.set(false);
+    }
+
+    Timer.Sample medir() {
+        return Timer.start(meterRegistry);
+    }
+
+    void medido(Timer.Sample muestra, boolean completado) {
+        muestra.stop(meterRegistry.timer(nombre + ".ejecucion", "resultado", completado ? "completado" : "fallido"));
+    }
+
+    /**
+     * Reparte {@code ids} en bloques, los procesa en paralelo con {@code tarea} y entrega el resultado de cada uno a
+     * {@code terminado} en el orden de los bloques, en el hilo que llama: un bloque solo se entrega cuando todos los
+     * anteriores se han entregado.
+     * <p>
+     * Si un bloque o su entrega fallan, los bloques que aún no han empezado ya no empiezan y se espera a que terminen los
+     * que están en curso: cuando este método lanza la excepción ya no queda ningún bloque escribiendo, así que el trabajo
+     * puede darse por fallido sin que un bloque rezagado escriba después, o a la vez que la siguiente ejecución.
+     *
+     * @param terminado escribe el arrendamiento tras el bloque y devuelve si esta ejecución lo sigue teniendo.
+     * @throws ArrendamientoPerdidoException if {@code terminado} returns {@code false}, once no block is running.
+     * @throws RuntimeException the first failure, once no block is running.
+     */
+    <R> void procesar(List<Long> ids, Function<List<Long>, R> tarea, Entrega<R> terminado) {
+        AtomicBoolean fallido = new AtomicBoolean();
+        List<List<Long>> bloques = new ArrayList<>();
+        List<ForkJoinTask<R>> tareas = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += bloque) {
+            List<Long> bloqueIds = ids.subList(i, Math.min(i + bloque, ids.size()));
+            bloques.add(bloqueIds);
+            tareas.add(
+                pool.submit(() -> {
+                    if (fallido.get()) {
+                        throw new CancellationException("A previous block failed");
+                    }
+                    return bloqueTimer.record(() -> tarea.apply(bloqueIds));
+                })
+            );
+        }
+        try {
+            for (int i = 0; i < tareas.size(); i++) {
+                if (!terminado.entregar(bloques.get(i), tareas.get(i).join())) {
+                    throw new ArrendamientoPerdidoException("The lease of " + nombre + " has been claimed by another run");
+                }
+            }
+        } catch (RuntimeException e) {
+            fallido.set(true);
+            tareas.forEach(t -> t.cancel(false));
+            tareas.forEach(ForkJoinTask::quietlyJoin);
+            throw e;
+        }
+    }
+
+    void cerrar() throws InterruptedException {
+        pool.shutdown();
+        if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Recibe cada bloque terminado, en orden.
+     */
+    @FunctionalInterface
+    interface Entrega<R> {
+        /**
+         * @return {@code false} if this execution no longer holds the lease.
+         */
+        boolean entregar(List<Long> ids, R resultado);
+    }
+}
@@ -0,0 +1,94 @@
+package finanzas.service;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.List;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cubetas de tokens en Redis, comunes a todos los nodos. Cada cubeta es un hash con los tokens y la hora de la última
+ * recarga que un script Lua actualiza de forma atómica con una sola ida y vuelta; el reloj es el de Redis, así que no
+ * importa el desfase entre nodos. La clave caduca cuando la cubeta se habría llenado.
+ * <p>
+ * Si Redis no responde, se usan las cubetas de {@code respaldo}: el límite pasa a ser por nodo pero el webhook sigue
+ * admitiendo mensajes.
+ */
+final class RedisTokenBuckets implements TokenBuckets {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RedisTokenBuckets.class);
+
+    /** KEYS[1] la cubeta; ARGV capacidad, tokens por milisegundo, milisegundos hasta llenarse y coste (-1 devuelve). */
+    private static final String SCRIPT = """
+        local capacidad = tonumber(ARGV[1])
+        local porMilli = tonumber(ARGV[2])
+        local coste = tonumber(ARGV[4])
+        local t = redis.call('TIME')
+        local ahora = t[1] * 1000 + math.floor(t[2] / 1000)
+        local cubeta = redis.call('HMGET', KEYS[1], 'tokens', 'recarga')
+        local tokens = tonumber(cubeta[1]) or capacidad
+        local recarga = tonumber(cubeta[2]) or ahora
+        tokens = math.min(capacidad, tokens + math.max(0, ahora - recarga) * porMilli)
+        local espera = 0
+        if coste < 0 or tokens >= coste then
+            tokens = math.min(capacidad, tokens - coste)
+        else
+            espera = math.ceil((coste - tokens) / porMilli)
+        end
+        redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'recarga', tostring(ahora))
+        redis.call('PEXPIRE', KEYS[1], ARGV[3])
+        return espera
+        """;
+
+    private final RScript script;
+
+    private final String prefijo;
+
+    private final TokenBuckets respaldo;
+
+    private final Counter fallos;
+
+    RedisTokenBuckets(RedissonClient redisson, String prefijo, TokenBuckets respaldo, Counter fallos) {
+        this.script = redisson.getScript(StringCodec.INSTANCE);
+        this.prefijo = prefijo;
+        this.respaldo = respaldo;
+        this.fallos = fallos;
+    }
+
+    @Override
+    public long consumir(String clave, Tasa tasa) {
+        try {
+            return ejecutar(clave, tasa, 1);
+        } catch (RuntimeException e) {
+            fallos.increment();
+            LOG.debug("Redis rate limit unavailable, using the local buckets: {}", e.getMessage());
+            return respaldo.consumir(clave, tasa);
+        }
+    }
+
+    @Override
+    public void devolver(String clave, Tasa tasa) {
+        try {
+            ejecutar(clave, tasa, -1);
+        } catch (RuntimeException e) {
+            fallos.increment();
+            respaldo.devolver(clave, tasa);
+        }
+    }
+
+    private long ejecutar(String clave, Tasa tasa, int coste) {
+        Long espera = script.eval(
+            RScript.Mode.READ_WRITE,
+            SCRIPT,
+            RScript.ReturnType.INTEGER,
+            List.of(prefijo + clave),
+            Integer.toString(tasa.capacidad()),
+            Double.toString(tasa.tokensPorMilli()),
+            Long.toString(tasa.llenado()),
+            Integer.toString(coste)
+        );
+        return espera != null ? espera : 0;
+    }
+}
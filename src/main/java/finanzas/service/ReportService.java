@@ -1,8 +1,11 @@
 package finanzas.service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,9 +13,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import finanzas.domain.Cuenta;
-import finanzas.domain.Movimiento;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.DimensionRollup;
+import finanzas.domain.enumeration.PeriodoRollup;
 import finanzas.repository.CuentaRepository;
 import finanzas.repository.MovimientoRepository;
+import finanzas.repository.MovimientoRollupRepository;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.PuntoSerie;
+import finanzas.repository.projection.TotalesAgrupados;
+import finanzas.repository.projection.TotalesMovimiento;
+import finanzas.repository.projection.TotalesPeriodo;
+import finanzas.security.SecurityUtils;
 
 @Service
 @Transactional(readOnly = true)
@@ -20,12 +32,27 @@ public class ReportService {
 
     private final Logger log = LoggerFactory.getLogger(ReportService.class);
 
+    private static final ZonedDateTime RANGO_MIN = ZonedDateTime.of(1900, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime RANGO_MAX = ZonedDateTime.of(9999, 12, 31, 23, 59, 59, 0, ZoneOffset.UTC);
+
     private final MovimientoRepository movimientoRepository;
     private final CuentaRepository cuentaRepository;
+    private final CuentaSaldoService cuentaSaldoService;
+    private final MovimientoRollupRepository movimientoRollupRepository;
+    private final UserRepository userRepository;
 
-    public ReportService(MovimientoRepository movimientoRepository, CuentaRepository cuentaRepository) {
+    public ReportService(
+        MovimientoRepository movimientoRepository,
+        CuentaRepository cuentaRepository,
+        CuentaSaldoService cuentaSaldoService,
+        MovimientoRollupRepository movimientoRollupRepository,
+        UserRepository userRepository
+    ) {
         this.movimientoRepository = movimientoRepository;
         this.cuentaRepository = cuentaRepository;
+        this.cuentaSaldoService = cuentaSaldoService;
+        this.movimientoRollupRepository = movimientoRollupRepository;
+        this.userRepository = userRepository;
     }
 
     public BigDecimal getBalanceForCuenta(Long cuentaId, ZonedDateTime from, ZonedDateTime to) {
@@ -33,35 +60,100 @@ public class ReportService {
         Cuenta cuenta = cuentaRepository.findById(cuentaId).orElse(null);
         BigDecimal saldoInicial = cuenta != null && cuenta.getSaldoInicial() != null ? cuenta.getSaldoInicial() : BigDecimal.ZERO;
 
-        List<Movimiento> movimientos;
+        BigDecimal net;
         if (from != null && to != null) {
-            movimientos = movimientoRepository.findByCuentaIdAndFechaMovimientoBetween(cuentaId, from, to);
+            net = cuentaSaldoService.getNeto(cuentaId, from, to);
         } else {
-            movimientos = movimientoRepository.findByCuentaId(cuentaId);
+            net = cuentaSaldoService.getNeto(cuentaId);
         }
 
-        BigDecimal net = movimientos.stream()
-            .map(m -> m.getTipo() == null ? BigDecimal.ZERO : (m.getTipo().name().equals("INGRESO") ? m.getMonto() : m.getMonto().negate()))
-            .filter(x -> x != null)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
         return saldoInicial.add(net);
     }
 
     public BigDecimal getBalanceForCategoria(Long categoriaId, ZonedDateTime from, ZonedDateTime to) {
         log.debug("Calculate balance for categoria {} between {} and {}", categoriaId, from, to);
-        List<Movimiento> movimientos;
+        Optional<BigDecimal> net;
         if (from != null && to != null) {
-            movimientos = movimientoRepository.findByCategoriaIdAndFechaMovimientoBetween(categoriaId, from, to);
+            net = movimientoRepository.sumNetoByCategoriaIdAndFechaMovimientoBetween(categoriaId, from, to);
         } else {
-            movimientos = movimientoRepository.findByCategoriaId(categoriaId);
+            net = movimientoRepository.sumNetoByCategoriaId(categoriaId);
         }
+        return net.orElse(BigDecimal.ZERO);
+    }
+
+    /**
+     * Ingresos y gastos del usuario actual agregados en base de datos.
+     */
+    public TotalesMovimiento getTotalesUsuarioActual() {
+        return movimientoRepository.sumTotalesByUsuarioLogin(currentLogin());
+    }
 
-        BigDecimal net = movimientos.stream()
-            .map(m -> m.getTipo() == null ? BigDecimal.ZERO : (m.getTipo().name().equals("INGRESO") ? m.getMonto() : m.getMonto().negate()))
-            .filter(x -> x != null)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Totales del usuario actual por categoría en el rango (opcional) indicado.
+     */
+    public List<TotalesAgrupados> getTotalesPorCategoria(ZonedDateTime from, ZonedDateTime to) {
+        log.debug("Calculate totals by categoria between {} and {}", from, to);
+        return movimientoRepository.sumTotalesPorCategoria(currentLogin(), desde(from), hasta(to));
+    }
+
+    /**
+     * Totales del usuario actual por cuenta en el rango (opcional) indicado.
+     */
+    public List<TotalesAgrupados> getTotalesPorCuenta(ZonedDateTime from, ZonedDateTime to) {
+        log.debug("Calculate totals by cuenta between {} and {}", from, to);
+        return movimientoRepository.sumTotalesPorCuenta(currentLogin(), desde(from), hasta(to));
+    }
+
+    /**
+     * Totales mensuales del usuario actual en el rango (opcional) indicado, ordenados cronológicamente.
+     */
+    public List<TotalesPeriodo> getTotalesPorMes(ZonedDateTime from, ZonedDateTime to) {
+        log.debug("Calculate monthly totals between {} and {}", from, to);
+        return movimientoRepository.sumTotalesPorMes(currentLogin(), desde(from), hasta(to));
+    }
+
+    /**
+     * Totales de todos los usuarios agrupados por usuario (uso administrativo).
+     */
+    public List<TotalesAgrupados> getTotalesPorUsuario(ZonedDateTime from, ZonedDateTime to) {
+        log.debug("Calculate totals by usuario between {} and {}", from, to);
+        return movimientoRepository.sumTotalesPorUsuario(desde(from), hasta(to));
+    }
+
+    /**
+     * Serie temporal de ingresos y gastos del usuario actual, leída de {@code movimiento_rollup}: el coste depende del
+     * número de periodos del rango y no de los movimientos que contiene.
+     *
+     * @param periodo granularidad de la serie.
+     * @param dimension desglose por categoría o cuenta, {@code null} para un único total por periodo.
+     * @param from primer día (UTC) del rango, inclusive.
+     * @param to último día (UTC) del rango, inclusive.
+     * @return the points of the series ordered by period.
+     */
+    public List<PuntoSerie> getSerie(PeriodoRollup periodo, DimensionRollup dimension, LocalDate from, LocalDate to) {
+        log.debug("Calculate {} series by {} between {} and {}", periodo, dimension, from, to);
+        Long usuarioId = userRepository
+            .findOneWithAuthoritiesByLogin(currentLogin())
+            .map(User::getId)
+            .orElseThrow(() -> new IllegalStateException("Current user not found"));
+        // el rango se amplía al inicio del periodo que contiene "from" para no perder el primer periodo parcial
+        LocalDate desde = MovimientoRollupService.inicioDePeriodo(periodo, from);
+        if (dimension == null) {
+            return movimientoRollupRepository.findSerieTotal(usuarioId, periodo, desde, to);
+        }
+        return movimientoRollupRepository.findSerie(usuarioId, dimension, periodo, desde, to);
+    }
+
+    private static String currentLogin() {
+        return SecurityUtils.getCurrentUserLogin().orElseThrow(() -> new IllegalStateException("Current user login not found"));
+    }
+
+    // PostgreSQL no puede inferir el tipo de un parámetro null, así que los extremos abiertos se sustituyen por límites fijos
+    private static ZonedDateTime desde(ZonedDateTime from) {
+        return from != null ? from : RANGO_MIN;
+    }
 
-        return net;
+    private static ZonedDateTime hasta(ZonedDateTime to) {
+        return to != null ? to : RANGO_MAX;
     }
 }
@@ -0,0 +1,177 @@
+package finanzas.service;
+
+import finanzas.config.ApplicationProperties;
+import finanzas.repository.SerieRecurrenteRepository.Marca;
+import finanzas.service.dto.ResultadoRecurrencias;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Detección nocturna de movimientos recurrentes de todos los usuarios activados.
+ * <p>
+ * Cada ejecución lee solo los movimientos escritos desde el inicio de la anterior (la marca de agua, con un margen de
+ * {@code margen} para las transacciones que confirmaron tarde), por usuario y por índice, y las claves que algún
+ * movimiento ha dejado de tener en ese intervalo. Los usuarios se reparten por id en bloques de {@code bloque} que
+ * procesa en paralelo un {@link ProcesoPorBloques} de {@code hilos} hilos, cada bloque en su propia transacción (ver
+ * {@link SerieRecurrenteService#detectarBloque}). Reanalizar una clave sustituye sus series, así que si la ejecución
+ * falla basta con no avanzar la marca: la siguiente repite el mismo intervalo.
+ * <p>
+ * Un arrendamiento en base de datos evita que dos nodos detecten a la vez: se renueva tras cada bloque y, si ha
+ * caducado y lo ha reclamado otra ejecución, {@link ProcesoPorBloques} detiene esta sin tocar la marca. El progreso se
+ * publica en Micrometer: {@code recurrencias.usuarios}, {@code recurrencias.claves}, {@code recurrencias.series},
+ * {@code recurrencias.bloque} y {@code recurrencias.ejecucion} (duración de cada ejecución por resultado).
+ */
+@Service
+public class SerieRecurrenteJob {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SerieRecurrenteJob.class);
+
+    private final SerieRecurrenteService serieRecurrenteService;
+
+    private final int meses;
+
+    private final Duration arrendamiento;
+
+    private final Duration margen;
+
+    private final ProcesoPorBloques proceso;
+
+    private final Counter usuariosCounter;
+
+    private final Counter clavesCounter;
+
+    private final Counter seriesCounter;
+
+    public SerieRecurrenteJob(
+        SerieRecurrenteService serieRecurrenteService,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.serieRecurrenteService = serieRecurrenteService;
+        ApplicationProperties.Recurrencias recurrencias = applicationProperties.getRecurrencias();
+        this.meses = recurrencias.getMeses();
+        this.arrendamiento = recurrencias.getArrendamiento();
+        this.margen = recurrencias.getMargen();
+        this.proceso = new ProcesoPorBloques(
+            "recurrencias",
+            "serie-recurrente",
+            recurrencias.getHilos(),
+            recurrencias.getBloque(),
+            "Time to analyse one block of users",
+            meterRegistry
+        );
+        this.usuariosCounter = Counter.builder("recurrencias.usuarios")
+            .baseUnit("users")
+            .description("Users checked for new recurring movements")
+            .register(meterRegistry);
+        this.clavesCounter = Counter.builder("recurrencias.claves")
+            .baseUnit("keys")
+            .description("Recurrence keys with new movements analysed")
+            .register(meterRegistry);
+        this.seriesCounter = Counter.builder("recurrencias.series")
+            .baseUnit("series")
+            .description("Recurring series detected")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${application.recurrencias.cron:0 30 2 * * ?}")
+    public void detectarProgramado() {
+        detectar();
+    }
+
+    /**
+     * Lanza la detección en segundo plano.
+     */
+    @Async
+    public void lanzar() {
+        detectar();
+    }
+
+    /**
+     * Detecta las series de los movimientos escritos desde la ejecución anterior.
+     *
+     * @return the result, or empty if the detection is already running on this or another node.
+     */
+    public Optional<ResultadoRecurrencias> detectar() {
+        if (!proceso.empezar()) {
+            LOG.info("Recurring movement detection is already running on this node");
+            return Optional.empty();
+        }
+        try {
+            Optional<Marca> marca = serieRecurrenteService.reclamar(arrendamiento);
+            if (marca.isEmpty()) {
+                LOG.info("Recurring movement detection is running on another node");
+                return Optional.empty();
+            }
+            return Optional.of(detectarDesde(marca.orElseThrow()));
+        } finally {
+            proceso.acabar();
+        }
+    }
+
+    private ResultadoRecurrencias detectarDesde(Marca marca) {
+        LocalDateTime desde = marca.marca() != null ? marca.marca().minus(margen) : null;
+        LocalDate hoy = marca.inicio().toLocalDate();
+        List<Long> usuarios = serieRecurrenteService.usuarios();
+        LOG.info("Detecting recurring movements of {} users written after {}", usuarios.size(), desde != null ? desde : "the start");
+        Timer.Sample muestra = proceso.medir();
+
+        AtomicLong claves = new AtomicLong();
+        AtomicLong series = new AtomicLong();
+        boolean completado = false;
+        try {
+            proceso.procesar(
+                usuarios,
+                ids -> procesarBloque(ids, desde, hoy),
+                (ids, resultado) -> {
+                    claves.addAndGet(resultado.claves());
+                    series.addAndGet(resultado.series());
+                    return serieRecurrenteService.renovar(marca, arrendamiento);
+                }
+            );
+            completado = true;
+        } catch (ArrendamientoPerdidoException e) {
+            LOG.warn("Recurring movement detection stopped: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            LOG.error("Recurring movement detection failed, the next run will repeat it", e);
+        } finally {
+            if (!serieRecurrenteService.terminar(marca, completado, margen)) {
+                LOG.warn("Recurring movement detection has been claimed by another run, watermark left as it is");
+            }
+            proceso.medido(muestra, completado);
+        }
+        LOG.info(
+            "Recurring movement detection {}: {} keys analysed, {} series",
+            completado ? "completed" : "failed",
+            claves.get(),
+            series.get()
+        );
+        return new ResultadoRecurrencias(usuarios.size(), claves.get(), series.get(), completado);
+    }
+
+    private SerieRecurrenteService.ResultadoBloque procesarBloque(List<Long> ids, LocalDateTime desde, LocalDate hoy) {
+        SerieRecurrenteService.ResultadoBloque resultado = serieRecurrenteService.detectarBloque(ids, desde, hoy, meses);
+        usuariosCounter.increment(ids.size());
+        clavesCounter.increment(resultado.claves());
+        seriesCounter.increment(resultado.series());
+        return resultado;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        proceso.cerrar();
+    }
+}
@@ -0,0 +1,190 @@
+package finanzas.service;
+
+import finanzas.domain.User;
+import finanzas.domain.enumeration.PeriodicidadRecurrencia;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.SerieRecurrenteRepository;
+import finanzas.repository.SerieRecurrenteRepository.Clave;
+import finanzas.repository.SerieRecurrenteRepository.Marca;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.SerieRecurrente;
+import finanzas.security.SecurityUtils;
+import finanzas.service.dto.CargoPrevisto;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Series de movimientos recurrentes (alquiler, suscripciones, nómina): detección por bloques de usuarios, marca de agua
+ * de la detección y cargos previstos.
+ * <p>
+ * Cada método es una transacción corta; {@link SerieRecurrenteJob} los combina para revisar a todos los usuarios en
+ * paralelo. La detección es incremental: de cada usuario solo se vuelven a analizar las claves de recurrencia con
+ * movimientos escritos desde la ejecución anterior, y de cada una solo el histórico de los últimos {@code meses}.
+ */
+@Service
+@Transactional
+public class SerieRecurrenteService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SerieRecurrenteService.class);
+
+    /** Las series que llevan más de un año sin repetirse se borran; ninguna periodicidad tiene un periodo mayor. */
+    private static final int DIAS_CADUCIDAD = 400;
+
+    private final SerieRecurrenteRepository serieRecurrenteRepository;
+
+    private final UserRepository userRepository;
+
+    public SerieRecurrenteService(SerieRecurrenteRepository serieRecurrenteRepository, UserRepository userRepository) {
+        this.serieRecurrenteRepository = serieRecurrenteRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Reclama la detección; ver {@link SerieRecurrenteRepository#reclamar}.
+     *
+     * @return the watermark, or empty if another node is running the detection.
+     */
+    public Optional<Marca> reclamar(Duration arrendamiento) {
+        return serieRecurrenteRepository.reclamar(arrendamiento);
+    }
+
+    /**
+     * Prolonga el arrendamiento de la detección reclamada con {@code marca}.
+     *
+     * @return {@code false} if another run has claimed the detection since.
+     */
+    public boolean renovar(Marca marca, Duration arrendamiento) {
+        return serieRecurrenteRepository.renovar(marca.propietario(), arrendamiento);
+    }
+
+    /**
+     * Termina la detección reclamada con {@code marca}: si se ha completado la siguiente ejecución empieza en su
+     * inicio; si no, repite el mismo intervalo.
+     *
+     * @param margen margen con el que la siguiente ejecución leerá desde la nueva marca: las claves abandonadas antes de
+     * {@code marca - margen} ya no se leerán y se olvidan.
+     * @return {@code false} if another run has claimed the detection since, which then stays as it is.
+     */
+    public boolean terminar(Marca marca, boolean completado, Duration margen) {
+        LocalDateTime nueva = completado ? marca.inicio() : null;
+        if (!serieRecurrenteRepository.terminar(marca.propietario(), nueva)) {
+            return false;
+        }
+        if (nueva != null) {
+            int caducadas = serieRecurrenteRepository.deleteCaducadas(nueva.toLocalDate().minusDays(DIAS_CADUCIDAD));
+            int olvidadas = serieRecurrenteRepository.deleteClavesModificadas(nueva.minus(margen));
+            LOG.debug("Deleted {} lapsed recurring series and {} abandoned recurrence keys", caducadas, olvidadas);
+        }
+        return true;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> usuarios() {
+        return serieRecurrenteRepository.findUsuariosActivos();
+    }
+
+    /**
+     * Vuelve a detectar las series de las claves de un bloque de usuarios con movimientos escritos o abandonados después
+     * de {@code desde} (todas las claves si es {@code null}) y sustituye las que había; una clave sin movimientos se
+     * queda sin series.
+     *
+     * @param meses meses de histórico analizados por clave.
+     * @return the number of keys analysed and of series found.
+     */
+    public ResultadoBloque detectarBloque(List<Long> usuarioIds, LocalDateTime desde, LocalDate hoy, int meses) {
+        LocalDate inicioHistorico = hoy.minusMonths(meses);
+        int claves = 0;
+        int series = 0;
+        for (Map.Entry<Long, List<Clave>> entrada : serieRecurrenteRepository.findClavesModificadas(usuarioIds, desde).entrySet()) {
+            Long usuarioId = entrada.getKey();
+            List<SerieRecurrente> detectadas = new ArrayList<>();
+            for (Clave clave : entrada.getValue()) {
+                detectadas.addAll(
+                    DetectorRecurrencias.detectar(
+                        clave.clave(),
+                        clave.tipo(),
+                        serieRecurrenteRepository.findOcurrencias(usuarioId, clave, inicioHistorico),
+                        hoy
+                    )
+                );
+            }
+            serieRecurrenteRepository.reemplazar(usuarioId, entrada.getValue(), detectadas);
+            claves += entrada.getValue().size();
+            series += detectadas.size();
+        }
+        LOG.debug("Analysed {} recurrence keys of {} users, {} series found", claves, usuarioIds.size(), series);
+        return new ResultadoBloque(claves, series);
+    }
+
+    /**
+     * @param claves claves de recurrencia analizadas.
+     * @param series series detectadas en ellas.
+     */
+    public record ResultadoBloque(int claves, int series) {}
+
+    /**
+     * Cargos previstos del usuario actual en los próximos {@code dias} días, por fecha: una entrada por ocurrencia
+     * esperada, así que una serie semanal aparece varias veces. Incluye los que se esperaban hace poco (dentro de la
+     * tolerancia de su periodicidad) y todavía no han llegado.
+     *
+     * @param tipo tipo de movimiento, o {@code null} para gastos e ingresos.
+     * @return the expected occurrences, empty if there is no authenticated user.
+     */
+    @Transactional(readOnly = true)
+    public List<CargoPrevisto> findProximosForCurrentUser(int dias, TipoMovimiento tipo) {
+        Optional<Long> usuarioId = SecurityUtils.getCurrentUserLogin()
+            .flatMap(userRepository::findOneWithAuthoritiesByLogin)
+            .map(User::getId);
+        if (usuarioId.isEmpty()) {
+            return List.of();
+        }
+        LocalDate hoy = LocalDate.now(ZoneOffset.UTC);
+        LocalDate hasta = hoy.plusDays(dias);
+        List<CargoPrevisto> cargos = new ArrayList<>();
+        List<SerieRecurrente> series = serieRecurrenteRepository.findByUsuarioIdAndProximaFecha(
+            usuarioId.orElseThrow(),
+            tipo,
+            // la mayor tolerancia: las series con menos se descartan abajo
+            hoy.minusDays(DetectorRecurrencias.tolerancia(PeriodicidadRecurrencia.ANUAL)),
+            hasta
+        );
+        for (SerieRecurrente serie : series) {
+            LocalDate limite = hoy.minusDays(DetectorRecurrencias.tolerancia(serie.periodicidad()));
+            if (serie.proximaFecha().isBefore(limite)) {
+                continue;
+            }
+            LocalDate fecha = serie.proximaFecha();
+            for (int n = 2; !fecha.isAfter(hasta); n++) {
+                cargos.add(
+                    new CargoPrevisto(
+                        fecha,
+                        serie.descripcion(),
+                        serie.tipo(),
+                        serie.periodicidad(),
+                        serie.montoMedio(),
+                        serie.montoMinimo(),
+                        serie.montoMaximo(),
+                        serie.cuentaId(),
+                        serie.categoriaId()
+                    )
+                );
+                fecha = DetectorRecurrencias.ocurrencia(serie.periodicidad(), serie.ultimaFecha(), n);
+            }
+        }
+        cargos.sort(
+            Comparator.comparing(CargoPrevisto::fecha).thenComparing(CargoPrevisto::descripcion, Comparator.nullsLast(String::compareTo))
+        );
+        return cargos;
+    }
+}
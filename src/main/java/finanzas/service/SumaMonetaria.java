@@ -0,0 +1,134 @@
+package finanzas.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Acumulador de importes con dos decimales para las agregaciones en memoria.
+ * <p>
+ * Mientras la suma cabe en un {@code long} se lleva en céntimos: cada suma es una operación entera con detección de
+ * desbordamiento y no crea objetos. Si un importe tiene más de dos decimales o la suma se desborda, el acumulador
+ * pasa a {@link BigDecimal} y sigue siendo exacto. El resultado siempre se devuelve con escala 2 salvo que algún
+ * importe sumado tuviera más decimales.
+ * <p>
+ * No es seguro entre hilos.
+ */
+public final class SumaMonetaria {
+
+    private static final int ESCALA = 2;
+
+    /** Un valor sin escalar de hasta 16 dígitos sigue cabiendo en un {@code long} al multiplicarlo por 100. */
+    private static final int DIGITOS_RAPIDOS = 16;
+
+    private static final long[] POTENCIAS = { 100L, 10L, 1L };
+
+    private long centimos;
+
+    /** {@code null} mientras la suma se lleva en céntimos. */
+    private BigDecimal exacta;
+
+    /**
+     * Suma un importe.
+     *
+     * @return this accumulator.
+     */
+    public SumaMonetaria sumar(BigDecimal monto) {
+        if (exacta == null) {
+            int escala = monto.scale();
+            if (escala >= 0 && escala <= ESCALA && monto.precision() <= DIGITOS_RAPIDOS) {
+                // movePointRight deja escala 0 y longValueExact lee el valor compacto sin crear un BigInteger
+                return sumarCentimos(monto.movePointRight(escala).longValueExact() * POTENCIAS[escala]);
+            }
+            exacta = aBigDecimal(centimos);
+        }
+        exacta = exacta.add(monto);
+        return this;
+    }
+
+    /**
+     * Resta un importe.
+     *
+     * @return this accumulator.
+     */
+    public SumaMonetaria restar(BigDecimal monto) {
+        return sumar(monto.negate());
+    }
+
+    /**
+     * Suma un importe expresado en céntimos.
+     *
+     * @return this accumulator.
+     */
+    public SumaMonetaria sumarCentimos(long importe) {
+        if (exacta == null) {
+            long suma = centimos + importe;
+            // desbordamiento si ambos sumandos tienen el mismo signo y el resultado otro, como en Math.addExact
+            if (((centimos ^ suma) & (importe ^ suma)) >= 0) {
+                centimos = suma;
+                return this;
+            }
+            exacta = aBigDecimal(centimos);
+        }
+        exacta = exacta.add(aBigDecimal(importe));
+        return this;
+    }
+
+    /**
+     * Suma otro acumulador.
+     *
+     * @return this accumulator.
+     */
+    public SumaMonetaria sumar(SumaMonetaria otra) {
+        return otra.exacta == null ? sumarCentimos(otra.centimos) : sumar(otra.exacta);
+    }
+
+    public int signum() {
+        return exacta == null ? Long.signum(centimos) : exacta.signum();
+    }
+
+    /**
+     * Valor de la suma.
+     */
+    public BigDecimal valor() {
+        return exacta == null ? aBigDecimal(centimos) : exacta.setScale(Math.max(exacta.scale(), ESCALA), RoundingMode.UNNECESSARY);
+    }
+
+    /**
+     * Media de la suma entre {@code n} sumandos, redondeada a céntimos.
+     *
+     * @return the average, {@code null} if {@code n} is not positive.
+     */
+    public BigDecimal media(long n) {
+        if (n <= 0) {
+            return null;
+        }
+        if (exacta == null) {
+            long cociente = centimos / n;
+            long resto = centimos % n;
+            // redondeo HALF_UP sin salir de long: |resto| < n, así que 2 * |resto| solo desborda si n > 2^62
+            if (Math.abs(resto) >= n - Math.abs(resto)) {
+                cociente += Long.signum(centimos);
+            }
+            return aBigDecimal(cociente);
+        }
+        return exacta.divide(BigDecimal.valueOf(n), ESCALA, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Convierte un importe a céntimos si es exacto y cabe en un {@code long}.
+     *
+     * @throws ArithmeticException if the amount has more than two decimals or does not fit in a {@code long}.
+     */
+    public static long aCentimos(BigDecimal monto) {
+        return monto.setScale(ESCALA, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal aBigDecimal(long centimos) {
+        return BigDecimal.valueOf(centimos, ESCALA);
+    }
+
+    @Override
+    public String toString() {
+        return valor().toPlainString();
+    }
+}
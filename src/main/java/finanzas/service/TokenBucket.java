@@ -0,0 +1,44 @@
+package finanzas.service;
+
+/**
+ * Una cubeta de tokens: admite ráfagas de hasta {@link TokenBuckets.Tasa#capacidad()} y se repone de forma continua.
+ * Solo guarda dos números y no usa temporizadores: los tokens repuestos se calculan al consultarla.
+ * <p>
+ * No es segura entre hilos; {@link LocalTokenBuckets} la protege con el cerrojo de su franja.
+ */
+final class TokenBucket {
+
+    private double tokens;
+
+    private long ultimaRecarga;
+
+    TokenBucket(TokenBuckets.Tasa tasa, long ahora) {
+        this.tokens = tasa.capacidad();
+        this.ultimaRecarga = ahora;
+    }
+
+    /**
+     * @param ahora a monotonic time in milliseconds.
+     * @return 0 if a token was taken, otherwise the milliseconds until the next one.
+     */
+    long consumir(TokenBuckets.Tasa tasa, long ahora) {
+        recargar(tasa, ahora);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return tasa.espera(tokens);
+    }
+
+    void devolver(TokenBuckets.Tasa tasa, long ahora) {
+        recargar(tasa, ahora);
+        tokens = Math.min(tasa.capacidad(), tokens + 1);
+    }
+
+    private void recargar(TokenBuckets.Tasa tasa, long ahora) {
+        if (ahora > ultimaRecarga) {
+            tokens = Math.min(tasa.capacidad(), tokens + (ahora - ultimaRecarga) * tasa.tokensPorMilli());
+            ultimaRecarga = ahora;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package finanzas.service;
+
+/**
+ * Cubetas de tokens identificadas por una clave, como las usa {@link WhatsappRateLimiter}.
+ */
+interface TokenBuckets {
+    /**
+     * Tamaño y ritmo de reposición de una cubeta.
+     *
+     * @param capacidad tokens de una cubeta llena, es decir, la ráfaga máxima.
+     * @param tokensPorMilli tokens repuestos por milisegundo.
+     */
+    record Tasa(int capacidad, double tokensPorMilli) {
+        static Tasa porMinuto(int capacidad, int porMinuto) {
+            return new Tasa(capacidad, porMinuto / 60_000d);
+        }
+
+        /**
+         * Milisegundos hasta que una cubeta con {@code tokens} vuelva a tener uno entero.
+         */
+        long espera(double tokens) {
+            return (long) Math.ceil((1 - tokens) / tokensPorMilli);
+        }
+
+        /**
+         * Milisegundos que tarda en llenarse una cubeta vacía.
+         */
+        long llenado() {
+            return (long) Math.ceil(capacidad / tokensPorMilli);
+        }
+    }
+
+    /**
+     * Toma un token de la cubeta {@code clave}; una cubeta nueva empieza llena.
+     *
+     * @return 0 if a token was taken, otherwise the milliseconds until the next one.
+     */
+    long consumir(String clave, Tasa tasa);
+
+    /**
+     * Devuelve a la cubeta {@code clave} un token tomado con {@link #consumir} que al final no se usó.
+     */
+    void devolver(String clave, Tasa tasa);
+}
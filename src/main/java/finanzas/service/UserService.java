@@ -16,6 +16,7 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -241,6 +242,8 @@ public class UserService {
         SecurityUtils.getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
             .ifPresent(user -> {
+                // evicts the previous phone number before it changes
+                this.clearUserCaches(user);
                 user.setFirstName(firstName);
                 user.setLastName(lastName);
                 if (email != null) {
@@ -316,10 +319,31 @@ public class UserService {
         return authorityRepository.findAll().stream().map(Authority::getName).toList();
     }
 
+    /**
+     * Id del usuario con el número de teléfono indicado, ya normalizado con {@link User#normalizePhoneNumber(String)}.
+     * Los números conocidos se sirven desde {@link UserRepository#USERS_BY_PHONE_CACHE}.
+     *
+     * @param phoneNumber the normalized phone number.
+     * @return the id of the user, empty if no user has that number.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = UserRepository.USERS_BY_PHONE_CACHE, unless = "#result == null")
+    public Optional<Long> findIdByNormalizedPhoneNumber(String phoneNumber) {
+        if (phoneNumber == null) {
+            return Optional.empty();
+        }
+        return userRepository.findIdsByPhoneNumberNormalized(phoneNumber).stream().findFirst();
+    }
+
     private void clearUserCaches(User user) {
         Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evictIfPresent(user.getLogin());
         if (user.getEmail() != null) {
             Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evictIfPresent(user.getEmail());
         }
+        if (user.getPhoneNumberNormalized() != null) {
+            Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_PHONE_CACHE)).evictIfPresent(
+                user.getPhoneNumberNormalized()
+            );
+        }
     }
 }
@@ -1,6 +1,5 @@
 package finanzas.service;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 
 import org.slf4j.Logger;
@@ -27,52 +26,38 @@ public class WhatsappBotService {
     }
 
     /**
-     * Ejemplo de parser: texto esperado: "GASTO 12.50 comida cuenta:1 categoria:2 desc:almuerzo"
-     * Crea un MovimientoDTO mínimo y lo guarda.
+     * Ejemplo de parser: texto esperado: "GASTO 12.50 comida cuenta:1 categoria:2 desc:almuerzo", o en corto "G 12.50"
+     * Crea un MovimientoDTO mínimo y lo guarda. El tipo y el monto se leen con
+     * {@link WhatsappComandoParser#parsearTipoYMonto}, que admite el tipo abreviado a su inicial; la cuenta y la
+     * categoría, opcionales, de las palabras {@code cuenta:<id>} y {@code categoria:<id>}.
      */
     public MovimientoDTO handleIncomingMessage(String from, String messageText) {
         log.debug("Incoming whatsapp message from {}: {}", from, messageText);
 
         try {
-            String[] parts = messageText.split("\\s+");
-            if (parts.length < 2) {
-                throw new IllegalArgumentException("Formato inválido");
+            WhatsappComando comando = WhatsappComandoParser.parsearTipoYMonto(messageText, new WhatsappComando());
+            if (!comando.valido()) {
+                throw new IllegalArgumentException("Formato inválido: " + comando.error());
             }
-            String tipoStr = parts[0].toUpperCase();
-            String montoStr = parts[1].replaceAll("[^0-9.,-]", "").replace(',', '.');
-            BigDecimal monto = new BigDecimal(montoStr);
 
             MovimientoDTO dto = new MovimientoDTO();
-            dto.setMonto(monto);
+            dto.setTipo(comando.tipo());
+            dto.setMonto(comando.monto());
             dto.setFechaMovimiento(ZonedDateTime.now());
             dto.setFechaRegistro(ZonedDateTime.now());
             dto.setDescripcion(messageText);
 
-            if (tipoStr.startsWith("G")) dto.setTipo(finanzas.domain.enumeration.TipoMovimiento.GASTO);
-            else dto.setTipo(finanzas.domain.enumeration.TipoMovimiento.INGRESO);
-
-            // Parse simple tokens and set nested DTOs
-            for (String token : parts) {
-                if (token.startsWith("cuenta:")) {
-                    try {
-                        Long cuentaId = Long.valueOf(token.substring(7));
-                        CuentaDTO cuentaDto = new CuentaDTO();
-                        cuentaDto.setId(cuentaId);
-                        dto.setCuenta(cuentaDto);
-                    } catch (Exception e) {
-                        // ignore parse errors
-                    }
-                }
-                if (token.startsWith("categoria:")) {
-                    try {
-                        Long categoriaId = Long.valueOf(token.substring(10));
-                        CategoriaDTO categoriaDto = new CategoriaDTO();
-                        categoriaDto.setId(categoriaId);
-                        dto.setCategoria(categoriaDto);
-                    } catch (Exception e) {
-                        // ignore parse errors
-                    }
-                }
+            Long cuentaId = WhatsappComandoParser.idEtiquetado(messageText, "cuenta:");
+            if (cuentaId != null) {
+                CuentaDTO cuentaDto = new CuentaDTO();
+                cuentaDto.setId(cuentaId);
+                dto.setCuenta(cuentaDto);
+            }
+            Long categoriaId = WhatsappComandoParser.idEtiquetado(messageText, "categoria:");
+            if (categoriaId != null) {
+                CategoriaDTO categoriaDto = new CategoriaDTO();
+                categoriaDto.setId(categoriaId);
+                dto.setCategoria(categoriaDto);
             }
 
             return movimientoService.save(dto);
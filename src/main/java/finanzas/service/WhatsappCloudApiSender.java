@@ -0,0 +1,75 @@
+package finanzas.service;
+
+import finanzas.config.ApplicationProperties;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+/**
+ * {@link WhatsappSender} de la Cloud API de WhatsApp (Meta): un {@code POST} con un mensaje de texto al endpoint de
+ * mensajes del número emisor configurado en {@code application.whatsapp.envio}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.whatsapp.envio", name = "url")
+public class WhatsappCloudApiSender implements WhatsappSender {
+
+    private final RestClient restClient;
+
+    private final String url;
+
+    private final String token;
+
+    @Autowired
+    public WhatsappCloudApiSender(RestClient.Builder restClientBuilder, ApplicationProperties applicationProperties) {
+        this(
+            restClientBuilder.requestFactory(requestFactory(applicationProperties.getWhatsapp().getEnvio())).build(),
+            applicationProperties.getWhatsapp().getEnvio()
+        );
+    }
+
+    WhatsappCloudApiSender(RestClient restClient, ApplicationProperties.Whatsapp.Envio envio) {
+        this.restClient = restClient;
+        this.url = envio.getUrl();
+        this.token = envio.getToken();
+    }
+
+    private static SimpleClientHttpRequestFactory requestFactory(ApplicationProperties.Whatsapp.Envio envio) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(envio.getTimeout());
+        requestFactory.setReadTimeout(envio.getTimeout());
+        return requestFactory;
+    }
+
+    @Override
+    public void enviar(String numeroTelefonico, String texto) {
+        restClient
+            .post()
+            .uri(url)
+            .headers(headers -> {
+                if (token != null) {
+                    headers.setBearerAuth(token);
+                }
+            })
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(
+                Map.of(
+                    "messaging_product",
+                    "whatsapp",
+                    "recipient_type",
+                    "individual",
+                    "to",
+                    numeroTelefonico,
+                    "type",
+                    "text",
+                    "text",
+                    Map.of("body", texto)
+                )
+            )
+            .retrieve()
+            .toBodilessEntity();
+    }
+}
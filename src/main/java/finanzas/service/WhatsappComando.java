@@ -0,0 +1,136 @@
+package finanzas.service;
+
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.math.BigDecimal;
+
+/**
+ * Resultado de {@link WhatsappComandoParser}: un movimiento escrito en un mensaje de WhatsApp.
+ * <p>
+ * Guarda el texto analizado y las posiciones de cada parte en lugar de copiarlas, así que analizar no crea objetos;
+ * los nombres y el importe se construyen al pedirlos. Se puede reutilizar para analizar otro mensaje, lo que invalida
+ * lo leído antes. No es seguro entre hilos.
+ */
+final class WhatsappComando {
+
+    /**
+     * Motivo por el que un texto no es un comando.
+     */
+    enum Error {
+        /** Faltan partes: el tipo, el importe, la categoría o la cuenta. */
+        FORMATO,
+        /** La primera palabra no es {@code gasto} ni {@code ingreso}. */
+        TIPO,
+        /** El importe no es un número con hasta dos decimales. */
+        MONTO,
+        /** El importe es cero. */
+        MONTO_NO_POSITIVO,
+    }
+
+    private String texto;
+
+    private Error error;
+
+    private TipoMovimiento tipo;
+
+    private long montoSinEscala;
+
+    private int montoEscala;
+
+    private int categoriaInicio;
+
+    private int categoriaFin;
+
+    private int cuentaInicio;
+
+    private int cuentaFin;
+
+    private int descripcionInicio;
+
+    private int descripcionFin;
+
+    void reiniciar(String texto) {
+        this.texto = texto;
+        this.error = null;
+        this.tipo = null;
+        this.montoSinEscala = 0;
+        this.montoEscala = 0;
+        this.categoriaInicio = this.categoriaFin = -1;
+        this.cuentaInicio = this.cuentaFin = -1;
+        this.descripcionInicio = this.descripcionFin = -1;
+    }
+
+    void rechazar(Error error) {
+        this.error = error;
+    }
+
+    void setTipo(TipoMovimiento tipo) {
+        this.tipo = tipo;
+    }
+
+    void setMonto(long sinEscala, int escala) {
+        this.montoSinEscala = sinEscala;
+        this.montoEscala = escala;
+    }
+
+    void setCategoria(int inicio, int fin) {
+        this.categoriaInicio = inicio;
+        this.categoriaFin = fin;
+    }
+
+    void setCuenta(int inicio, int fin) {
+        this.cuentaInicio = inicio;
+        this.cuentaFin = fin;
+    }
+
+    void setDescripcion(int inicio, int fin) {
+        this.descripcionInicio = inicio;
+        this.descripcionFin = fin;
+    }
+
+    boolean valido() {
+        return error == null;
+    }
+
+    /**
+     * @return the reason the text was rejected, {@code null} if it is valid.
+     */
+    Error error() {
+        return error;
+    }
+
+    TipoMovimiento tipo() {
+        return tipo;
+    }
+
+    /**
+     * Importe con la escala con la que se escribió: {@code 10}, {@code 10.5} o {@code 10.50}.
+     */
+    BigDecimal monto() {
+        return BigDecimal.valueOf(montoSinEscala, montoEscala);
+    }
+
+    /**
+     * @return the category name, {@code null} if only the type and amount were parsed.
+     */
+    String categoria() {
+        return parte(categoriaInicio, categoriaFin);
+    }
+
+    /**
+     * @return the account name, {@code null} if the message does not name one.
+     */
+    String cuenta() {
+        return parte(cuentaInicio, cuentaFin);
+    }
+
+    /**
+     * @return the free text after the names, {@code null} if there is none.
+     */
+    String descripcion() {
+        return parte(descripcionInicio, descripcionFin);
+    }
+
+    private String parte(int inicio, int fin) {
+        return inicio < 0 ? null : texto.substring(inicio, fin);
+    }
+}
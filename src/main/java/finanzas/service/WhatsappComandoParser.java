@@ -0,0 +1,306 @@
+package finanzas.service;
+
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analiza los mensajes de WhatsApp con los que se registra un movimiento:
+ *
+ * <pre>
+ * gasto|ingreso &lt;monto&gt; &lt;categoria&gt; [en &lt;cuenta&gt;] [descripcion...]
+ * </pre>
+ *
+ * <ul>
+ *     <li>Las palabras clave no distinguen mayúsculas y los nombres se devuelven tal como se escribieron.</li>
+ *     <li>El importe admite {@code .} o {@code ,} como separador decimal, hasta dos decimales y un {@code $} delante.</li>
+ *     <li>Un nombre de varias palabras va entre comillas (rectas o tipográficas): {@code gasto 12 "comida rapida"}.</li>
+ *     <li>Tras {@code en}, una cuenta sin comillas ocupa el resto del mensaje; con comillas, lo que sigue es la
+ *     descripción.</li>
+ *     <li>Con {@code cuentaPosicional}, el formato de {@code /api/webhook/whatsapp}, la palabra que sigue a la categoría
+ *     es la cuenta si no se usa {@code en}, y es obligatoria.</li>
+ * </ul>
+ * <p>
+ * Un mensaje puede traer varios movimientos, uno por línea o separados por {@code ;} (ver {@link #parsearTodos}). El bot
+ * solo lee el tipo y el monto, con sus formas cortas (ver {@link #parsearTipoYMonto}).
+ * <p>
+ * Recorre el texto una sola vez, sin expresiones regulares ni copias: el resultado se escribe en un
+ * {@link WhatsappComando} que el llamador puede reutilizar. Es código puro y seguro entre hilos.
+ */
+final class WhatsappComandoParser {
+
+    private static final String GASTO = "gasto";
+
+    private static final String INGRESO = "ingreso";
+
+    private static final String EN = "en";
+
+    /** Dígitos enteros admitidos: con dos decimales el importe sin escala sigue cabiendo en un {@code long}. */
+    private static final int MAX_DIGITOS_ENTEROS = 15;
+
+    private static final int MAX_DIGITOS_ID = 18;
+
+    private WhatsappComandoParser() {}
+
+    /**
+     * Analiza un mensaje completo.
+     *
+     * @return {@code comando}, reset and filled in.
+     */
+    static WhatsappComando parsear(String texto, boolean cuentaPosicional, WhatsappComando comando) {
+        return parsear(texto, 0, texto.length(), cuentaPosicional, comando);
+    }
+
+    /**
+     * Analiza el fragmento {@code [desde, hasta)} de un mensaje.
+     *
+     * @return {@code comando}, reset and filled in.
+     */
+    static WhatsappComando parsear(String texto, int desde, int hasta, boolean cuentaPosicional, WhatsappComando comando) {
+        comando.reiniciar(texto);
+
+        int fin = tipoYMonto(texto, desde, hasta, false, comando);
+        if (fin < 0) {
+            return comando;
+        }
+
+        int inicio = saltarEspacios(texto, fin, hasta);
+        fin = finToken(texto, inicio, hasta);
+        if (!nombre(texto, inicio, fin)) {
+            comando.rechazar(WhatsappComando.Error.FORMATO);
+            return comando;
+        }
+        comando.setCategoria(inicioNombre(texto, inicio), finNombre(texto, inicio, fin));
+
+        inicio = saltarEspacios(texto, fin, hasta);
+        fin = finToken(texto, inicio, hasta);
+        if (inicio < fin && !esComilla(texto.charAt(inicio)) && esPalabra(texto, inicio, fin, EN)) {
+            inicio = saltarEspacios(texto, fin, hasta);
+            fin = inicio < hasta && esComilla(texto.charAt(inicio)) ? finToken(texto, inicio, hasta) : recortar(texto, inicio, hasta);
+            if (!nombre(texto, inicio, fin)) {
+                comando.rechazar(WhatsappComando.Error.FORMATO);
+                return comando;
+            }
+            comando.setCuenta(inicioNombre(texto, inicio), finNombre(texto, inicio, fin));
+            inicio = saltarEspacios(texto, fin, hasta);
+        } else if (cuentaPosicional) {
+            if (!nombre(texto, inicio, fin)) {
+                comando.rechazar(WhatsappComando.Error.FORMATO);
+                return comando;
+            }
+            comando.setCuenta(inicioNombre(texto, inicio), finNombre(texto, inicio, fin));
+            inicio = saltarEspacios(texto, fin, hasta);
+        }
+
+        if (inicio < hasta) {
+            fin = recortar(texto, inicio, hasta);
+            if (esComilla(texto.charAt(inicio)) && finToken(texto, inicio, hasta) == fin && nombre(texto, inicio, fin)) {
+                comando.setDescripcion(inicioNombre(texto, inicio), finNombre(texto, inicio, fin));
+            } else {
+                comando.setDescripcion(inicio, fin);
+            }
+        }
+        return comando;
+    }
+
+    /**
+     * Analiza solo el tipo y el monto, con las formas cortas que el bot de {@link WhatsappBotService} acepta desde
+     * siempre: cualquier palabra que empiece por {@code g} es un gasto y por {@code i} un ingreso ({@code G 12},
+     * {@code ing 1500}), y no hace falta categoría. Lo que sigue al monto no se analiza.
+     *
+     * @return {@code comando}, reset and filled in with the type and amount only.
+     */
+    static WhatsappComando parsearTipoYMonto(String texto, WhatsappComando comando) {
+        comando.reiniciar(texto);
+        tipoYMonto(texto, 0, texto.length(), true, comando);
+        return comando;
+    }
+
+    /**
+     * Analiza un mensaje con uno o varios movimientos, separados por saltos de línea o por {@code ;} fuera de comillas.
+     * Los fragmentos en blanco se ignoran.
+     *
+     * @return one command per fragment, in order; empty if the text is blank.
+     */
+    static List<WhatsappComando> parsearTodos(String texto, boolean cuentaPosicional) {
+        List<WhatsappComando> comandos = new ArrayList<>(1);
+        int desde = 0;
+        boolean comillas = false;
+        for (int i = 0; i <= texto.length(); i++) {
+            char c = i < texto.length() ? texto.charAt(i) : '\n';
+            if (c == '\n' || (c == ';' && !comillas)) {
+                if (saltarEspacios(texto, desde, i) < i) {
+                    comandos.add(parsear(texto, desde, i, cuentaPosicional, new WhatsappComando()));
+                }
+                desde = i + 1;
+                comillas = false;
+            } else if (esComilla(c)) {
+                comillas = !comillas;
+            }
+        }
+        return comandos;
+    }
+
+    /**
+     * Busca un id escrito como {@code <etiqueta><digitos>} en una palabra del texto, por ejemplo {@code cuenta:12}.
+     *
+     * @return the first valid id, {@code null} if there is none.
+     */
+    static Long idEtiquetado(String texto, String etiqueta) {
+        int desde = 0;
+        while ((desde = texto.indexOf(etiqueta, desde)) >= 0) {
+            int inicio = desde + etiqueta.length();
+            int fin = inicio;
+            long id = 0;
+            while (fin < texto.length() && fin - inicio < MAX_DIGITOS_ID && esDigito(texto.charAt(fin))) {
+                id = id * 10 + (texto.charAt(fin) - '0');
+                fin++;
+            }
+            boolean alInicio = desde == 0 || esEspacio(texto.charAt(desde - 1));
+            if (alInicio && fin > inicio && (fin == texto.length() || esEspacio(texto.charAt(fin)))) {
+                return id;
+            }
+            desde = inicio;
+        }
+        return null;
+    }
+
+    /**
+     * Lee las dos primeras palabras de {@code [desde, hasta)}: el tipo y el monto.
+     *
+     * @param abreviado si el tipo se decide por la primera letra de la palabra.
+     * @return the end of the amount, or {@code -1} once {@code comando} has been rejected.
+     */
+    private static int tipoYMonto(String texto, int desde, int hasta, boolean abreviado, WhatsappComando comando) {
+        int inicio = saltarEspacios(texto, desde, hasta);
+        int fin = finToken(texto, inicio, hasta);
+        if (inicio == fin) {
+            comando.rechazar(WhatsappComando.Error.FORMATO);
+            return -1;
+        }
+        char inicial = Character.toLowerCase(texto.charAt(inicio));
+        if (abreviado ? inicial == 'g' : esPalabra(texto, inicio, fin, GASTO)) {
+            comando.setTipo(TipoMovimiento.GASTO);
+        } else if (abreviado ? inicial == 'i' : esPalabra(texto, inicio, fin, INGRESO)) {
+            comando.setTipo(TipoMovimiento.INGRESO);
+        } else {
+            comando.rechazar(WhatsappComando.Error.TIPO);
+            return -1;
+        }
+
+        inicio = saltarEspacios(texto, fin, hasta);
+        fin = finToken(texto, inicio, hasta);
+        if (inicio == fin) {
+            comando.rechazar(WhatsappComando.Error.FORMATO);
+            return -1;
+        }
+        return parsearMonto(texto, inicio, fin, comando) ? fin : -1;
+    }
+
+    private static boolean parsearMonto(String texto, int inicio, int fin, WhatsappComando comando) {
+        int i = inicio;
+        if (texto.charAt(i) == '$') {
+            i++;
+        }
+        long sinEscala = 0;
+        int enteros = 0;
+        while (i < fin && esDigito(texto.charAt(i))) {
+            sinEscala = sinEscala * 10 + (texto.charAt(i) - '0');
+            enteros++;
+            i++;
+        }
+        boolean separador = i < fin && (texto.charAt(i) == '.' || texto.charAt(i) == ',');
+        int escala = 0;
+        if (separador) {
+            i++;
+            while (i < fin && esDigito(texto.charAt(i))) {
+                sinEscala = sinEscala * 10 + (texto.charAt(i) - '0');
+                escala++;
+                i++;
+            }
+        }
+        if (i != fin || enteros == 0 || enteros > MAX_DIGITOS_ENTEROS || (separador && escala == 0) || escala > 2) {
+            comando.rechazar(WhatsappComando.Error.MONTO);
+            return false;
+        }
+        if (sinEscala == 0) {
+            comando.rechazar(WhatsappComando.Error.MONTO_NO_POSITIVO);
+            return false;
+        }
+        comando.setMonto(sinEscala, escala);
+        return true;
+    }
+
+    /**
+     * Fin de la palabra que empieza en {@code inicio}: el siguiente espacio o, si empieza por comillas, la comilla que
+     * la cierra (incluida). Sin comilla de cierre llega hasta {@code hasta}.
+     */
+    private static int finToken(String texto, int inicio, int hasta) {
+        if (inicio < hasta && esComilla(texto.charAt(inicio))) {
+            for (int i = inicio + 1; i < hasta; i++) {
+                if (esComilla(texto.charAt(i))) {
+                    return i + 1;
+                }
+            }
+            return hasta;
+        }
+        int i = inicio;
+        while (i < hasta && !esEspacio(texto.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Si la palabra {@code [inicio, fin)} tiene contenido quitando las comillas.
+     */
+    private static boolean nombre(String texto, int inicio, int fin) {
+        return inicio < fin && inicioNombre(texto, inicio) < finNombre(texto, inicio, fin);
+    }
+
+    private static int inicioNombre(String texto, int inicio) {
+        return esComilla(texto.charAt(inicio)) ? inicio + 1 : inicio;
+    }
+
+    private static int finNombre(String texto, int inicio, int fin) {
+        if (!esComilla(texto.charAt(inicio))) {
+            return fin;
+        }
+        return fin - 1 > inicio && esComilla(texto.charAt(fin - 1)) ? fin - 1 : fin;
+    }
+
+    private static int saltarEspacios(String texto, int desde, int hasta) {
+        int i = desde;
+        while (i < hasta && esEspacio(texto.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Fin de {@code [inicio, hasta)} sin los espacios finales.
+     */
+    private static int recortar(String texto, int inicio, int hasta) {
+        int fin = hasta;
+        while (fin > inicio && esEspacio(texto.charAt(fin - 1))) {
+            fin--;
+        }
+        return fin;
+    }
+
+    private static boolean esPalabra(String texto, int inicio, int fin, String palabra) {
+        return fin - inicio == palabra.length() && texto.regionMatches(true, inicio, palabra, 0, palabra.length());
+    }
+
+    private static boolean esEspacio(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c);
+    }
+
+    private static boolean esComilla(char c) {
+        return c == '"' || c == '“' || c == '”';
+    }
+
+    private static boolean esDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,172 @@
+package finanzas.service;
+
+import finanzas.config.ApplicationProperties;
+import finanzas.repository.projection.ClaveMensaje;
+import finanzas.service.event.WhatsappMessageReceivedEvent;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Cola acotada que procesa los mensajes de WhatsApp entrantes en cuanto se guardan.
+ * <p>
+ * Cada mensaje recibido se encola tras el commit y lo procesa uno de los {@code workers} en su propia transacción.
+ * Si la cola está llena el mensaje se descarta de memoria pero sigue {@code RECIBIDO} en la base de datos: el barrido
+ * periódico lo recoge más tarde, en lotes de como mucho {@code batch-size} y solo si hay hueco en la cola. Así un pico
+ * de mensajes nunca bloquea el webhook ni acumula trabajo sin límite en memoria.
+ * <p>
+ * El barrido reclama los mensajes con {@code FOR UPDATE SKIP LOCKED} y los arrienda a este nodo, por lo que varios
+ * nodos pueden vaciar el backlog en paralelo. Mientras esperan en cola sus arrendamientos se renuevan en cada barrido;
+ * si el nodo cae, vencen y cualquier otro nodo los recupera.
+ * <p>
+ * Un fallo inesperado al procesar se anota con {@link WhatsappMessageProcessorService#registrarFallo} y el mensaje se
+ * guarda en una {@link DelayQueue} hasta su {@code proximoIntento}; cada {@code reintento-poll} se encolan solo los que
+ * ya vencieron, sin consultar la base de datos. Los reintentos de un nodo que se reinicia o cae los recoge el barrido.
+ */
+@Service
+public class WhatsappIngestQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WhatsappIngestQueue.class);
+
+    private final WhatsappMessageProcessorService processorService;
+
+    private final int batchSize;
+
+    private final ThreadPoolExecutor executor;
+
+    /** Mensajes encolados o en proceso en este nodo; evita encolar dos veces el mismo mensaje. */
+    private final Set<ClaveMensaje> enCurso = ConcurrentHashMap.newKeySet();
+
+    /** Reintentos programados en este nodo, ordenados por vencimiento. */
+    private final DelayQueue<Reintento> reintentos = new DelayQueue<>();
+
+    public WhatsappIngestQueue(WhatsappMessageProcessorService processorService, ApplicationProperties applicationProperties) {
+        this.processorService = processorService;
+        ApplicationProperties.Whatsapp.Ingest ingest = applicationProperties.getWhatsapp().getIngest();
+        this.batchSize = ingest.getBatchSize();
+        this.executor = new ThreadPoolExecutor(
+            ingest.getWorkers(),
+            ingest.getWorkers(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(ingest.getQueueCapacity()),
+            new CustomizableThreadFactory("whatsapp-ingest-"),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageReceived(WhatsappMessageReceivedEvent event) {
+        submit(event.clave());
+    }
+
+    /**
+     * Encola un mensaje recién recibido para reclamarlo y procesarlo en segundo plano.
+     *
+     * @param clave the key of the message.
+     * @return {@code false} if the queue is full and the message was left for the sweep.
+     */
+    public boolean submit(ClaveMensaje clave) {
+        return enqueue(clave, () -> processorService.processMessage(clave));
+    }
+
+    private boolean enqueue(ClaveMensaje clave, Runnable task) {
+        if (!enCurso.add(clave)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> run(clave, task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            enCurso.remove(clave);
+            LOG.warn("WhatsApp ingest queue is full, message {} left for the next sweep", clave.id());
+            return false;
+        }
+    }
+
+    private void run(ClaveMensaje clave, Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            LOG.error("Unexpected error processing WhatsApp message {}", clave.id(), e);
+            registrarFallo(clave, e);
+        } finally {
+            enCurso.remove(clave);
+        }
+    }
+
+    private void registrarFallo(ClaveMensaje clave, RuntimeException error) {
+        try {
+            processorService
+                .registrarFallo(clave, error)
+                .ifPresent(proximoIntento -> reintentos.add(new Reintento(clave, proximoIntento.toInstant().toEpochMilli())));
+        } catch (RuntimeException e) {
+            // sin anotar el fallo el mensaje sigue pendiente o arrendado: lo recupera el barrido
+            LOG.error("Could not record the failure of WhatsApp message {}", clave.id(), e);
+        }
+    }
+
+    /**
+     * Encola los reintentos de este nodo cuyo {@code proximoIntento} ya llegó, mientras haya hueco en la cola. Si no
+     * cabe alguno, sigue en {@code REINTENTO} y lo recoge el barrido.
+     */
+    @Scheduled(fixedDelayString = "${application.whatsapp.ingest.reintento-poll:PT1S}")
+    public void reintentar() {
+        Reintento reintento;
+        while (executor.getQueue().remainingCapacity() > 0 && (reintento = reintentos.poll()) != null) {
+            submit(reintento.clave());
+        }
+    }
+
+    /**
+     * Barrido de respaldo: renueva los arrendamientos de lo que este nodo tiene en cola y reclama mensajes pendientes
+     * que no llegaron a encolarse (cola llena, otro nodo caído, reinicio...).
+     */
+    @Scheduled(fixedDelayString = "${application.whatsapp.ingest.sweep-delay:PT30S}")
+    public void sweep() {
+        processorService.renewLeases(List.copyOf(enCurso));
+        int hueco = Math.min(batchSize, executor.getQueue().remainingCapacity());
+        if (hueco == 0) {
+            return;
+        }
+        List<ClaveMensaje> reclamados = processorService.claimPending(hueco);
+        if (!reclamados.isEmpty()) {
+            LOG.debug("Sweep claimed {} pending WhatsApp messages", reclamados.size());
+            // si alguno no cabe, su arrendamiento vence y se recupera en otro barrido
+            reclamados.forEach(clave -> enqueue(clave, () -> processorService.processClaimed(clave)));
+        }
+    }
+
+    private record Reintento(ClaveMensaje clave, long venceMillis) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(venceMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), otro.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
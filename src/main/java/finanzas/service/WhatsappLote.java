@@ -0,0 +1,90 @@
+package finanzas.service;
+
+import finanzas.domain.WhatsappMessage;
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.util.List;
+
+/**
+ * Textos y límites comunes a los mensajes de WhatsApp con varios movimientos ({@link WhatsappComandoParser#parsearTodos}).
+ * <p>
+ * Un mensaje se registra entero o no se registra: si alguna línea tiene un error no se crea ningún movimiento y la
+ * respuesta indica qué líneas fallaron, así que el usuario puede corregirlas y reenviar el mensaje completo.
+ */
+final class WhatsappLote {
+
+    /** Longitud máxima de {@link WhatsappMessage#getRespuestaBot()}. */
+    private static final int MAX_RESPUESTA = 1000;
+
+    /** Longitud máxima de {@link WhatsappMessage#getErrorMensaje()}. */
+    private static final int MAX_ERROR = 500;
+
+    private WhatsappLote() {}
+
+    /**
+     * Comprueba que los movimientos de un mensaje caben en un lote JDBC ({@link MovimientoService#getTamanoLote()}), de
+     * modo que se guardan con una sola ida y vuelta.
+     *
+     * @return the error for a message with more than {@code max} movements, {@code null} otherwise.
+     */
+    static String validarTamano(List<WhatsappComando> comandos, int max) {
+        return comandos.size() > max ? "Un mensaje puede registrar como máximo " + max + " movimientos." : null;
+    }
+
+    /**
+     * Prefijo de un error de la línea {@code indice} (desde 0) de un mensaje de varias líneas.
+     */
+    static String linea(int indice, String error) {
+        return "Línea " + (indice + 1) + ": " + error;
+    }
+
+    /**
+     * Une los errores de las líneas de un mensaje, recortado a la longitud de {@code error_mensaje}.
+     */
+    static String errores(List<String> errores) {
+        return recortar("No se registró ningún movimiento.\n" + String.join("\n", errores), MAX_ERROR);
+    }
+
+    /**
+     * Respuesta para un mensaje con varios movimientos registrados: los totales y una línea por movimiento.
+     *
+     * @param prefijo texto al principio de la respuesta, incluido en su longitud máxima.
+     */
+    static String resumen(String prefijo, List<WhatsappComando> comandos) {
+        SumaMonetaria gastos = new SumaMonetaria();
+        SumaMonetaria ingresos = new SumaMonetaria();
+        StringBuilder lineas = new StringBuilder();
+        for (WhatsappComando comando : comandos) {
+            (comando.tipo() == TipoMovimiento.GASTO ? gastos : ingresos).sumar(comando.monto());
+            lineas.append("\n- ").append(comando.tipo()).append(" $").append(comando.monto()).append(' ').append(comando.categoria());
+        }
+        StringBuilder respuesta = new StringBuilder(prefijo).append(comandos.size()).append(" movimientos registrados (");
+        if (gastos.signum() != 0) {
+            respuesta.append("gastos $").append(gastos.valor());
+        }
+        if (ingresos.signum() != 0) {
+            respuesta.append(gastos.signum() != 0 ? ", " : "").append("ingresos $").append(ingresos.valor());
+        }
+        return recortar(respuesta.append("):").append(lineas).toString(), MAX_RESPUESTA);
+    }
+
+    /**
+     * Deja en {@code message} el tipo y el importe total de los movimientos si son todos del mismo tipo; los nombres y
+     * la descripción de cada uno quedan en sus movimientos.
+     */
+    static void resumirEn(WhatsappMessage message, List<WhatsappComando> comandos) {
+        TipoMovimiento tipo = comandos.get(0).tipo();
+        SumaMonetaria total = new SumaMonetaria();
+        for (WhatsappComando comando : comandos) {
+            if (comando.tipo() != tipo) {
+                return;
+            }
+            total.sumar(comando.monto());
+        }
+        message.setTipoMovimiento(tipo);
+        message.setMonto(total.valor());
+    }
+
+    private static String recortar(String texto, int max) {
+        return texto.length() <= max ? texto : texto.substring(0, max - 1) + "…";
+    }
+}
@@ -1,27 +1,30 @@
 package finanzas.service;
 
+import finanzas.config.ApplicationProperties;
 import finanzas.domain.*;
 import finanzas.domain.enumeration.EstadoProcesamiento;
-import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.domain.enumeration.OrigenMensaje;
 import finanzas.repository.CategoriaRepository;
 import finanzas.repository.CuentaRepository;
+import finanzas.repository.UserRepository;
 import finanzas.repository.WhatsappMessageRepository;
-import finanzas.service.dto.CategoriaDTO;
-import finanzas.service.dto.CuentaDTO;
-import finanzas.service.dto.MovimientoDTO;
-import finanzas.service.dto.UserDTO;
-import finanzas.service.mapper.CategoriaMapper;
-import finanzas.service.mapper.CuentaMapper;
-import finanzas.service.mapper.UserMapper;
-import java.math.BigDecimal;
+import finanzas.repository.projection.ClaveMensaje;
+import finanzas.repository.projection.NombreId;
+import finanzas.service.event.WhatsappMessageProcessedEvent;
+import finanzas.service.event.WhatsappMessageReceivedEvent;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,141 +34,415 @@ public class WhatsappMessageProcessorService {
 
     private final Logger log = LoggerFactory.getLogger(WhatsappMessageProcessorService.class);
 
-    // Regex para parsear: "gasto|ingreso <monto> <categoria> [en <cuenta>] [descripcion...]"
-    private static final Pattern MOVIMIENTO_PATTERN = Pattern.compile(
-        "^(gasto|ingreso)\\s+(\\d+(\\.\\d{1,2})?)\\s+([\\w\\s]+?)(?:\\s+en\\s+([\\w\\s]+))?(?:\\s+(.+))?$",
-        Pattern.CASE_INSENSITIVE
-    );
+    private static final String FORMATO_INVALIDO =
+        "El formato del mensaje no es válido. Usa: 'gasto/ingreso <monto> <categoría> [en <cuenta>] [descripción]'";
+
+    private static final String DESCRIPCION_POR_DEFECTO = "Registrado desde WhatsApp";
+
+    private static final String NO_PROCESADO = "No pudimos procesar tu mensaje. Por favor, inténtalo de nuevo más tarde.";
+
+    /** Longitud máxima de {@link WhatsappMessage#getErrorMensaje()}. */
+    private static final int MAX_ERROR = 500;
 
     private final WhatsappMessageRepository whatsappMessageRepository;
     private final MovimientoService movimientoService;
-    private final finanzas.repository.MovimientoRepository movimientoRepository;
     private final CategoriaRepository categoriaRepository;
     private final CuentaRepository cuentaRepository;
-    private final UserMapper userMapper;
-    private final CategoriaMapper categoriaMapper;
-    private final CuentaMapper cuentaMapper;
+    private final DiccionarioNombresService diccionarioNombresService;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WhatsappRecentMessageIds recentMessageIds;
+    private final WhatsappMessageService whatsappMessageService;
+    private final String leaseOwner;
+    private final Duration leaseDuration;
+    private final int maxIntentos;
+    private final Duration reintentoBase;
+    private final Duration reintentoMaximo;
 
     public WhatsappMessageProcessorService(
         WhatsappMessageRepository whatsappMessageRepository,
         MovimientoService movimientoService,
-        finanzas.repository.MovimientoRepository movimientoRepository,
         CategoriaRepository categoriaRepository,
         CuentaRepository cuentaRepository,
-        UserMapper userMapper,
-        CategoriaMapper categoriaMapper,
-        CuentaMapper cuentaMapper
+        DiccionarioNombresService diccionarioNombresService,
+        UserRepository userRepository,
+        ApplicationEventPublisher eventPublisher,
+        WhatsappRecentMessageIds recentMessageIds,
+        WhatsappMessageService whatsappMessageService,
+        ApplicationProperties applicationProperties
     ) {
         this.whatsappMessageRepository = whatsappMessageRepository;
         this.movimientoService = movimientoService;
-        this.movimientoRepository = movimientoRepository;
         this.categoriaRepository = categoriaRepository;
         this.cuentaRepository = cuentaRepository;
-        this.userMapper = userMapper;
-        this.categoriaMapper = categoriaMapper;
-        this.cuentaMapper = cuentaMapper;
+        this.diccionarioNombresService = diccionarioNombresService;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.recentMessageIds = recentMessageIds;
+        this.whatsappMessageService = whatsappMessageService;
+        this.leaseOwner = nodeName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+        ApplicationProperties.Whatsapp.Ingest ingest = applicationProperties.getWhatsapp().getIngest();
+        this.leaseDuration = ingest.getLease();
+        this.maxIntentos = ingest.getMaxIntentos();
+        this.reintentoBase = ingest.getReintentoBase();
+        this.reintentoMaximo = ingest.getReintentoMaximo();
     }
 
-    @Scheduled(fixedRate = 60000)
-    public void processPendingMessages() {
-        log.debug("Checking for pending WhatsApp messages to process...");
-        List<WhatsappMessage> pendingMessages = whatsappMessageRepository.findByEstado(EstadoProcesamiento.RECIBIDO);
-        if (pendingMessages.isEmpty()) {
-            return;
+    private static String nodeName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
         }
-        log.info("Found {} pending WhatsApp messages to process.", pendingMessages.size());
-        for (WhatsappMessage message : pendingMessages) {
-            processSingleMessage(message);
+    }
+
+    /**
+     * Guarda un mensaje entrante en estado {@code RECIBIDO} y publica {@link WhatsappMessageReceivedEvent} para que
+     * {@link WhatsappIngestQueue} lo procese en cuanto se confirme la transacción.
+     *
+     * @param usuario the sender.
+     * @param numeroTelefonico the normalized phone number of the sender.
+     * @param texto the raw message text.
+     * @return the persisted message.
+     */
+    public WhatsappMessage recibir(User usuario, String numeroTelefonico, String texto) {
+        return recibir(usuario.getId(), numeroTelefonico, texto, null).orElseThrow();
+    }
+
+    /**
+     * Como {@link #recibir(User, String, String)}, pero ignora las entregas repetidas de un mismo
+     * {@code providerMessageId}. Dos entregas simultáneas del mismo id las resuelve el índice único: la segunda falla
+     * con {@link org.springframework.dao.DataIntegrityViolationException} al confirmar.
+     *
+     * @param usuarioId the id of the sender.
+     * @param numeroTelefonico the normalized phone number of the sender.
+     * @param texto the raw message text.
+     * @param providerMessageId the provider id of the message, may be {@code null}.
+     * @return the persisted message, empty if the provider id had already been received.
+     */
+    public Optional<WhatsappMessage> recibir(Long usuarioId, String numeroTelefonico, String texto, String providerMessageId) {
+        if (recentMessageIds.buscar(providerMessageId).isPresent()) {
+            log.debug("WhatsApp message {} already received, ignoring redelivery", providerMessageId);
+            return Optional.empty();
+        }
+        WhatsappMessage message = new WhatsappMessage();
+        message.setMensajeOriginal(texto);
+        message.setNumeroTelefonico(numeroTelefonico);
+        message.setFechaRecepcion(ZonedDateTime.now());
+        message.setUsuario(userRepository.getReferenceById(usuarioId));
+        message.setEstado(EstadoProcesamiento.RECIBIDO);
+        message.setProviderMessageId(providerMessageId);
+        message = whatsappMessageRepository.save(message);
+        recentMessageIds.recordar(providerMessageId, message.getId());
+        eventPublisher.publishEvent(new WhatsappMessageReceivedEvent(new ClaveMensaje(message.getId(), message.getFechaRecepcion())));
+        return Optional.of(message);
+    }
+
+    /**
+     * Identificador de este nodo en los arrendamientos de mensajes.
+     */
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    /**
+     * Reclama hasta {@code limit} mensajes pendientes o con el arrendamiento vencido, los más antiguos primero, y después
+     * reintentos vencidos hasta completar el límite, y los arrienda a este nodo. La transacción solo bloquea las filas
+     * el tiempo de marcarlas; el procesamiento se hace después, mensaje a mensaje, con
+     * {@link #processClaimed(ClaveMensaje)}.
+     *
+     * @param limit maximum number of messages to claim.
+     * @return the keys of the claimed messages.
+     */
+    public List<ClaveMensaje> claimPending(int limit) {
+        ZonedDateTime ahora = ZonedDateTime.now();
+        List<ClaveMensaje> claves = new ArrayList<>(whatsappMessageRepository.lockReclamables(ahora, limit));
+        if (claves.size() < limit) {
+            claves.addAll(whatsappMessageRepository.lockReintentables(ahora, limit - claves.size()));
+        }
+        if (!claves.isEmpty()) {
+            whatsappMessageRepository.arrendar(claves, leaseOwner, ahora.plus(leaseDuration));
+        }
+        return claves;
+    }
+
+    /**
+     * Reclama un mensaje concreto para este nodo.
+     *
+     * @param clave the key of the message.
+     * @return {@code true} if the message was pending (or its lease or retry delay had expired) and is now leased to
+     * this node.
+     */
+    public boolean claim(ClaveMensaje clave) {
+        ZonedDateTime ahora = ZonedDateTime.now();
+        if (whatsappMessageRepository.lockReclamable(clave, ahora).isEmpty()) {
+            return false;
+        }
+        whatsappMessageRepository.arrendar(List.of(clave), leaseOwner, ahora.plus(leaseDuration));
+        return true;
+    }
+
+    /**
+     * Prolonga el arrendamiento de mensajes reclamados por este nodo que aún esperan en cola.
+     *
+     * @param claves the keys of the messages still held by this node.
+     * @return number of leases renewed.
+     */
+    public int renewLeases(Collection<ClaveMensaje> claves) {
+        if (claves.isEmpty()) {
+            return 0;
+        }
+        return whatsappMessageRepository.renovarArrendamientos(claves, leaseOwner, ZonedDateTime.now().plus(leaseDuration));
+    }
+
+    /**
+     * Procesa un mensaje previamente reclamado por este nodo. Si el arrendamiento venció y otro nodo lo reclamó, no se
+     * hace nada; en otro caso la fila queda bloqueada hasta el final de la transacción.
+     *
+     * @param clave the key of the message.
+     * @return {@code true} if this call processed the message.
+     */
+    public boolean processClaimed(ClaveMensaje clave) {
+        if (whatsappMessageRepository.confirmarArrendamiento(clave, leaseOwner, ZonedDateTime.now().plus(leaseDuration)) == 0) {
+            log.debug("WhatsApp message {} is no longer leased to {}, skipping", clave.id(), leaseOwner);
+            return false;
+        }
+        Optional<WhatsappMessage> message = whatsappMessageRepository.findByClave(clave);
+        message.ifPresent(this::processSingleMessage);
+        return message.isPresent();
+    }
+
+    /**
+     * Reclama y procesa un mensaje en la misma transacción. Si el mismo id llega dos veces (evento y barrido), o lo
+     * tiene otro nodo, solo se procesa una vez. Un mensaje que este nodo ya tenía arrendado también se procesa.
+     *
+     * @param clave the key of the message.
+     * @return {@code true} if this call processed the message.
+     */
+    public boolean processMessage(ClaveMensaje clave) {
+        claim(clave);
+        return processClaimed(clave);
+    }
+
+    /**
+     * Anota un fallo inesperado al procesar un mensaje, en una transacción nueva tras el rollback de la que falló. El
+     * mensaje queda en {@code REINTENTO} con una espera exponencial ({@link #espera}) o, si agotó los intentos, en
+     * {@code DESCARTADO} y se avisa al usuario.
+     *
+     * @param clave the key of the message.
+     * @param error the exception that aborted the processing.
+     * @return when the message should be retried, empty if it was discarded or is no longer this node's to retry.
+     */
+    public Optional<ZonedDateTime> registrarFallo(ClaveMensaje clave, RuntimeException error) {
+        ZonedDateTime ahora = ZonedDateTime.now();
+        if (whatsappMessageRepository.lockFallido(clave, leaseOwner, ahora).isEmpty()) {
+            return Optional.empty();
+        }
+        Long id = clave.id();
+        WhatsappMessage message = whatsappMessageRepository.findByClave(clave).orElseThrow();
+        int intentos = message.getIntentos() + 1;
+        message.setIntentos(intentos);
+        message.setErrorMensaje(detalle(error));
+        message.setLeaseOwner(null);
+        message.setLeaseExpira(null);
+        if (intentos >= maxIntentos) {
+            log.warn("WhatsApp message {} discarded after {} failed attempts", id, intentos);
+            message.setEstado(EstadoProcesamiento.DESCARTADO);
+            message.setProximoIntento(null);
+            message.setRespuestaBot(NO_PROCESADO);
+            eventPublisher.publishEvent(new WhatsappMessageProcessedEvent(id, message.getNumeroTelefonico(), NO_PROCESADO));
+            return Optional.empty();
+        }
+        ZonedDateTime proximoIntento = ahora.plus(espera(intentos, reintentoBase, reintentoMaximo));
+        log.info("WhatsApp message {} failed (attempt {}), retrying at {}", id, intentos, proximoIntento);
+        message.setEstado(EstadoProcesamiento.REINTENTO);
+        message.setProximoIntento(proximoIntento);
+        return Optional.of(proximoIntento);
+    }
+
+    /**
+     * Espera antes del reintento {@code intento}: {@code base} duplicada en cada fallo hasta {@code maximo}, con la mitad
+     * aleatoria ("equal jitter") para que los mensajes que fallaron juntos, por ejemplo durante una caída de la base de
+     * datos, no se reintenten todos a la vez.
+     *
+     * @param intento the number of failed attempts so far, from 1.
+     */
+    static Duration espera(int intento, Duration base, Duration maximo) {
+        long maximoMs = maximo.toMillis();
+        long tope = base.toMillis();
+        for (int i = 1; i < intento && tope < maximoMs; i++) {
+            tope *= 2;
         }
+        tope = Math.min(tope, maximoMs);
+        long mitad = tope / 2;
+        return Duration.ofMillis(tope - mitad + ThreadLocalRandom.current().nextLong(mitad + 1));
     }
 
+    /**
+     * Vuelve a procesar hasta {@code limite} mensajes descartados, los más antiguos primero: los devuelve a
+     * {@code RECIBIDO} con los intentos a cero y los encola tras el commit con {@link WhatsappMessageReceivedEvent}.
+     *
+     * @param limite maximum number of messages to replay.
+     * @return number of messages replayed.
+     */
+    public int reprocesarDescartados(int limite) {
+        List<ClaveMensaje> claves = whatsappMessageRepository.lockDescartados(limite);
+        if (claves.isEmpty()) {
+            return 0;
+        }
+        int reactivados = whatsappMessageRepository.reactivar(claves);
+        claves.forEach(clave -> eventPublisher.publishEvent(new WhatsappMessageReceivedEvent(clave)));
+        log.info("Replaying {} discarded WhatsApp messages", reactivados);
+        return reactivados;
+    }
+
+    private static String detalle(RuntimeException error) {
+        String detalle = error.getClass().getSimpleName() + (error.getMessage() != null ? ": " + error.getMessage() : "");
+        return detalle.length() <= MAX_ERROR ? detalle : detalle.substring(0, MAX_ERROR - 1) + "…";
+    }
+
+    /**
+     * Procesa un mensaje según su origen, lo deja en estado final y publica {@link WhatsappMessageProcessedEvent}
+     * para que la respuesta del bot se envíe tras el commit. Los errores del mensaje (formato, nombres desconocidos...)
+     * lo dejan en {@code ERROR}; un fallo inesperado se propaga, la transacción se deshace y
+     * {@link WhatsappIngestQueue} lo anota con {@link #registrarFallo}.
+     *
+     * @param message the message to process.
+     */
     public void processSingleMessage(WhatsappMessage message) {
         message.setEstado(EstadoProcesamiento.PROCESANDO);
         whatsappMessageRepository.save(message);
+
+        if (message.getOrigen() == OrigenMensaje.API) {
+            log.info("Processing API message ID: {} from {}", message.getId(), message.getNumeroTelefonico());
+            whatsappMessageService.procesarMensajeRegistrado(message);
+        } else {
+            processWebhookMessage(message);
+        }
+
+        message.setLeaseOwner(null);
+        message.setLeaseExpira(null);
+        message.setProximoIntento(null);
+        whatsappMessageRepository.save(message);
+        eventPublisher.publishEvent(
+            new WhatsappMessageProcessedEvent(message.getId(), message.getNumeroTelefonico(), message.getRespuestaBot())
+        );
+    }
+
+    /**
+     * Procesa un mensaje de {@code /api/whatsapp-webhook} con uno o varios movimientos, uno por línea o separados por
+     * {@code ;}. Todos los nombres se resuelven con el diccionario del usuario y los movimientos se guardan en un solo
+     * lote; si alguna línea falla no se guarda ninguno.
+     */
+    private void processWebhookMessage(WhatsappMessage message) {
         log.info("Processing message ID: {} for user {}", message.getId(), message.getUsuario().getLogin());
 
-        try {
-            Matcher matcher = MOVIMIENTO_PATTERN.matcher(message.getMensajeOriginal().trim());
+        // "gasto|ingreso <monto> <categoria> [en <cuenta>] [descripcion...]", uno por línea o separados por ";"
+        List<WhatsappComando> comandos = WhatsappComandoParser.parsearTodos(message.getMensajeOriginal(), false);
+        if (comandos.isEmpty()) {
+            rechazar(message, FORMATO_INVALIDO);
+            return;
+        }
+        String demasiados = WhatsappLote.validarTamano(comandos, movimientoService.getTamanoLote());
+        if (demasiados != null) {
+            rechazar(message, demasiados);
+            return;
+        }
 
-            if (!matcher.matches()) {
-                throw new IllegalArgumentException(
-                    "El formato del mensaje no es válido. Usa: 'gasto/ingreso <monto> <categoría> [en <cuenta>] [descripción]'"
-                );
+        User user = message.getUsuario();
+        DiccionarioNombresService.DiccionarioNombres diccionario = diccionarioNombresService.obtener(user.getId());
+        ZonedDateTime ahora = ZonedDateTime.now();
+        List<Movimiento> movimientos = new ArrayList<>(comandos.size());
+        List<String> errores = new ArrayList<>();
+        for (int i = 0; i < comandos.size(); i++) {
+            try {
+                movimientos.add(movimiento(comandos.get(i), diccionario, message, ahora));
+            } catch (IllegalArgumentException e) {
+                errores.add(comandos.size() == 1 ? e.getMessage() : WhatsappLote.linea(i, e.getMessage()));
             }
+        }
 
-            TipoMovimiento tipo = matcher.group(1).equalsIgnoreCase("gasto") ? TipoMovimiento.GASTO : TipoMovimiento.INGRESO;
-            BigDecimal monto = new BigDecimal(matcher.group(2));
-            String categoriaNombre = matcher.group(4).trim();
-            String cuentaNombre = matcher.group(5) != null ? matcher.group(5).trim() : null;
-            String descripcion = matcher.group(6) != null ? matcher.group(6).trim() : "Registrado desde WhatsApp";
-
-            User user = message.getUsuario();
-
-            // Buscar Categoria
-            Categoria categoria = categoriaRepository
-                .findByUsuarioAndNombreIgnoreCase(user, categoriaNombre)
-                .orElseThrow(() -> new IllegalArgumentException("La categoría '" + categoriaNombre + "' no fue encontrada."));
-            CategoriaDTO categoriaDTO = categoriaMapper.toDto(categoria);
-
-            // Buscar Cuenta
-            Optional<Cuenta> cuentaOpt;
-            if (cuentaNombre != null) {
-                cuentaOpt = cuentaRepository.findByUsuarioAndNombreIgnoreCase(user, cuentaNombre);
-                if (cuentaOpt.isEmpty()) {
-                    throw new IllegalArgumentException("La cuenta '" + cuentaNombre + "' no fue encontrada.");
-                }
-            } else {
-                // Si no se especifica, tomar la primera cuenta del usuario como default
-                List<Cuenta> cuentas = cuentaRepository.findByUsuario(user);
-                if (cuentas.isEmpty()) {
-                    throw new IllegalArgumentException("No tienes cuentas configuradas. Por favor, crea una primero.");
-                }
-                cuentaOpt = Optional.of(cuentas.get(0));
-            }
-            Cuenta cuenta = cuentaOpt.orElseThrow(() -> new IllegalArgumentException("La cuenta '" + cuentaNombre + "' no fue encontrada.")
-            );
-            CuentaDTO cuentaDTO = cuentaMapper.toDto(cuenta);
-
-            // Crear y guardar el Movimiento
-            MovimientoDTO movimientoDTO = new MovimientoDTO();
-            movimientoDTO.setTipo(tipo);
-            movimientoDTO.setMonto(monto);
-            movimientoDTO.setFechaMovimiento(message.getFechaRecepcion());
-            // fechaRegistro es obligatoria según DTO; establecerla al momento de procesar
-            movimientoDTO.setFechaRegistro(ZonedDateTime.now());
-            movimientoDTO.setDescripcion(descripcion);
-            movimientoDTO.setCategoria(categoriaDTO);
-            movimientoDTO.setCuenta(cuentaDTO);
-            movimientoDTO.setUsuario(userMapper.toDtoId(user));
-
-            MovimientoDTO resultado = movimientoService.save(movimientoDTO);
-
-            // Associate the created Movimiento with the WhatsappMessage
-            if (resultado != null && resultado.getId() != null) {
-                finanzas.domain.Movimiento movimiento = movimientoRepository.findById(resultado.getId()).orElse(null);
-                if (movimiento != null) {
-                    message.setMovimientoAsociado(movimiento);
-                }
-            }
+        if (comandos.size() == 1 && comandos.get(0).valido()) {
+            WhatsappComando comando = comandos.get(0);
+            message.setTipoMovimiento(comando.tipo());
+            message.setMonto(comando.monto());
+            message.setCategoria(comando.categoria());
+            message.setCuenta(comando.cuenta());
+            message.setDescripcion(comando.descripcion() != null ? comando.descripcion() : DESCRIPCION_POR_DEFECTO);
+        } else if (comandos.size() > 1 && errores.isEmpty()) {
+            WhatsappLote.resumirEn(message, comandos);
+        }
+        if (!errores.isEmpty()) {
+            rechazar(message, comandos.size() == 1 ? errores.get(0) : WhatsappLote.errores(errores));
+            return;
+        }
 
-            message.setEstado(EstadoProcesamiento.COMPLETADO);
-            message.setFechaProcesamiento(ZonedDateTime.now());
-            message.setRespuestaBot("Movimiento de " + monto + " en categoría " + categoriaDTO.getNombre() + " registrado exitosamente.");
-            log.info("Successfully processed message ID: {}", message.getId());
-        } catch (Exception e) {
-            log.error("Error processing message ID: {}", message.getId(), e);
-
-            String errorMessage = e.getMessage();
-            // Evitar mensajes de error demasiado técnicos
-            if (errorMessage.length() > 255) {
-                errorMessage = "Error interno al procesar el mensaje.";
-            }
+        movimientos = movimientoService.saveAllEntities(movimientos);
+        message.setMovimientoAsociado(movimientos.get(0));
+        message.setEstado(EstadoProcesamiento.COMPLETADO);
+        message.setFechaProcesamiento(ZonedDateTime.now());
+        message.setRespuestaBot(
+            comandos.size() == 1
+                ? "Movimiento de " + movimientos.get(0).getMonto() + " en categoría " + comandos.get(0).categoria() +
+                " registrado exitosamente."
+                : WhatsappLote.resumen("", comandos)
+        );
+        log.info("Successfully processed message ID: {} ({} movements)", message.getId(), movimientos.size());
+    }
 
-            message.setEstado(EstadoProcesamiento.ERROR);
-            message.setErrorMensaje(errorMessage);
-            message.setRespuestaBot("Hubo un error: " + e.getMessage());
+    /**
+     * Movimiento de un comando, con la categoría (obligatoria) y la cuenta (o la cuenta por defecto) del diccionario.
+     *
+     * @throws IllegalArgumentException with the message shown to the user if the command or its names are not valid.
+     */
+    private Movimiento movimiento(
+        WhatsappComando comando,
+        DiccionarioNombresService.DiccionarioNombres diccionario,
+        WhatsappMessage message,
+        ZonedDateTime ahora
+    ) {
+        if (comando.error() == WhatsappComando.Error.MONTO_NO_POSITIVO) {
+            throw new IllegalArgumentException("El monto debe ser mayor a 0.");
+        }
+        if (!comando.valido()) {
+            throw new IllegalArgumentException(FORMATO_INVALIDO);
         }
 
-        whatsappMessageRepository.save(message);
+        String categoriaNombre = comando.categoria();
+        NombreId categoria = diccionario
+            .categoria(categoriaNombre)
+            .orElseThrow(() -> new IllegalArgumentException("La categoría '" + categoriaNombre + "' no fue encontrada."));
+
+        // Si no se especifica la cuenta, tomar la primera cuenta del usuario como default
+        String cuentaNombre = comando.cuenta();
+        NombreId cuenta;
+        if (cuentaNombre != null) {
+            cuenta = diccionario
+                .cuenta(cuentaNombre)
+                .orElseThrow(() -> new IllegalArgumentException("La cuenta '" + cuentaNombre + "' no fue encontrada."));
+        } else {
+            cuenta = diccionario
+                .cuentaPorDefecto()
+                .orElseThrow(() -> new IllegalArgumentException("No tienes cuentas configuradas. Por favor, crea una primero."));
+        }
+
+        String descripcion = comando.descripcion();
+        Movimiento movimiento = new Movimiento();
+        movimiento.setTipo(comando.tipo());
+        movimiento.setMonto(comando.monto());
+        movimiento.setFechaMovimiento(message.getFechaRecepcion());
+        // fechaRegistro es obligatoria; se establece al momento de procesar
+        movimiento.setFechaRegistro(ahora);
+        movimiento.setDescripcion(descripcion != null ? descripcion : DESCRIPCION_POR_DEFECTO);
+        movimiento.setCategoria(categoriaRepository.getReferenceById(categoria.id()));
+        movimiento.setCuenta(cuentaRepository.getReferenceById(cuenta.id()));
+        movimiento.setUsuario(message.getUsuario());
+        return movimiento;
+    }
+
+    private static void rechazar(WhatsappMessage message, String error) {
+        message.setEstado(EstadoProcesamiento.ERROR);
+        message.setErrorMensaje(error);
+        message.setRespuestaBot("Hubo un error: " + error);
     }
 }
@@ -0,0 +1,300 @@
+package finanzas.service;
+
+import finanzas.config.ApplicationProperties;
+import finanzas.repository.WhatsappMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Mantiene las particiones mensuales de {@code whatsapp_message} (una por mes, {@code whatsapp_message_pAAAAMM}):
+ * <ol>
+ *     <li>crea las del mes actual y los {@code mesesAdelantados} siguientes, para que ningún mensaje caiga en la
+ *     partición por defecto;</li>
+ *     <li>separa ({@code DETACH}) las de los meses anteriores a los {@code meses} conservados: desde ese momento ninguna
+ *     consulta las lee. Una partición con mensajes en un estado no terminal ({@code REINTENTO}, {@code DESCARTADO}...)
+ *     se conserva, con un aviso en el registro, hasta que todos terminen o pasen {@code mesesGracia} meses más; entonces
+ *     se archiva igualmente, con los mensajes que siguieran vivos;</li>
+ *     <li>copia cada partición separada a {@code <directorio>/whatsapp_message_pAAAAMM.csv.gz} con {@code COPY} y la
+ *     borra con {@code DROP TABLE}, que libera el espacio sin dejar filas muertas que limpiar;</li>
+ *     <li>olvida los identificadores de proveedor de los meses borrados en {@code whatsapp_message_entrega}. Los de una
+ *     partición conservada siguen ahí: una nueva entrega de uno de sus mensajes sigue siendo un duplicado.</li>
+ * </ol>
+ * Cada paso es una sentencia DDL corta en autocommit, así que nunca bloquea la tabla más que un instante. Si una
+ * ejecución se interrumpe, la siguiente retoma las particiones ya separadas que siguen sin archivar. El archivo se
+ * escribe con otro nombre y se renombra tras sincronizarlo a disco: una tabla solo se borra cuando su copia está
+ * completa.
+ * <p>
+ * Un cerrojo consultivo de PostgreSQL evita que dos nodos mantengan las particiones a la vez. Lo archivado se publica
+ * en Micrometer: {@code whatsapp.retencion.particiones} y {@code whatsapp.retencion.filas}.
+ */
+@Service
+public class WhatsappMessageRetentionJob {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WhatsappMessageRetentionJob.class);
+
+    private static final String TABLA = "whatsapp_message";
+
+    private static final String PREFIJO = TABLA + "_p";
+
+    private static final DateTimeFormatter SUFIJO = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /** Clave del cerrojo consultivo ({@code pg_try_advisory_lock}) que comparten todos los nodos. */
+    private static final long CERROJO = 20261018001500L;
+
+    private static final String PARTICIONES =
+        "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid " +
+        "where i.inhparent = 'whatsapp_message'::regclass and c.relname like 'whatsapp\\_message\\_p______' order by 1";
+
+    private static final String SEPARADAS =
+        "select c.relname from pg_class c where c.relkind = 'r' and c.relnamespace = current_schema()::regnamespace " +
+        "and c.relname like 'whatsapp\\_message\\_p______' and not exists (select 1 from pg_inherits i where i.inhrelid = c.oid) " +
+        "order by 1";
+
+    private final DataSource dataSource;
+
+    private final ApplicationProperties.Whatsapp.Retencion retencion;
+
+    /** Una sola ejecución a la vez en este nodo; entre nodos decide el cerrojo consultivo. */
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    private final Counter particionesCounter;
+
+    private final Counter filasCounter;
+
+    public WhatsappMessageRetentionJob(DataSource dataSource, MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        this.dataSource = dataSource;
+        this.retencion = applicationProperties.getWhatsapp().getRetencion();
+        this.particionesCounter = Counter.builder("whatsapp.retencion.particiones")
+            .baseUnit("partitions")
+            .description("WhatsApp message partitions archived and dropped")
+            .register(meterRegistry);
+        this.filasCounter = Counter.builder("whatsapp.retencion.filas")
+            .baseUnit("rows")
+            .description("WhatsApp messages archived")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${application.whatsapp.retencion.cron:0 15 4 * * ?}")
+    public void programado() {
+        ejecutar();
+    }
+
+    /**
+     * Lanza el mantenimiento en segundo plano.
+     */
+    @Async
+    public void lanzar() {
+        ejecutar();
+    }
+
+    /**
+     * Crea las particiones que faltan y archiva las que superan la retención.
+     *
+     * @return the number of partitions archived, {@code -1} if the maintenance is running elsewhere.
+     */
+    public int ejecutar() {
+        if (!enCurso.compareAndSet(false, true)) {
+            LOG.info("WhatsApp message partition maintenance is already running on this node");
+            return -1;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!bloquear(connection, "pg_try_advisory_lock")) {
+                LOG.info("WhatsApp message partition maintenance is running on another node");
+                return -1;
+            }
+            try {
+                return mantener(connection);
+            } finally {
+                bloquear(connection, "pg_advisory_unlock");
+            }
+        } catch (SQLException e) {
+            LOG.error("WhatsApp message partition maintenance failed", e);
+            return 0;
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    private int mantener(Connection connection) throws SQLException {
+        YearMonth actual = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= retencion.getMesesAdelantados(); i++) {
+            crear(connection, actual.plusMonths(i));
+        }
+
+        YearMonth limite = actual.minusMonths(retencion.getMeses());
+        YearMonth limiteGracia = limite.minusMonths(retencion.getMesesGracia());
+        for (String particion : consultar(connection, PARTICIONES)) {
+            YearMonth mes = mes(particion);
+            if (!mes.isBefore(limite)) {
+                continue;
+            }
+            long pendientes = contarPendientes(connection, particion);
+            if (pendientes > 0 && !mes.isBefore(limiteGracia)) {
+                LOG.warn(
+                    "WhatsApp message partition {} is past retention but keeps {} messages in a non-terminal state, not archived",
+                    particion,
+                    pendientes
+                );
+                continue;
+            }
+            if (pendientes > 0) {
+                LOG.warn(
+                    "WhatsApp message partition {} is past its grace period, archiving its {} non-terminal messages",
+                    particion,
+                    pendientes
+                );
+            }
+            sentencia(connection, "alter table " + TABLA + " detach partition " + particion);
+            LOG.info("Detached WhatsApp message partition {}", particion);
+        }
+
+        int archivadas = 0;
+        for (String tabla : consultar(connection, SEPARADAS)) {
+            try {
+                long filas = archivar(connection, tabla);
+                sentencia(connection, "drop table " + tabla);
+                olvidarEntregas(connection, mes(tabla));
+                particionesCounter.increment();
+                filasCounter.increment(filas);
+                archivadas++;
+                LOG.info("Archived {} WhatsApp messages of {} and dropped the table", filas, tabla);
+            } catch (IOException | SQLException e) {
+                LOG.error("Could not archive {}, it will be retried on the next run", tabla, e);
+            }
+        }
+        return archivadas;
+    }
+
+    private void crear(Connection connection, YearMonth mes) throws SQLException {
+        try {
+            sentencia(
+                connection,
+                "create table if not exists " +
+                PREFIJO +
+                mes.format(SUFIJO) +
+                " partition of " +
+                TABLA +
+                " for values from ('" +
+                mes.atDay(1) +
+                "') to ('" +
+                mes.plusMonths(1).atDay(1) +
+                "')"
+            );
+        } catch (SQLException e) {
+            // p. ej. la partición por defecto ya tiene filas de ese mes: el resto del mantenimiento sigue siendo útil
+            LOG.warn("Could not create the WhatsApp message partition of {}: {}", mes, e.getMessage());
+        }
+    }
+
+    /**
+     * Mensajes de la partición que aún pueden cambiar de estado: pendientes, en reintento o descartados a la espera de
+     * {@link WhatsappMessageProcessorService#reprocesarDescartados}. Se cuentan por el índice parcial
+     * {@code idx_whatsapp_message__pendientes}.
+     */
+    private static long contarPendientes(Connection connection, String particion) throws SQLException {
+        String sql = "select count(*) from " + particion + " w where " + WhatsappMessageRepository.NO_TERMINAL;
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Borra de {@code whatsapp_message_entrega} los ids de proveedor de los mensajes de {@code mes}, cuya partición ya se
+     * ha borrado.
+     */
+    private static void olvidarEntregas(Connection connection, YearMonth mes) throws SQLException {
+        try (
+            PreparedStatement statement = connection.prepareStatement(
+                "delete from whatsapp_message_entrega where fecha_recepcion >= ? and fecha_recepcion < ?"
+            )
+        ) {
+            statement.setObject(1, mes.atDay(1).atStartOfDay());
+            statement.setObject(2, mes.plusMonths(1).atDay(1).atStartOfDay());
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Copia la tabla a su archivo {@code .csv.gz}, con cabecera.
+     *
+     * @return the number of rows copied.
+     */
+    private long archivar(Connection connection, String tabla) throws IOException, SQLException {
+        Path directorio = Path.of(retencion.getDirectorio());
+        Files.createDirectories(directorio);
+        Path archivo = directorio.resolve(tabla + ".csv.gz");
+        Path temporal = directorio.resolve(tabla + ".csv.gz.tmp");
+        long filas;
+        try (FileOutputStream fichero = new FileOutputStream(temporal.toFile())) {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(fichero, 64 * 1024)) {
+                filas = connection
+                    .unwrap(PGConnection.class)
+                    .getCopyAPI()
+                    .copyOut("copy " + tabla + " to stdout (format csv, header)", gzip);
+                gzip.finish();
+                fichero.getChannel().force(true);
+            }
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return filas;
+    }
+
+    /**
+     * @param particion a partition name, {@code whatsapp_message_pAAAAMM}.
+     * @return the month it holds.
+     */
+    static YearMonth mes(String particion) {
+        return YearMonth.parse(particion.substring(PREFIJO.length()), SUFIJO);
+    }
+
+    private static boolean bloquear(Connection connection, String funcion) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select " + funcion + "(?)")) {
+            statement.setLong(1, CERROJO);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static List<String> consultar(Connection connection, String sql) throws SQLException {
+        List<String> nombres = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                nombres.add(rs.getString(1));
+            }
+        }
+        return nombres;
+    }
+
+    private static void sentencia(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
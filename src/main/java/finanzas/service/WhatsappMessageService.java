@@ -1,24 +1,29 @@
 package finanzas.service;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import finanzas.domain.Cuenta;
 import finanzas.domain.Movimiento;
 import finanzas.domain.User;
 import finanzas.domain.WhatsappMessage;
 import finanzas.domain.enumeration.EstadoProcesamiento;
-import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.domain.enumeration.OrigenMensaje;
+import finanzas.repository.CategoriaRepository;
 import finanzas.repository.CuentaRepository;
 import finanzas.repository.MovimientoRepository;
 import finanzas.repository.UserRepository;
 import finanzas.repository.WhatsappMessageRepository;
+import finanzas.repository.projection.ClaveMensaje;
+import finanzas.service.dto.WhatsappMessageCursor;
+import finanzas.service.event.WhatsappMessageReceivedEvent;
 import finanzas.web.rest.dto.WhatsappMessageDTO;
 
 /**
@@ -30,24 +35,42 @@ public class WhatsappMessageService {
 
     private static final Logger log = LoggerFactory.getLogger(WhatsappMessageService.class);
 
+    private static final String NUMERO_NO_REGISTRADO =
+        "⚠️ Número de teléfono no registrado. Por favor, configura tu número en la aplicación.";
+
     private final WhatsappMessageRepository whatsappMessageRepository;
     private final UserRepository userRepository;
+    private final UserService userService;
     private final CuentaRepository cuentaRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final DiccionarioNombresService diccionarioNombresService;
     private final MovimientoRepository movimientoRepository;
     private final MovimientoService movimientoService;
+    private final WhatsappRecentMessageIds recentMessageIds;
+    private final ApplicationEventPublisher eventPublisher;
 
     public WhatsappMessageService(
         WhatsappMessageRepository whatsappMessageRepository,
         UserRepository userRepository,
+        UserService userService,
         CuentaRepository cuentaRepository,
+        CategoriaRepository categoriaRepository,
+        DiccionarioNombresService diccionarioNombresService,
         MovimientoRepository movimientoRepository,
-        MovimientoService movimientoService
+        MovimientoService movimientoService,
+        WhatsappRecentMessageIds recentMessageIds,
+        ApplicationEventPublisher eventPublisher
     ) {
         this.whatsappMessageRepository = whatsappMessageRepository;
         this.userRepository = userRepository;
+        this.userService = userService;
         this.cuentaRepository = cuentaRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.diccionarioNombresService = diccionarioNombresService;
         this.movimientoRepository = movimientoRepository;
         this.movimientoService = movimientoService;
+        this.recentMessageIds = recentMessageIds;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -58,198 +81,271 @@ public class WhatsappMessageService {
      * @return DTO con el resultado del procesamiento
      */
     public WhatsappMessageDTO procesarMensajeWhatsApp(String numeroTelefonico, String mensajeText) {
+        return procesarMensajeWhatsApp(numeroTelefonico, mensajeText, null);
+    }
+
+    /**
+     * Procesa un mensaje recibido por WhatsApp una sola vez por {@code providerMessageId}: si el proveedor reintenta
+     * una entrega ya registrada se devuelve el mensaje existente sin parsearlo ni crear otro movimiento.
+     *
+     * @param numeroTelefonico Número de teléfono del remitente
+     * @param mensajeText Texto del mensaje
+     * @param providerMessageId id del mensaje en el proveedor, puede ser {@code null}
+     * @return DTO con el resultado del procesamiento
+     */
+    public WhatsappMessageDTO procesarMensajeWhatsApp(String numeroTelefonico, String mensajeText, String providerMessageId) {
+        Optional<WhatsappMessageDTO> duplicado = buscarPorProviderMessageId(providerMessageId);
+        if (duplicado.isPresent()) {
+            log.debug("Mensaje de WhatsApp {} ya recibido, se ignora el reintento", providerMessageId);
+            return duplicado.orElseThrow();
+        }
+
         log.info("Procesando mensaje de WhatsApp desde: {}", numeroTelefonico);
 
         // Buscar usuario por número de teléfono
-        Optional<User> userOptional = userRepository.findByPhoneNumber(numeroTelefonico);
+        Optional<User> userOptional = resolverUsuario(numeroTelefonico);
         if (userOptional.isEmpty()) {
             log.warn("No se encontró usuario para el número: {}", numeroTelefonico);
-            return crearRespuestaError(
-                numeroTelefonico,
-                mensajeText,
-                "⚠️ Número de teléfono no registrado. Por favor, configura tu número en la aplicación."
-            );
+            return crearRespuestaError(numeroTelefonico, mensajeText, NUMERO_NO_REGISTRADO);
         }
 
         User usuario = userOptional.orElseThrow();
-        WhatsappMessage whatsappMessage = new WhatsappMessage();
-        whatsappMessage.setMensajeOriginal(mensajeText);
-        whatsappMessage.setNumeroTelefonico(numeroTelefonico);
+        WhatsappMessage whatsappMessage = nuevoMensaje(numeroTelefonico, mensajeText, providerMessageId);
         whatsappMessage.setUsuario(usuario);
-        whatsappMessage.setFechaRecepcion(ZonedDateTime.now());
-        whatsappMessage.setEstado(EstadoProcesamiento.RECIBIDO);
+        if (providerMessageId != null) {
+            // se inserta antes de parsear para que una entrega concurrente del mismo id choque con el índice único
+            // antes de crear ningún movimiento
+            whatsappMessage = whatsappMessageRepository.saveAndFlush(whatsappMessage);
+            recentMessageIds.recordar(providerMessageId, whatsappMessage.getId());
+        }
 
-        try {
-            // Parsear el mensaje
-            ParseResultado resultado = parsearMensaje(mensajeText, usuario);
+        procesar(whatsappMessage, usuario);
+        return convertToDTO(whatsappMessage);
+    }
 
-            if (!resultado.valido) {
-                whatsappMessage.setEstado(EstadoProcesamiento.ERROR);
-                whatsappMessage.setErrorMensaje(resultado.error);
-                whatsappMessage.setRespuestaBot(resultado.error);
-                whatsappMessageRepository.save(whatsappMessage);
-                return convertToDTO(whatsappMessage);
-            }
+    /**
+     * Registra un mensaje recibido por WhatsApp sin procesarlo: una sola inserción con el texto en crudo, sin resolver
+     * el usuario ni parsear. {@link WhatsappIngestQueue} lo procesa en segundo plano tras el commit y la respuesta del
+     * bot se envía de forma asíncrona con {@link WhatsappReplyService}.
+     *
+     * @param numeroTelefonico Número de teléfono del remitente
+     * @param mensajeText Texto del mensaje
+     * @param providerMessageId id del mensaje en el proveedor, puede ser {@code null}
+     * @return DTO del mensaje registrado, o del ya existente si es un reintento del proveedor
+     */
+    public WhatsappMessageDTO registrarMensajeWhatsApp(String numeroTelefonico, String mensajeText, String providerMessageId) {
+        // solo se mira la memoria: en la primera entrega el índice único hace de comprobación sin una consulta extra
+        Optional<WhatsappMessageDTO> duplicado = recentMessageIds
+            .buscarEnMemoria(providerMessageId)
+            .flatMap(whatsappMessageRepository::findById)
+            .map(this::convertToDTO);
+        if (duplicado.isPresent()) {
+            log.debug("Mensaje de WhatsApp {} ya recibido, se ignora el reintento", providerMessageId);
+            return duplicado.orElseThrow();
+        }
 
-            // Asignar datos parseados
-            whatsappMessage.setTipoMovimiento(resultado.tipoMovimiento);
-            whatsappMessage.setMonto(resultado.monto);
-            whatsappMessage.setCategoria(resultado.categoria);
-            whatsappMessage.setCuenta(resultado.cuenta);
-            whatsappMessage.setDescripcion(resultado.descripcion);
-
-            // Crear o actualizar movimiento
-            try {
-                Movimiento movimiento = crearMovimiento(resultado, usuario);
-                whatsappMessage.setMovimientoAsociado(movimiento);
-                whatsappMessage.setEstado(EstadoProcesamiento.COMPLETADO);
-                whatsappMessage.setFechaProcesamiento(ZonedDateTime.now());
-                whatsappMessage.setRespuestaBot("✅ Movimiento registrado exitosamente: " + resultado.tipoMovimiento + " $" + resultado.monto);
-            } catch (Exception e) {
-                log.error("Error al crear movimiento", e);
+        WhatsappMessage whatsappMessage = whatsappMessageRepository.save(nuevoMensaje(numeroTelefonico, mensajeText, providerMessageId));
+        recentMessageIds.recordar(providerMessageId, whatsappMessage.getId());
+        eventPublisher.publishEvent(
+            new WhatsappMessageReceivedEvent(new ClaveMensaje(whatsappMessage.getId(), whatsappMessage.getFechaRecepcion()))
+        );
+        return convertToDTO(whatsappMessage);
+    }
+
+    /**
+     * Procesa un mensaje registrado con {@link #registrarMensajeWhatsApp}: resuelve el usuario por su número, parsea
+     * el texto y crea el movimiento. Deja el mensaje en estado {@code COMPLETADO} o {@code ERROR}; un fallo inesperado
+     * se propaga para que {@link WhatsappMessageProcessorService} lo reintente.
+     *
+     * @param whatsappMessage el mensaje a procesar
+     */
+    public void procesarMensajeRegistrado(WhatsappMessage whatsappMessage) {
+        User usuario = whatsappMessage.getUsuario();
+        if (usuario == null) {
+            Optional<User> userOptional = resolverUsuario(whatsappMessage.getNumeroTelefonico());
+            if (userOptional.isEmpty()) {
+                log.warn("No se encontró usuario para el número: {}", whatsappMessage.getNumeroTelefonico());
                 whatsappMessage.setEstado(EstadoProcesamiento.ERROR);
-                whatsappMessage.setErrorMensaje(e.getMessage());
-                whatsappMessage.setRespuestaBot("❌ Error al registrar el movimiento: " + e.getMessage());
+                whatsappMessage.setErrorMensaje("Número de teléfono no registrado");
+                whatsappMessage.setRespuestaBot(NUMERO_NO_REGISTRADO);
+                return;
             }
+            usuario = userOptional.orElseThrow();
+            whatsappMessage.setUsuario(usuario);
+        }
+        aplicar(whatsappMessage, usuario);
+    }
 
-            whatsappMessageRepository.save(whatsappMessage);
-            return convertToDTO(whatsappMessage);
+    /**
+     * Usuario con el número de teléfono indicado. El número se resuelve a un id desde la caché de {@link UserService} y
+     * se devuelve una referencia, sin consultar {@code jhi_user}.
+     */
+    private Optional<User> resolverUsuario(String numeroTelefonico) {
+        return userService.findIdByNormalizedPhoneNumber(User.normalizePhoneNumber(numeroTelefonico)).map(userRepository::getReferenceById);
+    }
 
+    private WhatsappMessage nuevoMensaje(String numeroTelefonico, String mensajeText, String providerMessageId) {
+        WhatsappMessage whatsappMessage = new WhatsappMessage();
+        whatsappMessage.setMensajeOriginal(mensajeText);
+        String normalizado = User.normalizePhoneNumber(numeroTelefonico);
+        whatsappMessage.setNumeroTelefonico(normalizado != null ? normalizado : numeroTelefonico);
+        whatsappMessage.setFechaRecepcion(ZonedDateTime.now());
+        whatsappMessage.setEstado(EstadoProcesamiento.RECIBIDO);
+        whatsappMessage.setOrigen(OrigenMensaje.API);
+        whatsappMessage.setProviderMessageId(providerMessageId);
+        return whatsappMessage;
+    }
+
+    /**
+     * Como {@link #aplicar}, pero un fallo inesperado también deja el mensaje en {@code ERROR}: en el procesamiento
+     * síncrono no hay reintentos y el remitente recibe la respuesta en la misma petición.
+     */
+    private void procesar(WhatsappMessage whatsappMessage, User usuario) {
+        try {
+            aplicar(whatsappMessage, usuario);
         } catch (Exception e) {
-            log.error("Error inesperado procesando mensaje de WhatsApp", e);
+            log.error("Error al crear movimiento", e);
             whatsappMessage.setEstado(EstadoProcesamiento.ERROR);
             whatsappMessage.setErrorMensaje(e.getMessage());
-            whatsappMessage.setRespuestaBot("❌ Error inesperado: " + e.getMessage());
+            whatsappMessage.setRespuestaBot("❌ Error al registrar el movimiento: " + e.getMessage());
             whatsappMessageRepository.save(whatsappMessage);
-            return convertToDTO(whatsappMessage);
         }
     }
 
     /**
-     * Parsea un mensaje de WhatsApp extrayendo los componentes.
-     * Formatos soportados:
-     * - GASTO [monto] [categoria] [cuenta] [descripción opcional]
-     * - INGRESO [monto] [categoria] [cuenta] [descripción opcional]
+     * Parsea el mensaje, crea sus movimientos (uno por línea o por {@code ;}) y deja el mensaje en estado
+     * {@code COMPLETADO} o, si el texto no es válido, {@code ERROR}. Un fallo inesperado se propaga.
      */
-    private ParseResultado parsearMensaje(String mensaje, User usuario) {
-        ParseResultado resultado = new ParseResultado();
+    private void aplicar(WhatsappMessage whatsappMessage, User usuario) {
+        List<WhatsappComando> comandos = WhatsappComandoParser.parsearTodos(whatsappMessage.getMensajeOriginal(), true);
+        String error = validar(comandos);
 
-        // Limpiar el mensaje
-        String mensajeLimpio = mensaje.trim().toUpperCase();
-
-        // Separar por espacios respetando comillas
-        String[] tokens = dividirTokens(mensajeLimpio);
-
-        if (tokens.length < 4) {
-            resultado.valido = false;
-            resultado.error = "❌ Formato incorrecto. Usa: GASTO [monto] [categoria] [cuenta]";
-            return resultado;
+        if (error != null) {
+            whatsappMessage.setEstado(EstadoProcesamiento.ERROR);
+            whatsappMessage.setErrorMensaje(error);
+            whatsappMessage.setRespuestaBot("❌ " + error);
+            whatsappMessageRepository.save(whatsappMessage);
+            return;
         }
 
-        try {
-            // Determinar tipo
-            String tipoStr = tokens[0];
-            if (!tipoStr.equals("GASTO") && !tipoStr.equals("INGRESO")) {
-                resultado.valido = false;
-                resultado.error = "❌ Tipo inválido. Usa GASTO o INGRESO";
-                return resultado;
-            }
-            resultado.tipoMovimiento = TipoMovimiento.valueOf(tipoStr);
-
-            // Monto
-            resultado.monto = new BigDecimal(tokens[1]);
-            if (resultado.monto.compareTo(BigDecimal.ZERO) <= 0) {
-                resultado.valido = false;
-                resultado.error = "❌ El monto debe ser mayor a 0";
-                return resultado;
-            }
-
-            // Categoría
-            resultado.categoria = tokens[2].replaceAll("\"", "");
-
-            // Cuenta
-            resultado.cuenta = tokens[3].replaceAll("\"", "");
+        // Asignar datos parseados
+        if (comandos.size() == 1) {
+            WhatsappComando comando = comandos.get(0);
+            whatsappMessage.setTipoMovimiento(comando.tipo());
+            whatsappMessage.setMonto(comando.monto());
+            whatsappMessage.setCategoria(comando.categoria());
+            whatsappMessage.setCuenta(comando.cuenta());
+            whatsappMessage.setDescripcion(comando.descripcion());
+        } else {
+            WhatsappLote.resumirEn(whatsappMessage, comandos);
+        }
 
-            // Descripción (opcional)
-            if (tokens.length > 4) {
-                StringBuilder desc = new StringBuilder();
-                for (int i = 4; i < tokens.length; i++) {
-                    desc.append(tokens[i]).append(" ");
-                }
-                resultado.descripcion = desc.toString().trim().replaceAll("\"", "");
-            }
+        // Crear los movimientos
+        List<Movimiento> movimientos = crearMovimientos(comandos, usuario);
+        whatsappMessage.setMovimientoAsociado(movimientos.get(0));
+        whatsappMessage.setEstado(EstadoProcesamiento.COMPLETADO);
+        whatsappMessage.setFechaProcesamiento(ZonedDateTime.now());
+        whatsappMessage.setRespuestaBot(
+            comandos.size() == 1
+                ? "✅ Movimiento registrado exitosamente: " + comandos.get(0).tipo() + " $" + comandos.get(0).monto()
+                : WhatsappLote.resumen("✅ ", comandos)
+        );
+        whatsappMessageRepository.save(whatsappMessage);
+    }
 
-            resultado.valido = true;
-            return resultado;
-
-        } catch (NumberFormatException e) {
-            resultado.valido = false;
-            resultado.error = "❌ El monto debe ser un número válido";
-            return resultado;
-        } catch (IllegalArgumentException e) {
-            resultado.valido = false;
-            resultado.error = "❌ Tipo de movimiento inválido";
-            return resultado;
-        }
+    /**
+     * Mensaje ya registrado con el id de proveedor indicado.
+     *
+     * @param providerMessageId id del mensaje en el proveedor, puede ser {@code null}
+     * @return el mensaje existente, vacío si es la primera entrega
+     */
+    @Transactional(readOnly = true)
+    public Optional<WhatsappMessageDTO> buscarPorProviderMessageId(String providerMessageId) {
+        return recentMessageIds.buscar(providerMessageId).flatMap(whatsappMessageRepository::findById).map(this::convertToDTO);
     }
 
     /**
-     * Divide un string en tokens respetando comillas.
+     * Comprueba los comandos de un mensaje con el formato {@code GASTO|INGRESO <monto> <categoria> <cuenta> [descripcion]};
+     * ver {@link WhatsappComandoParser}.
+     *
+     * @return the error shown to the user, {@code null} if every command is valid.
      */
-    private String[] dividirTokens(String texto) {
-        java.util.List<String> tokens = new java.util.ArrayList<>();
-        StringBuilder token = new StringBuilder();
-        boolean enComillas = false;
-
-        for (char c : texto.toCharArray()) {
-            if (c == '"') {
-                enComillas = !enComillas;
-                token.append(c);
-            } else if (c == ' ' && !enComillas) {
-                if (token.length() > 0) {
-                    tokens.add(token.toString());
-                    token = new StringBuilder();
-                }
-            } else {
-                token.append(c);
-            }
+    private String validar(List<WhatsappComando> comandos) {
+        if (comandos.isEmpty()) {
+            return error(WhatsappComando.Error.FORMATO);
         }
-
-        if (token.length() > 0) {
-            tokens.add(token.toString());
+        String demasiados = WhatsappLote.validarTamano(comandos, movimientoService.getTamanoLote());
+        if (demasiados != null) {
+            return demasiados;
+        }
+        if (comandos.size() == 1) {
+            return comandos.get(0).valido() ? null : error(comandos.get(0).error());
         }
+        List<String> errores = new ArrayList<>();
+        for (int i = 0; i < comandos.size(); i++) {
+            if (!comandos.get(i).valido()) {
+                errores.add(WhatsappLote.linea(i, error(comandos.get(i).error())));
+            }
+        }
+        return errores.isEmpty() ? null : WhatsappLote.errores(errores);
+    }
 
-        return tokens.toArray(new String[0]);
+    private static String error(WhatsappComando.Error error) {
+        return switch (error) {
+            case FORMATO -> "Formato incorrecto. Usa: GASTO [monto] [categoria] [cuenta]";
+            case TIPO -> "Tipo inválido. Usa GASTO o INGRESO";
+            case MONTO -> "El monto debe ser un número válido";
+            case MONTO_NO_POSITIVO -> "El monto debe ser mayor a 0";
+        };
     }
 
     /**
-     * Crea un movimiento a partir de los datos parseados.
+     * Crea los movimientos de un mensaje en un solo lote. Los nombres se resuelven con el diccionario del usuario; los
+     * que no existen se dejan sin asignar.
      */
-    private Movimiento crearMovimiento(ParseResultado resultado, User usuario) {
-        // Buscar cuenta del usuario
-        Optional<Cuenta> cuentaOpt = cuentaRepository.findByNombreAndUsuarioLogin(resultado.cuenta, usuario.getLogin());
-
-        Movimiento movimiento = new Movimiento();
-        movimiento.setTipo(resultado.tipoMovimiento);
-        movimiento.setMonto(resultado.monto);
-        movimiento.setDescripcion(resultado.descripcion != null ? resultado.descripcion : "Registrado por WhatsApp");
-        movimiento.setFechaMovimiento(ZonedDateTime.now());
-        movimiento.setFechaRegistro(ZonedDateTime.now());
-        movimiento.setUsuario(usuario);
-
-        cuentaOpt.ifPresent(movimiento::setCuenta);
-
-        // Nota: La categoría se asignaría si se busca en la BD
-        // Por ahora se guarda como descripción adicional
+    private List<Movimiento> crearMovimientos(List<WhatsappComando> comandos, User usuario) {
+        DiccionarioNombresService.DiccionarioNombres diccionario = diccionarioNombresService.obtener(usuario.getId());
+        ZonedDateTime ahora = ZonedDateTime.now();
+
+        List<Movimiento> movimientos = new ArrayList<>(comandos.size());
+        for (WhatsappComando comando : comandos) {
+            Movimiento movimiento = new Movimiento();
+            movimiento.setTipo(comando.tipo());
+            movimiento.setMonto(comando.monto());
+            String descripcion = comando.descripcion();
+            movimiento.setDescripcion(descripcion != null ? descripcion : "Registrado por WhatsApp");
+            movimiento.setFechaMovimiento(ahora);
+            movimiento.setFechaRegistro(ahora);
+            movimiento.setUsuario(usuario);
+
+            diccionario.cuenta(comando.cuenta()).ifPresent(cuenta -> movimiento.setCuenta(cuentaRepository.getReferenceById(cuenta.id())));
+            diccionario
+                .categoria(comando.categoria())
+                .ifPresent(categoria -> movimiento.setCategoria(categoriaRepository.getReferenceById(categoria.id())));
+            movimientos.add(movimiento);
+        }
+        return movimientoService.saveAllEntities(movimientos);
+    }
 
-        movimientoRepository.save(movimiento);
-        return movimiento;
+    /**
+     * Mensajes de todos los usuarios, los más recientes primero, paginados por clave: cada página solo lee las
+     * particiones que necesita, por mucho histórico que haya.
+     *
+     * @param cursor la posición del último mensaje de la página anterior, {@code null} para la primera.
+     * @param limite número máximo de mensajes.
+     */
+    @Transactional(readOnly = true)
+    public List<WhatsappMessageDTO> obtenerPagina(WhatsappMessageCursor cursor, int limite) {
+        List<WhatsappMessage> mensajes = cursor == null
+            ? whatsappMessageRepository.findUltimos(limite)
+            : whatsappMessageRepository.findAnteriores(cursor.fechaRecepcion(), cursor.id(), limite);
+        return mensajes.stream().map(this::convertToDTO).toList();
     }
 
     /**
      * Obtiene el historial de mensajes de un usuario.
      */
-    public java.util.List<WhatsappMessageDTO> obtenerHistorialUsuario(Long usuarioId) {
+    public List<WhatsappMessageDTO> obtenerHistorialUsuario(Long usuarioId) {
         return whatsappMessageRepository
             .findByUsuarioIdOrderByFechaRecepcionDesc(usuarioId)
             .stream()
@@ -285,18 +381,4 @@ public class WhatsappMessageService {
         dto.setFechaRecepcion(ZonedDateTime.now());
         return dto;
     }
-
-    /**
-     * Clase interna para resultado de parseado.
-     */
-    private static class ParseResultado {
-
-        boolean valido = false;
-        String error = "";
-        TipoMovimiento tipoMovimiento;
-        BigDecimal monto;
-        String categoria;
-        String cuenta;
-        String descripcion;
-    }
 }
@@ -0,0 +1,126 @@
+package finanzas.service;
+
+import finanzas.config.ApplicationProperties;
+import finanzas.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+/**
+ * Limita los mensajes que entran por los webhooks de WhatsApp con cubetas de tokens: una por número de teléfono
+ * normalizado y una global. Un número que se porta mal o una tormenta de reintentos del proveedor se cortan antes de
+ * tocar la base de datos; el webhook responde {@code 429} con {@code Retry-After} y el proveedor vuelve a entregar el
+ * mensaje más tarde, así que el exceso se aplaza en lugar de perderse.
+ * <p>
+ * Por defecto las cubetas están en memoria ({@link LocalTokenBuckets}) y el límite es por nodo; con
+ * {@code application.whatsapp.rate-limit.redis} se guardan en el Redis de la caché ({@link RedisTokenBuckets}) y el
+ * límite es común a todos los nodos.
+ */
+@Service
+public class WhatsappRateLimiter {
+
+    private static final String GLOBAL = "global";
+
+    private static final String PREFIJO_REDIS = "whatsapp:rate-limit:";
+
+    private final boolean enabled;
+
+    private final TokenBuckets.Tasa porRemitente;
+
+    private final TokenBuckets.Tasa global;
+
+    private final TokenBuckets remitentes;
+
+    private final TokenBuckets globales;
+
+    private final Counter admitidosCounter;
+
+    private final Counter limitadosRemitenteCounter;
+
+    private final Counter limitadosGlobalCounter;
+
+    public WhatsappRateLimiter(
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        ObjectProvider<RedissonClient> redissonClient
+    ) {
+        ApplicationProperties.Whatsapp.RateLimit rateLimit = applicationProperties.getWhatsapp().getRateLimit();
+        this.enabled = rateLimit.isEnabled();
+        this.porRemitente = TokenBuckets.Tasa.porMinuto(rateLimit.getRemitente().getCapacidad(), rateLimit.getRemitente().getPorMinuto());
+        this.global = TokenBuckets.Tasa.porMinuto(rateLimit.getGlobal().getCapacidad(), rateLimit.getGlobal().getPorMinuto());
+
+        LocalTokenBuckets remitentesLocales = new LocalTokenBuckets(rateLimit.getFranjas(), rateLimit.getMaxRemitentes(), reloj());
+        LocalTokenBuckets globalLocal = new LocalTokenBuckets(1, 1, reloj());
+        if (rateLimit.isRedis()) {
+            Counter fallos = Counter.builder("whatsapp.webhook.rate-limit.fallos")
+                .description("Redis rate limit calls that failed and used the local buckets")
+                .register(meterRegistry);
+            RedissonClient redisson = redissonClient.getObject();
+            this.remitentes = new RedisTokenBuckets(redisson, PREFIJO_REDIS, remitentesLocales, fallos);
+            this.globales = new RedisTokenBuckets(redisson, PREFIJO_REDIS, globalLocal, fallos);
+        } else {
+            this.remitentes = remitentesLocales;
+            this.globales = globalLocal;
+        }
+
+        this.admitidosCounter = Counter.builder("whatsapp.webhook.admitidos")
+            .baseUnit("messages")
+            .description("WhatsApp webhook messages admitted by the rate limiter")
+            .register(meterRegistry);
+        this.limitadosRemitenteCounter = limitados(meterRegistry, "remitente");
+        this.limitadosGlobalCounter = limitados(meterRegistry, GLOBAL);
+        Gauge.builder("whatsapp.webhook.remitentes", remitentesLocales, LocalTokenBuckets::size)
+            .description("Senders with a rate limit bucket in this node's memory")
+            .register(meterRegistry);
+    }
+
+    private static Counter limitados(MeterRegistry meterRegistry, String limite) {
+        return Counter.builder("whatsapp.webhook.limitados")
+            .baseUnit("messages")
+            .description("WhatsApp webhook messages rejected by the rate limiter")
+            .tag("limite", limite)
+            .register(meterRegistry);
+    }
+
+    private static LongSupplier reloj() {
+        return () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Toma un token de la cubeta del remitente y de la global. Si la global está vacía, el token del remitente se
+     * devuelve: un remitente no gasta su cuota en mensajes que no se admitieron.
+     *
+     * @param numeroTelefonico the sender, in any format; it is normalized to its digits.
+     * @return 0 if the message is admitted, otherwise the seconds to wait before sending it again (at least 1).
+     */
+    public long consumir(String numeroTelefonico) {
+        if (!enabled) {
+            return 0;
+        }
+        String normalizado = User.normalizePhoneNumber(numeroTelefonico);
+        String clave = normalizado != null ? normalizado : String.valueOf(numeroTelefonico);
+
+        long espera = remitentes.consumir(clave, porRemitente);
+        if (espera > 0) {
+            limitadosRemitenteCounter.increment();
+            return segundos(espera);
+        }
+        espera = globales.consumir(GLOBAL, global);
+        if (espera > 0) {
+            remitentes.devolver(clave, porRemitente);
+            limitadosGlobalCounter.increment();
+            return segundos(espera);
+        }
+        admitidosCounter.increment();
+        return 0;
+    }
+
+    private static long segundos(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+}
@@ -0,0 +1,96 @@
+package finanzas.service;
+
+import finanzas.config.ApplicationProperties;
+import finanzas.repository.WhatsappMessageRepository;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Deduplicación de entregas repetidas del proveedor de WhatsApp por su {@code message_id}.
+ * <p>
+ * Los ids recientes se guardan en un LRU acotado en memoria, así que un reintento inmediato del proveedor se resuelve
+ * sin ir a la base de datos. Si el id no está en memoria se consulta {@code whatsapp_message_entrega}, cuya clave
+ * primaria {@code provider_message_id} es la garantía final cuando dos entregas llegan a la vez o a nodos distintos.
+ */
+@Service
+public class WhatsappRecentMessageIds {
+
+    private final WhatsappMessageRepository whatsappMessageRepository;
+
+    private final Map<String, Long> recientes;
+
+    public WhatsappRecentMessageIds(WhatsappMessageRepository whatsappMessageRepository, ApplicationProperties applicationProperties) {
+        this.whatsappMessageRepository = whatsappMessageRepository;
+        int capacidad = applicationProperties.getWhatsapp().getIngest().getRecentIdsCacheSize();
+        this.recientes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > capacidad;
+            }
+        };
+    }
+
+    /**
+     * Busca un mensaje ya recibido con el mismo id de proveedor.
+     *
+     * @param providerMessageId the provider id, may be {@code null}.
+     * @return the id of the stored {@link finanzas.domain.WhatsappMessage}, empty if this is the first delivery.
+     */
+    public Optional<Long> buscar(String providerMessageId) {
+        if (providerMessageId == null) {
+            return Optional.empty();
+        }
+        Optional<Long> reciente = buscarEnMemoria(providerMessageId);
+        if (reciente.isPresent()) {
+            return reciente;
+        }
+        Optional<Long> guardado = whatsappMessageRepository.findIdByProviderMessageId(providerMessageId);
+        guardado.ifPresent(id -> recordarAhora(providerMessageId, id));
+        return guardado;
+    }
+
+    /**
+     * Como {@link #buscar(String)} pero sin consultar la base de datos; un resultado vacío no garantiza que el id sea
+     * nuevo.
+     */
+    public Optional<Long> buscarEnMemoria(String providerMessageId) {
+        if (providerMessageId == null) {
+            return Optional.empty();
+        }
+        synchronized (recientes) {
+            return Optional.ofNullable(recientes.get(providerMessageId));
+        }
+    }
+
+    /**
+     * Recuerda un id de proveedor una vez confirmada la transacción actual; si se deshace, un reintento del proveedor
+     * volverá a procesarse.
+     */
+    public void recordar(String providerMessageId, Long messageId) {
+        if (providerMessageId == null || messageId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recordarAhora(providerMessageId, messageId);
+                    }
+                }
+            );
+        } else {
+            recordarAhora(providerMessageId, messageId);
+        }
+    }
+
+    private void recordarAhora(String providerMessageId, Long messageId) {
+        synchronized (recientes) {
+            recientes.put(providerMessageId, messageId);
+        }
+    }
+}
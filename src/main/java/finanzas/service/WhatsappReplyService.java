@@ -0,0 +1,101 @@
+package finanzas.service;
+
+import finanzas.config.ApplicationProperties;
+import finanzas.service.event.WhatsappMessageProcessedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Envía las respuestas del bot de los mensajes procesados en segundo plano.
+ * <p>
+ * El envío se hace en el executor asíncrono y solo tras el commit del procesamiento, así que un proveedor lento no
+ * retiene ni la transacción ni los hilos de la cola de ingesta. El envío lo hace el {@link WhatsappSender} configurado;
+ * sin él, o si el proveedor falla, la respuesta se queda solo en {@code respuesta_bot} del mensaje, con un aviso en el
+ * registro y en la métrica {@code whatsapp.respuestas}. Por eso el modo ack-fast, en el que todas las respuestas van por
+ * aquí, no arranca sin un {@link WhatsappSender}.
+ */
+@Service
+public class WhatsappReplyService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WhatsappReplyService.class);
+
+    private final WhatsappSender whatsappSender;
+
+    private final Counter enviadasCounter;
+
+    private final Counter fallidasCounter;
+
+    private final Counter sinProveedorCounter;
+
+    public WhatsappReplyService(
+        ObjectProvider<WhatsappSender> whatsappSender,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.whatsappSender = whatsappSender.getIfAvailable();
+        if (this.whatsappSender == null && applicationProperties.getWhatsapp().isAckFast()) {
+            throw new IllegalStateException(
+                "application.whatsapp.ack-fast needs a WhatsappSender: set application.whatsapp.envio.url or declare one"
+            );
+        }
+        this.enviadasCounter = respuestas(meterRegistry, "enviada");
+        this.fallidasCounter = respuestas(meterRegistry, "fallida");
+        this.sinProveedorCounter = respuestas(meterRegistry, "sin-proveedor");
+    }
+
+    private static Counter respuestas(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("whatsapp.respuestas")
+            .baseUnit("messages")
+            .description("Bot replies sent in the background, by result")
+            .tag("resultado", resultado)
+            .register(meterRegistry);
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageProcessed(WhatsappMessageProcessedEvent event) {
+        if (event.numeroTelefonico() == null || event.respuesta() == null) {
+            return;
+        }
+        enviar(event.numeroTelefonico(), event.respuesta());
+    }
+
+    /**
+     * Envía un mensaje de texto al número indicado. Un fallo del proveedor no se propaga: se registra y se cuenta.
+     *
+     * @param numeroTelefonico the destination phone number.
+     * @param texto the text to send.
+     * @return {@code true} if the provider accepted the message.
+     */
+    public boolean enviar(String numeroTelefonico, String texto) {
+        if (whatsappSender == null) {
+            sinProveedorCounter.increment();
+            LOG.warn("No WhatsApp sender configured, reply to {} not sent", enmascarar(numeroTelefonico));
+            return false;
+        }
+        try {
+            whatsappSender.enviar(numeroTelefonico, texto);
+        } catch (RuntimeException e) {
+            fallidasCounter.increment();
+            LOG.warn("Could not send WhatsApp reply to {}: {}", enmascarar(numeroTelefonico), e.getMessage());
+            return false;
+        }
+        enviadasCounter.increment();
+        LOG.debug("Sent WhatsApp reply of {} chars to {}", texto.length(), enmascarar(numeroTelefonico));
+        return true;
+    }
+
+    /**
+     * Deja solo los cuatro últimos dígitos del número, para que los registros no guarden datos personales.
+     */
+    static String enmascarar(String numeroTelefonico) {
+        int visibles = Math.min(4, numeroTelefonico.length());
+        return "*".repeat(numeroTelefonico.length() - visibles) + numeroTelefonico.substring(numeroTelefonico.length() - visibles);
+    }
+}
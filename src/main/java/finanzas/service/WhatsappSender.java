@@ -0,0 +1,17 @@
+package finanzas.service;
+
+/**
+ * Envía mensajes de texto por WhatsApp a través de un proveedor. Lo usa {@link WhatsappReplyService} para las respuestas
+ * del bot que se generan en segundo plano.
+ * <p>
+ * Con {@code application.whatsapp.envio.url} se registra {@link WhatsappCloudApiSender}; otro proveedor (Twilio...) se
+ * conecta declarando un bean propio de este tipo y dejando la propiedad sin configurar.
+ */
+public interface WhatsappSender {
+    /**
+     * Envía {@code texto} a {@code numeroTelefonico}.
+     *
+     * @throws RuntimeException if the provider did not accept the message.
+     */
+    void enviar(String numeroTelefonico, String texto);
+}
@@ -0,0 +1,26 @@
+package finanzas.service.dto;
+
+import finanzas.domain.enumeration.PeriodicidadRecurrencia;
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ocurrencia esperada de una serie recurrente.
+ *
+ * @param fecha fecha esperada (UTC); puede ser algo anterior a hoy si el cargo se está retrasando.
+ * @param montoEstimado importe medio de la serie.
+ * @param montoMinimo importe mínimo observado en la serie.
+ * @param montoMaximo importe máximo observado en la serie.
+ */
+public record CargoPrevisto(
+    LocalDate fecha,
+    String descripcion,
+    TipoMovimiento tipo,
+    PeriodicidadRecurrencia periodicidad,
+    BigDecimal montoEstimado,
+    BigDecimal montoMinimo,
+    BigDecimal montoMaximo,
+    Long cuentaId,
+    Long categoriaId
+) {}
@@ -0,0 +1,27 @@
+package finanzas.service.dto;
+
+import finanzas.domain.enumeration.AgrupacionAnalitica;
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.time.LocalDate;
+
+/**
+ * Consulta analítica sobre los movimientos de un usuario. Los filtros {@code null} no filtran.
+ *
+ * @param agrupacion criterio de agrupación.
+ * @param desde primer día (UTC), inclusive.
+ * @param hasta último día (UTC), inclusive.
+ * @param limite número máximo de grupos devueltos; {@code null} o 0 para todos.
+ */
+public record ConsultaAnalitica(
+    AgrupacionAnalitica agrupacion,
+    LocalDate desde,
+    LocalDate hasta,
+    TipoMovimiento tipo,
+    Long categoriaId,
+    Long cuentaId,
+    Integer limite
+) {
+    public ConsultaAnalitica {
+        agrupacion = agrupacion != null ? agrupacion : AgrupacionAnalitica.TOTAL;
+    }
+}
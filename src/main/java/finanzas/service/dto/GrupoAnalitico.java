@@ -0,0 +1,18 @@
+package finanzas.service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Resultado de una consulta analítica para un grupo.
+ *
+ * @param clave valor del grupo: la fecha ISO del día o del lunes de la semana, {@code yyyy-MM} para meses, el año, el
+ * nombre del día de la semana o el id de la categoría o cuenta; {@code null} para el total y para los movimientos sin
+ * categoría o cuenta.
+ * @param movimientos número de movimientos del grupo.
+ * @param gastoMedio importe medio de los gastos del grupo; {@code null} si no tiene gastos.
+ */
+public record GrupoAnalitico(String clave, BigDecimal ingresos, BigDecimal gastos, long movimientos, BigDecimal gastoMedio) {
+    public BigDecimal neto() {
+        return ingresos.subtract(gastos);
+    }
+}
@@ -0,0 +1,21 @@
+package finanzas.service.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación de movimientos.
+ *
+ * @param filas filas leídas.
+ * @param importados movimientos creados.
+ * @param rechazados filas rechazadas por no superar la validación.
+ * @param errores detalle de las primeras filas rechazadas.
+ */
+public record ImportacionResultado(long filas, long importados, long rechazados, List<ErrorFila> errores) {
+    /**
+     * Error de validación de una fila.
+     *
+     * @param fila número de fila, empezando en 1 (sin contar la cabecera del CSV).
+     * @param mensaje motivo del rechazo.
+     */
+    public record ErrorFila(long fila, String mensaje) {}
+}
@@ -0,0 +1,37 @@
+package finanzas.service.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para la paginación por clave de movimientos: la posición {@code (fechaMovimiento, id)} de la última fila
+ * devuelta. Se serializa en Base64 URL-safe para poder viajar como parámetro de consulta.
+ */
+public record MovimientoCursor(ZonedDateTime fechaMovimiento, Long id) {
+    public String encode() {
+        String raw = fechaMovimiento.toInstant().toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param value the encoded cursor.
+     * @return the decoded cursor.
+     * @throws IllegalArgumentException if {@code value} is not a valid cursor.
+     */
+    public static MovimientoCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            ZonedDateTime fecha = Instant.parse(raw.substring(0, sep)).atZone(ZoneOffset.UTC);
+            return new MovimientoCursor(fecha, Long.valueOf(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
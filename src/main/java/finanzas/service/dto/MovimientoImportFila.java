@@ -0,0 +1,14 @@
+package finanzas.service.dto;
+
+/**
+ * Una fila de una importación de movimientos, tal como llega en el JSON o el CSV. Todos los campos se reciben como
+ * texto y se validan al importar, para poder informar del error de cada fila en lugar de rechazar el fichero entero.
+ *
+ * @param fecha fecha ({@code yyyy-MM-dd}) o fecha y hora ISO-8601 del movimiento.
+ * @param tipo {@code GASTO} o {@code INGRESO}, sin distinguir mayúsculas.
+ * @param monto importe positivo con como mucho dos decimales.
+ * @param descripcion descripción opcional.
+ * @param categoria nombre de una categoría del usuario, opcional.
+ * @param cuenta nombre de una cuenta del usuario; si falta se usa la cuenta por defecto.
+ */
+public record MovimientoImportFila(String fecha, String tipo, String monto, String descripcion, String categoria, String cuenta) {}
@@ -0,0 +1,11 @@
+package finanzas.service.dto;
+
+import java.util.List;
+
+/**
+ * Una página de movimientos obtenida por cursor.
+ *
+ * @param content movimientos de la página, del más reciente al más antiguo.
+ * @param next cursor de la página siguiente, o {@code null} si no hay más resultados.
+ */
+public record MovimientoSlice(List<MovimientoDTO> content, MovimientoCursor next) {}
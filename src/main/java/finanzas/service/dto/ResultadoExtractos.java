@@ -0,0 +1,12 @@
+package finanzas.service.dto;
+
+import java.time.YearMonth;
+
+/**
+ * Resultado de una generación de extractos mensuales.
+ *
+ * @param usuarios usuarios cuyos extractos se escribieron en esta ejecución.
+ * @param lineas líneas escritas en esta ejecución.
+ * @param completado {@code false} si falló; se reanuda en la siguiente ejecución.
+ */
+public record ResultadoExtractos(YearMonth mes, long usuarios, long lineas, boolean completado) {}
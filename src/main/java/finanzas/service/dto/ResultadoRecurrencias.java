@@ -0,0 +1,11 @@
+package finanzas.service.dto;
+
+/**
+ * Resultado de una ejecución de la detección de movimientos recurrentes.
+ *
+ * @param usuarios usuarios revisados.
+ * @param claves claves de recurrencia con movimientos nuevos o modificados desde la ejecución anterior.
+ * @param series series detectadas en esas claves.
+ * @param completado {@code false} si falló; la marca de agua no avanza y la siguiente ejecución repite el intervalo.
+ */
+public record ResultadoRecurrencias(long usuarios, long claves, long series, boolean completado) {}
@@ -1,32 +1,34 @@
 package finanzas.service.dto;
 
+import java.math.BigDecimal;
+
 public class ResumenFinancieroDTO {
 
-    private double totalIngresos;
-    private double totalGastos;
-    private double balance;
+    private BigDecimal totalIngresos;
+    private BigDecimal totalGastos;
+    private BigDecimal balance;
 
-    public double getTotalIngresos() {
+    public BigDecimal getTotalIngresos() {
         return totalIngresos;
     }
 
-    public void setTotalIngresos(double totalIngresos) {
+    public void setTotalIngresos(BigDecimal totalIngresos) {
         this.totalIngresos = totalIngresos;
     }
 
-    public double getTotalGastos() {
+    public BigDecimal getTotalGastos() {
         return totalGastos;
     }
 
-    public void setTotalGastos(double totalGastos) {
+    public void setTotalGastos(BigDecimal totalGastos) {
         this.totalGastos = totalGastos;
     }
 
-    public double getBalance() {
+    public BigDecimal getBalance() {
         return balance;
     }
 
-    public void setBalance(double balance) {
+    public void setBalance(BigDecimal balance) {
         this.balance = balance;
     }
 }
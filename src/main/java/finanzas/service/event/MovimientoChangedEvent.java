@@ -0,0 +1,14 @@
+package finanzas.service.event;
+
+import finanzas.repository.projection.MovimientoSnapshot;
+
+/**
+ * Publicado por {@link finanzas.service.MovimientoService} cada vez que se crea, modifica o elimina un movimiento.
+ * <p>
+ * {@code anterior} es {@code null} en las altas y {@code actual} es {@code null} en las bajas. Los listeners
+ * síncronos se ejecutan dentro de la transacción que originó el cambio.
+ *
+ * @param anterior estado previo del movimiento.
+ * @param actual estado resultante del movimiento.
+ */
+public record MovimientoChangedEvent(MovimientoSnapshot anterior, MovimientoSnapshot actual) {}
@@ -0,0 +1,13 @@
+package finanzas.service.event;
+
+import finanzas.repository.projection.MovimientoSnapshot;
+import java.util.List;
+
+/**
+ * Publicado por {@link finanzas.service.MovimientoService} al crear movimientos en bloque (importaciones), en lugar
+ * de un {@link MovimientoChangedEvent} por movimiento. Los listeners que mantienen datos derivados deben tratarlo
+ * como una serie de altas, agrupándolas para escribir una vez por clave y no una vez por movimiento.
+ *
+ * @param creados estado de los movimientos creados.
+ */
+public record MovimientosCreadosEvent(List<MovimientoSnapshot> creados) {}
@@ -0,0 +1,10 @@
+package finanzas.service.event;
+
+/**
+ * Publicado cuando un mensaje de WhatsApp procesado en segundo plano llega a un estado final y tiene respuesta del bot.
+ *
+ * @param messageId id del {@link finanzas.domain.WhatsappMessage}.
+ * @param numeroTelefonico número al que hay que responder.
+ * @param respuesta texto de la respuesta del bot.
+ */
+public record WhatsappMessageProcessedEvent(Long messageId, String numeroTelefonico, String respuesta) {}
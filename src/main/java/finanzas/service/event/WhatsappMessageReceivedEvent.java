@@ -0,0 +1,13 @@
+package finanzas.service.event;
+
+import finanzas.repository.projection.ClaveMensaje;
+
+/**
+ * Publicado cuando se persiste un mensaje de WhatsApp entrante en estado {@code RECIBIDO}.
+ * <p>
+ * Se consume tras el commit de la transacción que lo guardó, de modo que el procesamiento asíncrono siempre
+ * encuentra el mensaje en la base de datos.
+ *
+ * @param clave clave del {@link finanzas.domain.WhatsappMessage} recibido.
+ */
+public record WhatsappMessageReceivedEvent(ClaveMensaje clave) {}
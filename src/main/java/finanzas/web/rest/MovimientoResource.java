@@ -1,19 +1,42 @@
 package finanzas.web.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.MovimientoFiltro;
 import finanzas.repository.MovimientoRepository;
+import finanzas.service.MovimientoExportService;
+import finanzas.service.MovimientoImportService;
 import finanzas.service.MovimientoService;
+import finanzas.service.dto.ImportacionResultado;
+import finanzas.service.dto.MovimientoCursor;
 import finanzas.service.dto.MovimientoDTO;
+import finanzas.service.dto.MovimientoImportFila;
+import finanzas.service.dto.MovimientoSlice;
 import finanzas.web.rest.errors.BadRequestAlertException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -25,6 +48,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
@@ -39,6 +64,12 @@ public class MovimientoResource {
 
     private static final String ENTITY_NAME = "movimiento";
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -46,9 +77,24 @@ public class MovimientoResource {
 
     private final MovimientoRepository movimientoRepository;
 
-    public MovimientoResource(MovimientoService movimientoService, MovimientoRepository movimientoRepository) {
+    private final ObjectMapper objectMapper;
+
+    private final MovimientoImportService movimientoImportService;
+
+    private final MovimientoExportService movimientoExportService;
+
+    public MovimientoResource(
+        MovimientoService movimientoService,
+        MovimientoRepository movimientoRepository,
+        ObjectMapper objectMapper,
+        MovimientoImportService movimientoImportService,
+        MovimientoExportService movimientoExportService
+    ) {
         this.movimientoService = movimientoService;
         this.movimientoRepository = movimientoRepository;
+        this.objectMapper = objectMapper;
+        this.movimientoImportService = movimientoImportService;
+        this.movimientoExportService = movimientoExportService;
     }
 
     /**
@@ -161,17 +207,266 @@ public class MovimientoResource {
     }
 
     /**
-     * {@code GET  /movimientos} : get all the movimientos.
+     * {@code GET  /movimientos} : get one page of the current user's movimientos, newest first.
+     * <p>
+     * Pagination is cursor based: when more results exist the response carries an {@code X-Next-Cursor} header (and a
+     * {@code Link rel="next"}) whose value must be passed back as {@code cursor} to read the next page.
      *
-     * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
+     * @param desde optional minimum fechaMovimiento (inclusive).
+     * @param hasta optional maximum fechaMovimiento (inclusive).
+     * @param cuentaId optional cuenta filter.
+     * @param categoriaId optional categoria filter.
+     * @param tipo optional tipo filter.
+     * @param cursor the cursor returned by the previous page, absent for the first page.
+     * @param size the page size.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of movimientos in body.
      */
     @GetMapping("")
-    public List<MovimientoDTO> getAllMovimientos(
-        @RequestParam(name = "eagerload", required = false, defaultValue = "true") boolean eagerload
+    public ResponseEntity<List<MovimientoDTO>> getAllMovimientos(
+        @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime desde,
+        @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime hasta,
+        @RequestParam(name = "cuentaId", required = false) Long cuentaId,
+        @RequestParam(name = "categoriaId", required = false) Long categoriaId,
+        @RequestParam(name = "tipo", required = false) TipoMovimiento tipo,
+        @RequestParam(name = "cursor", required = false) String cursor,
+        @RequestParam(name = "size", required = false, defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+    ) {
+        LOG.debug("REST request to get a page of Movimientos");
+        MovimientoCursor position = decodeCursor(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Optional<MovimientoFiltro> filtro = movimientoService.filtroForCurrentUser(desde, hasta, cuentaId, categoriaId, tipo);
+        if (filtro.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+
+        MovimientoSlice slice = movimientoService.findSlice(filtro.orElseThrow(), position, pageSize);
+        return sliceResponse(slice, pageSize);
+    }
+
+    /**
+     * {@code GET  /movimientos/search} : search the current user's movimientos by descripcion, newest first.
+     * <p>
+     * {@code q} is matched by full text in Spanish and English (quoted phrases, {@code or} and {@code -word} are
+     * supported), by trigram similarity for misspelt words and as a substring. The other filters and the cursor
+     * pagination work as in {@code GET /movimientos}.
+     *
+     * @param q the text to search for.
+     * @param desde optional minimum fechaMovimiento (inclusive).
+     * @param hasta optional maximum fechaMovimiento (inclusive).
+     * @param cuentaId optional cuenta filter.
+     * @param categoriaId optional categoria filter.
+     * @param tipo optional tipo filter.
+     * @param cursor the cursor returned by the previous page, absent for the first page.
+     * @param size the page size.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of movimientos in body, or with status
+     * {@code 400 (Bad Request)} if {@code q} is blank or too long.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<MovimientoDTO>> searchMovimientos(
+        @RequestParam(name = "q") String q,
+        @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime desde,
+        @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime hasta,
+        @RequestParam(name = "cuentaId", required = false) Long cuentaId,
+        @RequestParam(name = "categoriaId", required = false) Long categoriaId,
+        @RequestParam(name = "tipo", required = false) TipoMovimiento tipo,
+        @RequestParam(name = "cursor", required = false) String cursor,
+        @RequestParam(name = "size", required = false, defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+    ) {
+        LOG.debug("REST request to search Movimientos : {}", q);
+        MovimientoCursor position = decodeCursor(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Optional<MovimientoFiltro> filtro = movimientoService.filtroForCurrentUser(desde, hasta, cuentaId, categoriaId, tipo);
+        if (filtro.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+
+        try {
+            return sliceResponse(movimientoService.searchSlice(filtro.orElseThrow(), q, position, pageSize), pageSize);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "searchinvalid");
+        }
+    }
+
+    private static ResponseEntity<List<MovimientoDTO>> sliceResponse(MovimientoSlice slice, int pageSize) {
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.next() != null) {
+            String next = slice.next().encode();
+            headers.add(NEXT_CURSOR_HEADER, next);
+            String nextUri = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", next)
+                .replaceQueryParam("size", pageSize)
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + nextUri + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(slice.content());
+    }
+
+    /**
+     * {@code GET  /movimientos/stream} : stream all the current user's movimientos matching the filters as a JSON array.
+     * <p>
+     * Rows are read through a forward-only cursor and written as they arrive, so memory use does not grow with the
+     * number of movimientos.
+     *
+     * @param desde optional minimum fechaMovimiento (inclusive).
+     * @param hasta optional maximum fechaMovimiento (inclusive).
+     * @param cuentaId optional cuenta filter.
+     * @param categoriaId optional categoria filter.
+     * @param tipo optional tipo filter.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed JSON array in body.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMovimientos(
+        @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime desde,
+        @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime hasta,
+        @RequestParam(name = "cuentaId", required = false) Long cuentaId,
+        @RequestParam(name = "categoriaId", required = false) Long categoriaId,
+        @RequestParam(name = "tipo", required = false) TipoMovimiento tipo
+    ) {
+        LOG.debug("REST request to stream Movimientos");
+        // resolved on the request thread: the body is written from an async thread without the security context
+        Optional<MovimientoFiltro> filtro = movimientoService.filtroForCurrentUser(desde, hasta, cuentaId, categoriaId, tipo);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.writeStartArray();
+                if (filtro.isPresent()) {
+                    movimientoService.forEach(filtro.orElseThrow(), dto -> {
+                        try {
+                            generator.writeObject(dto);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * {@code GET  /movimientos/export} : export the current user's movimientos as a CSV or NDJSON file, newest first.
+     * <p>
+     * Like {@code /movimientos/stream}, rows are written as they are read from a forward-only cursor, so the whole
+     * history can be exported in constant memory. With {@code gzip=true} the body is compressed on the fly and sent
+     * with {@code Content-Encoding: gzip}.
+     *
+     * @param format {@code csv} (default, same columns as the import) or {@code ndjson}.
+     * @param from optional first day (UTC, inclusive).
+     * @param to optional last day (UTC, inclusive).
+     * @param gzip whether to compress the body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed file in body, or with status
+     * {@code 400 (Bad Request)} if the format or the date range is invalid.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMovimientos(
+        @RequestParam(name = "format", required = false, defaultValue = "csv") String format,
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(name = "gzip", required = false, defaultValue = "false") boolean gzip
     ) {
-        LOG.debug("REST request to get all Movimientos");
-        return movimientoService.findAll();
+        LOG.debug("REST request to export Movimientos as {} from {} to {}", format, from, to);
+        MovimientoExportService.Formato formato;
+        try {
+            formato = MovimientoExportService.Formato.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "exportformatinvalid");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestAlertException("from must not be after to", ENTITY_NAME, "daterangeinvalid");
+        }
+        ZonedDateTime desde = from != null ? from.atStartOfDay(ZoneOffset.UTC) : null;
+        // último instante representable del día en PostgreSQL (precisión de microsegundos)
+        ZonedDateTime hasta = to != null ? to.plusDays(1).atStartOfDay(ZoneOffset.UTC).minus(1, ChronoUnit.MICROS) : null;
+        // resolved on the request thread: the body is written from an async thread without the security context
+        Optional<MovimientoFiltro> filtro = movimientoService.filtroForCurrentUser(desde, hasta, null, null, null);
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                try (GZIPOutputStream comprimido = new GZIPOutputStream(outputStream, 8192)) {
+                    exportar(filtro, formato, comprimido);
+                }
+            } else {
+                exportar(filtro, formato, outputStream);
+            }
+        };
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(formato.getContentType() + ";charset=UTF-8"));
+        headers.setContentDisposition(ContentDisposition.attachment().filename("movimientos." + formato.getExtension()).build());
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    private void exportar(Optional<MovimientoFiltro> filtro, MovimientoExportService.Formato formato, OutputStream out) throws IOException {
+        if (filtro.isPresent()) {
+            long filas = movimientoExportService.exportar(filtro.orElseThrow(), formato, out);
+            LOG.debug("Exported {} movimientos", filas);
+        }
+    }
+
+    /**
+     * {@code POST  /movimientos/import} : import movimientos for the current user from a JSON array of
+     * {@link MovimientoImportFila}.
+     * <p>
+     * The body is read as a stream and inserted in JDBC batches. Invalid rows are skipped and reported in the result
+     * with their row number; the valid ones are imported.
+     *
+     * @param body the request body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the import result in body, or with status
+     * {@code 400 (Bad Request)} if the body is not a JSON array.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportacionResultado> importMovimientosJson(InputStream body) {
+        LOG.debug("REST request to import Movimientos from JSON");
+        Long usuarioId = currentUserIdForImport();
+        return importar(() -> movimientoImportService.importarJson(usuarioId, body));
+    }
+
+    /**
+     * {@code POST  /movimientos/import} : import movimientos for the current user from a CSV file with a header line
+     * naming the columns ({@code fecha,tipo,monto,descripcion,categoria,cuenta}).
+     *
+     * @param body the request body, UTF-8 encoded.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the import result in body, or with status
+     * {@code 400 (Bad Request)} if the CSV header is missing or invalid.
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportacionResultado> importMovimientosCsv(InputStream body) {
+        LOG.debug("REST request to import Movimientos from CSV");
+        Long usuarioId = currentUserIdForImport();
+        return importar(() -> movimientoImportService.importarCsv(usuarioId, body));
+    }
+
+    private Long currentUserIdForImport() {
+        return movimientoImportService
+            .getCurrentUserId()
+            .orElseThrow(() -> new BadRequestAlertException("Current user not found", ENTITY_NAME, "usernotfound"));
+    }
+
+    private ResponseEntity<ImportacionResultado> importar(Importacion importacion) {
+        try {
+            ImportacionResultado resultado = importacion.run();
+            LOG.debug("Imported {} of {} movimientos", resultado.importados(), resultado.filas());
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new BadRequestAlertException("Invalid import file: " + e.getMessage(), ENTITY_NAME, "importinvalid");
+        }
+    }
+
+    @FunctionalInterface
+    private interface Importacion {
+        ImportacionResultado run() throws IOException;
+    }
+
+    private static MovimientoCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return MovimientoCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
     }
 
     /**
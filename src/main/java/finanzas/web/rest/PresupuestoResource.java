@@ -1,6 +1,8 @@
 package finanzas.web.rest;
 
 import finanzas.repository.PresupuestoRepository;
+import finanzas.repository.projection.ConsumoPresupuesto;
+import finanzas.service.PresupuestoConsumoService;
 import finanzas.service.PresupuestoService;
 import finanzas.service.dto.PresupuestoDTO;
 import finanzas.web.rest.errors.BadRequestAlertException;
@@ -37,9 +39,16 @@ public class PresupuestoResource {
 
     private final PresupuestoRepository presupuestoRepository;
 
-    public PresupuestoResource(PresupuestoService presupuestoService, PresupuestoRepository presupuestoRepository) {
+    private final PresupuestoConsumoService presupuestoConsumoService;
+
+    public PresupuestoResource(
+        PresupuestoService presupuestoService,
+        PresupuestoRepository presupuestoRepository,
+        PresupuestoConsumoService presupuestoConsumoService
+    ) {
         this.presupuestoService = presupuestoService;
         this.presupuestoRepository = presupuestoRepository;
+        this.presupuestoConsumoService = presupuestoConsumoService;
     }
 
     /**
@@ -157,6 +166,29 @@ public class PresupuestoResource {
         return ResponseUtil.wrapOrNotFound(presupuestoDTO);
     }
 
+    /**
+     * {@code GET  /presupuestos/consumo} : get the consumption of the current user's presupuestos active today.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the consumption of each active presupuesto in body.
+     */
+    @GetMapping("/consumo")
+    public List<ConsumoPresupuesto> getConsumoPresupuestosActivos() {
+        LOG.debug("REST request to get the consumption of active Presupuestos");
+        return presupuestoConsumoService.findActivos();
+    }
+
+    /**
+     * {@code GET  /presupuestos/:id/consumo} : get how much of the "id" presupuesto has been spent.
+     *
+     * @param id the id of the presupuesto.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the consumption, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}/consumo")
+    public ResponseEntity<ConsumoPresupuesto> getConsumoPresupuesto(@PathVariable("id") Long id) {
+        LOG.debug("REST request to get the consumption of Presupuesto : {}", id);
+        return ResponseUtil.wrapOrNotFound(presupuestoConsumoService.findOne(id));
+    }
+
     /**
      * {@code DELETE  /presupuestos/:id} : delete the "id" presupuesto.
      *
@@ -0,0 +1,226 @@
+package finanzas.web.rest;
+
+import finanzas.domain.enumeration.AgrupacionAnalitica;
+import finanzas.domain.enumeration.DimensionRollup;
+import finanzas.domain.enumeration.PeriodoRollup;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.projection.LineaExtracto;
+import finanzas.repository.projection.PuntoSerie;
+import finanzas.repository.projection.TotalesAgrupados;
+import finanzas.repository.projection.TotalesMovimiento;
+import finanzas.repository.projection.TotalesPeriodo;
+import finanzas.security.AuthoritiesConstants;
+import finanzas.service.AnaliticaService;
+import finanzas.service.ExtractoMensualService;
+import finanzas.service.ReportService;
+import finanzas.service.SerieRecurrenteService;
+import finanzas.service.dto.CargoPrevisto;
+import finanzas.service.dto.ConsultaAnalitica;
+import finanzas.service.dto.GrupoAnalitico;
+import finanzas.web.rest.errors.BadRequestAlertException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for aggregated reports over the current user's movimientos.
+ * All totals are computed by the database; no movimiento entity is loaded.
+ */
+@RestController
+@RequestMapping("/api/reportes")
+public class ReportResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportResource.class);
+
+    private final ReportService reportService;
+
+    private final AnaliticaService analiticaService;
+
+    private final ExtractoMensualService extractoMensualService;
+
+    private final SerieRecurrenteService serieRecurrenteService;
+
+    public ReportResource(
+        ReportService reportService,
+        AnaliticaService analiticaService,
+        ExtractoMensualService extractoMensualService,
+        SerieRecurrenteService serieRecurrenteService
+    ) {
+        this.reportService = reportService;
+        this.analiticaService = analiticaService;
+        this.extractoMensualService = extractoMensualService;
+        this.serieRecurrenteService = serieRecurrenteService;
+    }
+
+    /**
+     * {@code GET  /reportes/totales} : ingresos y gastos totales del usuario actual.
+     */
+    @GetMapping("/totales")
+    public TotalesMovimiento getTotales() {
+        LOG.debug("REST request to get totals for current user");
+        return reportService.getTotalesUsuarioActual();
+    }
+
+    /**
+     * {@code GET  /reportes/categorias} : totales del usuario actual por categoría.
+     *
+     * @param from optional start of the range (inclusive).
+     * @param to optional end of the range (inclusive).
+     */
+    @GetMapping("/categorias")
+    public List<TotalesAgrupados> getTotalesPorCategoria(
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to
+    ) {
+        LOG.debug("REST request to get totals by categoria between {} and {}", from, to);
+        return reportService.getTotalesPorCategoria(from, to);
+    }
+
+    /**
+     * {@code GET  /reportes/cuentas} : totales del usuario actual por cuenta.
+     *
+     * @param from optional start of the range (inclusive).
+     * @param to optional end of the range (inclusive).
+     */
+    @GetMapping("/cuentas")
+    public List<TotalesAgrupados> getTotalesPorCuenta(
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to
+    ) {
+        LOG.debug("REST request to get totals by cuenta between {} and {}", from, to);
+        return reportService.getTotalesPorCuenta(from, to);
+    }
+
+    /**
+     * {@code GET  /reportes/meses} : totales mensuales del usuario actual.
+     *
+     * @param from optional start of the range (inclusive).
+     * @param to optional end of the range (inclusive).
+     */
+    @GetMapping("/meses")
+    public List<TotalesPeriodo> getTotalesPorMes(
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to
+    ) {
+        LOG.debug("REST request to get monthly totals between {} and {}", from, to);
+        return reportService.getTotalesPorMes(from, to);
+    }
+
+    /**
+     * {@code GET  /reportes/series} : serie temporal de ingresos y gastos del usuario actual.
+     * <p>
+     * Se sirve desde los acumulados por periodo, así que un rango de varios años en meses lee unas decenas de filas.
+     *
+     * @param periodo granularidad: {@code DIA}, {@code SEMANA} o {@code MES}.
+     * @param dimension optional breakdown by {@code CATEGORIA} or {@code CUENTA}; one total per period if absent.
+     * @param from optional first day (UTC) of the range, inclusive; defaults to one year before {@code to}.
+     * @param to optional last day (UTC) of the range, inclusive; defaults to today.
+     */
+    @GetMapping("/series")
+    public ResponseEntity<List<PuntoSerie>> getSerie(
+        @RequestParam(name = "periodo", defaultValue = "MES") PeriodoRollup periodo,
+        @RequestParam(name = "dimension", required = false) DimensionRollup dimension,
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        LOG.debug("REST request to get {} series by {} between {} and {}", periodo, dimension, from, to);
+        LocalDate hasta = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate desde = from != null ? from : hasta.minusYears(1);
+        if (desde.isAfter(hasta)) {
+            throw new BadRequestAlertException("from must not be after to", "reporte", "rangeinvalid");
+        }
+        return ResponseEntity.ok(reportService.getSerie(periodo, dimension, desde, hasta));
+    }
+
+    /**
+     * {@code GET  /reportes/analitica} : ingresos, gastos, número de movimientos y gasto medio del usuario actual,
+     * agrupados y filtrados a voluntad.
+     * <p>
+     * Se calcula en memoria sobre una instantánea de los movimientos del usuario, que se carga la primera vez y se
+     * revalida periódicamente contra la base de datos (ver {@link AnaliticaService}).
+     *
+     * @param agrupacion {@code TOTAL}, {@code DIA}, {@code SEMANA}, {@code MES}, {@code ANIO}, {@code DIA_SEMANA},
+     * {@code CATEGORIA} or {@code CUENTA}; categories and accounts are sorted by spending, highest first.
+     * @param desde optional first day (UTC), inclusive.
+     * @param hasta optional last day (UTC), inclusive.
+     * @param limite optional maximum number of groups.
+     */
+    @GetMapping("/analitica")
+    public ResponseEntity<List<GrupoAnalitico>> getAnalitica(
+        @RequestParam(name = "agrupacion", defaultValue = "TOTAL") AgrupacionAnalitica agrupacion,
+        @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+        @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+        @RequestParam(name = "tipo", required = false) TipoMovimiento tipo,
+        @RequestParam(name = "categoriaId", required = false) Long categoriaId,
+        @RequestParam(name = "cuentaId", required = false) Long cuentaId,
+        @RequestParam(name = "limite", required = false) Integer limite
+    ) {
+        LOG.debug("REST request to get analytics by {} between {} and {}", agrupacion, desde, hasta);
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new BadRequestAlertException("desde must not be after hasta", "reporte", "rangeinvalid");
+        }
+        ConsultaAnalitica consulta = new ConsultaAnalitica(agrupacion, desde, hasta, tipo, categoriaId, cuentaId, limite);
+        return ResponseEntity.ok(analiticaService.consultar(consulta));
+    }
+
+    /**
+     * {@code GET  /reportes/extractos/:mes} : extracto mensual del usuario actual (total, cuentas con su saldo al cierre,
+     * categorías y presupuestos), tal como se generó a final de mes.
+     *
+     * @param mes the month, as {@code yyyy-MM}.
+     * @return the statement lines; empty if the statement has not been generated.
+     */
+    @GetMapping("/extractos/{mes}")
+    public List<LineaExtracto> getExtracto(@PathVariable("mes") YearMonth mes) {
+        LOG.debug("REST request to get the statement of {}", mes);
+        return extractoMensualService.findForCurrentUser(mes);
+    }
+
+    /**
+     * {@code GET  /reportes/recurrentes/proximos} : cargos (o ingresos) recurrentes que se esperan en los próximos días,
+     * según las series detectadas en el histórico del usuario actual.
+     *
+     * @param dias size of the window, from 1 to 366 days.
+     * @param tipo optional tipo filter.
+     * @return the expected occurrences, by date.
+     */
+    @GetMapping("/recurrentes/proximos")
+    public List<CargoPrevisto> getProximosRecurrentes(
+        @RequestParam(name = "dias", defaultValue = "30") int dias,
+        @RequestParam(name = "tipo", required = false) TipoMovimiento tipo
+    ) {
+        LOG.debug("REST request to get the expected recurring movements of the next {} days", dias);
+        if (dias < 1 || dias > 366) {
+            throw new BadRequestAlertException("dias must be between 1 and 366", "reporte", "rangeinvalid");
+        }
+        return serieRecurrenteService.findProximosForCurrentUser(dias, tipo);
+    }
+
+    /**
+     * {@code GET  /reportes/usuarios} : totales de todos los usuarios agrupados por usuario.
+     *
+     * @param from optional start of the range (inclusive).
+     * @param to optional end of the range (inclusive).
+     */
+    @GetMapping("/usuarios")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public List<TotalesAgrupados> getTotalesPorUsuario(
+        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to
+    ) {
+        LOG.debug("REST request to get totals by usuario between {} and {}", from, to);
+        return reportService.getTotalesPorUsuario(from, to);
+    }
+}
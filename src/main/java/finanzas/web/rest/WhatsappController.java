@@ -2,6 +2,9 @@ package finanzas.web.rest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -10,7 +13,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import finanzas.config.ApplicationProperties;
 import finanzas.service.WhatsappMessageService;
+import finanzas.service.WhatsappRateLimiter;
 import finanzas.web.rest.dto.WhatsappMessageDTO;
 
 /**
@@ -25,8 +30,18 @@ public class WhatsappController {
 
     private final WhatsappMessageService whatsappMessageService;
 
-    public WhatsappController(WhatsappMessageService whatsappMessageService) {
+    private final WhatsappRateLimiter whatsappRateLimiter;
+
+    private final boolean ackFast;
+
+    public WhatsappController(
+        WhatsappMessageService whatsappMessageService,
+        WhatsappRateLimiter whatsappRateLimiter,
+        ApplicationProperties applicationProperties
+    ) {
         this.whatsappMessageService = whatsappMessageService;
+        this.whatsappRateLimiter = whatsappRateLimiter;
+        this.ackFast = applicationProperties.getWhatsapp().isAckFast();
     }
 
     /**
@@ -48,8 +63,25 @@ public class WhatsappController {
             return ResponseEntity.badRequest().build();
         }
 
-        // Procesar el mensaje
-        WhatsappMessageDTO resultado = whatsappMessageService.procesarMensajeWhatsApp(request.getFrom(), request.getText());
+        // Un remitente o un proveedor que envía demasiado se corta aquí, sin consultas; el proveedor reintenta más tarde.
+        long espera = whatsappRateLimiter.consumir(request.getFrom());
+        if (espera > 0) {
+            log.debug("Límite de mensajes superado por {}, reintentar en {} s", request.getFrom(), espera);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, Long.toString(espera)).build();
+        }
+
+        // Procesar el mensaje; los reintentos del proveedor con el mismo message_id devuelven el mensaje ya registrado.
+        // En modo ack-fast solo se guarda el mensaje: se procesa en segundo plano y la respuesta del bot se envía aparte.
+        WhatsappMessageDTO resultado;
+        try {
+            resultado = ackFast
+                ? whatsappMessageService.registrarMensajeWhatsApp(request.getFrom(), request.getText(), request.getMessage_id())
+                : whatsappMessageService.procesarMensajeWhatsApp(request.getFrom(), request.getText(), request.getMessage_id());
+        } catch (DataIntegrityViolationException e) {
+            // otra entrega del mismo message_id se registró a la vez y ganó el índice único
+            log.debug("Entrega concurrente duplicada del mensaje {}", request.getMessage_id());
+            resultado = whatsappMessageService.buscarPorProviderMessageId(request.getMessage_id()).orElseThrow(() -> e);
+        }
 
         return ResponseEntity.ok(resultado);
     }
@@ -1,15 +1,17 @@
 package finanzas.web.rest;
 
 import finanzas.domain.User;
-import finanzas.domain.WhatsappMessage;
-import finanzas.domain.enumeration.EstadoProcesamiento;
-import finanzas.repository.UserRepository;
-import finanzas.repository.WhatsappMessageRepository;
+import finanzas.service.UserService;
+import finanzas.service.WhatsappMessageProcessorService;
+import finanzas.service.WhatsappRateLimiter;
+import finanzas.service.WhatsappRecentMessageIds;
 import finanzas.web.rest.dto.WhatsappInboundMessageDTO;
-import java.time.ZonedDateTime;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,24 +21,46 @@ public class WhatsappWebhookResource {
 
     private final Logger log = LoggerFactory.getLogger(WhatsappWebhookResource.class);
 
-    private final WhatsappMessageRepository whatsappMessageRepository;
-    private final UserRepository userRepository;
+    private final WhatsappMessageProcessorService whatsappMessageProcessorService;
+    private final WhatsappRecentMessageIds recentMessageIds;
+    private final UserService userService;
+    private final WhatsappRateLimiter whatsappRateLimiter;
 
-    public WhatsappWebhookResource(WhatsappMessageRepository whatsappMessageRepository, UserRepository userRepository) {
-        this.whatsappMessageRepository = whatsappMessageRepository;
-        this.userRepository = userRepository;
+    public WhatsappWebhookResource(
+        WhatsappMessageProcessorService whatsappMessageProcessorService,
+        WhatsappRecentMessageIds recentMessageIds,
+        UserService userService,
+        WhatsappRateLimiter whatsappRateLimiter
+    ) {
+        this.whatsappMessageProcessorService = whatsappMessageProcessorService;
+        this.recentMessageIds = recentMessageIds;
+        this.userService = userService;
+        this.whatsappRateLimiter = whatsappRateLimiter;
     }
 
     @PostMapping("/whatsapp-webhook")
     public ResponseEntity<Void> receiveWhatsappMessage(@RequestBody WhatsappInboundMessageDTO inboundMessage) {
         log.info("Received WhatsApp message: {}", inboundMessage);
 
+        // Exceso de un remitente o del total: se rechaza antes de cualquier consulta y el proveedor lo reintenta.
+        long espera = whatsappRateLimiter.consumir(inboundMessage.getFrom());
+        if (espera > 0) {
+            log.debug("Rate limit exceeded by {}, retry in {} s", inboundMessage.getFrom(), espera);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, Long.toString(espera)).build();
+        }
+
+        // Reintento del proveedor de un mensaje ya guardado: se confirma sin volver a procesarlo.
+        if (recentMessageIds.buscar(inboundMessage.getMessageId()).isPresent()) {
+            log.debug("Ignoring redelivery of WhatsApp message {}", inboundMessage.getMessageId());
+            return ResponseEntity.ok().build();
+        }
+
         // El número de teléfono puede venir en formatos como "whatsapp:+14155238886"
         // Necesitamos limpiarlo para que solo queden los dígitos.
-        String cleanPhoneNumber = inboundMessage.getFrom().replaceAll("[^\\d]", "");
+        String cleanPhoneNumber = User.normalizePhoneNumber(inboundMessage.getFrom());
 
-        // Asumimos que el número en la BD también está limpio de prefijos y símbolos.
-        Optional<User> userOptional = userRepository.findByPhoneNumber(cleanPhoneNumber);
+        // Se compara con el teléfono normalizado del usuario; los números conocidos se resuelven desde caché.
+        Optional<Long> userOptional = userService.findIdByNormalizedPhoneNumber(cleanPhoneNumber);
 
         if (userOptional.isEmpty()) {
             log.warn("Received message from unknown phone number: {}", cleanPhoneNumber);
@@ -45,20 +69,20 @@ public class WhatsappWebhookResource {
             return ResponseEntity.ok().build();
         }
 
-        User user = userOptional.orElseThrow();
-        WhatsappMessage whatsappMessage = new WhatsappMessage();
-        whatsappMessage.setMensajeOriginal(inboundMessage.getBody());
-        whatsappMessage.setNumeroTelefonico(cleanPhoneNumber);
-        whatsappMessage.setFechaRecepcion(ZonedDateTime.now());
-        whatsappMessage.setUsuario(user);
-        whatsappMessage.setEstado(EstadoProcesamiento.RECIBIDO);
-
-        whatsappMessageRepository.save(whatsappMessage);
-
-        log.info("Saved incoming WhatsApp message for user {}", user.getLogin());
+        Long userId = userOptional.orElseThrow();
+        // Se guarda en estado RECIBIDO; la cola de ingesta lo procesa en segundo plano tras el commit.
+        try {
+            whatsappMessageProcessorService.recibir(userId, cleanPhoneNumber, inboundMessage.getBody(), inboundMessage.getMessageId());
+        } catch (DataIntegrityViolationException e) {
+            // otra entrega del mismo mensaje se guardó a la vez y ganó el índice único
+            if (recentMessageIds.buscar(inboundMessage.getMessageId()).isEmpty()) {
+                throw e;
+            }
+            log.debug("Concurrent redelivery of WhatsApp message {}", inboundMessage.getMessageId());
+            return ResponseEntity.ok().build();
+        }
 
-        // Aquí se podría encolar un evento para procesar el mensaje de forma asíncrona.
-        // Por ahora, lo dejamos guardado en estado RECIBIDO.
+        log.info("Saved incoming WhatsApp message for user {}", userId);
 
         return ResponseEntity.ok().build();
     }
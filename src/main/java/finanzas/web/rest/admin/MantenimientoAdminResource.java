@@ -0,0 +1,158 @@
+package finanzas.web.rest.admin;
+
+import finanzas.security.AuthoritiesConstants;
+import finanzas.service.AnaliticaService;
+import finanzas.service.CuentaSaldoService;
+import finanzas.service.ExtractoMensualJob;
+import finanzas.service.MovimientoRollupService;
+import finanzas.service.PresupuestoConsumoService;
+import finanzas.service.SerieRecurrenteJob;
+import finanzas.service.WhatsappMessageRetentionJob;
+import java.time.YearMonth;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller para tareas de mantenimiento de datos derivados (reconstrucción de acumulados).
+ * Solo accesible por usuarios con rol ADMIN.
+ */
+@RestController
+@RequestMapping("/api/admin/mantenimiento")
+@PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+public class MantenimientoAdminResource {
+
+    private final Logger log = LoggerFactory.getLogger(MantenimientoAdminResource.class);
+
+    private final CuentaSaldoService cuentaSaldoService;
+
+    private final MovimientoRollupService movimientoRollupService;
+
+    private final PresupuestoConsumoService presupuestoConsumoService;
+
+    private final AnaliticaService analiticaService;
+
+    private final ExtractoMensualJob extractoMensualJob;
+
+    private final SerieRecurrenteJob serieRecurrenteJob;
+
+    private final WhatsappMessageRetentionJob whatsappMessageRetentionJob;
+
+    public MantenimientoAdminResource(
+        CuentaSaldoService cuentaSaldoService,
+        MovimientoRollupService movimientoRollupService,
+        PresupuestoConsumoService presupuestoConsumoService,
+        AnaliticaService analiticaService,
+        ExtractoMensualJob extractoMensualJob,
+        SerieRecurrenteJob serieRecurrenteJob,
+        WhatsappMessageRetentionJob whatsappMessageRetentionJob
+    ) {
+        this.cuentaSaldoService = cuentaSaldoService;
+        this.movimientoRollupService = movimientoRollupService;
+        this.presupuestoConsumoService = presupuestoConsumoService;
+        this.analiticaService = analiticaService;
+        this.extractoMensualJob = extractoMensualJob;
+        this.serieRecurrenteJob = serieRecurrenteJob;
+        this.whatsappMessageRetentionJob = whatsappMessageRetentionJob;
+    }
+
+    /**
+     * POST /admin/mantenimiento/saldos/reconstruir : recalcula el libro de saldos diarios por cuenta.
+     *
+     * @return número de filas diarias reconstruidas
+     */
+    @PostMapping("/saldos/reconstruir")
+    public ResponseEntity<Map<String, Integer>> reconstruirSaldos() {
+        log.debug("REST request to rebuild cuenta daily balances");
+        int filas = cuentaSaldoService.reconstruir();
+        return ResponseEntity.ok(Map.of("filas", filas));
+    }
+
+    /**
+     * POST /admin/mantenimiento/rollups/reconstruir : recalcula los acumulados por periodo de movimiento_rollup.
+     *
+     * @return número de filas de acumulados reconstruidas
+     */
+    @PostMapping("/rollups/reconstruir")
+    public ResponseEntity<Map<String, Integer>> reconstruirRollups() {
+        log.debug("REST request to rebuild movimiento rollups");
+        int filas = movimientoRollupService.reconstruir();
+        return ResponseEntity.ok(Map.of("filas", filas));
+    }
+
+    /**
+     * POST /admin/mantenimiento/presupuestos/reconstruir : recalcula el consumo de todos los presupuestos.
+     *
+     * @return número de presupuestos recalculados
+     */
+    @PostMapping("/presupuestos/reconstruir")
+    public ResponseEntity<Map<String, Integer>> reconstruirConsumoPresupuestos() {
+        log.debug("REST request to rebuild presupuesto consumption");
+        int filas = presupuestoConsumoService.reconstruir();
+        return ResponseEntity.ok(Map.of("filas", filas));
+    }
+
+    /**
+     * POST /admin/mantenimiento/analitica/vaciar : descarta las instantáneas analíticas en memoria; se recargan en la
+     * siguiente consulta de cada usuario.
+     *
+     * @return número de instantáneas descartadas
+     */
+    @PostMapping("/analitica/vaciar")
+    public ResponseEntity<Map<String, Integer>> vaciarAnalitica() {
+        log.debug("REST request to discard analytics snapshots");
+        int descartadas = analiticaService.vaciar();
+        return ResponseEntity.ok(Map.of("instantaneas", descartadas));
+    }
+
+    /**
+     * POST /admin/mantenimiento/extractos/:mes/generar : genera en segundo plano los extractos del mes, o reanuda una
+     * generación que falló o quedó a medias.
+     *
+     * @param mes el mes, como {@code yyyy-MM}
+     * @param reiniciar regenerar todos los extractos aunque el mes ya esté completo
+     * @return 202 Accepted
+     */
+    @PostMapping("/extractos/{mes}/generar")
+    public ResponseEntity<Void> generarExtractos(
+        @PathVariable("mes") YearMonth mes,
+        @RequestParam(name = "reiniciar", defaultValue = "false") boolean reiniciar
+    ) {
+        log.debug("REST request to generate the statements of {}", mes);
+        extractoMensualJob.lanzar(mes, reiniciar);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * POST /admin/mantenimiento/recurrencias/detectar : busca en segundo plano movimientos recurrentes en lo escrito desde
+     * la última detección, sin esperar a la ejecución nocturna.
+     *
+     * @return 202 Accepted
+     */
+    @PostMapping("/recurrencias/detectar")
+    public ResponseEntity<Void> detectarRecurrencias() {
+        log.debug("REST request to detect recurring movements");
+        serieRecurrenteJob.lanzar();
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * POST /admin/mantenimiento/whatsapp/particiones : crea en segundo plano las particiones de mensajes de WhatsApp que
+     * faltan y archiva las que superan la retención, sin esperar a la ejecución nocturna.
+     *
+     * @return 202 Accepted
+     */
+    @PostMapping("/whatsapp/particiones")
+    public ResponseEntity<Void> mantenerParticionesWhatsapp() {
+        log.debug("REST request to maintain the WhatsApp message partitions");
+        whatsappMessageRetentionJob.lanzar();
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -1,10 +1,11 @@
 package finanzas.web.rest.admin;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,11 +15,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import finanzas.repository.WhatsappMessageRepository;
 import finanzas.security.AuthoritiesConstants;
+import finanzas.service.WhatsappMessageProcessorService;
 import finanzas.service.WhatsappMessageService;
+import finanzas.service.dto.WhatsappMessageCursor;
 import finanzas.web.rest.dto.WhatsappMessageDTO;
+import finanzas.web.rest.errors.BadRequestAlertException;
 
 /**
  * REST controller para administración de mensajes WhatsApp.
@@ -29,33 +33,58 @@ import finanzas.web.rest.dto.WhatsappMessageDTO;
 @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
 public class WhatsappAdminResource {
 
+    private static final String ENTITY_NAME = "whatsappMessage";
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final Logger log = LoggerFactory.getLogger(WhatsappAdminResource.class);
 
-    private final WhatsappMessageRepository whatsappMessageRepository;
     private final WhatsappMessageService whatsappMessageService;
+    private final WhatsappMessageProcessorService whatsappMessageProcessorService;
 
     public WhatsappAdminResource(
-        WhatsappMessageRepository whatsappMessageRepository,
-        WhatsappMessageService whatsappMessageService
+        WhatsappMessageService whatsappMessageService,
+        WhatsappMessageProcessorService whatsappMessageProcessorService
     ) {
-        this.whatsappMessageRepository = whatsappMessageRepository;
         this.whatsappMessageService = whatsappMessageService;
+        this.whatsappMessageProcessorService = whatsappMessageProcessorService;
     }
 
     /**
-     * GET /admin/whatsapp/messages : obtener historial de mensajes WhatsApp
+     * GET /admin/whatsapp/messages : obtener historial de mensajes WhatsApp, los más recientes primero, por páginas. La
+     * siguiente página se pide con el cursor de la cabecera {@code X-Next-Cursor} (o el enlace {@code next}).
      *
+     * @param cursor el cursor devuelto por la página anterior, ausente para la primera
+     * @param size número de mensajes por página
      * @return lista de mensajes WhatsApp
      */
     @GetMapping("/messages")
-    public ResponseEntity<List<WhatsappMessageDTO>> getAllMessages() {
-        log.debug("REST request to get all WhatsApp messages");
-        List<WhatsappMessageDTO> messages = whatsappMessageRepository
-            .findAll()
-            .stream()
-            .map(whatsappMessageService::convertToDTO)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(messages);
+    public ResponseEntity<List<WhatsappMessageDTO>> getAllMessages(
+        @RequestParam(name = "cursor", required = false) String cursor,
+        @RequestParam(name = "size", required = false, defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+    ) {
+        log.debug("REST request to get a page of WhatsApp messages");
+        WhatsappMessageCursor position = decodeCursor(cursor);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<WhatsappMessageDTO> messages = whatsappMessageService.obtenerPagina(position, pageSize + 1);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (messages.size() > pageSize) {
+            messages = messages.subList(0, pageSize);
+            WhatsappMessageDTO ultimo = messages.get(pageSize - 1);
+            String next = new WhatsappMessageCursor(ultimo.getFechaRecepcion(), ultimo.getId()).encode();
+            headers.add(NEXT_CURSOR_HEADER, next);
+            String nextUri = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", next)
+                .replaceQueryParam("size", pageSize)
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + nextUri + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(messages);
     }
 
     /**
@@ -93,4 +122,31 @@ public class WhatsappAdminResource {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * POST /admin/whatsapp/descartados/reprocesar : vuelve a procesar en segundo plano los mensajes descartados tras
+     * agotar sus reintentos, los más antiguos primero.
+     *
+     * @param limite número máximo de mensajes a reprocesar
+     * @return número de mensajes reprocesados
+     */
+    @PostMapping("/descartados/reprocesar")
+    public ResponseEntity<Map<String, Integer>> reprocesarDescartados(
+        @RequestParam(name = "limite", defaultValue = "500") int limite
+    ) {
+        log.debug("REST request to replay {} discarded WhatsApp messages", limite);
+        int reprocesados = whatsappMessageProcessorService.reprocesarDescartados(limite);
+        return ResponseEntity.ok(Map.of("reprocesados", reprocesados));
+    }
+
+    private static WhatsappMessageCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return WhatsappMessageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+    }
 }
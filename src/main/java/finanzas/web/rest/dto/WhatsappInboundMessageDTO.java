@@ -1,10 +1,15 @@
 package finanzas.web.rest.dto;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+
 public class WhatsappInboundMessageDTO {
 
     private String from; // Número de teléfono del remitente
     private String body; // Cuerpo del mensaje
 
+    @JsonAlias({ "message_id", "MessageSid" })
+    private String messageId; // Id del mensaje en el proveedor, para descartar reintentos
+
     public String getFrom() {
         return from;
     }
@@ -21,8 +26,16 @@ public class WhatsappInboundMessageDTO {
         this.body = body;
     }
 
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
     @Override
     public String toString() {
-        return "WhatsappInboundMessageDTO{\"from=\"" + from + "'\", body='" + body + "'}";
+        return "WhatsappInboundMessageDTO{\"from=\"" + from + "'\", body='" + body + "', messageId='" + messageId + "'}";
     }
 }
\ No newline at end of file
@@ -2,8 +2,9 @@
 
 import { TestBed, waitForAsync } from '@angular/core/testing';
 import { of } from 'rxjs';
-import { HttpResponse } from '@angular/common/http';
+import { HttpHeaders, HttpResponse } from '@angular/common/http';
 import { Router } from '@angular/router';
+import dayjs from 'dayjs/esm';
 
 import ProcesoPrincipalComponent from './proceso-principal.component';
 import { AccountService } from 'app/core/auth/account.service';
@@ -47,7 +48,7 @@ describe('ProcesoPrincipalComponent', () => {
   it('should load movimientos and resumen when authenticated', () => {
     // GIVEN
     mockAccountService.identity = jest.fn(() => of({ login: 'user' }));
-    const sampleMovimiento = { id: 1, tipo: 'GASTO', monto: 100, descripcion: 'x', fechaMovimiento: '2025-12-01' } as any;
+    const sampleMovimiento = { id: 1, tipo: 'GASTO', monto: 100, descripcion: 'x', fechaMovimiento: dayjs('2025-12-01') } as any;
     mockMovimientoService.query = jest.fn(() => of(new HttpResponse({ body: [sampleMovimiento] })));
     mockMovimientoService.resumen = jest.fn(() => of({ totalIngresos: 200, totalGastos: 100, balance: 100 }));
 
@@ -57,11 +58,43 @@ describe('ProcesoPrincipalComponent', () => {
     // THEN
     expect(mockMovimientoService.query).toHaveBeenCalled();
     expect(mockMovimientoService.resumen).toHaveBeenCalled();
+    expect(comp.movimientos[0].id).toBe(1);
+    expect(comp.resumen.totalGastos).toBe(100);
+  });
+
+  it('should load only the first page and the next one on demand', () => {
+    // GIVEN
+    mockAccountService.identity = jest.fn(() => of({ login: 'user' }));
+    const primera = { id: 1, tipo: 'GASTO', monto: 100, fechaMovimiento: dayjs('2025-12-02') } as any;
+    const segunda = { id: 2, tipo: 'INGRESO', monto: 50, fechaMovimiento: dayjs('2025-12-01') } as any;
+    mockMovimientoService.query = jest.fn((req: any) =>
+      req.cursor
+        ? of(new HttpResponse({ body: [segunda] }))
+        : of(new HttpResponse({ body: [primera], headers: new HttpHeaders({ 'X-Next-Cursor': 'abc' }) })),
+    );
+    mockMovimientoService.resumen = jest.fn(() => of({ totalIngresos: 50, totalGastos: 100, balance: -50 }));
+
+    // WHEN
+    comp.ngOnInit();
+
+    // THEN
+    expect(mockMovimientoService.query).toHaveBeenCalledTimes(1);
+    expect(comp.movimientos.map(m => m.id)).toEqual([1]);
+    expect(comp.siguienteCursor).toBe('abc');
+
+    // WHEN
+    comp.cargarMas();
+
+    // THEN
+    expect(mockMovimientoService.query).toHaveBeenLastCalledWith(expect.objectContaining({ cursor: 'abc' }));
+    expect(comp.movimientos.map(m => m.id)).toEqual([1, 2]);
+    expect(comp.siguienteCursor).toBeNull();
   });
 
   it('should create a new movimiento when guardarMovimiento is called for new item', () => {
     // GIVEN
     mockAccountService.identity = jest.fn(() => of({ login: 'user' }));
+    mockMovimientoService.resumen = jest.fn(() => of({ totalIngresos: 250, totalGastos: 0, balance: 250 }));
     mockMovimientoService.create = jest.fn(() =>
       of(new HttpResponse({ body: { id: 123, tipo: 'INGRESO', monto: 250, fechaMovimiento: {} } } as any)),
     );
@@ -97,6 +130,7 @@ describe('ProcesoPrincipalComponent', () => {
       descripcion: 'update',
     } as any;
 
+    mockMovimientoService.resumen = jest.fn(() => of({ totalIngresos: 0, totalGastos: 150, balance: -150 }));
     mockMovimientoService.update = jest.fn(() =>
       of(new HttpResponse({ body: { id: 1, tipo: 'GASTO', monto: 150, fechaMovimiento: {} } } as any)),
     );
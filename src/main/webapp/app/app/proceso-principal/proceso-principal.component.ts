@@ -9,6 +9,7 @@ import { Router } from '@angular/router';
 import { MovimientoService } from 'app/entities/movimiento/service/movimiento.service';
 import { IMovimiento, NewMovimiento } from 'app/entities/movimiento/movimiento.model';
 import { IResumenFinanciero } from 'app/entities/movimiento/resumen-financiero.model';
+import { ITEMS_PER_PAGE } from 'app/config/pagination.constants';
 import dayjs from 'dayjs/esm';
 
 interface Movimiento {
@@ -50,8 +51,9 @@ export class ProcesoPrincipalComponent implements OnInit {
   tipoMovimientoSeleccionado: 'INGRESO' | 'GASTO' | '' = '';
   movimientoEnEdicion: Movimiento | null = null;
 
-  // Datos de prueba (sin backend)
+  // la página visible y las que se han ido cargando con "Cargar más"
   movimientos: Movimiento[] = [];
+  siguienteCursor: string | null = null;
 
   categorias = ['Salario', 'Servicios', 'Alimentación', 'Transporte', 'Otros Ingresos', 'Entretenimiento'];
   cuentas = ['Cuenta Principal', 'Ahorros', 'Tarjeta de Crédito'];
@@ -94,10 +96,23 @@ export class ProcesoPrincipalComponent implements OnInit {
   }
 
   loadDatos(): void {
-    // fetch list
-    this.movimientoService.query({ sort: 'id,desc' }).subscribe(res => {
-      const body = res.body ?? [];
-      this.movimientos = body.map(m => ({
+    this.movimientos = [];
+    this.siguienteCursor = null;
+    this.cargarPagina();
+    this.cargarResumen();
+  }
+
+  // the next page, only when asked for: the totals do not depend on the movimientos loaded here
+  cargarMas(): void {
+    if (this.siguienteCursor) {
+      this.cargarPagina(this.siguienteCursor);
+    }
+  }
+
+  cargarPagina(cursor?: string): void {
+    this.movimientoService.query({ size: ITEMS_PER_PAGE, cursor }).subscribe(res => {
+      this.siguienteCursor = this.movimientoService.getNextCursor(res);
+      const pagina = (res.body ?? []).map(m => ({
         id: m.id!,
         tipo: m.tipo as 'INGRESO' | 'GASTO',
         monto: Number(m.monto ?? 0),
@@ -106,10 +121,12 @@ export class ProcesoPrincipalComponent implements OnInit {
         fecha: m.fechaMovimiento?.format('YYYY-MM-DD') ?? '',
         descripcion: m.descripcion ?? '',
       }));
-      this.calcularResumen();
+      this.movimientos = this.movimientos.concat(pagina);
     });
+  }
 
-    // fetch resumen
+  // totals come from the server-side aggregates, not from the movimientos loaded here
+  cargarResumen(): void {
     this.movimientoService.resumen().subscribe((r: IResumenFinanciero) => {
       this.resumen = {
         saldoTotal: this.resumen.saldoTotal,
@@ -120,26 +137,6 @@ export class ProcesoPrincipalComponent implements OnInit {
     });
   }
 
-  calcularResumen(): void {
-    let totalIngresos = 0;
-    let totalGastos = 0;
-
-    this.movimientos.forEach(mov => {
-      if (mov.tipo === 'INGRESO') {
-        totalIngresos += mov.monto;
-      } else {
-        totalGastos += mov.monto;
-      }
-    });
-
-    this.resumen = {
-      saldoTotal: 5000, // Valor inicial simulado
-      totalIngresos,
-      totalGastos,
-      balanceNeto: totalIngresos - totalGastos,
-    };
-  }
-
   abrirFormulario(movimiento?: Movimiento): void {
     if (movimiento) {
       this.movimientoEnEdicion = movimiento;
@@ -214,7 +211,7 @@ export class ProcesoPrincipalComponent implements OnInit {
           if (index > -1) {
             this.movimientos[index] = mapped;
           }
-          this.calcularResumen();
+          this.cargarResumen();
           this.cerrarFormulario();
         },
         error: () => {
@@ -241,7 +238,7 @@ export class ProcesoPrincipalComponent implements OnInit {
             descripcion: m.descripcion ?? '',
           };
           this.movimientos.unshift(mapped);
-          this.calcularResumen();
+          this.cargarResumen();
           this.cerrarFormulario();
         },
         error: () => {
@@ -254,7 +251,7 @@ export class ProcesoPrincipalComponent implements OnInit {
   eliminarMovimiento(id: number): void {
     if (confirm('¿Está seguro de que desea eliminar este movimiento?')) {
       this.movimientos = this.movimientos.filter(m => m.id !== id);
-      this.calcularResumen();
+      this.cargarResumen();
     }
   }
 
@@ -87,6 +87,20 @@ describe('Movimiento Management Component', () => {
     expect(comp.movimientos()[0]).toEqual(expect.objectContaining({ id: 30126 }));
   });
 
+  it('should append the next page when loading more', () => {
+    // GIVEN
+    comp.ngOnInit();
+    comp.nextCursor = 'abc';
+
+    // WHEN
+    comp.loadMore();
+
+    // THEN
+    expect(service.query).toHaveBeenLastCalledWith(expect.objectContaining({ cursor: 'abc' }));
+    expect(comp.movimientos().map(movimiento => movimiento.id)).toEqual([30126, 13928]);
+    expect(comp.nextCursor).toBeNull();
+  });
+
   describe('trackId', () => {
     it('should forward to movimientoService', () => {
       const entity = { id: 30126 };
@@ -21,6 +21,7 @@ export class MovimientoComponent implements OnInit {
   subscription: Subscription | null = null;
   movimientos = signal<IMovimiento[]>([]);
   isLoading = false;
+  nextCursor: string | null = null;
 
   sortState = sortStateSignal({});
 
@@ -68,6 +69,17 @@ export class MovimientoComponent implements OnInit {
     });
   }
 
+  loadMore(): void {
+    if (!this.nextCursor) {
+      return;
+    }
+    this.queryBackend(this.nextCursor).subscribe({
+      next: (res: EntityArrayResponseType) => {
+        this.onResponseSuccess(res, true);
+      },
+    });
+  }
+
   navigateToWithComponentValues(event: SortState): void {
     this.handleNavigation(event);
   }
@@ -76,9 +88,10 @@ export class MovimientoComponent implements OnInit {
     this.sortState.set(this.sortService.parseSortParam(params.get(SORT) ?? data[DEFAULT_SORT_DATA]));
   }
 
-  protected onResponseSuccess(response: EntityArrayResponseType): void {
+  protected onResponseSuccess(response: EntityArrayResponseType, append = false): void {
     const dataFromBody = this.fillComponentAttributesFromResponseBody(response.body);
-    this.movimientos.set(this.refineData(dataFromBody));
+    this.nextCursor = this.movimientoService.getNextCursor(response);
+    this.movimientos.set(this.refineData(append ? [...this.movimientos(), ...dataFromBody] : dataFromBody));
   }
 
   protected refineData(data: IMovimiento[]): IMovimiento[] {
@@ -90,11 +103,11 @@ export class MovimientoComponent implements OnInit {
     return data ?? [];
   }
 
-  protected queryBackend(): Observable<EntityArrayResponseType> {
+  protected queryBackend(cursor?: string): Observable<EntityArrayResponseType> {
     this.isLoading = true;
     const queryObject: any = {
-      eagerload: true,
       sort: this.sortService.buildSortParam(this.sortState()),
+      cursor,
     };
     return this.movimientoService.query(queryObject).pipe(tap(() => (this.isLoading = false)));
   }
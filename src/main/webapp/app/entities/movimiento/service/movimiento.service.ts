@@ -27,6 +27,9 @@ export type PartialUpdateRestMovimiento = RestOf<PartialUpdateMovimiento>;
 export type EntityResponseType = HttpResponse<IMovimiento>;
 export type EntityArrayResponseType = HttpResponse<IMovimiento[]>;
 
+/** Cabecera con el cursor de la página siguiente de `GET /api/movimientos`; ausente en la última página. */
+export const NEXT_CURSOR_HEADER = 'X-Next-Cursor';
+
 @Injectable({ providedIn: 'root' })
 export class MovimientoService {
   protected readonly http = inject(HttpClient);
@@ -68,6 +71,10 @@ export class MovimientoService {
       .pipe(map(res => this.convertResponseArrayFromServer(res)));
   }
 
+  getNextCursor(res: HttpResponse<unknown>): string | null {
+    return res.headers.get(NEXT_CURSOR_HEADER);
+  }
+
   delete(id: number): Observable<HttpResponse<{}>> {
     return this.http.delete(`${this.resourceUrl}/${id}`, { observe: 'response' });
   }
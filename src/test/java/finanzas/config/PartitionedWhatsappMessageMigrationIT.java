@@ -0,0 +1,158 @@
+package finanzas.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import finanzas.IntegrationTest;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import javax.sql.DataSource;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Runs the {@code 20261018001500_partitioned_whatsapp_message.xml} changelog against a {@code whatsapp_message} table with
+ * the shape and rows it had before, in a schema of its own, and checks the partitioned table it leaves behind.
+ */
+@IntegrationTest
+class PartitionedWhatsappMessageMigrationIT {
+
+    private static final String CHANGELOG = "config/liquibase/changelog/20261018001500_partitioned_whatsapp_message.xml";
+
+    private static final String ESQUEMA = "migracion_whatsapp_it";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void migrationRepartitionsExistingMessages() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            String esquemaActual = consultar(connection, "select current_schema()");
+            try {
+                prepararTablaAntigua(connection, esquemaActual);
+                migrar(connection);
+                connection.setAutoCommit(true);
+
+                assertThat(consultar(connection, "select to_regclass('whatsapp_message_old')::text")).isNull();
+                String relkind = consultar(connection, "select relkind::text from pg_class where oid = 'whatsapp_message'::regclass");
+                assertThat(relkind).isEqualTo("p");
+                assertThat(
+                    consultar(
+                        connection,
+                        "select pg_get_constraintdef(oid) from pg_constraint " +
+                        "where conname = 'pk_whatsapp_message' and conrelid = 'whatsapp_message'::regclass"
+                    )
+                ).isEqualTo("PRIMARY KEY (id, fecha_recepcion)");
+
+                // filas copiadas, cada una en la partición de su mes
+                assertThat(consultar(connection, "select count(*)::text from whatsapp_message")).isEqualTo("3");
+                assertThat(particionDe(connection, 1)).isEqualTo("whatsapp_message_p202401");
+                assertThat(particionDe(connection, 2)).isEqualTo("whatsapp_message_p202401");
+                assertThat(particionDe(connection, 3)).isEqualTo("whatsapp_message_p202403");
+                assertThat(existe(connection, "whatsapp_message_p202402")).isTrue();
+                assertThat(existe(connection, "whatsapp_message_default")).isTrue();
+                YearMonth siguiente = YearMonth.now(ZoneOffset.UTC).plusMonths(1);
+                assertThat(existe(connection, "whatsapp_message_p" + siguiente.format(DateTimeFormatter.ofPattern("yyyyMM")))).isTrue();
+
+                assertThat(
+                    consultar(
+                        connection,
+                        "select indexdef from pg_indexes where schemaname = current_schema() " +
+                        "and indexname = 'idx_whatsapp_message__pendientes'"
+                    )
+                ).contains("WHERE");
+
+                // entregas: rellenadas con los ids de proveedor existentes y mantenidas por los disparadores
+                assertThat(
+                    consultar(
+                        connection,
+                        "select string_agg(provider_message_id || '=' || whatsapp_message_id, ',' order by provider_message_id) " +
+                        "from whatsapp_message_entrega"
+                    )
+                ).isEqualTo("wamid.mig-1=1,wamid.mig-3=3");
+                assertThatThrownBy(() ->
+                    ejecutar(
+                        connection,
+                        "insert into whatsapp_message (id, mensaje_original, estado, numero_telefonico, fecha_recepcion, " +
+                        "provider_message_id) values (4, 'gasto 4 d', 'RECIBIDO', '1', '2024-03-10 10:00', 'wamid.mig-1')"
+                    )
+                )
+                    .isInstanceOf(SQLException.class)
+                    .extracting(e -> ((SQLException) e).getSQLState())
+                    .isEqualTo("23505");
+                ejecutar(connection, "delete from whatsapp_message where id = 3");
+                assertThat(consultar(connection, "select count(*)::text from whatsapp_message_entrega")).isEqualTo("1");
+            } finally {
+                connection.setAutoCommit(true);
+                ejecutar(connection, "drop schema if exists " + ESQUEMA + " cascade");
+                ejecutar(connection, "reset search_path");
+            }
+        }
+    }
+
+    /**
+     * {@code whatsapp_message} como estaba antes del changelog, con mensajes de dos meses.
+     */
+    private static void prepararTablaAntigua(Connection connection, String esquemaActual) throws SQLException {
+        ejecutar(connection, "create schema " + ESQUEMA);
+        ejecutar(connection, "set search_path to " + ESQUEMA);
+        ejecutar(connection, "create table jhi_user (id bigint primary key)");
+        ejecutar(connection, "create table movimiento (id bigint primary key)");
+        ejecutar(
+            connection,
+            "create table whatsapp_message (like " + esquemaActual + ".whatsapp_message including defaults including constraints)"
+        );
+        ejecutar(connection, "alter table whatsapp_message add constraint pk_whatsapp_message primary key (id)");
+        ejecutar(connection, "create unique index ux_whatsapp_message__provider_message_id on whatsapp_message (provider_message_id)");
+        ejecutar(connection, "insert into jhi_user (id) values (1)");
+        ejecutar(
+            connection,
+            "insert into whatsapp_message (id, mensaje_original, estado, numero_telefonico, fecha_recepcion, user_id, " +
+            "provider_message_id) values " +
+            "(1, 'gasto 1 a', 'COMPLETADO', '1', '2024-01-10 10:00', 1, 'wamid.mig-1'), " +
+            "(2, 'gasto 2 b', 'REINTENTO', '1', '2024-01-20 10:00', 1, null), " +
+            "(3, 'gasto 3 c', 'COMPLETADO', '1', '2024-03-05 10:00', null, 'wamid.mig-3')"
+        );
+    }
+
+    private static void migrar(Connection connection) throws Exception {
+        Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+        database.setDefaultSchemaName(ESQUEMA);
+        Liquibase liquibase = new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), database);
+        liquibase.setChangeLogParameter("datetimeType", "timestamp");
+        liquibase.update(new Contexts(), new LabelExpression());
+    }
+
+    private static String particionDe(Connection connection, long id) throws SQLException {
+        return consultar(connection, "select tableoid::regclass::text from whatsapp_message where id = " + id);
+    }
+
+    private static boolean existe(Connection connection, String tabla) throws SQLException {
+        return consultar(connection, "select to_regclass('" + tabla + "')::text") != null;
+    }
+
+    private static String consultar(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    private static void ejecutar(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package finanzas.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.WhatsappMessage;
+import finanzas.domain.enumeration.EstadoProcesamiento;
+import finanzas.repository.projection.ClaveMensaje;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link WhatsappMessageRepository} on the partitioned {@code whatsapp_message} table.
+ */
+@IntegrationTest
+@Transactional
+class WhatsappMessageRepositoryIT {
+
+    private static final Pattern PARTICION = Pattern.compile(" on (whatsapp_message_\\w+)");
+
+    @Autowired
+    private WhatsappMessageRepository whatsappMessageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void messagesAreStoredInTheirMonthlyPartition() {
+        ZonedDateTime ahora = ZonedDateTime.now(ZoneOffset.UTC);
+        WhatsappMessage mensaje = whatsappMessageRepository.saveAndFlush(mensaje(ahora, null));
+
+        String particion = jdbcTemplate.queryForObject(
+            "select tableoid::regclass::text from whatsapp_message where id = ?",
+            String.class,
+            mensaje.getId()
+        );
+        assertThat(particion).isEqualTo(String.format("whatsapp_message_p%04d%02d", ahora.getYear(), ahora.getMonthValue()));
+    }
+
+    @Test
+    void duplicateProviderMessageIdIsRejectedThroughEntrega() {
+        WhatsappMessage primero = whatsappMessageRepository.saveAndFlush(mensaje(ZonedDateTime.now(), "wamid.repo-dup"));
+
+        assertThat(whatsappMessageRepository.findIdByProviderMessageId("wamid.repo-dup")).contains(primero.getId());
+        // otro mes, otra partición: solo whatsapp_message_entrega puede detectar el duplicado
+        WhatsappMessage repetido = mensaje(ZonedDateTime.now().minusMonths(1), "wamid.repo-dup");
+        assertThatThrownBy(() -> whatsappMessageRepository.saveAndFlush(repetido)).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void deletingAMessageForgetsItsProviderMessageId() {
+        WhatsappMessage mensaje = whatsappMessageRepository.saveAndFlush(mensaje(ZonedDateTime.now(), "wamid.repo-delete"));
+        assertThat(whatsappMessageRepository.findIdByProviderMessageId("wamid.repo-delete")).contains(mensaje.getId());
+
+        whatsappMessageRepository.delete(mensaje);
+        whatsappMessageRepository.flush();
+
+        assertThat(whatsappMessageRepository.findIdByProviderMessageId("wamid.repo-delete")).isEmpty();
+        Long entregas = jdbcTemplate.queryForObject(
+            "select count(*) from whatsapp_message_entrega where provider_message_id = ?",
+            Long.class,
+            "wamid.repo-delete"
+        );
+        assertThat(entregas).isZero();
+    }
+
+    @Test
+    void keysetQueriesPageNewestFirstAcrossPartitions() {
+        // dentro de dos meses, por delante de cualquier otro mensaje; el anterior queda en la partición del mes previo
+        ZonedDateTime base = YearMonth.now(ZoneOffset.UTC).plusMonths(2).atDay(1).atStartOfDay(ZoneOffset.UTC).plusSeconds(30);
+        WhatsappMessage anterior = whatsappMessageRepository.saveAndFlush(mensaje(base.minusMinutes(1), null));
+        WhatsappMessage medio = whatsappMessageRepository.saveAndFlush(mensaje(base, null));
+        WhatsappMessage mismoInstante = whatsappMessageRepository.saveAndFlush(mensaje(base, null));
+        WhatsappMessage reciente = whatsappMessageRepository.saveAndFlush(mensaje(base.plusHours(1), null));
+
+        List<WhatsappMessage> primera = whatsappMessageRepository.findUltimos(2);
+        assertThat(primera).extracting(WhatsappMessage::getId).containsExactly(reciente.getId(), mismoInstante.getId());
+
+        WhatsappMessage ultimo = primera.get(1);
+        List<WhatsappMessage> segunda = whatsappMessageRepository.findAnteriores(ultimo.getFechaRecepcion(), ultimo.getId(), 2);
+        assertThat(segunda).extracting(WhatsappMessage::getId).containsExactly(medio.getId(), anterior.getId());
+    }
+
+    @Test
+    void findPendientesByEstadoReadsOnlyNonTerminalStates() {
+        WhatsappMessage descartado = mensaje(ZonedDateTime.now(), null);
+        descartado.setEstado(EstadoProcesamiento.DESCARTADO);
+        whatsappMessageRepository.saveAndFlush(descartado);
+
+        assertThat(whatsappMessageRepository.findPendientesByEstado(EstadoProcesamiento.DESCARTADO))
+            .extracting(WhatsappMessage::getId)
+            .contains(descartado.getId());
+        assertThatThrownBy(() -> whatsappMessageRepository.findPendientesByEstado(EstadoProcesamiento.COMPLETADO)).isInstanceOf(
+            IllegalArgumentException.class
+        );
+    }
+
+    @Test
+    void lookupsByClaveReadOnlyTheMessagesPartition() {
+        ZonedDateTime ahora = ZonedDateTime.now(ZoneOffset.UTC);
+        whatsappMessageRepository.saveAndFlush(mensaje(ahora.minusMonths(1), null));
+        WhatsappMessage mensaje = whatsappMessageRepository.saveAndFlush(mensaje(ahora, null));
+        ClaveMensaje clave = new ClaveMensaje(mensaje.getId(), mensaje.getFechaRecepcion());
+
+        assertThat(whatsappMessageRepository.findByClave(clave)).map(WhatsappMessage::getId).contains(mensaje.getId());
+
+        Map<String, Object> parametros = Map.of("id", clave.id(), "fecha", clave.fechaRecepcion().toLocalDateTime().toString());
+        String porClave = "select w.id from whatsapp_message w where " + WhatsappMessageRepository.POR_CLAVE;
+        assertThat(particiones(porClave, parametros)).containsExactly(
+            String.format("whatsapp_message_p%04d%02d", ahora.getYear(), ahora.getMonthValue())
+        );
+        // solo por id, como hace findById, la consulta recorre todas las particiones
+        assertThat(particiones("select w.id from whatsapp_message w where w.id = :id", parametros)).hasSizeGreaterThan(1);
+    }
+
+    private static WhatsappMessage mensaje(ZonedDateTime fechaRecepcion, String providerMessageId) {
+        WhatsappMessage mensaje = new WhatsappMessage();
+        mensaje.setMensajeOriginal("gasto 10 cafe");
+        mensaje.setEstado(EstadoProcesamiento.COMPLETADO);
+        mensaje.setNumeroTelefonico("34600000000");
+        mensaje.setFechaRecepcion(fechaRecepcion);
+        mensaje.setProviderMessageId(providerMessageId);
+        return mensaje;
+    }
+
+    /**
+     * Particiones de {@code whatsapp_message} que lee el plan de la consulta.
+     */
+    private Set<String> particiones(String sql, Map<String, Object> parametros) {
+        NamedParameterJdbcTemplate plantilla = new NamedParameterJdbcTemplate(jdbcTemplate);
+        List<String> plan = plantilla.queryForList("explain (costs off) " + sql, parametros, String.class);
+        return plan.stream().map(PARTICION::matcher).filter(Matcher::find).map(m -> m.group(1)).collect(Collectors.toSet());
+    }
+}
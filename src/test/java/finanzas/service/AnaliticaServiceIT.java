@@ -0,0 +1,183 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.IntegrationTest;
+import finanzas.config.ApplicationProperties;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.AgrupacionAnalitica;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.MovimientoRepository;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.service.dto.ConsultaAnalitica;
+import finanzas.service.dto.GrupoAnalitico;
+import finanzas.service.dto.MovimientoDTO;
+import finanzas.service.dto.UserDTO;
+import finanzas.service.event.MovimientoChangedEvent;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link AnaliticaService}. Test transactions never commit, so the after-commit listeners are
+ * invoked directly.
+ */
+@IntegrationTest
+@Transactional
+@WithMockUser("analitica-user")
+class AnaliticaServiceIT {
+
+    private static final ZonedDateTime DIA = ZonedDateTime.of(2002, 6, 3, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final ConsultaAnalitica POR_MES = new ConsultaAnalitica(AgrupacionAnalitica.MES, null, null, null, null, null, null);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MovimientoService movimientoService;
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private AnaliticaService analiticaService;
+
+    private User user;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setLogin("analitica-user");
+        user.setPassword("a".repeat(60));
+        user.setActivated(true);
+        user.setEmail("analitica@localhost");
+        userRepository.saveAndFlush(user);
+    }
+
+    @AfterEach
+    void cleanup() {
+        analiticaService.vaciar();
+    }
+
+    @Test
+    void loadsOnFirstQueryAndFollowsChanges() {
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "80.00", DIA));
+        MovimientoDTO gasto = movimientoService.save(movimiento(TipoMovimiento.GASTO, "30.00", DIA.plusDays(1)));
+
+        List<GrupoAnalitico> meses = analiticaService.consultar(POR_MES);
+        assertThat(meses).singleElement().satisfies(grupo -> {
+            assertThat(grupo.clave()).isEqualTo("2002-06");
+            assertThat(grupo.neto()).isEqualByComparingTo("50.00");
+        });
+
+        MovimientoSnapshot anterior = snapshot(gasto);
+        gasto.setFechaMovimiento(DIA.plusMonths(1));
+        movimientoService.update(gasto);
+        analiticaService.onMovimientoChanged(new MovimientoChangedEvent(anterior, snapshot(gasto)));
+
+        assertThat(analiticaService.consultar(POR_MES)).extracting(GrupoAnalitico::clave).containsExactly("2002-06", "2002-07");
+
+        movimientoService.delete(gasto.getId());
+        analiticaService.onMovimientoChanged(new MovimientoChangedEvent(snapshot(gasto), null));
+
+        assertThat(analiticaService.consultar(POR_MES)).singleElement().extracting(GrupoAnalitico::movimientos).isEqualTo(1L);
+    }
+
+    @Test
+    void discardedSnapshotsAreReloaded() {
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "10.00", DIA));
+        assertThat(analiticaService.consultar(POR_MES)).singleElement().satisfies(grupo ->
+            assertThat(grupo.gastos()).isEqualByComparingTo("10.00")
+        );
+
+        // sin evento: la instantánea cargada no lo ve hasta que se descarta
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "5.00", DIA));
+        assertThat(analiticaService.consultar(POR_MES).get(0).movimientos()).isEqualTo(1L);
+
+        assertThat(analiticaService.vaciar()).isPositive();
+        assertThat(analiticaService.consultar(POR_MES).get(0).movimientos()).isEqualTo(2L);
+    }
+
+    @Test
+    void snapshotsAreRevalidatedAgainstTheDatabase() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAnalitica().setRevalidacion(Duration.ZERO);
+        AnaliticaService revalidada = new AnaliticaService(
+            movimientoService,
+            movimientoRepository,
+            userRepository,
+            applicationProperties
+        );
+
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "10.00", DIA));
+        assertThat(revalidada.consultar(POR_MES).get(0).movimientos()).isEqualTo(1L);
+
+        // sin evento, como una escritura en otro nodo
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "5.00", DIA));
+        assertThat(revalidada.consultar(POR_MES).get(0).movimientos()).isEqualTo(2L);
+    }
+
+    @Test
+    void disabledSnapshotsAggregateInTheDatabase() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAnalitica().setEnabled(false);
+        AnaliticaService sinInstantaneas = new AnaliticaService(
+            movimientoService,
+            movimientoRepository,
+            userRepository,
+            applicationProperties
+        );
+
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "80.00", DIA));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "30.00", DIA.plusDays(1)));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "12.35", DIA.plusDays(8)));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "7.00", DIA.plusMonths(1)));
+
+        for (AgrupacionAnalitica agrupacion : AgrupacionAnalitica.values()) {
+            ConsultaAnalitica consulta = new ConsultaAnalitica(
+                agrupacion,
+                DIA.toLocalDate(),
+                DIA.plusDays(8).toLocalDate(),
+                null,
+                null,
+                null,
+                2
+            );
+            assertThat(sinInstantaneas.consultar(consulta))
+                .usingRecursiveComparison()
+                .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                .isEqualTo(analiticaService.consultar(consulta));
+        }
+        ConsultaAnalitica gastos = new ConsultaAnalitica(AgrupacionAnalitica.TOTAL, null, null, TipoMovimiento.GASTO, null, null, null);
+        assertThat(sinInstantaneas.consultar(gastos)).singleElement().satisfies(grupo -> {
+            assertThat(grupo.gastos()).isEqualByComparingTo("49.35");
+            assertThat(grupo.gastoMedio()).isEqualByComparingTo("16.45");
+        });
+    }
+
+    private MovimientoSnapshot snapshot(MovimientoDTO dto) {
+        return new MovimientoSnapshot(dto.getId(), user.getId(), null, null, dto.getTipo(), dto.getMonto(), dto.getFechaMovimiento());
+    }
+
+    private MovimientoDTO movimiento(TipoMovimiento tipo, String monto, ZonedDateTime fecha) {
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        MovimientoDTO dto = new MovimientoDTO();
+        dto.setTipo(tipo);
+        dto.setMonto(new BigDecimal(monto));
+        dto.setFechaMovimiento(fecha);
+        dto.setFechaRegistro(ZonedDateTime.now());
+        dto.setUsuario(usuario);
+        return dto;
+    }
+}
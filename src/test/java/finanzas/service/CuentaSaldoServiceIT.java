@@ -0,0 +1,99 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.Cuenta;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.CuentaRepository;
+import finanzas.service.dto.CuentaDTO;
+import finanzas.service.dto.MovimientoDTO;
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link CuentaSaldoService}: the daily ledger must always agree with the movimientos.
+ */
+@IntegrationTest
+@Transactional
+class CuentaSaldoServiceIT {
+
+    private static final ZonedDateTime DIA = ZonedDateTime.of(2024, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private MovimientoService movimientoService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private CuentaSaldoService cuentaSaldoService;
+
+    private Cuenta cuenta;
+
+    @BeforeEach
+    void init() {
+        cuenta = new Cuenta().nombre("Ledger").saldoInicial(new BigDecimal("100.00"));
+        cuentaRepository.saveAndFlush(cuenta);
+    }
+
+    @Test
+    void balanceFollowsCreateUpdateAndDelete() {
+        MovimientoDTO ingreso = movimientoService.save(movimiento(TipoMovimiento.INGRESO, "50.00", DIA));
+        MovimientoDTO gasto = movimientoService.save(movimiento(TipoMovimiento.GASTO, "20.00", DIA.plusDays(3)));
+
+        assertThat(reportService.getBalanceForCuenta(cuenta.getId(), null, null)).isEqualByComparingTo("130.00");
+
+        gasto.setMonto(new BigDecimal("35.00"));
+        gasto.setFechaMovimiento(DIA.plusDays(5));
+        movimientoService.update(gasto);
+        assertThat(reportService.getBalanceForCuenta(cuenta.getId(), null, null)).isEqualByComparingTo("115.00");
+
+        movimientoService.delete(ingreso.getId());
+        assertThat(reportService.getBalanceForCuenta(cuenta.getId(), null, null)).isEqualByComparingTo("65.00");
+    }
+
+    @Test
+    void rangeCombinesFullDaysAndPartialEdges() {
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "10.00", DIA.withHour(8)));
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "20.00", DIA.withHour(18)));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "5.00", DIA.plusDays(1)));
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "40.00", DIA.plusDays(2).withHour(6)));
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "80.00", DIA.plusDays(2).withHour(20)));
+
+        // desde el mediodía del primer día hasta las 10h del tercero: 20 - 5 + 40
+        BigDecimal neto = cuentaSaldoService.getNeto(cuenta.getId(), DIA, DIA.plusDays(2).withHour(10));
+        assertThat(neto).isEqualByComparingTo("55.00");
+    }
+
+    @Test
+    void rebuildMatchesIncrementalLedger() {
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "12.34", DIA));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "2.34", DIA.plusDays(1)));
+        BigDecimal incremental = cuentaSaldoService.getNeto(cuenta.getId());
+
+        cuentaSaldoService.reconstruir();
+
+        assertThat(cuentaSaldoService.getNeto(cuenta.getId())).isEqualByComparingTo(incremental).isEqualByComparingTo("10.00");
+    }
+
+    private MovimientoDTO movimiento(TipoMovimiento tipo, String monto, ZonedDateTime fecha) {
+        CuentaDTO cuentaDTO = new CuentaDTO();
+        cuentaDTO.setId(cuenta.getId());
+        MovimientoDTO dto = new MovimientoDTO();
+        dto.setTipo(tipo);
+        dto.setMonto(new BigDecimal(monto));
+        dto.setFechaMovimiento(fecha);
+        dto.setFechaRegistro(ZonedDateTime.now());
+        dto.setCuenta(cuentaDTO);
+        return dto;
+    }
+}
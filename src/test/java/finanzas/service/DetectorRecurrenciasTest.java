@@ -0,0 +1,95 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import finanzas.domain.enumeration.PeriodicidadRecurrencia;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.projection.OcurrenciaRecurrente;
+import finanzas.repository.projection.SerieRecurrente;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DetectorRecurrenciasTest {
+
+    private static final LocalDate HOY = LocalDate.of(2005, 6, 20);
+
+    @Test
+    void detectsMonthlySeriesAcrossPriceChangesAndMonthLengths() {
+        List<OcurrenciaRecurrente> ocurrencias = List.of(
+            ocurrencia(LocalDate.of(2005, 5, 31), "13.49"),
+            ocurrencia(LocalDate.of(2005, 2, 28), "12.99"),
+            ocurrencia(LocalDate.of(2005, 3, 31), "12.99"),
+            ocurrencia(LocalDate.of(2005, 4, 30), "12.99")
+        );
+
+        List<SerieRecurrente> series = DetectorRecurrencias.detectar("netflix com", TipoMovimiento.GASTO, ocurrencias, HOY);
+
+        assertThat(series).singleElement().satisfies(serie -> {
+            assertThat(serie.periodicidad()).isEqualTo(PeriodicidadRecurrencia.MENSUAL);
+            assertThat(serie.ocurrencias()).isEqualTo(4);
+            assertThat(serie.montoMedio()).isEqualByComparingTo("13.12");
+            assertThat(serie.montoMinimo()).isEqualByComparingTo("12.99");
+            assertThat(serie.montoMaximo()).isEqualByComparingTo("13.49");
+            assertThat(serie.primeraFecha()).isEqualTo(LocalDate.of(2005, 2, 28));
+            assertThat(serie.proximaFecha()).isEqualTo(LocalDate.of(2005, 6, 30));
+        });
+    }
+
+    @Test
+    void separatesSeriesByAmountAndKeepsTheLongestPerPeriodicity() {
+        List<OcurrenciaRecurrente> ocurrencias = new ArrayList<>();
+        for (int semana = 0; semana < 6; semana++) {
+            ocurrencias.add(ocurrencia(HOY.minusWeeks(semana), "5.00"));
+        }
+        for (int mes = 0; mes < 3; mes++) {
+            ocurrencias.add(ocurrencia(HOY.minusMonths(mes), "80.00"));
+            ocurrencias.add(ocurrencia(HOY.minusMonths(mes).minusDays(3), "200.00"));
+        }
+        ocurrencias.add(ocurrencia(HOY.minusMonths(3).minusDays(3), "200.00"));
+
+        List<SerieRecurrente> series = DetectorRecurrencias.detectar("gimnasio", TipoMovimiento.GASTO, ocurrencias, HOY);
+
+        assertThat(series)
+            .extracting(SerieRecurrente::periodicidad, SerieRecurrente::ocurrencias, s -> s.montoMedio().toPlainString())
+            .containsExactlyInAnyOrder(
+                tuple(PeriodicidadRecurrencia.SEMANAL, 6, "5.00"),
+                tuple(PeriodicidadRecurrencia.MENSUAL, 4, "200.00")
+            );
+    }
+
+    @Test
+    void ignoresIrregularFewOrLapsedMovements() {
+        List<OcurrenciaRecurrente> irregulares = List.of(
+            ocurrencia(HOY.minusDays(1), "30.00"),
+            ocurrencia(HOY.minusDays(9), "30.00"),
+            ocurrencia(HOY.minusDays(40), "30.00")
+        );
+        List<OcurrenciaRecurrente> pocas = List.of(ocurrencia(HOY.minusMonths(1), "9.99"), ocurrencia(HOY, "9.99"));
+        List<OcurrenciaRecurrente> caducadas = List.of(
+            ocurrencia(HOY.minusMonths(8), "9.99"),
+            ocurrencia(HOY.minusMonths(7), "9.99"),
+            ocurrencia(HOY.minusMonths(6), "9.99")
+        );
+
+        assertThat(DetectorRecurrencias.detectar("super", TipoMovimiento.GASTO, irregulares, HOY)).isEmpty();
+        assertThat(DetectorRecurrencias.detectar("spotify", TipoMovimiento.GASTO, pocas, HOY)).isEmpty();
+        assertThat(DetectorRecurrencias.detectar("spotify", TipoMovimiento.GASTO, caducadas, HOY)).isEmpty();
+    }
+
+    @Test
+    void monthlyOccurrencesKeepTheDayOfMonth() {
+        LocalDate base = LocalDate.of(2005, 1, 31);
+
+        assertThat(DetectorRecurrencias.ocurrencia(PeriodicidadRecurrencia.MENSUAL, base, 1)).isEqualTo(LocalDate.of(2005, 2, 28));
+        assertThat(DetectorRecurrencias.ocurrencia(PeriodicidadRecurrencia.MENSUAL, base, 2)).isEqualTo(LocalDate.of(2005, 3, 31));
+        assertThat(DetectorRecurrencias.ocurrencia(PeriodicidadRecurrencia.QUINCENAL, base, 2)).isEqualTo(LocalDate.of(2005, 2, 28));
+    }
+
+    private static OcurrenciaRecurrente ocurrencia(LocalDate fecha, String monto) {
+        return new OcurrenciaRecurrente(fecha, new BigDecimal(monto), null, null, "cargo " + fecha);
+    }
+}
@@ -0,0 +1,91 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.Categoria;
+import finanzas.domain.Cuenta;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.TipoCategoria;
+import finanzas.repository.CategoriaRepository;
+import finanzas.repository.CuentaRepository;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.NombreId;
+import finanzas.service.dto.CategoriaDTO;
+import finanzas.service.dto.UserDTO;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link DiccionarioNombresService}.
+ */
+@IntegrationTest
+@Transactional
+class DiccionarioNombresServiceIT {
+
+    @Autowired
+    private DiccionarioNombresService diccionarioNombresService;
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    private Cuenta primera;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setLogin("diccionario-user");
+        user.setPassword("a".repeat(60));
+        user.setActivated(true);
+        user.setEmail("diccionario@localhost");
+        userRepository.saveAndFlush(user);
+
+        categoriaRepository.saveAndFlush(new Categoria().nombre("Cafe").tipo(TipoCategoria.GASTO).usuario(user));
+        primera = cuentaRepository.saveAndFlush(new Cuenta().nombre("Principal").saldoInicial(BigDecimal.ZERO).usuario(user));
+        cuentaRepository.saveAndFlush(new Cuenta().nombre("Ahorro").saldoInicial(BigDecimal.ZERO).usuario(user));
+        diccionarioNombresService.invalidar(user.getId());
+    }
+
+    @Test
+    void resolvesNamesIgnoringCase() {
+        DiccionarioNombresService.DiccionarioNombres diccionario = diccionarioNombresService.obtener(user.getId());
+
+        assertThat(diccionario.categoria(" CAFE ")).map(NombreId::nombre).contains("Cafe");
+        assertThat(diccionario.cuenta("ahorro")).isPresent();
+        assertThat(diccionario.cuenta("inexistente")).isEmpty();
+        assertThat(diccionario.cuentaPorDefecto()).map(NombreId::id).contains(primera.getId());
+    }
+
+    @Test
+    void categoriaWritesInvalidateTheDictionary() {
+        assertThat(diccionarioNombresService.obtener(user.getId()).categoria("Transporte")).isEmpty();
+
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        CategoriaDTO nueva = new CategoriaDTO();
+        nueva.setNombre("Transporte");
+        nueva.setTipo(TipoCategoria.GASTO);
+        nueva.setUsuario(usuario);
+        CategoriaDTO guardada = categoriaService.save(nueva);
+
+        assertThat(diccionarioNombresService.obtener(user.getId()).categoria("transporte")).map(NombreId::id).contains(guardada.getId());
+
+        categoriaService.delete(guardada.getId());
+
+        assertThat(diccionarioNombresService.obtener(user.getId()).categoria("transporte")).isEmpty();
+    }
+}
@@ -0,0 +1,197 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.IntegrationTest;
+import finanzas.config.ApplicationProperties;
+import finanzas.domain.User;
+import finanzas.repository.ExtractoMensualRepository.Reclamo;
+import finanzas.repository.UserRepository;
+import finanzas.service.dto.ResultadoExtractos;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link ExtractoMensualJob}, running the blocks in parallel end to end.
+ * <p>
+ * Not transactional: every block and checkpoint commits in its own transaction, on the job's threads.
+ */
+@IntegrationTest
+class ExtractoMensualJobIT {
+
+    private static final YearMonth MES = YearMonth.of(1999, 5);
+
+    @Autowired
+    private ExtractoMensualService extractoMensualService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private final List<Long> usuarios = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 4; i++) {
+                User user = new User();
+                user.setLogin("extracto-job-" + i);
+                user.setPassword("a".repeat(60));
+                user.setActivated(true);
+                user.setEmail("extracto-job-" + i + "@localhost");
+                usuarios.add(userRepository.saveAndFlush(user).getId());
+            }
+        });
+        // un usuario por bloque, así que el bloque del usuario 2 y el del 3 corren a la vez
+        applicationProperties.getExtractos().setBloque(1);
+        applicationProperties.getExtractos().setHilos(2);
+    }
+
+    @AfterEach
+    void cleanup() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from extracto_mensual_linea where mes = ?", MES.atDay(1));
+            jdbcTemplate.update("delete from extracto_mensual_ejecucion where mes = ?", MES.atDay(1));
+            userRepository.deleteAllById(usuarios);
+        });
+    }
+
+    @Test
+    void failedRunWaitsForRunningBlocksAndTheNextRunResumes() throws InterruptedException {
+        FallaEnBloque conFallo = new FallaEnBloque(extractoMensualService, usuarios.get(2), usuarios.get(3));
+        ExtractoMensualJob primero = new ExtractoMensualJob(conFallo, new SimpleMeterRegistry(), applicationProperties);
+        try {
+            ResultadoExtractos resultado = primero.generar(MES, false).orElseThrow();
+            assertThat(resultado.completado()).isFalse();
+        } finally {
+            primero.shutdown();
+        }
+        // el bloque rezagado había empezado antes del fallo y terminó antes de marcar la ejecución como fallida
+        assertThat(conFallo.enCursoAlTerminar).isZero();
+        assertThat(ejecucion()).containsEntry("estado", "FALLIDO").containsEntry("ultimo_usuario_id", usuarios.get(1));
+
+        ExtractoMensualJob segundo = new ExtractoMensualJob(extractoMensualService, new SimpleMeterRegistry(), applicationProperties);
+        try {
+            ResultadoExtractos resultado = segundo.generar(MES, false).orElseThrow();
+            assertThat(resultado.completado()).isTrue();
+            // reanuda tras el punto de control: solo los usuarios 2 y 3
+            assertThat(resultado.usuarios()).isEqualTo(2L);
+        } finally {
+            segundo.shutdown();
+        }
+        assertThat(ejecucion()).containsEntry("estado", "COMPLETADO").containsEntry("ultimo_usuario_id", usuarios.get(3));
+        // una línea TOTAL por usuario, sin duplicar la del bloque rezagado
+        Long lineas = jdbcTemplate.queryForObject(
+            "select count(*) from extracto_mensual_linea where mes = ? and usuario_id between ? and ?",
+            Long.class,
+            MES.atDay(1),
+            usuarios.get(0),
+            usuarios.get(3)
+        );
+        assertThat(lineas).isEqualTo(4L);
+    }
+
+    private Map<String, Object> ejecucion() {
+        return jdbcTemplate.queryForMap("select estado, ultimo_usuario_id from extracto_mensual_ejecucion where mes = ?", MES.atDay(1));
+    }
+
+    /**
+     * Delegates to the real service, but fails the block of {@code fallido} once the block of {@code rezagado} has
+     * started, and holds that one back until after the failure.
+     */
+    private static final class FallaEnBloque extends ExtractoMensualService {
+
+        private final ExtractoMensualService delegado;
+
+        private final Long fallido;
+
+        private final Long rezagado;
+
+        private final CountDownLatch rezagadoEmpezado = new CountDownLatch(1);
+
+        private final CountDownLatch fallo = new CountDownLatch(1);
+
+        private final AtomicInteger enCurso = new AtomicInteger();
+
+        private volatile int enCursoAlTerminar = -1;
+
+        private FallaEnBloque(ExtractoMensualService delegado, Long fallido, Long rezagado) {
+            super(null, null);
+            this.delegado = delegado;
+            this.fallido = fallido;
+            this.rezagado = rezagado;
+        }
+
+        @Override
+        public Optional<Reclamo> reclamar(YearMonth mes, Duration arrendamiento, boolean reiniciar) {
+            return delegado.reclamar(mes, arrendamiento, reiniciar);
+        }
+
+        @Override
+        public List<Long> usuariosPendientes(long desdeId) {
+            return delegado.usuariosPendientes(desdeId);
+        }
+
+        @Override
+        public int generarBloque(YearMonth mes, List<Long> usuarioIds) {
+            enCurso.incrementAndGet();
+            try {
+                if (usuarioIds.contains(fallido)) {
+                    esperar(rezagadoEmpezado, 0);
+                    fallo.countDown();
+                    throw new IllegalStateException("Block of user " + fallido + " failed");
+                }
+                if (usuarioIds.contains(rezagado)) {
+                    rezagadoEmpezado.countDown();
+                    esperar(fallo, 200);
+                }
+                return delegado.generarBloque(mes, usuarioIds);
+            } finally {
+                enCurso.decrementAndGet();
+            }
+        }
+
+        @Override
+        public boolean avanzar(YearMonth mes, Reclamo reclamo, long ultimoUsuarioId, long usuarios, long lineas) {
+            return delegado.avanzar(mes, reclamo, ultimoUsuarioId, usuarios, lineas);
+        }
+
+        @Override
+        public boolean terminar(YearMonth mes, Reclamo reclamo, boolean completado) {
+            enCursoAlTerminar = enCurso.get();
+            return delegado.terminar(mes, reclamo, completado);
+        }
+
+        private static void esperar(CountDownLatch latch, long despuesMillis) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+                Thread.sleep(despuesMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
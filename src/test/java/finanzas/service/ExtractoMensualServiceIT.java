@@ -0,0 +1,235 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.Categoria;
+import finanzas.domain.Cuenta;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.PeriodoPresupuesto;
+import finanzas.domain.enumeration.SeccionExtracto;
+import finanzas.domain.enumeration.TipoCategoria;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.CategoriaRepository;
+import finanzas.repository.CuentaRepository;
+import finanzas.repository.ExtractoMensualRepository.Reclamo;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.LineaExtracto;
+import finanzas.service.dto.CategoriaDTO;
+import finanzas.service.dto.CuentaDTO;
+import finanzas.service.dto.MovimientoDTO;
+import finanzas.service.dto.PresupuestoDTO;
+import finanzas.service.dto.UserDTO;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link ExtractoMensualService}.
+ */
+@IntegrationTest
+@Transactional
+@WithMockUser("extracto-user")
+class ExtractoMensualServiceIT {
+
+    private static final YearMonth MES = YearMonth.of(2003, 9);
+
+    private static final ZonedDateTime DIA = ZonedDateTime.of(2003, 9, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final Duration ARRENDAMIENTO = Duration.ofMinutes(10);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private MovimientoService movimientoService;
+
+    @Autowired
+    private PresupuestoService presupuestoService;
+
+    @Autowired
+    private ExtractoMensualService extractoMensualService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+
+    private Cuenta cuenta;
+
+    private Categoria comida;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setLogin("extracto-user");
+        user.setPassword("a".repeat(60));
+        user.setActivated(true);
+        user.setEmail("extracto@localhost");
+        userRepository.saveAndFlush(user);
+        cuenta = cuentaRepository.saveAndFlush(new Cuenta().nombre("Banco").saldoInicial(new BigDecimal("100.00")).usuario(user));
+        comida = categoriaRepository.saveAndFlush(new Categoria().nombre("Comida").tipo(TipoCategoria.GASTO).usuario(user));
+    }
+
+    @Test
+    void statementAggregatesTheMonth() {
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "500.00", DIA.minusMonths(1), null));
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "50.00", DIA, null));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "20.00", DIA.plusDays(1), comida));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "5.00", DIA.plusDays(2), comida));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "7.00", DIA.plusMonths(1), comida));
+        PresupuestoDTO presupuesto = presupuestoService.save(presupuesto("30.00"));
+        entityManager.flush();
+
+        int lineas = extractoMensualService.generarBloque(MES, List.of(user.getId()));
+
+        List<LineaExtracto> extracto = extractoMensualService.findForCurrentUser(MES);
+        assertThat(extracto).hasSize(lineas);
+        assertThat(extracto)
+            .extracting(LineaExtracto::seccion)
+            .containsExactly(
+                SeccionExtracto.TOTAL,
+                SeccionExtracto.CUENTA,
+                SeccionExtracto.CATEGORIA,
+                SeccionExtracto.CATEGORIA,
+                SeccionExtracto.PRESUPUESTO
+            );
+        assertThat(extracto.get(0)).satisfies(total -> {
+            assertThat(total.ingresos()).isEqualByComparingTo("50.00");
+            assertThat(total.gastos()).isEqualByComparingTo("25.00");
+            assertThat(total.movimientos()).isEqualTo(3L);
+        });
+        assertThat(extracto.get(1)).satisfies(linea -> {
+            assertThat(linea.claveId()).isEqualTo(cuenta.getId());
+            assertThat(linea.saldo()).isEqualByComparingTo("625.00");
+        });
+        assertThat(extracto.get(2).claveId()).isZero();
+        assertThat(extracto.get(3).gastos()).isEqualByComparingTo("25.00");
+        assertThat(extracto.get(4)).satisfies(linea -> {
+            assertThat(linea.claveId()).isEqualTo(presupuesto.getId());
+            assertThat(linea.saldo()).isEqualByComparingTo("5.00");
+            assertThat(linea.limite()).isEqualByComparingTo("30.00");
+        });
+
+        // regenerar sustituye, no duplica
+        assertThat(extractoMensualService.generarBloque(MES, List.of(user.getId()))).isEqualTo(lineas);
+        assertThat(extractoMensualService.findForCurrentUser(MES)).containsExactlyElementsOf(extracto);
+    }
+
+    @Test
+    void budgetLinesCountSpendingUpToTheEndOfTheMonth() {
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "20.00", DIA, comida));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "7.00", DIA.plusMonths(1), comida));
+        // un presupuesto de tres meses
+        PresupuestoDTO trimestral = presupuesto("30.00");
+        trimestral.setFechaFin(MES.plusMonths(2).atEndOfMonth());
+        trimestral = presupuestoService.save(trimestral);
+        entityManager.flush();
+
+        extractoMensualService.generarBloque(MES, List.of(user.getId()));
+        extractoMensualService.generarBloque(MES.plusMonths(1), List.of(user.getId()));
+
+        Long presupuestoId = trimestral.getId();
+        assertThat(extractoMensualService.findForCurrentUser(MES))
+            .filteredOn(linea -> linea.seccion() == SeccionExtracto.PRESUPUESTO)
+            .singleElement()
+            .satisfies(linea -> {
+                assertThat(linea.claveId()).isEqualTo(presupuestoId);
+                assertThat(linea.gastos()).isEqualByComparingTo("20.00");
+                assertThat(linea.saldo()).isEqualByComparingTo("10.00");
+            });
+        assertThat(extractoMensualService.findForCurrentUser(MES.plusMonths(1)))
+            .filteredOn(linea -> linea.seccion() == SeccionExtracto.PRESUPUESTO)
+            .singleElement()
+            .satisfies(linea -> {
+                assertThat(linea.gastos()).isEqualByComparingTo("27.00");
+                assertThat(linea.movimientos()).isEqualTo(2L);
+            });
+    }
+
+    @Test
+    void checkpointResumesFailedRuns() {
+        Reclamo primero = extractoMensualService.reclamar(MES, ARRENDAMIENTO, false).orElseThrow();
+        assertThat(primero.desde()).isZero();
+        assertThat(extractoMensualService.reclamar(MES, ARRENDAMIENTO, false)).isEmpty();
+
+        assertThat(extractoMensualService.avanzar(MES, primero, 42L, 10, 50)).isTrue();
+        assertThat(extractoMensualService.terminar(MES, primero, false)).isTrue();
+        Reclamo segundo = extractoMensualService.reclamar(MES, ARRENDAMIENTO, false).orElseThrow();
+        assertThat(segundo.desde()).isEqualTo(42L);
+
+        assertThat(extractoMensualService.terminar(MES, segundo, true)).isTrue();
+        assertThat(extractoMensualService.reclamar(MES, ARRENDAMIENTO, false)).isEmpty();
+        assertThat(extractoMensualService.reclamar(MES, ARRENDAMIENTO, true)).get().extracting(Reclamo::desde).isEqualTo(0L);
+        assertThat(extractoMensualService.usuariosPendientes(user.getId() - 1)).first().isEqualTo(user.getId());
+    }
+
+    @Test
+    void runsThatLostTheClaimCannotMoveTheCheckpoint() {
+        Reclamo caducado = extractoMensualService.reclamar(MES, ARRENDAMIENTO, false).orElseThrow();
+        // el primero deja de avanzar hasta que su arrendamiento caduca y otra ejecución reclama el mes
+        entityManager
+            .createNativeQuery("update extracto_mensual_ejecucion set actualizado_en = actualizado_en - interval '1 hour' where mes = :mes")
+            .setParameter("mes", MES.atDay(1))
+            .executeUpdate();
+        Reclamo vigente = extractoMensualService.reclamar(MES, ARRENDAMIENTO, false).orElseThrow();
+        assertThat(vigente.propietario()).isNotEqualTo(caducado.propietario());
+
+        assertThat(extractoMensualService.avanzar(MES, caducado, 99L, 1, 1)).isFalse();
+        assertThat(extractoMensualService.terminar(MES, caducado, true)).isFalse();
+
+        assertThat(extractoMensualService.avanzar(MES, vigente, 7L, 1, 1)).isTrue();
+        assertThat(extractoMensualService.terminar(MES, vigente, false)).isTrue();
+        assertThat(extractoMensualService.reclamar(MES, ARRENDAMIENTO, false)).get().extracting(Reclamo::desde).isEqualTo(7L);
+    }
+
+    private PresupuestoDTO presupuesto(String monto) {
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        CategoriaDTO categoriaDTO = new CategoriaDTO();
+        categoriaDTO.setId(comida.getId());
+        PresupuestoDTO dto = new PresupuestoDTO();
+        dto.setMonto(new BigDecimal(monto));
+        dto.setPeriodo(PeriodoPresupuesto.MENSUAL);
+        dto.setFechaInicio(MES.atDay(1));
+        dto.setFechaFin(MES.atEndOfMonth());
+        dto.setUsuario(usuario);
+        dto.setCategoria(categoriaDTO);
+        return dto;
+    }
+
+    private MovimientoDTO movimiento(TipoMovimiento tipo, String monto, ZonedDateTime fecha, Categoria categoria) {
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        CuentaDTO cuentaDTO = new CuentaDTO();
+        cuentaDTO.setId(cuenta.getId());
+        MovimientoDTO dto = new MovimientoDTO();
+        dto.setTipo(tipo);
+        dto.setMonto(new BigDecimal(monto));
+        dto.setFechaMovimiento(fecha);
+        dto.setFechaRegistro(ZonedDateTime.now());
+        dto.setUsuario(usuario);
+        dto.setCuenta(cuentaDTO);
+        if (categoria != null) {
+            CategoriaDTO categoriaDTO = new CategoriaDTO();
+            categoriaDTO.setId(categoria.getId());
+            dto.setCategoria(categoriaDTO);
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,60 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class LocalTokenBucketsTest {
+
+    private final AtomicLong reloj = new AtomicLong(1_000);
+
+    private final TokenBuckets.Tasa tasa = TokenBuckets.Tasa.porMinuto(3, 60);
+
+    @Test
+    void admitsABurstAndThenRefillsOneTokenPerInterval() {
+        LocalTokenBuckets cubetas = new LocalTokenBuckets(4, 100, reloj::get);
+
+        assertThat(cubetas.consumir("5491112345678", tasa)).isZero();
+        assertThat(cubetas.consumir("5491112345678", tasa)).isZero();
+        assertThat(cubetas.consumir("5491112345678", tasa)).isZero();
+        assertThat(cubetas.consumir("5491112345678", tasa)).isEqualTo(1_000);
+        // otro remitente tiene su propia cubeta
+        assertThat(cubetas.consumir("5491187654321", tasa)).isZero();
+
+        reloj.addAndGet(400);
+        assertThat(cubetas.consumir("5491112345678", tasa)).isEqualTo(600);
+        reloj.addAndGet(600);
+        assertThat(cubetas.consumir("5491112345678", tasa)).isZero();
+
+        // nunca se acumulan más tokens que la capacidad
+        reloj.addAndGet(60_000);
+        for (int i = 0; i < 3; i++) {
+            assertThat(cubetas.consumir("5491112345678", tasa)).isZero();
+        }
+        assertThat(cubetas.consumir("5491112345678", tasa)).isPositive();
+    }
+
+    @Test
+    void returnedTokensCanBeSpentAgain() {
+        LocalTokenBuckets cubetas = new LocalTokenBuckets(1, 10, reloj::get);
+        for (int i = 0; i < 3; i++) {
+            cubetas.consumir("global", tasa);
+        }
+        assertThat(cubetas.consumir("global", tasa)).isPositive();
+
+        cubetas.devolver("global", tasa);
+
+        assertThat(cubetas.consumir("global", tasa)).isZero();
+    }
+
+    @Test
+    void forgetsTheLeastRecentlyUsedBuckets() {
+        LocalTokenBuckets cubetas = new LocalTokenBuckets(2, 4, reloj::get);
+        for (int i = 0; i < 100; i++) {
+            cubetas.consumir(Integer.toString(i), tasa);
+        }
+
+        assertThat(cubetas.size()).isLessThanOrEqualTo(4);
+    }
+}
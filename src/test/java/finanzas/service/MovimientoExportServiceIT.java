@@ -0,0 +1,158 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import finanzas.IntegrationTest;
+import finanzas.domain.Categoria;
+import finanzas.domain.Cuenta;
+import finanzas.domain.Movimiento;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.TipoCategoria;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.CategoriaRepository;
+import finanzas.repository.CuentaRepository;
+import finanzas.repository.MovimientoFiltro;
+import finanzas.repository.MovimientoRepository;
+import finanzas.repository.UserRepository;
+import finanzas.service.MovimientoExportService.Formato;
+import finanzas.service.dto.MovimientoImportFila;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link MovimientoExportService}.
+ */
+@IntegrationTest
+@Transactional
+class MovimientoExportServiceIT {
+
+    private static final ZonedDateTime DIA = ZonedDateTime.of(2001, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private MovimientoExportService movimientoExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User user;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setLogin("export-user");
+        user.setPassword("a".repeat(60));
+        user.setActivated(true);
+        user.setEmail("export@localhost");
+        userRepository.saveAndFlush(user);
+        Categoria categoria = categoriaRepository.saveAndFlush(new Categoria().nombre("Comida").tipo(TipoCategoria.GASTO).usuario(user));
+        Cuenta cuenta = cuentaRepository.saveAndFlush(new Cuenta().nombre("Banco").saldoInicial(BigDecimal.ZERO).usuario(user));
+        movimiento(TipoMovimiento.GASTO, "12.50", DIA, "Cafe, \"con\" leche").categoria(categoria).cuenta(cuenta);
+        movimiento(TipoMovimiento.INGRESO, "1000.00", DIA.plusDays(1), "Nomina");
+        movimientoRepository.flush();
+    }
+
+    @Test
+    void exportsCsvNewestFirstWithQuotedFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long filas = movimientoExportService.exportar(MovimientoFiltro.ofUsuario(user.getId()), Formato.CSV, out);
+
+        assertThat(filas).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n"))
+            .hasSize(3)
+            .satisfies(lineas -> {
+                assertThat(lineas[0]).isEqualTo("id,fecha,tipo,monto,descripcion,categoria,cuenta");
+                assertThat(lineas[1]).contains(",2001-03-11T").endsWith(",INGRESO,1000.00,Nomina,,");
+                assertThat(lineas[2]).contains(",2001-03-10T").endsWith(",GASTO,12.50,\"Cafe, \"\"con\"\" leche\",Comida,Banco");
+            });
+    }
+
+    @Test
+    void exportsNdjsonWithinTheDateRange() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MovimientoFiltro filtro = new MovimientoFiltro(user.getId(), DIA.minusHours(1), DIA.plusHours(1), null, null, null);
+
+        movimientoExportService.exportar(filtro, Formato.NDJSON, out);
+
+        String[] lineas = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lineas).hasSize(1);
+        JsonNode fila = objectMapper.readTree(lineas[0]);
+        assertThat(fila.get("tipo").asText()).isEqualTo("GASTO");
+        assertThat(fila.get("categoria").asText()).isEqualTo("Comida");
+        assertThat(fila.get("monto").decimalValue()).isEqualByComparingTo("12.50");
+    }
+
+    @Test
+    void unquotedFieldsAreWrittenAsIs() throws Exception {
+        StringWriter writer = new StringWriter();
+        MovimientoExportService.writeCsvCampo(writer, "sin comillas");
+        assertThat(writer).hasToString("sin comillas");
+        assertThatThrownBy(() -> Formato.parse("xml")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(Formato.parse(" NdJson ")).isEqualTo(Formato.NDJSON);
+    }
+
+    @Test
+    void formulaLikeFieldsAreNeutralisedAndReadBackOnImport() throws Exception {
+        StringWriter writer = new StringWriter();
+        for (String valor : new String[] { "=HYPERLINK(\"http://x\")", "+34 600", "-5", "@SUM(A1)", "\tpago", "\rpago", "a=b" }) {
+            MovimientoExportService.writeCsvCampo(writer, valor);
+            writer.write('\n');
+        }
+        assertThat(writer.toString().split("\n")).containsExactly(
+            "\"'=HYPERLINK(\"\"http://x\"\")\"",
+            "'+34 600",
+            "'-5",
+            "'@SUM(A1)",
+            "'\tpago",
+            "\"'\rpago\"",
+            "a=b"
+        );
+
+        StringWriter csv = new StringWriter();
+        csv.write("fecha,tipo,monto,descripcion,categoria,cuenta\n2024-01-01,GASTO,1,");
+        MovimientoExportService.writeCsvCampo(csv, "=1+1");
+        csv.write(',');
+        MovimientoExportService.writeCsvCampo(csv, "-Otros");
+        csv.write(",'Ahorro\n");
+        MovimientoImportFila fila = new MovimientoCsvReader(new StringReader(csv.toString())).next();
+        assertThat(fila.descripcion()).isEqualTo("=1+1");
+        assertThat(fila.categoria()).isEqualTo("-Otros");
+        // solo se quita el ' que protege una fórmula
+        assertThat(fila.cuenta()).isEqualTo("'Ahorro");
+    }
+
+    private Movimiento movimiento(TipoMovimiento tipo, String monto, ZonedDateTime fecha, String descripcion) {
+        Movimiento movimiento = new Movimiento()
+            .tipo(tipo)
+            .monto(new BigDecimal(monto))
+            .fechaMovimiento(fecha)
+            .fechaRegistro(fecha)
+            .descripcion(descripcion);
+        movimiento.setUsuario(user);
+        return movimientoRepository.save(movimiento);
+    }
+}
@@ -0,0 +1,131 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.Cuenta;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.DimensionRollup;
+import finanzas.domain.enumeration.PeriodoRollup;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.CuentaRepository;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.PuntoSerie;
+import finanzas.service.dto.CuentaDTO;
+import finanzas.service.dto.MovimientoDTO;
+import finanzas.service.dto.UserDTO;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link MovimientoRollupService}: the rollups must always agree with the movimientos.
+ */
+@IntegrationTest
+@Transactional
+@WithMockUser("rollup-user")
+class MovimientoRollupServiceIT {
+
+    /** Lunes. */
+    private static final ZonedDateTime DIA = ZonedDateTime.of(2001, 3, 5, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final LocalDate DESDE = LocalDate.of(2001, 1, 1);
+
+    private static final LocalDate HASTA = LocalDate.of(2001, 12, 31);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private MovimientoService movimientoService;
+
+    @Autowired
+    private MovimientoRollupService movimientoRollupService;
+
+    @Autowired
+    private ReportService reportService;
+
+    private User user;
+
+    private Cuenta cuenta;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setLogin("rollup-user");
+        user.setPassword("a".repeat(60));
+        user.setActivated(true);
+        user.setEmail("rollup@localhost");
+        userRepository.saveAndFlush(user);
+        cuenta = cuentaRepository.saveAndFlush(new Cuenta().nombre("Rollup").saldoInicial(BigDecimal.ZERO).usuario(user));
+    }
+
+    @Test
+    void seriesFollowCreateUpdateAndDelete() {
+        MovimientoDTO ingreso = movimientoService.save(movimiento(TipoMovimiento.INGRESO, "50.00", DIA, null));
+        MovimientoDTO gasto = movimientoService.save(movimiento(TipoMovimiento.GASTO, "20.00", DIA.plusDays(2), cuenta.getId()));
+
+        List<PuntoSerie> semanas = reportService.getSerie(PeriodoRollup.SEMANA, null, DESDE, HASTA);
+        assertThat(semanas).singleElement().satisfies(punto -> {
+            assertThat(punto.inicio()).isEqualTo(DIA.toLocalDate());
+            assertThat(punto.neto()).isEqualByComparingTo("30.00");
+            assertThat(punto.movimientos()).isEqualTo(2L);
+        });
+
+        List<PuntoSerie> porCuenta = reportService.getSerie(PeriodoRollup.DIA, DimensionRollup.CUENTA, DESDE, HASTA);
+        assertThat(porCuenta).extracting(PuntoSerie::claveId).containsExactly(null, cuenta.getId());
+
+        gasto.setFechaMovimiento(DIA.plusMonths(1));
+        movimientoService.update(gasto);
+        movimientoService.delete(ingreso.getId());
+
+        List<PuntoSerie> meses = reportService.getSerie(PeriodoRollup.MES, null, DESDE, HASTA);
+        assertThat(meses).singleElement().satisfies(punto -> {
+            assertThat(punto.inicio()).isEqualTo(LocalDate.of(2001, 4, 1));
+            assertThat(punto.gastos()).isEqualByComparingTo("20.00");
+            assertThat(punto.ingresos()).isEqualByComparingTo("0");
+            assertThat(punto.movimientos()).isEqualTo(1L);
+        });
+    }
+
+    @Test
+    void rebuildMatchesIncrementalRollups() {
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "12.34", DIA, cuenta.getId()));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "2.34", DIA.plusDays(1), cuenta.getId()));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "1.00", DIA.plusDays(40), null));
+        List<PuntoSerie> incremental = reportService.getSerie(PeriodoRollup.DIA, DimensionRollup.CUENTA, DESDE, HASTA);
+
+        movimientoRollupService.reconstruir();
+
+        List<PuntoSerie> reconstruida = reportService.getSerie(PeriodoRollup.DIA, DimensionRollup.CUENTA, DESDE, HASTA);
+        assertThat(reconstruida).hasSize(3);
+        assertThat(reconstruida).containsExactlyElementsOf(incremental);
+    }
+
+    private MovimientoDTO movimiento(TipoMovimiento tipo, String monto, ZonedDateTime fecha, Long cuentaId) {
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        MovimientoDTO dto = new MovimientoDTO();
+        dto.setTipo(tipo);
+        dto.setMonto(new BigDecimal(monto));
+        dto.setFechaMovimiento(fecha);
+        dto.setFechaRegistro(ZonedDateTime.now());
+        dto.setUsuario(usuario);
+        if (cuentaId != null) {
+            CuentaDTO cuentaDTO = new CuentaDTO();
+            cuentaDTO.setId(cuentaId);
+            dto.setCuenta(cuentaDTO);
+        }
+        return dto;
+    }
+}
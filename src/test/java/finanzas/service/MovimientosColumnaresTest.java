@@ -0,0 +1,104 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.domain.enumeration.AgrupacionAnalitica;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.service.dto.ConsultaAnalitica;
+import finanzas.service.dto.GrupoAnalitico;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MovimientosColumnaresTest {
+
+    /** Lunes. */
+    private static final ZonedDateTime DIA = ZonedDateTime.of(2024, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    void groupsByMonthAndWeekday() {
+        MovimientosColumnares columnas = new MovimientosColumnares(0);
+        columnas.guardar(movimiento(1L, TipoMovimiento.INGRESO, "100.00", DIA, 7L));
+        columnas.guardar(movimiento(2L, TipoMovimiento.GASTO, "10.50", DIA.plusDays(1), 7L));
+        columnas.guardar(movimiento(3L, TipoMovimiento.GASTO, "4.50", DIA.plusMonths(1), null));
+
+        List<GrupoAnalitico> meses = columnas.consultar(consulta(AgrupacionAnalitica.MES, null));
+        assertThat(meses).extracting(GrupoAnalitico::clave).containsExactly("2024-01", "2024-02");
+        assertThat(meses.get(0).neto()).isEqualByComparingTo("89.50");
+        assertThat(meses.get(0).gastoMedio()).isEqualByComparingTo("10.50");
+        assertThat(meses.get(1).ingresos()).isEqualByComparingTo("0");
+
+        List<GrupoAnalitico> dias = columnas.consultar(consulta(AgrupacionAnalitica.DIA_SEMANA, TipoMovimiento.GASTO));
+        assertThat(dias).extracting(GrupoAnalitico::clave).containsExactly("TUESDAY", "THURSDAY");
+
+        List<GrupoAnalitico> semanas = columnas.consultar(consulta(AgrupacionAnalitica.SEMANA, null));
+        assertThat(semanas.get(0).clave()).isEqualTo(DIA.toLocalDate().toString());
+        assertThat(semanas.get(0).movimientos()).isEqualTo(2L);
+    }
+
+    @Test
+    void categoriesAreSortedBySpendingAndLimited() {
+        MovimientosColumnares columnas = new MovimientosColumnares(0);
+        columnas.guardar(movimiento(1L, TipoMovimiento.GASTO, "5.00", DIA, 1L));
+        columnas.guardar(movimiento(2L, TipoMovimiento.GASTO, "50.00", DIA, 2L));
+        columnas.guardar(movimiento(3L, TipoMovimiento.GASTO, "20.00", DIA, null));
+
+        ConsultaAnalitica consulta = new ConsultaAnalitica(AgrupacionAnalitica.CATEGORIA, null, null, null, null, null, 2);
+        assertThat(columnas.consultar(consulta)).extracting(GrupoAnalitico::clave).containsExactly("2", null);
+    }
+
+    @Test
+    void patchesUpdatesAndDeletesInPlace() {
+        MovimientosColumnares columnas = new MovimientosColumnares(0);
+        for (long id = 200; id > 0; id--) {
+            columnas.guardar(movimiento(id, TipoMovimiento.GASTO, "1.00", DIA, null));
+        }
+        columnas.guardar(movimiento(5L, TipoMovimiento.GASTO, "101.00", DIA, null));
+        for (long id = 100; id < 200; id++) {
+            columnas.quitar(id);
+        }
+        columnas.quitar(999L);
+
+        assertThat(columnas.size()).isEqualTo(100);
+        ConsultaAnalitica total = consulta(AgrupacionAnalitica.TOTAL, null);
+        assertThat(columnas.consultar(total)).singleElement().satisfies(grupo -> {
+            assertThat(grupo.clave()).isNull();
+            assertThat(grupo.gastos()).isEqualByComparingTo("200.00");
+            assertThat(grupo.movimientos()).isEqualTo(100L);
+        });
+
+        columnas.guardar(movimiento(150L, TipoMovimiento.INGRESO, "3.00", DIA, null));
+        assertThat(columnas.consultar(total).get(0).ingresos()).isEqualByComparingTo("3.00");
+    }
+
+    @Test
+    void filtersByDateRange() {
+        MovimientosColumnares columnas = new MovimientosColumnares(0);
+        columnas.guardar(movimiento(1L, TipoMovimiento.GASTO, "1.00", DIA, null));
+        columnas.guardar(movimiento(2L, TipoMovimiento.GASTO, "2.00", DIA.plusDays(2), null));
+
+        LocalDate dia = DIA.toLocalDate();
+        ConsultaAnalitica consulta = new ConsultaAnalitica(
+            AgrupacionAnalitica.DIA,
+            dia.plusDays(1),
+            dia.plusDays(5),
+            null,
+            null,
+            null,
+            null
+        );
+        assertThat(columnas.consultar(consulta)).singleElement().extracting(GrupoAnalitico::clave).isEqualTo("2024-01-03");
+    }
+
+    private static ConsultaAnalitica consulta(AgrupacionAnalitica agrupacion, TipoMovimiento tipo) {
+        return new ConsultaAnalitica(agrupacion, null, null, tipo, null, null, null);
+    }
+
+    private static MovimientoSnapshot movimiento(Long id, TipoMovimiento tipo, String monto, ZonedDateTime fecha, Long categoriaId) {
+        return new MovimientoSnapshot(id, 1L, null, categoriaId, tipo, new BigDecimal(monto), fecha);
+    }
+}
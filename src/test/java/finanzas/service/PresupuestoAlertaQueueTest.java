@@ -0,0 +1,65 @@
+package finanzas.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.projection.MovimientoSnapshot;
+import finanzas.service.PresupuestoAlertaService.GastoAfectado;
+import finanzas.service.event.MovimientosCreadosEvent;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+
+class PresupuestoAlertaQueueTest {
+
+    private static final ZonedDateTime DIA = ZonedDateTime.of(2001, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private final PresupuestoAlertaService presupuestoAlertaService = mock(PresupuestoAlertaService.class);
+
+    private final PresupuestoAlertaQueue queue = new PresupuestoAlertaQueue(presupuestoAlertaService);
+
+    @Test
+    void gastosWhoseAlertsCouldNotBeSentAreRetriedOnTheNextDrain() {
+        Set<GastoAfectado> afectados = Set.of(new GastoAfectado(7L, LocalDate.of(2001, 3, 10)));
+        when(presupuestoAlertaService.evaluarYNotificar(eq(1L), any())).thenReturn(
+            CompletableFuture.failedFuture(new MailSendException("smtp down")),
+            CompletableFuture.completedFuture(null)
+        );
+        queue.onMovimientosCreados(new MovimientosCreadosEvent(List.of(gasto())));
+
+        queue.drain();
+        queue.drain();
+        // enviado en el segundo intento: ya no queda nada pendiente
+        queue.drain();
+
+        verify(presupuestoAlertaService, times(2)).evaluarYNotificar(1L, afectados);
+    }
+
+    @Test
+    void evaluationErrorsAreNotRetried() {
+        when(presupuestoAlertaService.evaluarYNotificar(eq(1L), any())).thenReturn(
+            CompletableFuture.failedFuture(new IllegalStateException("db down"))
+        );
+        queue.onMovimientosCreados(new MovimientosCreadosEvent(List.of(gasto())));
+
+        queue.drain();
+        queue.drain();
+
+        verify(presupuestoAlertaService, times(1)).evaluarYNotificar(eq(1L), any());
+    }
+
+    private static MovimientoSnapshot gasto() {
+        return new MovimientoSnapshot(10L, 1L, 3L, 7L, TipoMovimiento.GASTO, new BigDecimal("20.00"), DIA);
+    }
+}
@@ -0,0 +1,182 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.Categoria;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.PeriodoPresupuesto;
+import finanzas.domain.enumeration.TipoCategoria;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.CategoriaRepository;
+import finanzas.repository.UserRepository;
+import finanzas.service.PresupuestoAlertaService.Alerta;
+import finanzas.service.PresupuestoAlertaService.GastoAfectado;
+import finanzas.service.dto.CategoriaDTO;
+import finanzas.service.dto.MovimientoDTO;
+import finanzas.service.dto.PresupuestoDTO;
+import finanzas.service.dto.UserDTO;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailSendException;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link PresupuestoAlertaService}.
+ */
+@IntegrationTest
+@Transactional
+@WithMockUser("alerta-user")
+class PresupuestoAlertaServiceIT {
+
+    private static final ZonedDateTime DIA = ZonedDateTime.of(2001, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private MovimientoService movimientoService;
+
+    @Autowired
+    private PresupuestoService presupuestoService;
+
+    @Autowired
+    private PresupuestoAlertaService presupuestoAlertaService;
+
+    @MockitoBean
+    private MailService mailService;
+
+    private User user;
+
+    private Categoria comida;
+
+    private List<GastoAfectado> afectados;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setLogin("alerta-user");
+        user.setPassword("a".repeat(60));
+        user.setActivated(true);
+        user.setEmail("alerta@localhost");
+        userRepository.saveAndFlush(user);
+        comida = categoriaRepository.saveAndFlush(new Categoria().nombre("Comida").tipo(TipoCategoria.GASTO).usuario(user));
+        afectados = List.of(new GastoAfectado(comida.getId(), DIA.toLocalDate()));
+
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        CategoriaDTO categoria = new CategoriaDTO();
+        categoria.setId(comida.getId());
+        PresupuestoDTO presupuesto = new PresupuestoDTO();
+        presupuesto.setMonto(new BigDecimal("100.00"));
+        presupuesto.setPeriodo(PeriodoPresupuesto.MENSUAL);
+        presupuesto.setFechaInicio(LocalDate.of(2001, 3, 1));
+        presupuesto.setFechaFin(LocalDate.of(2001, 3, 31));
+        presupuesto.setUsuario(usuario);
+        presupuesto.setCategoria(categoria);
+        presupuestoService.save(presupuesto);
+    }
+
+    @Test
+    void eachThresholdIsAlertedOnce() {
+        gasto("50.00");
+        assertThat(presupuestoAlertaService.evaluar(user.getId(), afectados)).isEmpty();
+
+        gasto("35.00");
+        List<Alerta> alertas = presupuestoAlertaService.evaluar(user.getId(), afectados);
+        assertThat(alertas).singleElement().satisfies(alerta -> {
+            assertThat(alerta.umbral()).isEqualTo(PresupuestoAlertaService.UMBRAL_AVISO);
+            assertThat(alerta.categoria()).isEqualTo("Comida");
+            assertThat(PresupuestoAlertaService.texto(alerta)).contains("85.00%", "Comida");
+        });
+        assertThat(presupuestoAlertaService.evaluar(user.getId(), afectados)).isEmpty();
+
+        gasto("20.00");
+        assertThat(presupuestoAlertaService.evaluar(user.getId(), afectados))
+            .extracting(Alerta::umbral)
+            .containsExactly(PresupuestoAlertaService.UMBRAL_AGOTADO);
+    }
+
+    @Test
+    void thresholdIsAlertedAgainAfterSpendingDrops() {
+        gasto("50.00");
+        MovimientoDTO grande = gasto("40.00");
+        assertThat(presupuestoAlertaService.evaluar(user.getId(), afectados)).hasSize(1);
+
+        movimientoService.delete(grande.getId());
+        assertThat(presupuestoAlertaService.evaluar(user.getId(), afectados)).isEmpty();
+
+        gasto("30.00");
+        assertThat(presupuestoAlertaService.evaluar(user.getId(), afectados))
+            .extracting(Alerta::umbral)
+            .containsExactly(PresupuestoAlertaService.UMBRAL_AVISO);
+    }
+
+    @Test
+    void gastosOutsideTheBudgetAreIgnored() {
+        gasto("500.00");
+        List<GastoAfectado> otroMes = List.of(new GastoAfectado(comida.getId(), DIA.plusMonths(1).toLocalDate()));
+        List<GastoAfectado> otraCategoria = List.of(new GastoAfectado(comida.getId() + 1000, DIA.toLocalDate()));
+
+        assertThat(presupuestoAlertaService.evaluar(user.getId(), otroMes)).isEmpty();
+        assertThat(presupuestoAlertaService.evaluar(user.getId(), otraCategoria)).isEmpty();
+        assertThat(presupuestoAlertaService.evaluar(user.getId(), afectados)).hasSize(1);
+    }
+
+    @Test
+    void alertsAreMailedAndSendFailuresPropagate() {
+        gasto("85.00");
+        List<Alerta> alertas = presupuestoAlertaService.evaluar(user.getId(), afectados);
+
+        presupuestoAlertaService.notificar(user.getId(), alertas);
+        verify(mailService).sendEmailConfirmed(eq("alerta@localhost"), eq("Aviso de presupuesto"), contains("Comida"));
+
+        // el fallo llega a evaluarYNotificar, que deshace los umbrales marcados
+        doThrow(new MailSendException("smtp down")).when(mailService).sendEmailConfirmed(any(), any(), any());
+        assertThatThrownBy(() -> presupuestoAlertaService.notificar(user.getId(), alertas)).isInstanceOf(MailSendException.class);
+    }
+
+    @Test
+    void usersWithoutEmailAreNotMailed() {
+        user.setEmail(null);
+        userRepository.saveAndFlush(user);
+        gasto("85.00");
+
+        presupuestoAlertaService.notificar(user.getId(), presupuestoAlertaService.evaluar(user.getId(), afectados));
+
+        verifyNoInteractions(mailService);
+    }
+
+    private MovimientoDTO gasto(String monto) {
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        CategoriaDTO categoria = new CategoriaDTO();
+        categoria.setId(comida.getId());
+        MovimientoDTO dto = new MovimientoDTO();
+        dto.setTipo(TipoMovimiento.GASTO);
+        dto.setMonto(new BigDecimal(monto));
+        dto.setFechaMovimiento(DIA);
+        dto.setFechaRegistro(ZonedDateTime.now());
+        dto.setUsuario(usuario);
+        dto.setCategoria(categoria);
+        return movimientoService.save(dto);
+    }
+}
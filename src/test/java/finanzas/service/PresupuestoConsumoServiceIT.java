@@ -0,0 +1,176 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.Categoria;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.PeriodoPresupuesto;
+import finanzas.domain.enumeration.TipoCategoria;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.CategoriaRepository;
+import finanzas.repository.UserRepository;
+import finanzas.repository.projection.ConsumoPresupuesto;
+import finanzas.service.dto.CategoriaDTO;
+import finanzas.service.dto.MovimientoDTO;
+import finanzas.service.dto.PresupuestoDTO;
+import finanzas.service.dto.UserDTO;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link PresupuestoConsumoService}: the counters must always agree with the movimientos.
+ */
+@IntegrationTest
+@Transactional
+@WithMockUser("consumo-user")
+class PresupuestoConsumoServiceIT {
+
+    private static final LocalDate INICIO = LocalDate.of(2001, 3, 1);
+
+    private static final LocalDate FIN = LocalDate.of(2001, 3, 31);
+
+    private static final ZonedDateTime DIA = ZonedDateTime.of(2001, 3, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private MovimientoService movimientoService;
+
+    @Autowired
+    private PresupuestoService presupuestoService;
+
+    @Autowired
+    private PresupuestoConsumoService presupuestoConsumoService;
+
+    private User user;
+
+    private Categoria comida;
+
+    private Categoria ocio;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setLogin("consumo-user");
+        user.setPassword("a".repeat(60));
+        user.setActivated(true);
+        user.setEmail("consumo@localhost");
+        userRepository.saveAndFlush(user);
+        comida = categoriaRepository.saveAndFlush(new Categoria().nombre("Comida").tipo(TipoCategoria.GASTO).usuario(user));
+        ocio = categoriaRepository.saveAndFlush(new Categoria().nombre("Ocio").tipo(TipoCategoria.GASTO).usuario(user));
+    }
+
+    @Test
+    void consumoFollowsCreateUpdateAndDelete() {
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "10.00", DIA, comida));
+        PresupuestoDTO presupuesto = presupuestoService.save(presupuesto("200.00", INICIO, FIN, comida));
+        assertThat(consumo(presupuesto).gastado()).isEqualByComparingTo("10.00");
+
+        MovimientoDTO gasto = movimientoService.save(movimiento(TipoMovimiento.GASTO, "40.00", DIA.plusDays(1), comida));
+        MovimientoDTO otro = movimientoService.save(movimiento(TipoMovimiento.GASTO, "5.00", DIA.plusDays(2), comida));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "99.00", DIA, ocio));
+        movimientoService.save(movimiento(TipoMovimiento.INGRESO, "99.00", DIA, comida));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "99.00", DIA.plusMonths(1), comida));
+
+        ConsumoPresupuesto consumo = consumo(presupuesto);
+        assertThat(consumo.gastado()).isEqualByComparingTo("55.00");
+        assertThat(consumo.movimientos()).isEqualTo(3L);
+        assertThat(consumo.restante()).isEqualByComparingTo("145.00");
+        assertThat(consumo.porcentaje()).isEqualByComparingTo("27.50");
+
+        gasto.setFechaMovimiento(DIA.plusMonths(1));
+        movimientoService.update(gasto);
+        movimientoService.delete(otro.getId());
+
+        consumo = consumo(presupuesto);
+        assertThat(consumo.gastado()).isEqualByComparingTo("10.00");
+        assertThat(consumo.movimientos()).isEqualTo(1L);
+    }
+
+    @Test
+    void consumoIsRecomputedWhenTheWindowChanges() {
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "10.00", DIA, comida));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "20.00", DIA.plusMonths(1), comida));
+        PresupuestoDTO presupuesto = presupuestoService.save(presupuesto("100.00", INICIO, FIN, null));
+        assertThat(consumo(presupuesto).gastado()).isEqualByComparingTo("10.00");
+
+        presupuesto.setFechaFin(FIN.plusMonths(1));
+        presupuestoService.update(presupuesto);
+
+        assertThat(consumo(presupuesto).gastado()).isEqualByComparingTo("30.00");
+    }
+
+    @Test
+    void activosOnlyListsBudgetsCoveringToday() {
+        LocalDate hoy = LocalDate.now(ZoneOffset.UTC);
+        PresupuestoDTO vigente = presupuestoService.save(presupuesto("50.00", hoy.minusDays(3), hoy.plusDays(3), comida));
+        presupuestoService.save(presupuesto("50.00", INICIO, FIN, comida));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "60.00", ZonedDateTime.now(ZoneOffset.UTC), comida));
+
+        assertThat(presupuestoConsumoService.findActivos()).singleElement().satisfies(consumo -> {
+            assertThat(consumo.presupuestoId()).isEqualTo(vigente.getId());
+            assertThat(consumo.restante()).isEqualByComparingTo("-10.00");
+            assertThat(consumo.porcentaje()).isEqualByComparingTo("120.00");
+        });
+    }
+
+    @Test
+    void rebuildMatchesIncrementalCounters() {
+        PresupuestoDTO presupuesto = presupuestoService.save(presupuesto("80.00", INICIO, FIN, comida));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "12.34", DIA, comida));
+        movimientoService.save(movimiento(TipoMovimiento.GASTO, "2.34", DIA.plusDays(1), comida));
+        ConsumoPresupuesto incremental = consumo(presupuesto);
+
+        presupuestoConsumoService.reconstruir();
+
+        assertThat(consumo(presupuesto)).isEqualTo(incremental);
+    }
+
+    private ConsumoPresupuesto consumo(PresupuestoDTO presupuesto) {
+        return presupuestoConsumoService.findOne(presupuesto.getId()).orElseThrow();
+    }
+
+    private PresupuestoDTO presupuesto(String monto, LocalDate inicio, LocalDate fin, Categoria categoria) {
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        PresupuestoDTO dto = new PresupuestoDTO();
+        dto.setMonto(new BigDecimal(monto));
+        dto.setPeriodo(PeriodoPresupuesto.MENSUAL);
+        dto.setFechaInicio(inicio);
+        dto.setFechaFin(fin);
+        dto.setUsuario(usuario);
+        if (categoria != null) {
+            CategoriaDTO categoriaDTO = new CategoriaDTO();
+            categoriaDTO.setId(categoria.getId());
+            dto.setCategoria(categoriaDTO);
+        }
+        return dto;
+    }
+
+    private MovimientoDTO movimiento(TipoMovimiento tipo, String monto, ZonedDateTime fecha, Categoria categoria) {
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        CategoriaDTO categoriaDTO = new CategoriaDTO();
+        categoriaDTO.setId(categoria.getId());
+        MovimientoDTO dto = new MovimientoDTO();
+        dto.setTipo(tipo);
+        dto.setMonto(new BigDecimal(monto));
+        dto.setFechaMovimiento(fecha);
+        dto.setFechaRegistro(ZonedDateTime.now());
+        dto.setUsuario(usuario);
+        dto.setCategoria(categoriaDTO);
+        return dto;
+    }
+}
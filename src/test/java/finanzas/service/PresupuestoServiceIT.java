@@ -0,0 +1,95 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.Categoria;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.PeriodoPresupuesto;
+import finanzas.domain.enumeration.TipoCategoria;
+import finanzas.repository.CategoriaRepository;
+import finanzas.repository.UserRepository;
+import finanzas.service.dto.CategoriaDTO;
+import finanzas.service.dto.PresupuestoDTO;
+import finanzas.service.dto.UserDTO;
+import finanzas.web.rest.errors.BadRequestAlertException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the overlap validation of {@link PresupuestoService}.
+ */
+@IntegrationTest
+@Transactional
+class PresupuestoServiceIT {
+
+    private static final LocalDate INICIO = LocalDate.of(2001, 3, 1);
+
+    private static final LocalDate FIN = LocalDate.of(2001, 3, 31);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private PresupuestoService presupuestoService;
+
+    private User user;
+
+    private Categoria categoria;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setLogin("presupuesto-user");
+        user.setPassword("a".repeat(60));
+        user.setActivated(true);
+        user.setEmail("presupuesto@localhost");
+        userRepository.saveAndFlush(user);
+        categoria = categoriaRepository.saveAndFlush(new Categoria().nombre("Casa").tipo(TipoCategoria.GASTO).usuario(user));
+    }
+
+    @Test
+    void overlappingPresupuestoIsRejected() {
+        presupuestoService.save(presupuesto(INICIO, FIN));
+
+        assertThatThrownBy(() -> presupuestoService.save(presupuesto(FIN, FIN.plusMonths(1))))
+            .isInstanceOf(BadRequestAlertException.class)
+            .hasMessageContaining("solapa");
+    }
+
+    @Test
+    void adjacentPresupuestosAndSelfUpdatesAreAllowed() {
+        PresupuestoDTO marzo = presupuestoService.save(presupuesto(INICIO, FIN));
+        PresupuestoDTO abril = presupuestoService.save(presupuesto(FIN.plusDays(1), FIN.plusMonths(1)));
+
+        marzo.setMonto(new BigDecimal("20.00"));
+        presupuestoService.update(marzo);
+
+        abril.setFechaInicio(FIN);
+        assertThatThrownBy(() -> presupuestoService.update(abril)).isInstanceOf(BadRequestAlertException.class);
+        assertThat(presupuestoService.findOne(marzo.getId())).get().extracting(PresupuestoDTO::getMonto).isEqualTo(new BigDecimal("20.00"));
+    }
+
+    private PresupuestoDTO presupuesto(LocalDate inicio, LocalDate fin) {
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        CategoriaDTO categoriaDTO = new CategoriaDTO();
+        categoriaDTO.setId(categoria.getId());
+        PresupuestoDTO dto = new PresupuestoDTO();
+        dto.setMonto(new BigDecimal("10.00"));
+        dto.setPeriodo(PeriodoPresupuesto.MENSUAL);
+        dto.setFechaInicio(inicio);
+        dto.setFechaFin(fin);
+        dto.setUsuario(usuario);
+        dto.setCategoria(categoriaDTO);
+        return dto;
+    }
+}
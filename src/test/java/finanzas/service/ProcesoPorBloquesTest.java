@@ -0,0 +1,42 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ProcesoPorBloquesTest {
+
+    private final ProcesoPorBloques proceso = new ProcesoPorBloques("prueba", "prueba", 1, 2, "Test block", new SimpleMeterRegistry());
+
+    @AfterEach
+    void cerrar() throws InterruptedException {
+        proceso.cerrar();
+    }
+
+    @Test
+    void deliversEveryBlockInOrder() {
+        List<List<Long>> entregados = new ArrayList<>();
+
+        proceso.procesar(List.of(1L, 2L, 3L, 4L, 5L), ids -> ids.size(), (ids, tamano) -> entregados.add(ids));
+
+        assertThat(entregados).containsExactly(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+    }
+
+    @Test
+    void stopsOnceTheLeaseIsLost() {
+        List<List<Long>> entregados = new ArrayList<>();
+
+        assertThatThrownBy(() ->
+            proceso.procesar(List.of(1L, 2L, 3L, 4L, 5L), ids -> ids.size(), (ids, tamano) -> entregados.add(ids) && ids.contains(1L))
+        )
+            .isInstanceOf(ArrendamientoPerdidoException.class)
+            .hasMessageContaining("prueba");
+        // el segundo bloque ya no tenía el arrendamiento y el tercero no se entrega
+        assertThat(entregados).containsExactly(List.of(1L, 2L), List.of(3L, 4L));
+    }
+}
@@ -0,0 +1,65 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisConnectionException;
+import org.redisson.client.codec.StringCodec;
+
+class RedisTokenBucketsTest {
+
+    private final AtomicLong reloj = new AtomicLong(1_000);
+
+    private final TokenBuckets.Tasa tasa = TokenBuckets.Tasa.porMinuto(2, 60);
+
+    private final RScript script = mock(RScript.class);
+
+    private final Counter fallos = Counter.builder("test.fallos").register(new SimpleMeterRegistry());
+
+    private RedisTokenBuckets cubetas;
+
+    @BeforeEach
+    void init() {
+        RedissonClient redisson = mock(RedissonClient.class);
+        when(redisson.getScript(StringCodec.INSTANCE)).thenReturn(script);
+        cubetas = new RedisTokenBuckets(redisson, "test:", new LocalTokenBuckets(1, 10, reloj::get), fallos);
+    }
+
+    @Test
+    void usesTheWaitComputedByRedis() {
+        when(script.<Long>eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any(Object[].class)))
+            .thenReturn(0L, 750L);
+
+        assertThat(cubetas.consumir("5491112345678", tasa)).isZero();
+        assertThat(cubetas.consumir("5491112345678", tasa)).isEqualTo(750);
+        assertThat(fallos.count()).isZero();
+    }
+
+    @Test
+    void fallsBackToTheLocalBucketsWhenRedisIsUnavailable() {
+        when(script.eval(any(RScript.Mode.class), anyString(), any(RScript.ReturnType.class), anyList(), any(Object[].class))).thenThrow(
+            new RedisConnectionException("Unable to connect to Redis server")
+        );
+
+        // las cubetas locales siguen limitando: dos de ráfaga y luego un token por segundo
+        assertThat(cubetas.consumir("5491112345678", tasa)).isZero();
+        assertThat(cubetas.consumir("5491112345678", tasa)).isZero();
+        assertThat(cubetas.consumir("5491112345678", tasa)).isEqualTo(1_000);
+
+        cubetas.devolver("5491112345678", tasa);
+
+        assertThat(cubetas.consumir("5491112345678", tasa)).isZero();
+        assertThat(fallos.count()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,154 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.PeriodicidadRecurrencia;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.SerieRecurrenteRepository.Marca;
+import finanzas.repository.UserRepository;
+import finanzas.service.dto.CargoPrevisto;
+import finanzas.service.dto.MovimientoDTO;
+import finanzas.service.dto.UserDTO;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link SerieRecurrenteService}.
+ */
+@IntegrationTest
+@Transactional
+@WithMockUser("recurrente-user")
+class SerieRecurrenteServiceIT {
+
+    private static final Duration ARRENDAMIENTO = Duration.ofMinutes(10);
+
+    private static final Duration MARGEN = Duration.ofHours(1);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MovimientoService movimientoService;
+
+    @Autowired
+    private SerieRecurrenteService serieRecurrenteService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User user;
+
+    @BeforeEach
+    void init() {
+        user = new User();
+        user.setLogin("recurrente-user");
+        user.setPassword("a".repeat(60));
+        user.setActivated(true);
+        user.setEmail("recurrente@localhost");
+        userRepository.saveAndFlush(user);
+    }
+
+    @Test
+    void detectsSeriesOfNewMovementsAndListsUpcomingCharges() {
+        LocalDate hoy = LocalDate.now(ZoneOffset.UTC);
+        for (int mes = 1; mes <= 4; mes++) {
+            movimientoService.save(movimiento("NETFLIX.COM " + (1000 + mes), mes == 1 ? "13.49" : "12.99", hoy.minusMonths(mes)));
+        }
+        movimientoService.save(movimiento("Mercadona", "30.00", hoy.minusDays(1)));
+        movimientoService.save(movimiento("Mercadona", "30.00", hoy.minusDays(9)));
+        movimientoService.save(movimiento("Mercadona", "30.00", hoy.minusDays(40)));
+        entityManager.flush();
+
+        SerieRecurrenteService.ResultadoBloque resultado = serieRecurrenteService.detectarBloque(List.of(user.getId()), null, hoy, 25);
+
+        assertThat(resultado.claves()).isEqualTo(2);
+        assertThat(resultado.series()).isEqualTo(1);
+        List<CargoPrevisto> proximos = serieRecurrenteService.findProximosForCurrentUser(40, TipoMovimiento.GASTO);
+        assertThat(proximos).isNotEmpty();
+        assertThat(proximos.get(0)).satisfies(cargo -> {
+            assertThat(cargo.fecha()).isEqualTo(hoy.minusMonths(1).plusMonths(1));
+            assertThat(cargo.descripcion()).isEqualTo("NETFLIX.COM 1001");
+            assertThat(cargo.periodicidad()).isEqualTo(PeriodicidadRecurrencia.MENSUAL);
+            assertThat(cargo.montoMinimo()).isEqualByComparingTo("12.99");
+            assertThat(cargo.montoMaximo()).isEqualByComparingTo("13.49");
+        });
+        assertThat(serieRecurrenteService.findProximosForCurrentUser(40, TipoMovimiento.INGRESO)).isEmpty();
+
+        // solo se vuelven a analizar las claves con movimientos escritos después de la marca
+        LocalDateTime despues = LocalDateTime.now(ZoneOffset.UTC).plusHours(1);
+        assertThat(serieRecurrenteService.detectarBloque(List.of(user.getId()), despues, hoy, 25).claves()).isZero();
+        assertThat(serieRecurrenteService.findProximosForCurrentUser(40, TipoMovimiento.GASTO)).isEqualTo(proximos);
+    }
+
+    @Test
+    void reanalysesKeysOfRenamedAndDeletedMovements() {
+        LocalDate hoy = LocalDate.now(ZoneOffset.UTC);
+        List<MovimientoDTO> netflix = new ArrayList<>();
+        for (int mes = 1; mes <= 4; mes++) {
+            netflix.add(movimientoService.save(movimiento("NETFLIX.COM", "12.99", hoy.minusMonths(mes))));
+        }
+        entityManager.flush();
+        assertThat(serieRecurrenteService.detectarBloque(List.of(user.getId()), null, hoy, 25).series()).isEqualTo(1);
+
+        // uno cambia de descripción y se borran los demás: a la clave antigua no le queda ningún movimiento
+        MovimientoDTO renombrado = netflix.get(0);
+        renombrado.setDescripcion("Videoclub");
+        movimientoService.update(renombrado);
+        netflix.subList(1, netflix.size()).forEach(movimiento -> movimientoService.delete(movimiento.getId()));
+        entityManager.flush();
+
+        LocalDateTime antes = LocalDateTime.now(ZoneOffset.UTC).minusHours(1);
+        SerieRecurrenteService.ResultadoBloque resultado = serieRecurrenteService.detectarBloque(List.of(user.getId()), antes, hoy, 25);
+
+        assertThat(resultado.claves()).isEqualTo(2);
+        assertThat(resultado.series()).isZero();
+        assertThat(serieRecurrenteService.findProximosForCurrentUser(400, null)).isEmpty();
+    }
+
+    @Test
+    void leaseAndWatermark() {
+        Marca primera = serieRecurrenteService.reclamar(ARRENDAMIENTO).orElseThrow();
+        assertThat(serieRecurrenteService.reclamar(ARRENDAMIENTO)).isEmpty();
+
+        assertThat(serieRecurrenteService.terminar(primera, false, MARGEN)).isTrue();
+        Marca segunda = serieRecurrenteService.reclamar(ARRENDAMIENTO).orElseThrow();
+        assertThat(segunda.marca()).isEqualTo(primera.marca());
+
+        // la primera ejecución ya no tiene el arrendamiento: no puede renovarlo ni mover la marca
+        assertThat(serieRecurrenteService.renovar(primera, ARRENDAMIENTO)).isFalse();
+        assertThat(serieRecurrenteService.terminar(primera, true, MARGEN)).isFalse();
+
+        assertThat(serieRecurrenteService.renovar(segunda, ARRENDAMIENTO)).isTrue();
+        assertThat(serieRecurrenteService.terminar(segunda, true, MARGEN)).isTrue();
+        assertThat(serieRecurrenteService.reclamar(ARRENDAMIENTO)).get().extracting(Marca::marca).isEqualTo(segunda.inicio());
+        assertThat(serieRecurrenteService.usuarios()).contains(user.getId());
+    }
+
+    private MovimientoDTO movimiento(String descripcion, String monto, LocalDate fecha) {
+        UserDTO usuario = new UserDTO();
+        usuario.setId(user.getId());
+        MovimientoDTO dto = new MovimientoDTO();
+        dto.setTipo(TipoMovimiento.GASTO);
+        dto.setMonto(new BigDecimal(monto));
+        dto.setDescripcion(descripcion);
+        dto.setFechaMovimiento(ZonedDateTime.of(fecha, LocalTime.NOON, ZoneOffset.UTC));
+        dto.setFechaRegistro(ZonedDateTime.now());
+        dto.setUsuario(usuario);
+        return dto;
+    }
+}
@@ -0,0 +1,85 @@
+package finanzas.service;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compara sumar importes con {@link BigDecimal} y con {@link SumaMonetaria}.
+ * <p>
+ * No se ejecuta con los tests; se lanza con el método {@code main} (desde el IDE o con el classpath de test).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SumaMonetariaBenchmark {
+
+    @Param({ "1000", "100000" })
+    private int n;
+
+    private List<BigDecimal> montos;
+
+    private long[] centimos;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        centimos = random.longs(n, 1, 1_000_000).toArray();
+        montos = Arrays.stream(centimos).mapToObj(SumaMonetaria::aBigDecimal).toList();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalReduce() {
+        return montos.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalBucle() {
+        BigDecimal suma = BigDecimal.ZERO;
+        for (BigDecimal monto : montos) {
+            suma = suma.add(monto);
+        }
+        return suma;
+    }
+
+    @Benchmark
+    public BigDecimal sumaMonetariaDesdeBigDecimal() {
+        SumaMonetaria suma = new SumaMonetaria();
+        for (BigDecimal monto : montos) {
+            suma.sumar(monto);
+        }
+        return suma.valor();
+    }
+
+    @Benchmark
+    public BigDecimal sumaMonetariaDesdeCentimos() {
+        SumaMonetaria suma = new SumaMonetaria();
+        for (long importe : centimos) {
+            suma.sumarCentimos(importe);
+        }
+        return suma.valor();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SumaMonetariaBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,40 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class SumaMonetariaTest {
+
+    @Test
+    void sumsInCentsWithScaleTwo() {
+        SumaMonetaria suma = new SumaMonetaria().sumar(new BigDecimal("10.5")).sumar(new BigDecimal("3")).restar(new BigDecimal("0.25"));
+
+        assertThat(suma.valor()).isEqualTo(new BigDecimal("13.25"));
+        assertThat(suma.signum()).isPositive();
+    }
+
+    @Test
+    void fallsBackToBigDecimalOnOverflow() {
+        SumaMonetaria suma = new SumaMonetaria().sumarCentimos(Long.MAX_VALUE).sumarCentimos(Long.MAX_VALUE).sumar(new BigDecimal("0.01"));
+
+        BigDecimal esperado = SumaMonetaria.aBigDecimal(Long.MAX_VALUE).multiply(BigDecimal.TWO).add(new BigDecimal("0.01"));
+        assertThat(suma.valor()).isEqualTo(esperado);
+    }
+
+    @Test
+    void keepsExtraDecimalsExactly() {
+        SumaMonetaria suma = new SumaMonetaria().sumar(new BigDecimal("1.10")).sumar(new BigDecimal("0.005"));
+
+        assertThat(suma.valor()).isEqualTo(new BigDecimal("1.105"));
+    }
+
+    @Test
+    void averageRoundsHalfUp() {
+        assertThat(new SumaMonetaria().sumarCentimos(5).media(2)).isEqualTo(new BigDecimal("0.03"));
+        assertThat(new SumaMonetaria().sumarCentimos(-5).media(2)).isEqualTo(new BigDecimal("-0.03"));
+        assertThat(new SumaMonetaria().sumarCentimos(10).media(3)).isEqualTo(new BigDecimal("0.03"));
+        assertThat(new SumaMonetaria().media(0)).isNull();
+    }
+}
@@ -205,4 +205,18 @@ class UserServiceIT {
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
         assertThat(maybeDbUser).contains(dbUser);
     }
+
+    @Test
+    @Transactional
+    void assertThatPhoneNumberResolutionIsCachedAndEvicted() {
+        user.setPhoneNumber("+34600111222");
+        userRepository.saveAndFlush(user);
+        Cache phoneCache = cacheManager.getCache(UserRepository.USERS_BY_PHONE_CACHE);
+
+        assertThat(userService.findIdByNormalizedPhoneNumber(User.normalizePhoneNumber("whatsapp:+34600111222"))).contains(user.getId());
+        assertThat(phoneCache.get("34600111222")).isNotNull();
+
+        userService.deleteUser(DEFAULT_LOGIN);
+        assertThat(phoneCache.get("34600111222")).isNull();
+    }
 }
@@ -0,0 +1,64 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import finanzas.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+class WhatsappCloudApiSenderTest {
+
+    private static final String URL = "https://graph.example.com/v21.0/123/messages";
+
+    private MockRestServiceServer server;
+
+    private WhatsappCloudApiSender sender;
+
+    @BeforeEach
+    void init() {
+        ApplicationProperties.Whatsapp.Envio envio = new ApplicationProperties().getWhatsapp().getEnvio();
+        envio.setUrl(URL);
+        envio.setToken("secreto");
+        RestClient.Builder builder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(builder).build();
+        sender = new WhatsappCloudApiSender(builder.build(), envio);
+    }
+
+    @Test
+    void postsATextMessage() {
+        server
+            .expect(requestTo(URL))
+            .andExpect(method(HttpMethod.POST))
+            .andExpect(header(HttpHeaders.AUTHORIZATION, "Bearer secreto"))
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.messaging_product").value("whatsapp"))
+            .andExpect(jsonPath("$.to").value("34600000000"))
+            .andExpect(jsonPath("$.type").value("text"))
+            .andExpect(jsonPath("$.text.body").value("Gasto registrado"))
+            .andRespond(withSuccess("{\"messages\":[{\"id\":\"wamid.1\"}]}", MediaType.APPLICATION_JSON));
+
+        sender.enviar("34600000000", "Gasto registrado");
+
+        server.verify();
+    }
+
+    @Test
+    void providerErrorsAreThrown() {
+        server.expect(requestTo(URL)).andRespond(withServerError());
+
+        assertThatThrownBy(() -> sender.enviar("34600000000", "Gasto registrado")).isInstanceOf(RestClientResponseException.class);
+    }
+}
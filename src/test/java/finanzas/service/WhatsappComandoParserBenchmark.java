@@ -0,0 +1,242 @@
+package finanzas.service;
+
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compara {@link WhatsappComandoParser} con los tres parsers a los que sustituye, copiados aquí tal como estaban: el de
+ * palabras de {@code WhatsappMessageService}, la expresión regular de {@code WhatsappMessageProcessorService} y el
+ * {@code split} de {@code WhatsappBotService}. Cada par analiza el mismo corpus, con el formato que aceptaba el parser
+ * antiguo y un 5 % de mensajes inválidos, y lee todas las partes del resultado.
+ * <p>
+ * No se ejecuta con los tests; se lanza con el método {@code main} (desde el IDE o con el classpath de test), que
+ * añade el perfilador de GC para ver los bytes asignados por corpus ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhatsappComandoParserBenchmark {
+
+    private static final Pattern MOVIMIENTO_PATTERN = Pattern.compile(
+        "^(gasto|ingreso)\\s+(\\d+(\\.\\d{1,2})?)\\s+([\\w\\s]+?)(?:\\s+en\\s+([\\w\\s]+))?(?:\\s+(.+))?$",
+        Pattern.CASE_INSENSITIVE
+    );
+
+    private static final String[] CATEGORIAS = { "Comida", "Transporte", "Super", "Farmacia", "\"Comida rapida\"", "Servicios", "Ocio" };
+
+    private static final String[] CUENTAS = { "Efectivo", "Visa", "Principal", "\"Cuenta Nomina\"", "Ahorros" };
+
+    private static final String[] DESCRIPCIONES = { "", "", "almuerzo con Ana", "taxi al aeropuerto", "recarga", "cena de cumple" };
+
+    private static final String[] INVALIDOS = { "hola", "gasto", "gasto mil Comida", "saldo Visa", "ingreso 10" };
+
+    @Param({ "1000" })
+    private int n;
+
+    private String[] posicionales;
+
+    private String[] conEn;
+
+    private String[] etiquetados;
+
+    private final WhatsappComando comando = new WhatsappComando();
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        posicionales = new String[n];
+        conEn = new String[n];
+        etiquetados = new String[n];
+        for (int i = 0; i < n; i++) {
+            if (random.nextInt(20) == 0) {
+                String invalido = INVALIDOS[random.nextInt(INVALIDOS.length)];
+                posicionales[i] = conEn[i] = etiquetados[i] = invalido;
+                continue;
+            }
+            String tipo = random.nextInt(5) == 0 ? "ingreso" : "gasto";
+            String monto = random.nextBoolean()
+                ? Integer.toString(random.nextInt(1, 5000))
+                : random.nextInt(1, 500) + "." + random.nextInt(10, 100);
+            String categoria = CATEGORIAS[random.nextInt(CATEGORIAS.length)];
+            String cuenta = CUENTAS[random.nextInt(CUENTAS.length)];
+            String descripcion = DESCRIPCIONES[random.nextInt(DESCRIPCIONES.length)];
+            String resto = descripcion.isEmpty() ? "" : " " + descripcion;
+            posicionales[i] = tipo.toUpperCase() + " " + monto + " " + categoria + " " + cuenta + resto;
+            // la expresión regular no admite comillas: nombres de una palabra y cuenta al final
+            String inicio = tipo + " " + monto + " " + (categoria.startsWith("\"") ? "Restaurante" : categoria);
+            conEn[i] = random.nextBoolean() ? inicio + " en " + cuenta.replace("\"", "") : inicio + resto;
+            etiquetados[i] = inicio + " cuenta:" + random.nextInt(1, 50) + " categoria:" + random.nextInt(1, 50);
+        }
+    }
+
+    @Benchmark
+    public void posicionalAntiguo(Blackhole bh) {
+        for (String mensaje : posicionales) {
+            parsearPalabras(mensaje, bh);
+        }
+    }
+
+    @Benchmark
+    public void posicionalParser(Blackhole bh) {
+        for (String mensaje : posicionales) {
+            consumir(WhatsappComandoParser.parsear(mensaje, true, comando), bh);
+        }
+    }
+
+    @Benchmark
+    public void conEnRegex(Blackhole bh) {
+        for (String mensaje : conEn) {
+            parsearRegex(mensaje, bh);
+        }
+    }
+
+    @Benchmark
+    public void conEnParser(Blackhole bh) {
+        for (String mensaje : conEn) {
+            consumir(WhatsappComandoParser.parsear(mensaje, false, comando), bh);
+        }
+    }
+
+    @Benchmark
+    public void etiquetadoSplit(Blackhole bh) {
+        for (String mensaje : etiquetados) {
+            parsearSplit(mensaje, bh);
+        }
+    }
+
+    @Benchmark
+    public void etiquetadoParser(Blackhole bh) {
+        for (String mensaje : etiquetados) {
+            WhatsappComandoParser.parsearTipoYMonto(mensaje, comando);
+            if (comando.valido()) {
+                bh.consume(comando.tipo());
+                bh.consume(comando.monto());
+                bh.consume(WhatsappComandoParser.idEtiquetado(mensaje, "cuenta:"));
+                bh.consume(WhatsappComandoParser.idEtiquetado(mensaje, "categoria:"));
+            }
+        }
+    }
+
+    private static void consumir(WhatsappComando comando, Blackhole bh) {
+        if (!comando.valido()) {
+            bh.consume(comando.error());
+            return;
+        }
+        bh.consume(comando.tipo());
+        bh.consume(comando.monto());
+        bh.consume(comando.categoria());
+        bh.consume(comando.cuenta());
+        bh.consume(comando.descripcion());
+    }
+
+    private static void parsearPalabras(String mensaje, Blackhole bh) {
+        String[] tokens = dividirTokens(mensaje.trim().toUpperCase());
+        if (tokens.length < 4 || (!tokens[0].equals("GASTO") && !tokens[0].equals("INGRESO"))) {
+            bh.consume(tokens);
+            return;
+        }
+        try {
+            bh.consume(TipoMovimiento.valueOf(tokens[0]));
+            bh.consume(new BigDecimal(tokens[1]));
+            bh.consume(tokens[2].replaceAll("\"", ""));
+            bh.consume(tokens[3].replaceAll("\"", ""));
+            if (tokens.length > 4) {
+                StringBuilder desc = new StringBuilder();
+                for (int i = 4; i < tokens.length; i++) {
+                    desc.append(tokens[i]).append(" ");
+                }
+                bh.consume(desc.toString().trim().replaceAll("\"", ""));
+            }
+        } catch (NumberFormatException e) {
+            bh.consume(e);
+        }
+    }
+
+    private static String[] dividirTokens(String texto) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean enComillas = false;
+        for (char c : texto.toCharArray()) {
+            if (c == '"') {
+                enComillas = !enComillas;
+                token.append(c);
+            } else if (c == ' ' && !enComillas) {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token = new StringBuilder();
+                }
+            } else {
+                token.append(c);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static void parsearRegex(String mensaje, Blackhole bh) {
+        Matcher matcher = MOVIMIENTO_PATTERN.matcher(mensaje.trim());
+        if (!matcher.matches()) {
+            bh.consume(matcher);
+            return;
+        }
+        bh.consume(matcher.group(1).equalsIgnoreCase("gasto"));
+        bh.consume(new BigDecimal(matcher.group(2)));
+        bh.consume(matcher.group(4).trim());
+        bh.consume(matcher.group(5) != null ? matcher.group(5).trim() : null);
+        bh.consume(matcher.group(6) != null ? matcher.group(6).trim() : null);
+    }
+
+    private static void parsearSplit(String mensaje, Blackhole bh) {
+        try {
+            String[] parts = mensaje.split("\\s+");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Formato inválido");
+            }
+            bh.consume(parts[0].toUpperCase().startsWith("G"));
+            bh.consume(new BigDecimal(parts[1].replaceAll("[^0-9.,-]", "").replace(',', '.')));
+            for (String token : parts) {
+                if (token.startsWith("cuenta:")) {
+                    bh.consume(Long.valueOf(token.substring(7)));
+                }
+                if (token.startsWith("categoria:")) {
+                    bh.consume(Long.valueOf(token.substring(10)));
+                }
+            }
+        } catch (RuntimeException e) {
+            bh.consume(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder().include(WhatsappComandoParserBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()
+        ).run();
+    }
+}
@@ -0,0 +1,138 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.domain.enumeration.TipoMovimiento;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class WhatsappComandoParserTest {
+
+    private final WhatsappComando comando = new WhatsappComando();
+
+    @Test
+    void parsesPositionalAccount() {
+        WhatsappComandoParser.parsear("GASTO 10 CAFE PRINCIPAL", true, comando);
+
+        assertThat(comando.valido()).isTrue();
+        assertThat(comando.tipo()).isEqualTo(TipoMovimiento.GASTO);
+        assertThat(comando.monto()).isEqualTo(new BigDecimal("10"));
+        assertThat(comando.categoria()).isEqualTo("CAFE");
+        assertThat(comando.cuenta()).isEqualTo("PRINCIPAL");
+        assertThat(comando.descripcion()).isNull();
+    }
+
+    @Test
+    void parsesQuotedNamesAndDescription() {
+        WhatsappComandoParser.parsear("  Ingreso $1500,5 \"Sueldo Fijo\" “Cuenta Nómina”  pago de marzo ", true, comando);
+
+        assertThat(comando.tipo()).isEqualTo(TipoMovimiento.INGRESO);
+        assertThat(comando.monto()).isEqualTo(new BigDecimal("1500.5"));
+        assertThat(comando.categoria()).isEqualTo("Sueldo Fijo");
+        assertThat(comando.cuenta()).isEqualTo("Cuenta Nómina");
+        assertThat(comando.descripcion()).isEqualTo("pago de marzo");
+    }
+
+    @Test
+    void accountAfterEnTakesTheRestUnlessQuoted() {
+        WhatsappComandoParser.parsear("gasto 12.50 Cafe en Cuenta Principal", false, comando);
+
+        assertThat(comando.categoria()).isEqualTo("Cafe");
+        assertThat(comando.cuenta()).isEqualTo("Cuenta Principal");
+        assertThat(comando.descripcion()).isNull();
+
+        WhatsappComandoParser.parsear("gasto 12.50 Café EN \"Cuenta Principal\" \"con Ana\"", false, comando);
+
+        assertThat(comando.categoria()).isEqualTo("Café");
+        assertThat(comando.cuenta()).isEqualTo("Cuenta Principal");
+        assertThat(comando.descripcion()).isEqualTo("con Ana");
+    }
+
+    @Test
+    void withoutEnTheRestIsTheDescription() {
+        WhatsappComandoParser.parsear("gasto 4 Cafe con leche", false, comando);
+
+        assertThat(comando.valido()).isTrue();
+        assertThat(comando.categoria()).isEqualTo("Cafe");
+        assertThat(comando.cuenta()).isNull();
+        assertThat(comando.descripcion()).isEqualTo("con leche");
+    }
+
+    @Test
+    void parsesAFragment() {
+        String texto = "gasto 4 Cafe\ningreso 20 Venta en Caja";
+
+        WhatsappComandoParser.parsear(texto, texto.indexOf('\n') + 1, texto.length(), false, comando);
+
+        assertThat(comando.tipo()).isEqualTo(TipoMovimiento.INGRESO);
+        assertThat(comando.categoria()).isEqualTo("Venta");
+        assertThat(comando.cuenta()).isEqualTo("Caja");
+    }
+
+    @Test
+    void splitsCommandsByLineAndSemicolonOutsideQuotes() {
+        List<WhatsappComando> comandos = WhatsappComandoParser.parsearTodos(
+            "gasto 10 comida; gasto 5 bus \"ida; vuelta\"\n\n  ;ingreso 100 sueldo\r\nhola",
+            false
+        );
+
+        assertThat(comandos).hasSize(4);
+        assertThat(comandos.get(0).categoria()).isEqualTo("comida");
+        assertThat(comandos.get(1).descripcion()).isEqualTo("ida; vuelta");
+        assertThat(comandos.get(2).tipo()).isEqualTo(TipoMovimiento.INGRESO);
+        assertThat(comandos.get(2).categoria()).isEqualTo("sueldo");
+        assertThat(comandos.get(3).error()).isEqualTo(WhatsappComando.Error.TIPO);
+        assertThat(WhatsappComandoParser.parsearTodos(" \n ; ", false)).isEmpty();
+    }
+
+    @Test
+    void rejectsInvalidCommands() {
+        assertThat(WhatsappComandoParser.parsear("", false, comando).error()).isEqualTo(WhatsappComando.Error.FORMATO);
+        assertThat(WhatsappComandoParser.parsear("compra 10 Cafe", false, comando).error()).isEqualTo(WhatsappComando.Error.TIPO);
+        assertThat(WhatsappComandoParser.parsear("gasto diez Cafe", false, comando).error()).isEqualTo(WhatsappComando.Error.MONTO);
+        assertThat(WhatsappComandoParser.parsear("gasto 10.123 Cafe", false, comando).error()).isEqualTo(WhatsappComando.Error.MONTO);
+        assertThat(WhatsappComandoParser.parsear("gasto 10. Cafe", false, comando).error()).isEqualTo(WhatsappComando.Error.MONTO);
+        assertThat(WhatsappComandoParser.parsear("gasto -5 Cafe", false, comando).error()).isEqualTo(WhatsappComando.Error.MONTO);
+        assertThat(WhatsappComandoParser.parsear("gasto 0,00 Cafe", false, comando).error()).isEqualTo(
+            WhatsappComando.Error.MONTO_NO_POSITIVO
+        );
+        assertThat(WhatsappComandoParser.parsear("gasto 10", false, comando).error()).isEqualTo(WhatsappComando.Error.FORMATO);
+        assertThat(WhatsappComandoParser.parsear("gasto 10 Cafe en", false, comando).error()).isEqualTo(WhatsappComando.Error.FORMATO);
+        assertThat(WhatsappComandoParser.parsear("GASTO 10 CAFE", true, comando).error()).isEqualTo(WhatsappComando.Error.FORMATO);
+    }
+
+    @Test
+    void botAcceptsShortTypesWithoutCategory() {
+        WhatsappComandoParser.parsearTipoYMonto("G 12", comando);
+
+        assertThat(comando.valido()).isTrue();
+        assertThat(comando.tipo()).isEqualTo(TipoMovimiento.GASTO);
+        assertThat(comando.monto()).isEqualTo(new BigDecimal("12"));
+        assertThat(comando.categoria()).isNull();
+
+        WhatsappComandoParser.parsearTipoYMonto("ing 1500,50 cuenta:1", comando);
+
+        assertThat(comando.tipo()).isEqualTo(TipoMovimiento.INGRESO);
+        assertThat(comando.monto()).isEqualTo(new BigDecimal("1500.50"));
+
+        WhatsappComandoParser.parsearTipoYMonto("GASTO 12.50 comida cuenta:1 categoria:2", comando);
+
+        assertThat(comando.tipo()).isEqualTo(TipoMovimiento.GASTO);
+        assertThat(comando.categoria()).isNull();
+
+        assertThat(WhatsappComandoParser.parsearTipoYMonto("compra 10", comando).error()).isEqualTo(WhatsappComando.Error.TIPO);
+        assertThat(WhatsappComandoParser.parsearTipoYMonto("g", comando).error()).isEqualTo(WhatsappComando.Error.FORMATO);
+        // las formas cortas son solo del bot
+        assertThat(WhatsappComandoParser.parsear("G 12 Cafe", false, comando).error()).isEqualTo(WhatsappComando.Error.TIPO);
+    }
+
+    @Test
+    void findsTaggedIds() {
+        String texto = "GASTO 12.50 comida subcuenta:9 cuenta:x cuenta:12 categoria:3";
+
+        assertThat(WhatsappComandoParser.idEtiquetado(texto, "cuenta:")).isEqualTo(12L);
+        assertThat(WhatsappComandoParser.idEtiquetado(texto, "categoria:")).isEqualTo(3L);
+        assertThat(WhatsappComandoParser.idEtiquetado(texto, "presupuesto:")).isNull();
+    }
+}
@@ -16,8 +16,11 @@ import finanzas.repository.CuentaRepository;
 import finanzas.repository.MovimientoRepository;
 import finanzas.repository.UserRepository;
 import finanzas.repository.WhatsappMessageRepository;
+import finanzas.repository.projection.ClaveMensaje;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -133,6 +136,181 @@ class WhatsappMessageProcessorServiceIT {
         assertThat(mov.getFechaRegistro()).isNotNull();
     }
 
+    @Test
+    void processSingleMessage_registersEveryMovementOfAMultiLineMessage() {
+        long movimientosAntes = movimientoRepository.count();
+        message = whatsappMessageProcessorService.recibir(
+            user,
+            "5491112345678",
+            "gasto 10 Cafe; gasto 2,50 cafe con leche\ningreso 100 Cafe en \"Cuenta Principal\" \"devolución\""
+        );
+
+        whatsappMessageProcessorService.processSingleMessage(message);
+
+        WhatsappMessage updated = whatsappMessageRepository.findById(message.getId()).orElseThrow();
+        assertThat(updated.getEstado()).isEqualTo(EstadoProcesamiento.COMPLETADO);
+        assertThat(updated.getMovimientoAsociado()).isNotNull();
+        assertThat(updated.getMonto()).isNull();
+        assertThat(updated.getRespuestaBot()).startsWith("3 movimientos registrados (gastos $12.50, ingresos $100.00)");
+        assertThat(movimientoRepository.count()).isEqualTo(movimientosAntes + 3);
+    }
+
+    @Test
+    void processSingleMessage_registersNothingIfALineFails() {
+        long movimientosAntes = movimientoRepository.count();
+        message = whatsappMessageProcessorService.recibir(user, "5491112345678", "gasto 10 Cafe; gasto 5 Bus; gasto x Cafe");
+
+        whatsappMessageProcessorService.processSingleMessage(message);
+
+        WhatsappMessage updated = whatsappMessageRepository.findById(message.getId()).orElseThrow();
+        assertThat(updated.getEstado()).isEqualTo(EstadoProcesamiento.ERROR);
+        assertThat(updated.getErrorMensaje()).contains("Línea 2: La categoría 'Bus' no fue encontrada.").contains("Línea 3: ");
+        assertThat(updated.getMovimientoAsociado()).isNull();
+        assertThat(movimientoRepository.count()).isEqualTo(movimientosAntes);
+    }
+
+    @Test
+    void processMessage_claimsEachPendingMessageOnlyOnce() {
+        message = whatsappMessageProcessorService.recibir(user, "5491112345678", "gasto 7.25 Cafe en Cuenta Principal");
+        long movimientosAntes = movimientoRepository.count();
+
+        assertThat(whatsappMessageProcessorService.processMessage(clave(message))).isTrue();
+        // una segunda entrega del mismo id (evento + barrido) no vuelve a registrar el movimiento
+        assertThat(whatsappMessageProcessorService.processMessage(clave(message))).isFalse();
+
+        WhatsappMessage updated = whatsappMessageRepository.findById(message.getId()).orElseThrow();
+        assertThat(updated.getEstado()).isEqualTo(EstadoProcesamiento.COMPLETADO);
+        assertThat(updated.getMonto()).isEqualByComparingTo("7.25");
+        assertThat(updated.getTipoMovimiento()).isEqualTo(TipoMovimiento.GASTO);
+        assertThat(movimientoRepository.count()).isEqualTo(movimientosAntes + 1);
+    }
+
+    @Test
+    void recibir_ignoresRedeliveriesOfTheSameProviderMessageId() {
+        Long userId = user.getId();
+        String telefono = "5491112345678";
+        Optional<WhatsappMessage> primera = whatsappMessageProcessorService.recibir(userId, telefono, "gasto 4 Cafe", "wamid.dup-1");
+        Optional<WhatsappMessage> reintento = whatsappMessageProcessorService.recibir(userId, telefono, "gasto 4 Cafe", "wamid.dup-1");
+
+        assertThat(primera).isPresent();
+        assertThat(reintento).isEmpty();
+        assertThat(whatsappMessageRepository.findIdByProviderMessageId("wamid.dup-1")).contains(primera.orElseThrow().getId());
+    }
+
+    @Test
+    void claimPending_isCappedAndSkipsLiveLeases() {
+        WhatsappMessage primero = whatsappMessageProcessorService.recibir(user, "5491112345678", "gasto 1 Cafe");
+        whatsappMessageProcessorService.recibir(user, "5491112345678", "gasto 2 Cafe");
+        whatsappMessageProcessorService.recibir(user, "5491112345678", "gasto 3 Cafe");
+
+        List<ClaveMensaje> reclamados = whatsappMessageProcessorService.claimPending(2);
+        assertThat(reclamados).hasSize(2).contains(clave(primero));
+
+        // los ya arrendados con un lease vigente no se vuelven a reclamar
+        assertThat(whatsappMessageProcessorService.claimPending(100)).doesNotContainAnyElementsOf(reclamados);
+        WhatsappMessage arrendado = whatsappMessageRepository.findById(reclamados.get(0).id()).orElseThrow();
+        assertThat(arrendado.getEstado()).isEqualTo(EstadoProcesamiento.PROCESANDO);
+        assertThat(arrendado.getLeaseOwner()).isEqualTo(whatsappMessageProcessorService.getLeaseOwner());
+    }
+
+    @Test
+    void expiredLeasesAreRecoveredAndForeignLeasesAreNotProcessed() {
+        WhatsappMessage vencido = mensajeArrendado("otro-nodo:1", ZonedDateTime.now().minusMinutes(5));
+        WhatsappMessage vigente = mensajeArrendado("otro-nodo:1", ZonedDateTime.now().plusMinutes(5));
+
+        // un lease ajeno vigente no se procesa aquí
+        assertThat(whatsappMessageProcessorService.processClaimed(clave(vigente))).isFalse();
+
+        List<ClaveMensaje> reclamados = whatsappMessageProcessorService.claimPending(100);
+        assertThat(reclamados).contains(clave(vencido)).doesNotContain(clave(vigente));
+        assertThat(whatsappMessageProcessorService.processClaimed(clave(vencido))).isTrue();
+
+        WhatsappMessage updated = whatsappMessageRepository.findById(vencido.getId()).orElseThrow();
+        assertThat(updated.getEstado()).isEqualTo(EstadoProcesamiento.COMPLETADO);
+        assertThat(updated.getLeaseOwner()).isNull();
+    }
+
+    @Test
+    void registrarFallo_retriesWithBackoffUntilTheMessageIsDiscarded() {
+        message = whatsappMessageProcessorService.recibir(user, "5491112345678", "gasto 4 Cafe");
+        ClaveMensaje clave = clave(message);
+        Long id = message.getId();
+
+        Optional<ZonedDateTime> proximo = whatsappMessageProcessorService.registrarFallo(clave, new IllegalStateException("db down"));
+        assertThat(proximo).isPresent();
+        assertThat(proximo.orElseThrow()).isAfter(ZonedDateTime.now().plusSeconds(10));
+        WhatsappMessage reintento = whatsappMessageRepository.findById(id).orElseThrow();
+        assertThat(reintento.getEstado()).isEqualTo(EstadoProcesamiento.REINTENTO);
+        assertThat(reintento.getIntentos()).isEqualTo(1);
+        assertThat(reintento.getErrorMensaje()).isEqualTo("IllegalStateException: db down");
+
+        // un reintento solo se reclama cuando vence
+        assertThat(whatsappMessageProcessorService.claimPending(100)).doesNotContain(clave);
+        reintento.setProximoIntento(ZonedDateTime.now().minusSeconds(1));
+        whatsappMessageRepository.saveAndFlush(reintento);
+        assertThat(whatsappMessageProcessorService.claimPending(100)).contains(clave);
+
+        for (int intento = 2; intento < 5; intento++) {
+            assertThat(whatsappMessageProcessorService.registrarFallo(clave, new IllegalStateException("db down"))).isPresent();
+        }
+        assertThat(whatsappMessageProcessorService.registrarFallo(clave, new IllegalStateException("db down"))).isEmpty();
+
+        WhatsappMessage descartado = whatsappMessageRepository.findById(id).orElseThrow();
+        assertThat(descartado.getEstado()).isEqualTo(EstadoProcesamiento.DESCARTADO);
+        assertThat(descartado.getIntentos()).isEqualTo(5);
+        assertThat(descartado.getProximoIntento()).isNull();
+        assertThat(descartado.getRespuestaBot()).isNotBlank();
+        assertThat(whatsappMessageProcessorService.claimPending(100)).doesNotContain(clave);
+    }
+
+    @Test
+    void reprocesarDescartados_replaysDeadLetters() {
+        WhatsappMessage wm = new WhatsappMessage();
+        wm.setMensajeOriginal("gasto 2.40 Cafe");
+        wm.setEstado(EstadoProcesamiento.DESCARTADO);
+        wm.setIntentos(5);
+        wm.setErrorMensaje("IllegalStateException: db down");
+        wm.setNumeroTelefonico("5491112345678");
+        wm.setFechaRecepcion(ZonedDateTime.now());
+        wm.setUsuario(user);
+        message = whatsappMessageRepository.saveAndFlush(wm);
+
+        assertThat(whatsappMessageProcessorService.reprocesarDescartados(10)).isEqualTo(1);
+
+        WhatsappMessage reactivado = whatsappMessageRepository.findById(message.getId()).orElseThrow();
+        assertThat(reactivado.getEstado()).isEqualTo(EstadoProcesamiento.RECIBIDO);
+        assertThat(reactivado.getIntentos()).isZero();
+        assertThat(reactivado.getErrorMensaje()).isNull();
+        assertThat(whatsappMessageProcessorService.processMessage(clave(message))).isTrue();
+        assertThat(whatsappMessageRepository.findById(message.getId()).orElseThrow().getEstado()).isEqualTo(EstadoProcesamiento.COMPLETADO);
+    }
+
+    @Test
+    void espera_doublesUpToTheMaximumWithJitter() {
+        Duration base = Duration.ofSeconds(30);
+        Duration maximo = Duration.ofMinutes(5);
+
+        assertThat(WhatsappMessageProcessorService.espera(1, base, maximo)).isBetween(Duration.ofSeconds(15), base);
+        assertThat(WhatsappMessageProcessorService.espera(3, base, maximo)).isBetween(Duration.ofSeconds(60), Duration.ofSeconds(120));
+        assertThat(WhatsappMessageProcessorService.espera(40, base, maximo)).isBetween(Duration.ofMinutes(2).plusSeconds(30), maximo);
+    }
+
+    private static ClaveMensaje clave(WhatsappMessage message) {
+        return new ClaveMensaje(message.getId(), message.getFechaRecepcion());
+    }
+
+    private WhatsappMessage mensajeArrendado(String owner, ZonedDateTime expira) {
+        WhatsappMessage wm = new WhatsappMessage();
+        wm.setMensajeOriginal("gasto 3.10 Cafe");
+        wm.setEstado(EstadoProcesamiento.PROCESANDO);
+        wm.setNumeroTelefonico("5491112345678");
+        wm.setFechaRecepcion(ZonedDateTime.now());
+        wm.setUsuario(user);
+        wm.setLeaseOwner(owner);
+        wm.setLeaseExpira(expira);
+        return whatsappMessageRepository.saveAndFlush(wm);
+    }
+
     @org.springframework.boot.test.context.TestConfiguration
     static class TestConfig {
 
@@ -0,0 +1,182 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.IntegrationTest;
+import finanzas.config.ApplicationProperties;
+import finanzas.domain.WhatsappMessage;
+import finanzas.domain.enumeration.EstadoProcesamiento;
+import finanzas.repository.WhatsappMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link WhatsappMessageRetentionJob}.
+ * <p>
+ * Not transactional: the job runs its DDL on its own connection, so the test data and partitions have to be committed.
+ */
+@IntegrationTest
+class WhatsappMessageRetentionJobIT {
+
+    private static final String ANTIGUA = "whatsapp_message_p200001";
+
+    private static final String CON_PENDIENTES = "whatsapp_message_p200002";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WhatsappMessageRepository whatsappMessageRepository;
+
+    @TempDir
+    private Path directorio;
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private WhatsappMessageRetentionJob job;
+
+    private final List<Long> mensajes = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        applicationProperties.getWhatsapp().getRetencion().setDirectorio(directorio.toString());
+        job = new WhatsappMessageRetentionJob(dataSource, new SimpleMeterRegistry(), applicationProperties);
+
+        ddl("create table " + ANTIGUA + " partition of whatsapp_message for values from ('2000-01-01') to ('2000-02-01')");
+        ddl("create table " + CON_PENDIENTES + " partition of whatsapp_message for values from ('2000-02-01') to ('2000-03-01')");
+    }
+
+    @AfterEach
+    void cleanup() {
+        mensajes.forEach(id -> whatsappMessageRepository.findById(id).ifPresent(whatsappMessageRepository::delete));
+        ddl("drop table if exists " + ANTIGUA + ", " + CON_PENDIENTES);
+    }
+
+    @Test
+    void archivesAndDropsPartitionsPastRetention() throws IOException {
+        guardar(ZonedDateTime.of(2000, 1, 15, 10, 0, 0, 0, ZoneOffset.UTC), EstadoProcesamiento.COMPLETADO, "wamid.retencion-1");
+
+        // la partición de febrero está vacía, así que también se archiva
+        assertThat(job.ejecutar()).isEqualTo(2);
+
+        Path archivo = directorio.resolve(ANTIGUA + ".csv.gz");
+        assertThat(archivo).exists();
+        assertThat(directorio.resolve(ANTIGUA + ".csv.gz.tmp")).doesNotExist();
+        List<String> lineas = leer(archivo);
+        assertThat(lineas).hasSize(2);
+        assertThat(lineas.get(0)).contains("mensaje_original", "provider_message_id");
+        assertThat(lineas.get(1)).contains("wamid.retencion-1");
+
+        assertThat(existe(ANTIGUA)).isFalse();
+        assertThat(whatsappMessageRepository.findIdByProviderMessageId("wamid.retencion-1")).isEmpty();
+    }
+
+    @Test
+    void keepsPartitionsWithNonTerminalMessages() {
+        // las particiones de prueba son del año 2000: se amplía la gracia para que sigan dentro de ella
+        applicationProperties.getWhatsapp().getRetencion().setMesesGracia(12 * 100);
+        Long reintento = guardar(
+            ZonedDateTime.of(2000, 2, 10, 10, 0, 0, 0, ZoneOffset.UTC),
+            EstadoProcesamiento.REINTENTO,
+            "wamid.retencion-2"
+        );
+        guardar(ZonedDateTime.of(2000, 2, 11, 10, 0, 0, 0, ZoneOffset.UTC), EstadoProcesamiento.COMPLETADO, null);
+
+        job.ejecutar();
+
+        assertThat(adjunta(CON_PENDIENTES)).isTrue();
+        assertThat(directorio.resolve(CON_PENDIENTES + ".csv.gz")).doesNotExist();
+        assertThat(whatsappMessageRepository.findById(reintento)).isPresent();
+        // su id de proveedor sigue registrado, así que una nueva entrega sigue siendo un duplicado
+        assertThat(whatsappMessageRepository.findIdByProviderMessageId("wamid.retencion-2")).contains(reintento);
+    }
+
+    @Test
+    void archivesPartitionsWithNonTerminalMessagesAfterTheGracePeriod() {
+        guardar(ZonedDateTime.of(2000, 2, 10, 10, 0, 0, 0, ZoneOffset.UTC), EstadoProcesamiento.DESCARTADO, "wamid.retencion-3");
+        // REQUIERE_INTERVENCION no es un estado no terminal: nada lo gestiona
+        guardar(ZonedDateTime.of(2000, 1, 10, 10, 0, 0, 0, ZoneOffset.UTC), EstadoProcesamiento.REQUIERE_INTERVENCION, null);
+
+        assertThat(job.ejecutar()).isEqualTo(2);
+
+        assertThat(existe(ANTIGUA)).isFalse();
+        assertThat(existe(CON_PENDIENTES)).isFalse();
+        assertThat(directorio.resolve(CON_PENDIENTES + ".csv.gz")).exists();
+        assertThat(whatsappMessageRepository.findIdByProviderMessageId("wamid.retencion-3")).isEmpty();
+    }
+
+    @Test
+    void createsTheComingMonthsPartitions() {
+        job.ejecutar();
+
+        YearMonth actual = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= new ApplicationProperties().getWhatsapp().getRetencion().getMesesAdelantados(); i++) {
+            YearMonth mes = actual.plusMonths(i);
+            assertThat(adjunta(String.format("whatsapp_message_p%04d%02d", mes.getYear(), mes.getMonthValue()))).isTrue();
+        }
+    }
+
+    private Long guardar(ZonedDateTime fechaRecepcion, EstadoProcesamiento estado, String providerMessageId) {
+        WhatsappMessage mensaje = new WhatsappMessage();
+        mensaje.setMensajeOriginal("gasto 10 cafe");
+        mensaje.setEstado(estado);
+        mensaje.setNumeroTelefonico("34600000000");
+        mensaje.setFechaRecepcion(fechaRecepcion);
+        mensaje.setProviderMessageId(providerMessageId);
+        Long id = whatsappMessageRepository.saveAndFlush(mensaje).getId();
+        mensajes.add(id);
+        return id;
+    }
+
+    private void ddl(String sql) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.execute(sql));
+    }
+
+    private boolean existe(String tabla) {
+        return jdbcTemplate.queryForObject("select to_regclass(?) is not null", Boolean.class, tabla);
+    }
+
+    private boolean adjunta(String tabla) {
+        return jdbcTemplate.queryForObject(
+            "select exists (select 1 from pg_inherits i where i.inhrelid = to_regclass(?) and i.inhparent = 'whatsapp_message'::regclass)",
+            Boolean.class,
+            tabla
+        );
+    }
+
+    private static List<String> leer(Path archivo) throws IOException {
+        try (
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new GZIPInputStream(Files.newInputStream(archivo)), StandardCharsets.UTF_8)
+            )
+        ) {
+            return reader.lines().toList();
+        }
+    }
+}
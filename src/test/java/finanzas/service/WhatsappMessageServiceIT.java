@@ -0,0 +1,130 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.Cuenta;
+import finanzas.domain.User;
+import finanzas.domain.WhatsappMessage;
+import finanzas.domain.enumeration.EstadoProcesamiento;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.CuentaRepository;
+import finanzas.repository.MovimientoRepository;
+import finanzas.repository.UserRepository;
+import finanzas.repository.WhatsappMessageRepository;
+import finanzas.repository.projection.ClaveMensaje;
+import finanzas.web.rest.dto.WhatsappMessageDTO;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link WhatsappMessageService}.
+ */
+@IntegrationTest
+@Transactional
+class WhatsappMessageServiceIT {
+
+    private static final String TELEFONO = "34600111222";
+
+    @Autowired
+    private WhatsappMessageService whatsappMessageService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CuentaRepository cuentaRepository;
+
+    @Autowired
+    private MovimientoRepository movimientoRepository;
+
+    @Autowired
+    private WhatsappMessageRepository whatsappMessageRepository;
+
+    @Autowired
+    private WhatsappMessageProcessorService whatsappMessageProcessorService;
+
+    @BeforeEach
+    void init() {
+        User user = new User();
+        user.setLogin("wa-service-user");
+        user.setPassword("a".repeat(60));
+        user.setActivated(true);
+        user.setEmail("wa-service@localhost");
+        user.setPhoneNumber(TELEFONO);
+        userRepository.saveAndFlush(user);
+
+        cuentaRepository.saveAndFlush(new Cuenta().nombre("PRINCIPAL").saldoInicial(BigDecimal.ZERO).usuario(user));
+    }
+
+    @Test
+    void multiMovementMessageCreatesEveryMovementInOneBatch() {
+        long movimientosAntes = movimientoRepository.count();
+
+        WhatsappMessageDTO resultado = whatsappMessageService.procesarMensajeWhatsApp(
+            TELEFONO,
+            "GASTO 10 CAFE PRINCIPAL\nGASTO 5 BUS PRINCIPAL; GASTO 2.50 CAFE PRINCIPAL"
+        );
+
+        assertThat(resultado.getEstado()).isEqualTo(EstadoProcesamiento.COMPLETADO);
+        assertThat(resultado.getTipoMovimiento()).isEqualTo(TipoMovimiento.GASTO);
+        assertThat(resultado.getMonto()).isEqualByComparingTo("17.50");
+        assertThat(resultado.getRespuestaBot()).startsWith("✅ 3 movimientos registrados");
+        assertThat(movimientoRepository.count()).isEqualTo(movimientosAntes + 3);
+    }
+
+    @Test
+    void redeliveryOfTheSameProviderMessageIdIsNotProcessedTwice() {
+        long movimientosAntes = movimientoRepository.count();
+
+        WhatsappMessageDTO primera = whatsappMessageService.procesarMensajeWhatsApp(TELEFONO, "GASTO 10 CAFE PRINCIPAL", "wamid.retry-1");
+        WhatsappMessageDTO reintento = whatsappMessageService.procesarMensajeWhatsApp(TELEFONO, "GASTO 10 CAFE PRINCIPAL", "wamid.retry-1");
+
+        assertThat(primera.getEstado()).isEqualTo(EstadoProcesamiento.COMPLETADO);
+        assertThat(reintento.getId()).isEqualTo(primera.getId());
+        assertThat(movimientoRepository.count()).isEqualTo(movimientosAntes + 1);
+    }
+
+    @Test
+    void messagesWithoutProviderIdAreAlwaysProcessed() {
+        long movimientosAntes = movimientoRepository.count();
+
+        whatsappMessageService.procesarMensajeWhatsApp(TELEFONO, "GASTO 10 CAFE PRINCIPAL");
+        whatsappMessageService.procesarMensajeWhatsApp(TELEFONO, "GASTO 10 CAFE PRINCIPAL");
+
+        assertThat(movimientoRepository.count()).isEqualTo(movimientosAntes + 2);
+    }
+
+    @Test
+    void registeredMessageIsStoredRawAndProcessedInBackground() {
+        long movimientosAntes = movimientoRepository.count();
+
+        WhatsappMessageDTO registrado = whatsappMessageService.registrarMensajeWhatsApp(TELEFONO, "GASTO 8 CAFE PRINCIPAL", "wamid.fast-1");
+
+        assertThat(registrado.getEstado()).isEqualTo(EstadoProcesamiento.RECIBIDO);
+        assertThat(movimientoRepository.count()).isEqualTo(movimientosAntes);
+
+        ClaveMensaje clave = new ClaveMensaje(registrado.getId(), registrado.getFechaRecepcion());
+        assertThat(whatsappMessageProcessorService.processMessage(clave)).isTrue();
+
+        WhatsappMessage procesado = whatsappMessageRepository.findById(registrado.getId()).orElseThrow();
+        assertThat(procesado.getEstado()).isEqualTo(EstadoProcesamiento.COMPLETADO);
+        assertThat(procesado.getUsuario().getLogin()).isEqualTo("wa-service-user");
+        assertThat(procesado.getRespuestaBot()).isNotBlank();
+        assertThat(movimientoRepository.count()).isEqualTo(movimientosAntes + 1);
+    }
+
+    @Test
+    void registeredMessageFromUnknownNumberEndsInError() {
+        WhatsappMessageDTO registrado = whatsappMessageService.registrarMensajeWhatsApp("999000", "GASTO 8 CAFE PRINCIPAL", null);
+
+        whatsappMessageProcessorService.processMessage(new ClaveMensaje(registrado.getId(), registrado.getFechaRecepcion()));
+
+        WhatsappMessage procesado = whatsappMessageRepository.findById(registrado.getId()).orElseThrow();
+        assertThat(procesado.getEstado()).isEqualTo(EstadoProcesamiento.ERROR);
+        assertThat(procesado.getUsuario()).isNull();
+    }
+}
@@ -0,0 +1,77 @@
+package finanzas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import finanzas.config.ApplicationProperties;
+import finanzas.service.event.WhatsappMessageProcessedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+class WhatsappReplyServiceTest {
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void sendsRepliesThroughTheSender() {
+        List<String> enviados = new ArrayList<>();
+        WhatsappReplyService service = new WhatsappReplyService(
+            proveedor((numero, texto) -> enviados.add(numero + ":" + texto)),
+            applicationProperties,
+            meterRegistry
+        );
+
+        service.onMessageProcessed(new WhatsappMessageProcessedEvent(1L, "34600000000", "Gasto registrado"));
+        service.onMessageProcessed(new WhatsappMessageProcessedEvent(2L, "34600000000", null));
+
+        assertThat(enviados).containsExactly("34600000000:Gasto registrado");
+        assertThat(meterRegistry.counter("whatsapp.respuestas", "resultado", "enviada").count()).isEqualTo(1);
+    }
+
+    @Test
+    void providerFailuresAreCountedNotThrown() {
+        WhatsappReplyService service = new WhatsappReplyService(
+            proveedor((numero, texto) -> {
+                throw new IllegalStateException("provider down");
+            }),
+            applicationProperties,
+            meterRegistry
+        );
+
+        assertThat(service.enviar("34600000000", "Gasto registrado")).isFalse();
+        assertThat(meterRegistry.counter("whatsapp.respuestas", "resultado", "fallida").count()).isEqualTo(1);
+    }
+
+    @Test
+    void withoutSenderRepliesAreCountedAndAckFastIsRefused() {
+        WhatsappReplyService service = new WhatsappReplyService(proveedor(null), applicationProperties, meterRegistry);
+
+        assertThat(service.enviar("34600000000", "Gasto registrado")).isFalse();
+        assertThat(meterRegistry.counter("whatsapp.respuestas", "resultado", "sin-proveedor").count()).isEqualTo(1);
+
+        applicationProperties.getWhatsapp().setAckFast(true);
+        assertThatThrownBy(() -> new WhatsappReplyService(proveedor(null), applicationProperties, meterRegistry)).isInstanceOf(
+            IllegalStateException.class
+        );
+    }
+
+    @Test
+    void masksPhoneNumbers() {
+        assertThat(WhatsappReplyService.enmascarar("34600001234")).isEqualTo("*******1234");
+        assertThat(WhatsappReplyService.enmascarar("12")).isEqualTo("12");
+    }
+
+    private static ObjectProvider<WhatsappSender> proveedor(WhatsappSender sender) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(
+            sender != null ? Map.<String, Object>of("sender", sender) : Map.of()
+        );
+        return beanFactory.getBeanProvider(WhatsappSender.class);
+    }
+}
@@ -16,7 +16,6 @@ import finanzas.domain.Movimiento;
 import finanzas.domain.enumeration.TipoMovimiento;
 import finanzas.repository.MovimientoRepository;
 import finanzas.repository.UserRepository;
-import finanzas.service.MovimientoService;
 import finanzas.service.dto.MovimientoDTO;
 import finanzas.service.mapper.MovimientoMapper;
 import jakarta.persistence.EntityManager;
@@ -25,19 +24,15 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -85,15 +80,9 @@ class MovimientoResourceIT {
     @Autowired
     private UserRepository userRepository;
 
-    @Mock
-    private MovimientoRepository movimientoRepositoryMock;
-
     @Autowired
     private MovimientoMapper movimientoMapper;
 
-    @Mock
-    private MovimientoService movimientoServiceMock;
-
     @Autowired
     private EntityManager em;
 
@@ -262,7 +251,8 @@ class MovimientoResourceIT {
     @Test
     @Transactional
     void getAllMovimientos() throws Exception {
-        // Initialize the database
+        // Initialize the database: the list only returns movimientos of the current user
+        movimiento.setUsuario(userRepository.findOneByLogin("user").orElseThrow());
         insertedMovimiento = movimientoRepository.saveAndFlush(movimiento);
 
         // Get all the movimientoList
@@ -279,21 +269,155 @@ class MovimientoResourceIT {
             .andExpect(jsonPath("$.[*].descripcion").value(hasItem(DEFAULT_DESCRIPCION)));
     }
 
-    @SuppressWarnings({ "unchecked" })
-    void getAllMovimientosWithEagerRelationshipsIsEnabled() throws Exception {
-        when(movimientoServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
+    @Test
+    @Transactional
+    void getAllMovimientosIsScopedToCurrentUserAndPaginatedByCursor() throws Exception {
+        finanzas.domain.User user = userRepository.findOneByLogin("user").orElseThrow();
+        finanzas.domain.User admin = userRepository.findOneByLogin("admin").orElseThrow();
+        Movimiento older = createEntity().fechaMovimiento(DEFAULT_FECHA_MOVIMIENTO.plusDays(1));
+        older.setUsuario(user);
+        Movimiento newer = createEntity().fechaMovimiento(DEFAULT_FECHA_MOVIMIENTO.plusDays(2));
+        newer.setUsuario(user);
+        Movimiento ajeno = createEntity().fechaMovimiento(DEFAULT_FECHA_MOVIMIENTO.plusDays(3));
+        ajeno.setUsuario(admin);
+        movimientoRepository.saveAndFlush(older);
+        movimientoRepository.saveAndFlush(newer);
+        movimientoRepository.saveAndFlush(ajeno);
+
+        String hasta = DEFAULT_FECHA_MOVIMIENTO.plusDays(10).toString();
+        String next = restMovimientoMockMvc
+            .perform(get(ENTITY_API_URL).param("size", "1").param("hasta", hasta))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(newer.getId().intValue()))
+            .andExpect(header().exists("X-Next-Cursor"))
+            .andReturn()
+            .getResponse()
+            .getHeader("X-Next-Cursor");
+
+        restMovimientoMockMvc
+            .perform(get(ENTITY_API_URL).param("size", "1").param("hasta", hasta).param("cursor", next))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(older.getId().intValue()))
+            .andExpect(jsonPath("$.[*].id").value(org.hamcrest.Matchers.not(hasItem(ajeno.getId().intValue()))));
+    }
+
+    @Test
+    @Transactional
+    void getAllMovimientosWithInvalidCursor() throws Exception {
+        restMovimientoMockMvc.perform(get(ENTITY_API_URL).param("cursor", "not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void searchMovimientosMatchesDescripcionOfCurrentUserOnly() throws Exception {
+        finanzas.domain.User user = userRepository.findOneByLogin("user").orElseThrow();
+        finanzas.domain.User admin = userRepository.findOneByLogin("admin").orElseThrow();
+        Movimiento viaje = createEntity().fechaMovimiento(DEFAULT_FECHA_MOVIMIENTO.plusDays(1)).descripcion("Uber trip to the airport");
+        viaje.setUsuario(user);
+        Movimiento cena = createEntity().fechaMovimiento(DEFAULT_FECHA_MOVIMIENTO.plusDays(2)).descripcion("UBER EATS cena");
+        cena.setUsuario(user);
+        Movimiento cafe = createEntity().fechaMovimiento(DEFAULT_FECHA_MOVIMIENTO.plusDays(3)).descripcion("Cafetería de la esquina");
+        cafe.setUsuario(user);
+        Movimiento ajeno = createEntity().fechaMovimiento(DEFAULT_FECHA_MOVIMIENTO.plusDays(4)).descripcion("Uber");
+        ajeno.setUsuario(admin);
+        movimientoRepository.saveAndFlush(viaje);
+        movimientoRepository.saveAndFlush(cena);
+        movimientoRepository.saveAndFlush(cafe);
+        movimientoRepository.saveAndFlush(ajeno);
+
+        String hasta = DEFAULT_FECHA_MOVIMIENTO.plusDays(10).toString();
+        String next = restMovimientoMockMvc
+            .perform(get(ENTITY_API_URL + "/search").param("q", "uber").param("hasta", hasta).param("size", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(cena.getId().intValue()))
+            .andExpect(header().exists("X-Next-Cursor"))
+            .andReturn()
+            .getResponse()
+            .getHeader("X-Next-Cursor");
+
+        restMovimientoMockMvc
+            .perform(get(ENTITY_API_URL + "/search").param("q", "uber").param("hasta", hasta).param("cursor", next))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(viaje.getId().intValue()))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        // Stemming: "trips" finds "trip"; trigram similarity: the unaccented, misspelt word still matches
+        restMovimientoMockMvc
+            .perform(get(ENTITY_API_URL + "/search").param("q", "trips").param("hasta", hasta))
+            .andExpect(jsonPath("$.[*].id").value(org.hamcrest.Matchers.contains(viaje.getId().intValue())));
+        restMovimientoMockMvc
+            .perform(get(ENTITY_API_URL + "/search").param("q", "cafeteria").param("hasta", hasta))
+            .andExpect(jsonPath("$.[*].id").value(org.hamcrest.Matchers.contains(cafe.getId().intValue())));
+        // Substring of a word
+        restMovimientoMockMvc
+            .perform(get(ENTITY_API_URL + "/search").param("q", "squin").param("hasta", hasta))
+            .andExpect(jsonPath("$.[*].id").value(org.hamcrest.Matchers.contains(cafe.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void searchMovimientosRequiresText() throws Exception {
+        restMovimientoMockMvc.perform(get(ENTITY_API_URL + "/search").param("q", "  ")).andExpect(status().isBadRequest());
+        restMovimientoMockMvc.perform(get(ENTITY_API_URL + "/search").param("q", "x".repeat(101))).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void importMovimientosFromCsvReportsInvalidRows() throws Exception {
+        finanzas.domain.User user = userRepository.findOneByLogin("user").orElseThrow();
+        long movimientosAntes = movimientoRepository.count();
+        String csv =
+            "fecha;tipo;monto;descripcion\n" +
+            "2024-01-05;gasto;12.50;\"Cafe; con leche\"\n" +
+            "2024-01-06;INGRESO;1000;Nomina\n" +
+            "2024-01-07;regalo;5;tipo invalido\n" +
+            "2024-01-08;gasto;-3;monto invalido\n";
 
-        restMovimientoMockMvc.perform(get(ENTITY_API_URL + "?eagerload=true")).andExpect(status().isOk());
+        restMovimientoMockMvc
+            .perform(post(ENTITY_API_URL + "/import").contentType("text/csv").content(csv))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.filas").value(4))
+            .andExpect(jsonPath("$.importados").value(2))
+            .andExpect(jsonPath("$.rechazados").value(2))
+            .andExpect(jsonPath("$.errores[0].fila").value(3))
+            .andExpect(jsonPath("$.errores[1].fila").value(4));
 
-        verify(movimientoServiceMock, times(1)).findAllWithEagerRelationships(any());
+        assertThat(movimientoRepository.count()).isEqualTo(movimientosAntes + 2);
+        assertThat(movimientoRepository.findAll())
+            .filteredOn(m -> "Cafe; con leche".equals(m.getDescripcion()))
+            .singleElement()
+            .satisfies(m -> assertThat(m.getUsuario().getId()).isEqualTo(user.getId()));
     }
 
-    @SuppressWarnings({ "unchecked" })
-    void getAllMovimientosWithEagerRelationshipsIsNotEnabled() throws Exception {
-        when(movimientoServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
+    @Test
+    @Transactional
+    void importMovimientosFromJsonArray() throws Exception {
+        long movimientosAntes = movimientoRepository.count();
+        String json =
+            "[{\"fecha\":\"2024-02-01\",\"tipo\":\"GASTO\",\"monto\":20.5}," +
+            "{\"fecha\":\"2024-02-02T10:00:00Z\",\"tipo\":\"INGRESO\",\"monto\":\"15\",\"categoria\":\"no-existe\"}]";
+
+        restMovimientoMockMvc
+            .perform(post(ENTITY_API_URL + "/import").contentType(MediaType.APPLICATION_JSON).content(json))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.importados").value(1))
+            .andExpect(jsonPath("$.errores[0].fila").value(2));
+
+        assertThat(movimientoRepository.count()).isEqualTo(movimientosAntes + 1);
+    }
 
-        restMovimientoMockMvc.perform(get(ENTITY_API_URL + "?eagerload=false")).andExpect(status().isOk());
-        verify(movimientoRepositoryMock, times(1)).findAll(any(Pageable.class));
+    @Test
+    @Transactional
+    void importMovimientosRejectsMalformedFiles() throws Exception {
+        restMovimientoMockMvc
+            .perform(post(ENTITY_API_URL + "/import").contentType("text/csv").content("columna;otra\n1;2\n"))
+            .andExpect(status().isBadRequest());
+        restMovimientoMockMvc
+            .perform(post(ENTITY_API_URL + "/import").contentType(MediaType.APPLICATION_JSON).content("{}"))
+            .andExpect(status().isBadRequest());
     }
 
     @Test
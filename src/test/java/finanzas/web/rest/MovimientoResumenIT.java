@@ -8,6 +8,7 @@ import finanzas.IntegrationTest;
 import finanzas.domain.Movimiento;
 import finanzas.domain.enumeration.TipoMovimiento;
 import finanzas.repository.MovimientoRepository;
+import finanzas.repository.UserRepository;
 import java.time.ZonedDateTime;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,6 +27,9 @@ class MovimientoResumenIT {
     @Autowired
     private MovimientoRepository movimientoRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @Autowired
     private MockMvc restMockMvc;
 
@@ -42,20 +46,34 @@ class MovimientoResumenIT {
     @Test
     @Transactional
     void resumenCalculadoCorrectamente() throws Exception {
+        // @WithMockUser authenticates as the seeded "user" account; the summary only covers its movimientos
+        finanzas.domain.User user = userRepository.findOneByLogin("user").orElseThrow();
+        finanzas.domain.User admin = userRepository.findOneByLogin("admin").orElseThrow();
+
         Movimiento m1 = new Movimiento();
+        m1.setUsuario(user);
         m1.setTipo(TipoMovimiento.INGRESO);
         m1.setMonto(new java.math.BigDecimal("1000"));
         m1.setFechaMovimiento(ZonedDateTime.now().minusDays(1));
         m1.setFechaRegistro(ZonedDateTime.now());
 
         Movimiento m2 = new Movimiento();
+        m2.setUsuario(user);
         m2.setTipo(TipoMovimiento.GASTO);
         m2.setMonto(new java.math.BigDecimal("400"));
         m2.setFechaMovimiento(ZonedDateTime.now().minusDays(1));
         m2.setFechaRegistro(ZonedDateTime.now());
 
+        Movimiento ajeno = new Movimiento();
+        ajeno.setUsuario(admin);
+        ajeno.setTipo(TipoMovimiento.INGRESO);
+        ajeno.setMonto(new java.math.BigDecimal("5000"));
+        ajeno.setFechaMovimiento(ZonedDateTime.now().minusDays(1));
+        ajeno.setFechaRegistro(ZonedDateTime.now());
+
         movimientoRepository.saveAndFlush(m1);
         movimientoRepository.saveAndFlush(m2);
+        movimientoRepository.saveAndFlush(ajeno);
 
         restMockMvc
             .perform(get("/api/movimientos/resumen"))
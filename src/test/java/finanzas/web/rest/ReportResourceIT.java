@@ -0,0 +1,180 @@
+package finanzas.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import finanzas.IntegrationTest;
+import finanzas.domain.Categoria;
+import finanzas.domain.Cuenta;
+import finanzas.domain.Movimiento;
+import finanzas.domain.User;
+import finanzas.domain.enumeration.TipoMovimiento;
+import finanzas.repository.projection.TotalesAgrupados;
+import finanzas.repository.projection.TotalesMovimiento;
+import finanzas.repository.projection.TotalesPeriodo;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the aggregated reports of the {@link ReportResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(ReportResourceIT.LOGIN)
+@Transactional
+class ReportResourceIT {
+
+    static final String LOGIN = "report-resource-it";
+
+    private static final String API_URL = "/api/reportes";
+
+    private static final ZonedDateTime DESDE = ZonedDateTime.of(2026, 3, 5, 12, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime HASTA = ZonedDateTime.of(2026, 4, 20, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private ObjectMapper om;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    private Cuenta cuentaA;
+
+    private Cuenta cuentaB;
+
+    private Categoria categoriaA;
+
+    private Categoria categoriaB;
+
+    @BeforeEach
+    void initTest() {
+        User usuario = usuario(LOGIN);
+        cuentaA = cuenta(usuario);
+        cuentaB = cuenta(usuario);
+        categoriaA = categoria(usuario);
+        categoriaB = categoria(usuario);
+
+        // dentro del rango, incluidos los dos extremos exactos
+        movimiento(usuario, TipoMovimiento.INGRESO, "1000.00", DESDE, cuentaA, categoriaA);
+        movimiento(usuario, TipoMovimiento.GASTO, "250.50", DESDE.plusDays(10), cuentaA, categoriaB);
+        movimiento(usuario, TipoMovimiento.GASTO, "100.00", HASTA, cuentaB, categoriaB);
+        // fuera del rango por un segundo
+        movimiento(usuario, TipoMovimiento.GASTO, "70.00", DESDE.minusSeconds(1), cuentaA, categoriaB);
+        movimiento(usuario, TipoMovimiento.INGRESO, "30.00", HASTA.plusSeconds(1), cuentaB, categoriaA);
+
+        // otro usuario, dentro del rango: no debe aparecer en ningún informe
+        User ajeno = usuario(LOGIN + "-ajeno");
+        movimiento(ajeno, TipoMovimiento.INGRESO, "5000.00", DESDE.plusDays(5), cuenta(ajeno), categoria(ajeno));
+        em.flush();
+    }
+
+    @Test
+    void totalesCoverOnlyTheCurrentUser() throws Exception {
+        TotalesMovimiento totales = leer(get(API_URL + "/totales"), new TypeReference<>() {});
+
+        assertThat(totales.ingresos()).isEqualByComparingTo("1030.00");
+        assertThat(totales.gastos()).isEqualByComparingTo("420.50");
+    }
+
+    @Test
+    void totalesPorCategoriaWithinAnInclusiveRange() throws Exception {
+        Map<Long, TotalesAgrupados> porCategoria = porId(leer(conRango(API_URL + "/categorias"), new TypeReference<>() {}));
+
+        assertThat(porCategoria).containsOnlyKeys(categoriaA.getId(), categoriaB.getId());
+        assertThat(porCategoria.get(categoriaA.getId()).ingresos()).isEqualByComparingTo("1000.00");
+        assertThat(porCategoria.get(categoriaA.getId()).gastos()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(porCategoria.get(categoriaB.getId()).ingresos()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(porCategoria.get(categoriaB.getId()).gastos()).isEqualByComparingTo("350.50");
+    }
+
+    @Test
+    void totalesPorCuentaWithinAnInclusiveRange() throws Exception {
+        Map<Long, TotalesAgrupados> porCuenta = porId(leer(conRango(API_URL + "/cuentas"), new TypeReference<>() {}));
+
+        assertThat(porCuenta).containsOnlyKeys(cuentaA.getId(), cuentaB.getId());
+        assertThat(porCuenta.get(cuentaA.getId()).ingresos()).isEqualByComparingTo("1000.00");
+        assertThat(porCuenta.get(cuentaA.getId()).gastos()).isEqualByComparingTo("250.50");
+        assertThat(porCuenta.get(cuentaB.getId()).ingresos()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(porCuenta.get(cuentaB.getId()).gastos()).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void totalesPorMesWithinAnInclusiveRange() throws Exception {
+        List<TotalesPeriodo> meses = leer(conRango(API_URL + "/meses"), new TypeReference<>() {});
+
+        assertThat(meses).extracting(TotalesPeriodo::anio, TotalesPeriodo::mes).containsExactly(tuple(2026, 3), tuple(2026, 4));
+        assertThat(meses.get(0).ingresos()).isEqualByComparingTo("1000.00");
+        assertThat(meses.get(0).gastos()).isEqualByComparingTo("250.50");
+        assertThat(meses.get(1).ingresos()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(meses.get(1).gastos()).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void openRangeIncludesEveryMovimientoOfTheCurrentUser() throws Exception {
+        Map<Long, TotalesAgrupados> porCuenta = porId(leer(get(API_URL + "/cuentas"), new TypeReference<>() {}));
+
+        assertThat(porCuenta).containsOnlyKeys(cuentaA.getId(), cuentaB.getId());
+        assertThat(porCuenta.get(cuentaA.getId()).gastos()).isEqualByComparingTo("320.50");
+        assertThat(porCuenta.get(cuentaB.getId()).ingresos()).isEqualByComparingTo("30.00");
+    }
+
+    private static MockHttpServletRequestBuilder conRango(String url) {
+        return get(url).param("from", DESDE.toString()).param("to", HASTA.toString());
+    }
+
+    private <T> T leer(MockHttpServletRequestBuilder peticion, TypeReference<T> tipo) throws Exception {
+        String json = restMockMvc.perform(peticion).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return om.readValue(json, tipo);
+    }
+
+    private static Map<Long, TotalesAgrupados> porId(List<TotalesAgrupados> totales) {
+        return totales.stream().collect(Collectors.toMap(TotalesAgrupados::id, Function.identity()));
+    }
+
+    private User usuario(String login) {
+        User usuario = UserResourceIT.createEntity();
+        usuario.setLogin(login);
+        em.persist(usuario);
+        return usuario;
+    }
+
+    private Cuenta cuenta(User usuario) {
+        Cuenta cuenta = CuentaResourceIT.createEntity().usuario(usuario);
+        em.persist(cuenta);
+        return cuenta;
+    }
+
+    private Categoria categoria(User usuario) {
+        Categoria categoria = CategoriaResourceIT.createEntity().usuario(usuario);
+        em.persist(categoria);
+        return categoria;
+    }
+
+    private void movimiento(User usuario, TipoMovimiento tipo, String monto, ZonedDateTime fecha, Cuenta cuenta, Categoria categoria) {
+        Movimiento movimiento = new Movimiento().tipo(tipo).monto(new BigDecimal(monto)).cuenta(cuenta).categoria(categoria);
+        movimiento.setUsuario(usuario);
+        movimiento.setFechaMovimiento(fecha);
+        movimiento.setFechaRegistro(fecha);
+        em.persist(movimiento);
+    }
+}
@@ -0,0 +1,90 @@
+package finanzas.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import finanzas.IntegrationTest;
+import finanzas.repository.WhatsappMessageRepository;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the rate limit of the WhatsApp webhooks ({@link WhatsappWebhookResource} and
+ * {@link WhatsappController}), with a per-sender bucket of two messages that refills one message per minute.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@Transactional
+@TestPropertySource(
+    properties = {
+        "application.whatsapp.rate-limit.remitente.capacidad=2",
+        "application.whatsapp.rate-limit.remitente.por-minuto=1",
+    }
+)
+class WhatsappRateLimitIT {
+
+    @Autowired
+    private WhatsappMessageRepository whatsappMessageRepository;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    @Test
+    void rejectsASenderOverItsLimitWithRetryAfter() throws Exception {
+        // números desconocidos: el webhook los confirma con 200 sin guardar nada
+        String numero = "whatsapp:+5491100000001";
+        webhook(numero).andExpect(status().isOk());
+        webhook(numero).andExpect(status().isOk());
+
+        String retryAfter = webhook(numero)
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.RETRY_AFTER);
+        assertThat(Long.parseLong(retryAfter)).isBetween(1L, 60L);
+
+        // el mismo número en otro formato comparte la cubeta; otro remitente tiene la suya
+        webhook("+54 9 11 0000-0001").andExpect(status().isTooManyRequests());
+        webhook("whatsapp:+5491100000002").andExpect(status().isOk());
+    }
+
+    @Test
+    void bothWebhooksShareTheLimitAndRejectBeforeStoringTheMessage() throws Exception {
+        String numero = "+5491100000003";
+        webhook(numero).andExpect(status().isOk());
+        webhook(numero).andExpect(status().isOk());
+        long mensajes = whatsappMessageRepository.count();
+
+        restMockMvc
+            .perform(
+                post("/api/webhook/whatsapp")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"from\":\"" + numero + "\",\"text\":\"GASTO 10 Comida\",\"message_id\":\"" + UUID.randomUUID() + "\"}")
+            )
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+        assertThat(whatsappMessageRepository.count()).isEqualTo(mensajes);
+    }
+
+    private ResultActions webhook(String from) throws Exception {
+        return restMockMvc.perform(
+            post("/api/whatsapp-webhook")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"from\":\"" + from + "\",\"body\":\"GASTO 10 Comida\",\"messageId\":\"" + UUID.randomUUID() + "\"}")
+        );
+    }
+}
@@ -0,0 +1,88 @@
+package finanzas.web.rest.admin;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import finanzas.IntegrationTest;
+import finanzas.domain.WhatsappMessage;
+import finanzas.domain.enumeration.EstadoProcesamiento;
+import finanzas.repository.WhatsappMessageRepository;
+import finanzas.security.AuthoritiesConstants;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link WhatsappAdminResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+class WhatsappAdminResourceIT {
+
+    private static final String MESSAGES_URL = "/api/admin/whatsapp/messages";
+
+    @Autowired
+    private WhatsappMessageRepository whatsappMessageRepository;
+
+    @Autowired
+    private MockMvc restWhatsappAdminMockMvc;
+
+    @Test
+    @Transactional
+    void getAllMessagesIsPaginatedByCursor() throws Exception {
+        // dentro de dos meses, por delante de cualquier otro mensaje de la base de datos
+        ZonedDateTime base = YearMonth.now(ZoneOffset.UTC).plusMonths(2).atDay(1).atStartOfDay(ZoneOffset.UTC);
+        WhatsappMessage anterior = whatsappMessageRepository.saveAndFlush(mensaje(base));
+        WhatsappMessage medio = whatsappMessageRepository.saveAndFlush(mensaje(base.plusMinutes(1)));
+        WhatsappMessage reciente = whatsappMessageRepository.saveAndFlush(mensaje(base.plusMinutes(2)));
+
+        String next = restWhatsappAdminMockMvc
+            .perform(get(MESSAGES_URL).param("size", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(reciente.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(medio.getId().intValue()))
+            .andExpect(header().exists("X-Next-Cursor"))
+            .andExpect(header().string("Link", containsString("rel=\"next\"")))
+            .andReturn()
+            .getResponse()
+            .getHeader("X-Next-Cursor");
+
+        restWhatsappAdminMockMvc
+            .perform(get(MESSAGES_URL).param("size", "2").param("cursor", next))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(anterior.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getAllMessagesWithInvalidCursor() throws Exception {
+        restWhatsappAdminMockMvc.perform(get(MESSAGES_URL).param("cursor", "not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    void getAllMessagesRequiresAdmin() throws Exception {
+        restWhatsappAdminMockMvc.perform(get(MESSAGES_URL)).andExpect(status().isForbidden());
+    }
+
+    private static WhatsappMessage mensaje(ZonedDateTime fechaRecepcion) {
+        WhatsappMessage mensaje = new WhatsappMessage();
+        mensaje.setMensajeOriginal("gasto 10 cafe");
+        mensaje.setEstado(EstadoProcesamiento.COMPLETADO);
+        mensaje.setNumeroTelefonico("34600000000");
+        mensaje.setFechaRecepcion(fechaRecepcion);
+        return mensaje;
+    }
+}